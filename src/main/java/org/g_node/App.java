@@ -20,7 +20,12 @@ import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.log4j.Logger;
+import org.g_node.mergers.BatchCliController;
+import org.g_node.mergers.BuildCliController;
+import org.g_node.mergers.CompactCliController;
 import org.g_node.mergers.LktCliController;
+import org.g_node.mergers.ServeCliController;
+import org.g_node.mergers.WatchCliController;
 import org.g_node.micro.commons.AppUtils;
 import org.g_node.micro.commons.CliToolController;
 
@@ -45,6 +50,11 @@ public class App {
             new HashMap<String, CliToolController>() {
                 {
                     put("lkt", new LktCliController());
+                    put("compact", new CompactCliController());
+                    put("batch", new BatchCliController());
+                    put("watch", new WatchCliController());
+                    put("serve", new ServeCliController());
+                    put("build", new BuildCliController());
                 }
             }
     );
@@ -0,0 +1,391 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.mergers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.log4j.Logger;
+import org.g_node.micro.commons.CliToolController;
+import org.g_node.srv.CliOptionService;
+import org.g_node.srv.CtrlCheckService;
+import org.g_node.srv.RdfServiceSwitch;
+
+/**
+ * Class handling validating commandline input and handling the scheduling of a manifest of LKT merge jobs.
+ *
+ * Each non empty line of a manifest, that does not start with '#', describes one merge job using the
+ * commandline options of the LKT merge tool, e.g.
+ * <pre>
+ * # main file, merge files, output file and format of each job
+ * -m db1.ttl -i updates/db1/ -o db1_merged.ttl -f TTL
+ * -m db2.nt -i updates/db2/*.nt -s
+ * </pre>
+ * Jobs sharing a main or output file with another job are grouped, the jobs of a group run one after the
+ * other in manifest order, different groups run concurrently on a bounded number of threads. If a job fails,
+ * the remaining jobs of its group are skipped. Options are separated by whitespace, file names containing
+ * whitespace are not supported.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class BatchCliController implements CliToolController {
+    /**
+     * Access to the main LOGGER.
+     */
+    private static final Logger LOGGER = Logger.getLogger(BatchCliController.class.getName());
+    /**
+     * Controller validating and running the individual merge jobs.
+     */
+    private final LktCliController merger = new LktCliController();
+
+    /**
+     * Method returning the commandline options of the batch merge tool.
+     *
+     * Option manifest: Manifest file containing one LKT merge job per line.
+     * Commandline option shorthands are "-i" and "-manifest". This option will always be "required".
+     *
+     * Option threads: Maximum number of jobs running concurrently.
+     * Commandline option shorthands are "-p" and "-threads". This option is optional.
+     *
+     * @return Available {@link CommandLine} {@link Options}.
+     */
+    public final Options options() {
+
+        final Options options = new Options();
+
+        final Option opHelp = CliOptionService.getHelpOption("");
+
+        final String manifestDesc = String.join("",
+                "Manifest file containing one merge job per line using the options of the 'lkt' tool, ",
+                "e.g. '-m main.ttl -i updates/ -o out.ttl -f TTL'. Empty lines and lines starting with '#' ",
+                "are ignored. Jobs sharing a main or output file run in manifest order.");
+
+        final Option opManifest = Option.builder("i")
+                .longOpt("manifest")
+                .desc(manifestDesc)
+                .required()
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final Option opThreads = Option.builder("p")
+                .longOpt("threads")
+                .desc(String.join("", "Optional: maximum number of jobs running concurrently, ",
+                        "default is the number of available processors."))
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        options.addOption(opHelp);
+        options.addOption(opManifest);
+        options.addOption(opThreads);
+
+        return options;
+    }
+
+    /**
+     * Method validates the commandline input and all jobs of the manifest. When all checks pass, the jobs are
+     * scheduled by their main and output files and a summary of the status and running time of every job is logged.
+     *
+     * @param cmd User provided {@link CommandLine} input containing the manifest file and the number of threads.
+     */
+    public final void run(final CommandLine cmd) {
+
+        final String manifestFile = cmd.getOptionValue("i");
+        if (!CtrlCheckService.isExistingFile(manifestFile)) {
+            return;
+        }
+
+        final String threads = cmd.getOptionValue("p", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        if (!CtrlCheckService.isPositiveIntCliArgValue(threads, "-p/-threads")) {
+            return;
+        }
+
+        final List<BatchJob> jobs = this.readManifest(manifestFile);
+        if (jobs == null) {
+            return;
+        }
+        if (jobs.isEmpty()) {
+            BatchCliController.LOGGER.error(String.join("", "Manifest '", manifestFile, "' contains no jobs."));
+            return;
+        }
+
+        final long start = System.nanoTime();
+        this.runJobs(jobs, Integer.parseInt(threads));
+        BatchCliController.logSummary(jobs, System.nanoTime() - start);
+    }
+
+    /**
+     * Method reads and parses all jobs of a manifest file.
+     * @param manifestFile Path and filename of the manifest file.
+     * @return Jobs in manifest order, null if the manifest could not be read or contains an invalid job.
+     */
+    private List<BatchJob> readManifest(final String manifestFile) {
+        final List<String> lines;
+        try {
+            lines = Files.readAllLines(Paths.get(manifestFile), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            BatchCliController.LOGGER.error(
+                    String.join("", "Could not read manifest '", manifestFile, "': ", e.getMessage())
+            );
+            return null;
+        }
+
+        final Options jobOptions = this.merger.options();
+        final List<BatchJob> jobs = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            final String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                final CommandLine jobCmd = new DefaultParser().parse(jobOptions, line.split("\\s+"), false);
+                final String mainFile = jobCmd.getOptionValue("m");
+                final String outputFormat = LktCliController.getOutputFormat(jobCmd);
+                String outputFile = jobCmd.getOptionValue("o", mainFile);
+                if (RdfServiceSwitch.RDF_FORMAT_EXTENSION.containsKey(outputFormat)) {
+                    outputFile = LktCliController.getOutputFileName(outputFile, outputFormat);
+                }
+                jobs.add(new BatchJob(i + 1, BatchCliController.normalize(mainFile),
+                        BatchCliController.normalize(outputFile), jobCmd));
+            } catch (ParseException | InvalidPathException e) {
+                BatchCliController.LOGGER.error(
+                        String.join("", "Invalid job in line ", String.valueOf(i + 1), " of manifest '",
+                                manifestFile, "': ", e.getMessage())
+                );
+                return null;
+            }
+        }
+
+        return jobs;
+    }
+
+    /**
+     * Method returns the normalized absolute path of a file.
+     * @param file Path of the file.
+     * @return Normalized absolute path.
+     */
+    private static String normalize(final String file) {
+        return Paths.get(file).toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Method groups jobs sharing files. Two jobs are in the same group, if any main or output file of one job
+     * is a main or output file of the other job, or if both share a group with a third job.
+     * @param jobs Jobs in manifest order.
+     * @return Groups in the order of their first jobs, the jobs of each group in manifest order.
+     */
+    private static Collection<List<BatchJob>> groupJobs(final List<BatchJob> jobs) {
+        final int[] parent = new int[jobs.size()];
+        final Map<String, Integer> firstJobOfFile = new HashMap<>();
+        for (int i = 0; i < jobs.size(); i++) {
+            parent[i] = i;
+            for (final String file : Arrays.asList(jobs.get(i).mainKey, jobs.get(i).outputKey)) {
+                final Integer first = firstJobOfFile.putIfAbsent(file, i);
+                if (first != null) {
+                    parent[BatchCliController.findRoot(parent, i)] = BatchCliController.findRoot(parent, first);
+                }
+            }
+        }
+
+        final Map<Integer, List<BatchJob>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < jobs.size(); i++) {
+            groups.computeIfAbsent(BatchCliController.findRoot(parent, i), k -> new ArrayList<>()).add(jobs.get(i));
+        }
+        return groups.values();
+    }
+
+    /**
+     * Method returns the representative job of the group of a job and shortens the path to it.
+     * @param parent Index of the parent job of every job, representatives are their own parents.
+     * @param job Index of the job.
+     * @return Index of the representative job.
+     */
+    private static int findRoot(final int[] parent, final int job) {
+        int root = job;
+        while (parent[root] != root) {
+            parent[root] = parent[parent[root]];
+            root = parent[root];
+        }
+        return root;
+    }
+
+    /**
+     * Method runs all jobs on a bounded number of threads. Jobs are grouped by their main and output files,
+     * the jobs of a group run one after the other on the same thread, different groups run concurrently.
+     * @param jobs Jobs in manifest order.
+     * @param threads Maximum number of concurrently running jobs.
+     */
+    private void runJobs(final List<BatchJob> jobs, final int threads) {
+        final Collection<List<BatchJob>> groups = BatchCliController.groupJobs(jobs);
+
+        BatchCliController.LOGGER.info(
+                String.join("", "Running ", String.valueOf(jobs.size()), " jobs in ", String.valueOf(groups.size()),
+                        " groups of shared files using ", String.valueOf(Math.min(threads, groups.size())), " threads.")
+        );
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, groups.size()));
+        try {
+            final List<Future<?>> running = new ArrayList<>(groups.size());
+            groups.forEach(group -> running.add(executor.submit(() -> this.runGroup(group))));
+            for (final Future<?> groupRun : running) {
+                groupRun.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            BatchCliController.LOGGER.error("Batch merge was interrupted.");
+        } catch (ExecutionException e) {
+            BatchCliController.LOGGER.error(String.join("", "Batch merge failed: ", String.valueOf(e.getCause())));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Method runs the jobs of a single group in manifest order. After a job has failed,
+     * the remaining jobs are skipped.
+     * @param group Jobs sharing main or output files in manifest order.
+     */
+    private void runGroup(final List<BatchJob> group) {
+        boolean failed = false;
+        for (final BatchJob job : group) {
+            if (failed) {
+                job.status = BatchJob.SKIPPED;
+                continue;
+            }
+            BatchCliController.LOGGER.info(
+                    String.join("", "Starting job of manifest line ", String.valueOf(job.line), ", main file '",
+                            job.mainKey, "'")
+            );
+            final long start = System.nanoTime();
+            boolean success;
+            try {
+                success = this.merger.merge(job.cmd);
+            } catch (RuntimeException e) {
+                BatchCliController.LOGGER.error(
+                        String.join("", "Job of manifest line ", String.valueOf(job.line), " failed: ",
+                                String.valueOf(e))
+                );
+                success = false;
+            }
+            job.nanos = System.nanoTime() - start;
+            job.status = success ? BatchJob.OK : BatchJob.FAILED;
+            failed = !success;
+        }
+    }
+
+    /**
+     * Method logs the status and running time of every job in manifest order.
+     * @param jobs Jobs in manifest order.
+     * @param totalNanos Running time of all jobs in nanoseconds.
+     */
+    private static void logSummary(final List<BatchJob> jobs, final long totalNanos) {
+        final StringBuilder summary =
+                new StringBuilder("Batch merge summary:\n\t  line  status   time [ms]  main file");
+        long succeeded = 0;
+        for (final BatchJob job : jobs) {
+            summary.append(String.format(Locale.ENGLISH, "%n\t%6d  %-7s %11d  %s",
+                    job.line, job.status, TimeUnit.NANOSECONDS.toMillis(job.nanos), job.mainKey));
+            if (BatchJob.OK.equals(job.status)) {
+                succeeded++;
+            }
+        }
+        summary.append(String.format(Locale.ENGLISH, "%n\t%d of %d jobs succeeded in %d ms.",
+                succeeded, jobs.size(), TimeUnit.NANOSECONDS.toMillis(totalNanos)));
+
+        if (succeeded == jobs.size()) {
+            BatchCliController.LOGGER.info(summary.toString());
+        } else {
+            BatchCliController.LOGGER.error(summary.toString());
+        }
+    }
+
+    /**
+     * Class holding a single merge job of a manifest and its result.
+     */
+    private static final class BatchJob {
+        /**
+         * Status of a successful job.
+         */
+        private static final String OK = "OK";
+        /**
+         * Status of a failed job.
+         */
+        private static final String FAILED = "FAILED";
+        /**
+         * Status of a job skipped after a previous job of the same group failed.
+         */
+        private static final String SKIPPED = "SKIPPED";
+        /**
+         * Status of a job that has not been run.
+         */
+        private static final String NOT_RUN = "NOT RUN";
+        /**
+         * Line of the job within the manifest.
+         */
+        private final int line;
+        /**
+         * Normalized absolute path of the main file of the job.
+         */
+        private final String mainKey;
+        /**
+         * Normalized absolute path of the output file of the job.
+         */
+        private final String outputKey;
+        /**
+         * Parsed LKT merge options of the job.
+         */
+        private final CommandLine cmd;
+        /**
+         * Status of the job, written by the thread running the job.
+         */
+        private volatile String status = BatchJob.NOT_RUN;
+        /**
+         * Running time of the job in nanoseconds, written by the thread running the job.
+         */
+        private volatile long nanos;
+
+        /**
+         * Constructor.
+         * @param line Line of the job within the manifest.
+         * @param mainKey Normalized absolute path of the main file of the job.
+         * @param outputKey Normalized absolute path of the output file of the job.
+         * @param cmd Parsed LKT merge options of the job.
+         */
+        BatchJob(final int line, final String mainKey, final String outputKey, final CommandLine cmd) {
+            this.line = line;
+            this.mainKey = mainKey;
+            this.outputKey = outputKey;
+            this.cmd = cmd;
+        }
+    }
+
+}
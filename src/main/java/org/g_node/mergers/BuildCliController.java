@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.mergers;
+
+import java.util.List;
+import java.util.Locale;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.log4j.Logger;
+import org.g_node.micro.commons.CliToolController;
+import org.g_node.srv.CliOptionService;
+import org.g_node.srv.CtrlCheckService;
+import org.g_node.srv.RdfServiceSwitch;
+
+/**
+ * Class handling validating commandline input and handling the merging of many RDF files into a new
+ * RDF file by a parallel tree reduction, see {@link LktTreeMergerJena}.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class BuildCliController implements CliToolController {
+    /**
+     * Access to the main LOGGER.
+     */
+    private static final Logger LOGGER = Logger.getLogger(BuildCliController.class.getName());
+
+    /**
+     * Method returning the commandline options of the tree merge.
+     *
+     * Option sources: RDF files merged into the output file. Commandline option shorthands are "-i" and
+     * "-source-file". This option will always be "required".
+     *
+     * Option outFile: Output file of the merged RDF graph. Commandline option shorthands are "-o" and
+     * "-out-file". This option will always be "required".
+     *
+     * Option outFormat: RDF format of the output file. Commandline option shorthands are "-f" and
+     * "-out-format". This option is optional.
+     *
+     * Option store: Store type holding the RDF graphs in memory. Commandline option shorthands are "-t" and
+     * "-store". This option is optional.
+     *
+     * Option threads: Number of threads loading and merging RDF files in parallel. Commandline option
+     * shorthands are "-p" and "-threads". This option is optional.
+     *
+     * @return Available {@link CommandLine} {@link Options}.
+     */
+    public final Options options() {
+
+        final Options options = new Options();
+
+        final Option opHelp = CliOptionService.getHelpOption("");
+
+        final Option opSources = Option.builder("i")
+                .longOpt("source-file")
+                .desc(String.join("", "RDF files merged into a new RDF file. Accepts several files, directories ",
+                        "and glob patterns like 'exports/*.ttl'; files of a directory or glob pattern are used in ",
+                        "the order of their names. Resources of later files replace identical Resources of ",
+                        "earlier files, the result is the same as merging the files one after the other."))
+                .required()
+                .hasArgs()
+                .build();
+
+        final Option opOut = CliOptionService.getOutFileOption(String.join("",
+                "Path and name of the output file. Files with the same name will be overwritten."));
+        final Option opFormat = CliOptionService.getOutFormatOption("");
+
+        final Option opStore = Option.builder("t")
+                .longOpt("store")
+                .desc(String.join("", "Optional: store type holding the RDF graphs in memory. ",
+                        "Supported store types: ", String.join(", ", RdfServiceSwitch.STORE_TYPES)))
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final Option opThreads = Option.builder("p")
+                .longOpt("threads")
+                .desc(String.join("", "Optional: number of threads loading and merging RDF files in parallel. ",
+                        "Default is the number of available processors."))
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        options.addOption(opHelp);
+        options.addOption(opSources);
+        options.addOption(opOut);
+        options.addOption(opFormat);
+        options.addOption(opStore);
+        options.addOption(opThreads);
+
+        return options;
+    }
+
+    /**
+     * Method validates the commandline input for the tree merge and passes all relevant information
+     * to the tree merger.
+     *
+     * @param cmd User provided {@link CommandLine} input containing the RDF files, the output filename
+     *            and the output format.
+     */
+    public final void run(final CommandLine cmd) {
+
+        final List<String> sources = LktCliController.resolveMergeFiles(cmd.getOptionValues("i"));
+        if (sources == null) {
+            return;
+        }
+
+        if (!cmd.hasOption("o")) {
+            BuildCliController.LOGGER.error("Please provide an output file (-o/-out-file).");
+            return;
+        }
+
+        final String outputFormat = cmd.getOptionValue("f", "TTL").toUpperCase(Locale.ENGLISH);
+        if (!CtrlCheckService.isSupportedOutputFormat(outputFormat, RdfServiceSwitch.RDF_FORMAT_MAP_KEYS)) {
+            return;
+        }
+
+        final String store = cmd.getOptionValue("t", RdfServiceSwitch.DEFAULT_STORE).toUpperCase(Locale.ENGLISH);
+        if (!CtrlCheckService.isSupportedCliArgValue(store, RdfServiceSwitch.STORE_TYPES, "-t/-store")) {
+            return;
+        }
+
+        final String threads = cmd.getOptionValue("p", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        if (!CtrlCheckService.isPositiveIntCliArgValue(threads, "-p/-threads")) {
+            return;
+        }
+
+        final String outputFile = LktCliController.getOutputFileName(cmd.getOptionValue("o"), outputFormat);
+        if (!CtrlCheckService.isSupportedCompression(outputFile)) {
+            return;
+        }
+
+        final LktMergeSettings settings = new LktMergeSettings()
+                .setOutputFormat(outputFormat)
+                .setStore(store)
+                .setThreads(Integer.parseInt(threads));
+        RdfServiceSwitch.runTreeMerger(sources, outputFile, settings);
+    }
+
+}
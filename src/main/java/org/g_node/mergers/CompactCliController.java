@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.mergers;
+
+import java.util.Locale;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.log4j.Logger;
+import org.g_node.micro.commons.BackupService;
+import org.g_node.micro.commons.CliToolController;
+import org.g_node.srv.CliOptionService;
+import org.g_node.srv.CtrlCheckService;
+import org.g_node.srv.RdfServiceSwitch;
+
+/**
+ * Class handling validating commandline input and handling the compaction of the merge journal of a main
+ * RDF file, that has been written by journaled LKT merges.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class CompactCliController implements CliToolController {
+    /**
+     * Access to the main LOGGER.
+     */
+    private static final Logger LOGGER = Logger.getLogger(CompactCliController.class.getName());
+
+    /**
+     * Method returning the commandline options of the journal compaction tool.
+     *
+     * Option mainRDF: Main RDF file with a merge journal. Commandline option shorthands are "-m" and "-main-file".
+     * This option will always be "required".
+     *
+     * Option store: Store type holding the RDF graph in memory during the compaction.
+     * Commandline option shorthands are "-t" and "-store". This option is optional.
+     *
+     * @return Available {@link CommandLine} {@link Options}.
+     */
+    public final Options options() {
+
+        final Options options = new Options();
+
+        final Option opHelp = CliOptionService.getHelpOption("");
+
+        final Option opMainFile = Option.builder("m")
+                .longOpt("main-file")
+                .desc(String.join("", "RDF file whose merge journal (<main file>.journal) is folded into ",
+                        "a new main RDF file. If no output file is provided, the main RDF file is replaced ",
+                        "after a backup has been created."))
+                .required()
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final Option opStore = Option.builder("t")
+                .longOpt("store")
+                .desc(String.join("", "Optional: store type holding the RDF graph in memory during the ",
+                        "compaction. Supported store types: ", String.join(", ", RdfServiceSwitch.STORE_TYPES)))
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final Option opOut = CliOptionService.getOutFileOption("");
+        final Option opFormat = CliOptionService.getOutFormatOption("");
+
+        options.addOption(opHelp);
+        options.addOption(opMainFile);
+        options.addOption(opOut);
+        options.addOption(opFormat);
+        options.addOption(opStore);
+
+        return options;
+    }
+
+    /**
+     * Method validates the commandline input for the journal compaction and passes all relevant information
+     * to the merger folding the journal into the main RDF file.
+     *
+     * @param cmd User provided {@link CommandLine} input containing information about the main RDF file,
+     *            the output filename and the output format.
+     */
+    public final void run(final CommandLine cmd) {
+
+        final String mainFile = cmd.getOptionValue("m");
+        if (!CtrlCheckService.isExistingFile(mainFile) || !CtrlCheckService.isSupportedCompression(mainFile)) {
+            return;
+        }
+        if (!RdfServiceSwitch.hasJournal(mainFile)) {
+            CompactCliController.LOGGER.error(
+                    String.join("", "Main file '", mainFile, "' has no merge journal, nothing to compact.")
+            );
+            return;
+        }
+
+        final String outputFormat = cmd.getOptionValue("f", "TTL").toUpperCase(Locale.ENGLISH);
+        if (!CtrlCheckService.isSupportedOutputFormat(outputFormat, RdfServiceSwitch.RDF_FORMAT_MAP_KEYS)) {
+            return;
+        }
+
+        final String store = cmd.getOptionValue("t", RdfServiceSwitch.DEFAULT_STORE).toUpperCase(Locale.ENGLISH);
+        if (!CtrlCheckService.isSupportedCliArgValue(store, RdfServiceSwitch.STORE_TYPES, "-t/-store")) {
+            return;
+        }
+
+        final String outputFile = LktCliController.getOutputFileName(cmd.getOptionValue("o", mainFile), outputFormat);
+        if (!CtrlCheckService.isSupportedCompression(outputFile)) {
+            return;
+        }
+
+        RdfServiceSwitch.runCompaction(
+                mainFile, outputFile, outputFormat, store, new BackupService(BackupService.LINK));
+    }
+
+}
@@ -10,13 +10,22 @@
 
 package org.g_node.mergers;
 
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Set;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
+import org.apache.log4j.Logger;
+import org.g_node.micro.commons.BackupService;
 import org.g_node.micro.commons.CliToolController;
+import org.g_node.micro.commons.CompressionService;
+import org.g_node.micro.commons.FileService;
 import org.g_node.srv.CliOptionService;
 import org.g_node.srv.CtrlCheckService;
 import org.g_node.srv.RdfServiceSwitch;
@@ -28,17 +37,71 @@ import org.g_node.srv.RdfServiceSwitch;
  * @author Michael Sonntag (sonntag@bio.lmu.de)
  */
 public class LktCliController implements CliToolController {
+    /**
+     * Access to the main LOGGER.
+     */
+    private static final Logger LOGGER = Logger.getLogger(LktCliController.class.getName());
     /**
      * Method returning the commandline options of the LKT merge tool.
      *
-     * Option mergeRDF: Returns merge RDF file option required to merge a given RDF file with another
-     * RDF file from the command line. Commandline option shorthands are "-i" and "-merge-file".
-     * This option will always be "required".
+     * Option mergeRDF: Returns merge RDF file option required to merge given RDF files with another
+     * RDF file from the command line. Several files, directories or glob patterns can be provided, they are
+     * merged in the order provided, files of a directory or glob pattern are merged in the order of their names.
+     * Commandline option shorthands are "-i" and "-merge-file". This option will always be "required".
      *
      * Option mainRDF: Returns main RDF file option required to merge a given RDF file with another
      * RDF file from the command line. Commandline option shorthands are "-m" and "-main-file".
      * This option will always be "required".
      *
+     * Option stream: Merge the main RDF file in streaming mode without loading it into memory. The main RDF
+     * file has to be an N-Triples or N-Quads file, the output file will always be written as N-Triples.
+     * Commandline option shorthands are "-s" and "-stream". This option is optional.
+     *
+     * Option snapshot: Load the main RDF file from its binary snapshot, if the snapshot is up to date, and save
+     * a binary snapshot of the merged RDF graph next to the output file. Not available in streaming mode.
+     * Commandline option shorthands are "-c" and "-snapshot". This option is optional.
+     *
+     * Option store: Store type holding the RDF graphs in memory during the merge. Not available in streaming mode
+     * and out of core merges. Commandline option shorthands are "-t" and "-store". This option is optional.
+     *
+     * Option threads: Number of threads replacing the subjects of the main RDF graph and writing N-Triples output.
+     * Not available in streaming mode and out of core merges.
+     * Commandline option shorthands are "-p" and "-threads". This option is optional.
+     *
+     * Option patch: Write the triples removed and added by the merge to an RDF Patch file. Not available in
+     * streaming mode. Commandline option shorthands are "-d" and "-patch". This option is optional.
+     *
+     * Option patch-only: Only write the RDF Patch file, skip writing the full merged RDF file.
+     * Commandline option shorthands are "-x" and "-patch-only". This option is optional.
+     *
+     * Option journal: Append the merge to the journal of the main RDF file instead of rewriting the main RDF file.
+     * Not available with options concerning the output file.
+     * Commandline option shorthands are "-j" and "-journal". This option is optional.
+     *
+     * Option shards: Split the RDF graphs into shards by subject hash and merge the shards in parallel.
+     * Commandline option shorthands are "-k" and "-shards". This option is optional.
+     *
+     * Option split-output: Write every shard to its own output file. Commandline option shorthands are "-e" and
+     * "-split-output". This option is optional.
+     *
+     * Option sort-buffer: Merge out of core using external sorting with a sort buffer of the provided size.
+     * Commandline option shorthands are "-b" and "-sort-buffer". This option is optional.
+     *
+     * Option temp-dir: Directory of the temporary files of an out of core merge. Commandline option shorthands
+     * are "-w" and "-temp-dir". This option is optional.
+     *
+     * Option sync: Force the output file to the storage device before it replaces an existing file. Not available in
+     * streaming mode. Commandline option shorthands are "-y" and "-sync". This option is optional.
+     *
+     * Option backup: Strategy of the backup of a replaced main RDF file.
+     * Commandline option shorthands are "-a" and "-backup". This option is optional.
+     *
+     * Option keep-backups: Maximum number of backups kept per main RDF file.
+     * Commandline option shorthands are "-r" and "-keep-backups". This option is optional.
+     *
+     * Option backup-age: Maximum age of kept backups in days.
+     * Commandline option shorthands are "-g" and "-backup-age". This option is optional.
+     *
      * @return Available {@link CommandLine} {@link Options}.
      */
     public final Options options() {
@@ -47,12 +110,16 @@ public class LktCliController implements CliToolController {
 
         final Option opHelp = CliOptionService.getHelpOption("");
 
+        final String mergeDesc = String.join("",
+                "RDF files that will be merged with a main RDF file. Accepts several files, directories ",
+                "and glob patterns like 'updates/*.ttl', which are merged one after the other in the order ",
+                "provided. Files of a directory or glob pattern are merged in the order of their names.");
+
         final Option opMergeFile = Option.builder("i")
                 .longOpt("merge-file")
-                .desc("RDF file that will be merged with a main RDF file.")
+                .desc(mergeDesc)
                 .required()
-                .hasArg()
-                .valueSeparator()
+                .hasArgs()
                 .build();
 
         final String mainDesc = String.join("",
@@ -68,6 +135,161 @@ public class LktCliController implements CliToolController {
                 .valueSeparator()
                 .build();
 
+        final String streamDesc = String.join("",
+                "Optional: merge in streaming mode. Only the merge RDF file is loaded into memory, ",
+                "the main RDF file is streamed and has to be an N-Triples (nt) or N-Quads (nq) file. ",
+                "The output file will always be written in the N-Triples (NTRIPLES) format.");
+
+        final Option opStream = Option.builder("s")
+                .longOpt("stream")
+                .desc(streamDesc)
+                .build();
+
+        final String snapshotDesc = String.join("",
+                "Optional: load the main RDF file from its binary snapshot (<main file>.rdfsnap), if the main ",
+                "RDF file has not changed since the snapshot was saved, and save a binary snapshot of the merged ",
+                "RDF graph next to the output file. Not available in streaming mode.");
+
+        final Option opSnapshot = Option.builder("c")
+                .longOpt("snapshot")
+                .desc(snapshotDesc)
+                .build();
+
+        final String storeDesc = String.join("",
+                "Optional: store type holding the RDF graphs in memory during the merge. ",
+                "COMPACT uses dictionary encoded graphs requiring considerably less memory than ",
+                "the default Jena models (JENA), OFFHEAP additionally keeps the encoded terms and indexes ",
+                "outside of the Java heap. Not available in streaming mode and out of core merges (-b). ",
+                "Supported store types: ",
+                String.join(", ", RdfServiceSwitch.STORE_TYPES));
+
+        final Option opStore = Option.builder("t")
+                .longOpt("store")
+                .desc(storeDesc)
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final String threadsDesc = String.join("",
+                "Optional: number of threads replacing the subjects of the main RDF file, that are contained ",
+                "in the merge RDF file, and writing N-Triples output. The merged RDF graph does not depend on the ",
+                "number of threads. ",
+                "Not available in streaming mode and out of core merges (-b). Default: 1");
+
+        final Option opThreads = Option.builder("p")
+                .longOpt("threads")
+                .desc(threadsDesc)
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final String patchDesc = String.join("",
+                "Optional: write the triples removed from and added to the main RDF file by the merge ",
+                "to this file in the RDF Patch format. Replaced subjects referencing blank nodes are written as ",
+                "'R <subject> .' lines, a replica deletes all triples of the subject and its reachable blank ",
+                "nodes for such a line. Not available in streaming mode.");
+
+        final Option opPatch = Option.builder("d")
+                .longOpt("patch")
+                .desc(patchDesc)
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final Option opPatchOnly = Option.builder("x")
+                .longOpt("patch-only")
+                .desc("Optional: only write the RDF Patch file (-d), do not write the full merged RDF file.")
+                .build();
+
+        final String journalDesc = String.join("",
+                "Optional: append the merge to the journal next to the main RDF file (<main file>.journal) ",
+                "instead of rewriting the main RDF file. Journaled merges are applied by the next merge ",
+                "without this option or by the 'compact' tool. Not available in streaming mode and with options ",
+                "concerning the output file (-o, -f, -c, -t, -p, -d, -x, -y, -a, -r, -g).");
+
+        final Option opJournal = Option.builder("j")
+                .longOpt("journal")
+                .desc(journalDesc)
+                .build();
+
+        final String shardsDesc = String.join("",
+                "Optional: split the main and the merge RDF graphs into this number of shards by subject hash ",
+                "and merge every shard with its own thread. Blank Nodes stay in the shard of the subjects ",
+                "referencing them, the merged RDF graph does not depend on the number of shards. ",
+                "Not available with streaming mode, patch files and journals. Default: 1");
+
+        final Option opShards = Option.builder("k")
+                .longOpt("shards")
+                .desc(shardsDesc)
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final Option opSplitOutput = Option.builder("e")
+                .longOpt("split-output")
+                .desc(String.join("", "Optional: write every shard (-k) to its own output file, named after ",
+                        "the output file with the index of the shard in front of the file extension, ",
+                        "e.g. 'out.0.ttl'."))
+                .build();
+
+        final String sortBufferDesc = String.join("",
+                "Optional: merge out of core with bounded memory. All RDF files are sorted by subject into ",
+                "temporary N-Triples files using a sort buffer of this size in megabytes and merged subject by ",
+                "subject. The output file will always be written in the N-Triples (NTRIPLES) format. ",
+                "Not available with streaming mode, shards, patch files, snapshots, journals, store types and ",
+                "threads.");
+
+        final Option opSortBuffer = Option.builder("b")
+                .longOpt("sort-buffer")
+                .desc(sortBufferDesc)
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final Option opTempDir = Option.builder("w")
+                .longOpt("temp-dir")
+                .desc(String.join("", "Optional: directory of the temporary files of an out of core merge (-b). ",
+                        "Default is the temporary directory of the system."))
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final Option opSync = Option.builder("y")
+                .longOpt("sync")
+                .desc(String.join("", "Optional: force the output file to the storage device before it replaces ",
+                        "an existing file, so that a merged main RDF file survives a power failure. ",
+                        "Not available in streaming mode."))
+                .build();
+
+        final String backupDesc = String.join("",
+                "Optional: strategy of the backup created, when the main RDF file is replaced. ",
+                "Supported strategies: ", BackupService.STRATEGIES.toString(), ". LINK creates a hard link to the ",
+                "replaced file, COPY and GZIP write a plain or compressed copy in the background during the merge, ",
+                "copies identical to an existing backup are linked to it. Default is LINK.");
+
+        final Option opBackup = Option.builder("a")
+                .longOpt("backup")
+                .desc(backupDesc)
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final Option opKeepBackups = Option.builder("r")
+                .longOpt("keep-backups")
+                .desc(String.join("", "Optional: maximum number of backups kept per main RDF file, older backups ",
+                        "are deleted after the main RDF file has been replaced. Default is to keep all backups."))
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final Option opBackupAge = Option.builder("g")
+                .longOpt("backup-age")
+                .desc(String.join("", "Optional: maximum age of kept backups in days, older backups are deleted ",
+                        "after the main RDF file has been replaced. The latest backup is always kept."))
+                .hasArg()
+                .valueSeparator()
+                .build();
+
         final Option opOut = CliOptionService.getOutFileOption("");
         final Option opFormat = CliOptionService.getOutFormatOption("");
 
@@ -76,47 +298,257 @@ public class LktCliController implements CliToolController {
         options.addOption(opMainFile);
         options.addOption(opOut);
         options.addOption(opFormat);
+        options.addOption(opStream);
+        options.addOption(opSnapshot);
+        options.addOption(opStore);
+        options.addOption(opThreads);
+        options.addOption(opPatch);
+        options.addOption(opPatchOnly);
+        options.addOption(opJournal);
+        options.addOption(opShards);
+        options.addOption(opSplitOutput);
+        options.addOption(opSortBuffer);
+        options.addOption(opTempDir);
+        options.addOption(opSync);
+        options.addOption(opBackup);
+        options.addOption(opKeepBackups);
+        options.addOption(opBackupAge);
 
         return options;
     }
 
     /**
      * Method validates the commandline input for this merger. When all checks pass, all relevant information is
-     * passed to the actual class that merges the content of the two RDF files.
+     * passed to the actual class that merges the content of the RDF files. Directories and glob patterns of the
+     * mergeRDF files are resolved to the contained files. The RDF content of all files is validated by the merger
+     * while loading the files, to avoid parsing each file twice.
      *
-     * @param cmd User provided {@link CommandLine} input containing information about the mergeRDF file, mainRDF file,
+     * @param cmd User provided {@link CommandLine} input containing information about the mergeRDF files, mainRDF file,
      *            the output filename and the output format.
      */
     public final void run(final CommandLine cmd) {
+        this.merge(cmd);
+    }
+
+    /**
+     * Method validates the commandline input for this merger and runs the merge, see {@link #run(CommandLine)}.
+     * @param cmd User provided {@link CommandLine} input of this merger.
+     * @return True if the input was valid and the merge was completed, false otherwise.
+     */
+    final boolean merge(final CommandLine cmd) {
 
         final Set<String> rdfFormatsKeyMap = RdfServiceSwitch.RDF_FORMAT_MAP_KEYS;
-        final Map<String, String> rdfFormatExtensionMap = RdfServiceSwitch.RDF_FORMAT_EXTENSION;
 
-        final String mergeFile = cmd.getOptionValue("i");
-        if (!CtrlCheckService.isExistingFile(mergeFile)) {
-            return;
+        final List<String> mergeFiles = LktCliController.resolveMergeFiles(cmd.getOptionValues("i"));
+        if (mergeFiles == null) {
+            return false;
         }
 
         final String mainFile = cmd.getOptionValue("m");
-        if (!CtrlCheckService.isExistingFile(mainFile)) {
-            return;
+        if (!CtrlCheckService.isExistingFile(mainFile) || !CtrlCheckService.isSupportedCompression(mainFile)) {
+            return false;
+        }
+
+        final boolean streamMode = cmd.hasOption("s");
+        if (streamMode && !CtrlCheckService.isSupportedInFileType(
+                CompressionService.stripCompressionExtension(mainFile), RdfServiceSwitch.STREAM_FORMAT_EXTENSIONS)) {
+            return false;
+        }
+        if (streamMode && (cmd.hasOption("j") || RdfServiceSwitch.hasJournal(mainFile))) {
+            LktCliController.LOGGER.error(String.join("",
+                    "Streaming mode does not support merge journals, please compact the journal of main file '",
+                    mainFile, "' first."));
+            return false;
+        }
+
+        if (streamMode && (cmd.hasOption("d") || cmd.hasOption("x") || cmd.hasOption("c") || cmd.hasOption("p")
+                || cmd.hasOption("t") || cmd.hasOption("y"))) {
+            LktCliController.LOGGER.error(String.join("", "Streaming mode is not available with patch files, ",
+                    "snapshots, store types, threads and synced output (-d, -x, -c, -t, -p, -y)."));
+            return false;
+        }
+
+        final String shards = cmd.getOptionValue("k", "1");
+        if (!CtrlCheckService.isPositiveIntCliArgValue(shards, "-k/-shards")) {
+            return false;
+        }
+        final boolean sharded = Integer.parseInt(shards) > 1;
+        if (sharded && (streamMode || cmd.hasOption("j") || cmd.hasOption("d") || cmd.hasOption("x"))) {
+            LktCliController.LOGGER.error(
+                    "Option -k/-shards is not available with streaming mode, patch files and journals.");
+            return false;
+        }
+        if (cmd.hasOption("e") && !sharded) {
+            LktCliController.LOGGER.error("Option -e/-split-output requires more than one shard (-k/-shards).");
+            return false;
+        }
+
+        final boolean external = cmd.hasOption("b");
+        if (external && !CtrlCheckService.isPositiveIntCliArgValue(cmd.getOptionValue("b"), "-b/-sort-buffer")) {
+            return false;
+        }
+        if (external && (streamMode || sharded || cmd.hasOption("j") || cmd.hasOption("d") || cmd.hasOption("x")
+                || cmd.hasOption("c") || cmd.hasOption("t") || cmd.hasOption("p")
+                || RdfServiceSwitch.hasJournal(mainFile))) {
+            LktCliController.LOGGER.error(String.join("", "Option -b/-sort-buffer is not available with streaming ",
+                    "mode, shards, patch files, snapshots, journals, store types and threads (-t, -p)."));
+            return false;
+        }
+        if (cmd.hasOption("w") && !external) {
+            LktCliController.LOGGER.error("Option -w/-temp-dir requires an out of core merge (-b/-sort-buffer).");
+            return false;
+        }
+        if (cmd.hasOption("w") && !Files.isDirectory(Paths.get(cmd.getOptionValue("w")))) {
+            LktCliController.LOGGER.error(
+                    String.join("", "Temporary directory '", cmd.getOptionValue("w"), "' does not exist."));
+            return false;
+        }
+
+        if (cmd.hasOption("j")) {
+            for (final String opt : Arrays.asList("o", "f", "c", "t", "p", "d", "x", "y", "a", "r", "g")) {
+                if (cmd.hasOption(opt)) {
+                    LktCliController.LOGGER.error(String.join("", "Option -j/-journal does not write an output ",
+                            "file and is not available with output files, formats, snapshots, store types, threads, ",
+                            "patch files, synced output and backups (-o, -f, -c, -t, -p, -d, -x, -y, -a, -r, -g)."));
+                    return false;
+                }
+            }
+            return RdfServiceSwitch.runJournalMerger(mainFile, mergeFiles);
+        }
+
+        final boolean ntriplesOnly = streamMode || external;
+        final String outputFormat = LktCliController.getOutputFormat(cmd);
+        final Set<String> supportedFormats = ntriplesOnly ? Collections.singleton("NTRIPLES") : rdfFormatsKeyMap;
+        if (!CtrlCheckService.isSupportedOutputFormat(outputFormat, supportedFormats)) {
+            return false;
+        }
+
+        final String store = cmd.getOptionValue("t", RdfServiceSwitch.DEFAULT_STORE).toUpperCase(Locale.ENGLISH);
+        if (!CtrlCheckService.isSupportedCliArgValue(store, RdfServiceSwitch.STORE_TYPES, "-t/-store")) {
+            return false;
+        }
+
+        final String backupStrategy = cmd.getOptionValue("a", BackupService.LINK).toUpperCase(Locale.ENGLISH);
+        if (!CtrlCheckService.isSupportedCliArgValue(backupStrategy, BackupService.STRATEGIES, "-a/-backup")) {
+            return false;
+        }
+        final String keepBackups = cmd.getOptionValue("r", "0");
+        if (cmd.hasOption("r") && !CtrlCheckService.isPositiveIntCliArgValue(keepBackups, "-r/-keep-backups")) {
+            return false;
+        }
+        final String backupAge = cmd.getOptionValue("g", "0");
+        if (cmd.hasOption("g") && !CtrlCheckService.isPositiveIntCliArgValue(backupAge, "-g/-backup-age")) {
+            return false;
         }
 
-        final String outputFormat = cmd.getOptionValue("f", "TTL").toUpperCase(Locale.ENGLISH);
-        if (!CtrlCheckService.isSupportedOutputFormat(outputFormat, rdfFormatsKeyMap)) {
-            return;
+        final String threads = cmd.getOptionValue("p", "1");
+        if (!CtrlCheckService.isPositiveIntCliArgValue(threads, "-p/-threads")) {
+            return false;
         }
 
-        String outputFile = cmd.getOptionValue("o", mainFile);
-        if (!outputFile.toLowerCase().endsWith(rdfFormatExtensionMap.get(outputFormat))) {
-            outputFile = String.join("", outputFile, ".", rdfFormatExtensionMap.get(outputFormat));
+        final String patchFile = cmd.getOptionValue("d");
+        if (cmd.hasOption("x") && patchFile == null) {
+            LktCliController.LOGGER.error("Option -x/-patch-only requires a patch file (-d/-patch).");
+            return false;
+        }
+        if (patchFile != null && !CtrlCheckService.isSupportedCompression(patchFile)) {
+            return false;
         }
 
-        if (!RdfServiceSwitch.isValidRdfFile(mainFile) || !RdfServiceSwitch.isValidRdfFile(mergeFile)) {
-            return;
+        final String outputFile = LktCliController.getOutputFileName(cmd.getOptionValue("o", mainFile), outputFormat);
+        if (!CtrlCheckService.isSupportedCompression(outputFile)) {
+            return false;
         }
 
-        RdfServiceSwitch.runMerger(mainFile, mergeFile, outputFile, outputFormat);
+        if (streamMode) {
+            final BackupService backups = new BackupService(
+                    backupStrategy, Integer.parseInt(keepBackups), Integer.parseInt(backupAge));
+            return RdfServiceSwitch.runStreamMerger(mainFile, mergeFiles, outputFile, backups);
+        } else if (external) {
+            final LktMergeSettings settings = new LktMergeSettings()
+                    .setSortBuffer(Long.parseLong(cmd.getOptionValue("b")) * 1024 * 1024)
+                    .setTempDir(cmd.getOptionValue("w"))
+                    .setSync(cmd.hasOption("y"))
+                    .setBackupStrategy(backupStrategy)
+                    .setMaxBackups(Integer.parseInt(keepBackups))
+                    .setMaxBackupAge(Integer.parseInt(backupAge));
+            return RdfServiceSwitch.runExternalMerger(mainFile, mergeFiles, outputFile, settings);
+        } else {
+            final LktMergeSettings settings = new LktMergeSettings()
+                    .setOutputFormat(outputFormat)
+                    .setUseSnapshot(cmd.hasOption("c"))
+                    .setStore(store)
+                    .setThreads(Integer.parseInt(threads))
+                    .setPatchFile(patchFile)
+                    .setWriteOutput(!cmd.hasOption("x"))
+                    .setShards(Integer.parseInt(shards))
+                    .setSplitOutput(cmd.hasOption("e"))
+                    .setSync(cmd.hasOption("y"))
+                    .setBackupStrategy(backupStrategy)
+                    .setMaxBackups(Integer.parseInt(keepBackups))
+                    .setMaxBackupAge(Integer.parseInt(backupAge));
+            if (sharded) {
+                return RdfServiceSwitch.runShardMerger(mainFile, mergeFiles, outputFile, settings);
+            }
+            return RdfServiceSwitch.runMerger(mainFile, mergeFiles, outputFile, settings);
+        }
+    }
+
+    /**
+     * Method resolves the provided merge file names, directories and glob patterns to existing RDF files,
+     * see {@link FileService#resolveFiles(String)}.
+     * @param mergeNames Merge file names, directories and glob patterns provided by the user.
+     * @return Resolved RDF files in the order provided, null if a name could not be resolved
+     * or a file is not supported.
+     */
+    static List<String> resolveMergeFiles(final String[] mergeNames) {
+        final List<String> mergeFiles = new ArrayList<>();
+        for (final String mergeName : mergeNames) {
+            final List<String> resolved = FileService.resolveFiles(mergeName);
+            if (resolved.isEmpty()) {
+                LktCliController.LOGGER.error(String.join("", "No merge files found for '", mergeName, "'."));
+                return null;
+            }
+            mergeFiles.addAll(resolved);
+        }
+        for (final String mergeFile : mergeFiles) {
+            if (!CtrlCheckService.isExistingFile(mergeFile)
+                    || !CtrlCheckService.isSupportedCompression(mergeFile)) {
+                return null;
+            }
+        }
+        return mergeFiles;
+    }
+
+    /**
+     * Method returns the upper case output format of a merge job. N-Triples is the default output format of
+     * streaming and out of core merges, Turtle the default of all other merges.
+     * @param cmd User provided {@link CommandLine} input.
+     * @return Output format, not validated.
+     */
+    static String getOutputFormat(final CommandLine cmd) {
+        final boolean ntriplesOnly = cmd.hasOption("s") || cmd.hasOption("b");
+        return cmd.getOptionValue("f", ntriplesOnly ? "NTRIPLES" : "TTL").toUpperCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Method returns the name of an output file ending with the file extension of the output format.
+     * Compression extensions are kept at the end of the output file name, e.g. 'out.ttl.gz'.
+     * @param outputName Output file name provided by the user.
+     * @param outputFormat Supported RDF format of the output file.
+     * @return Output file name.
+     */
+    static String getOutputFileName(final String outputName, final String outputFormat) {
+        final String extension = RdfServiceSwitch.RDF_FORMAT_EXTENSION.get(outputFormat);
+        final String outputCompression = CompressionService.getCompressionByName(outputName);
+        String outputFile = CompressionService.stripCompressionExtension(outputName);
+        if (!outputFile.toLowerCase().endsWith(extension)) {
+            outputFile = String.join("", outputFile, ".", extension);
+        }
+        if (!CompressionService.NONE.equals(outputCompression)) {
+            outputFile = String.join("", outputFile, ".", outputCompression.toLowerCase(Locale.ENGLISH));
+        }
+        return outputFile;
     }
 
 }
@@ -0,0 +1,324 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.mergers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import org.apache.log4j.Logger;
+import org.g_node.micro.commons.BackupService;
+import org.g_node.micro.commons.CompressionService;
+import org.g_node.micro.commons.ExternalLineSorter;
+import org.g_node.micro.commons.FileService;
+import org.g_node.micro.rdf.RdfFileServiceJena;
+import org.g_node.micro.rdf.StreamLineSorterJena;
+
+/**
+ * Class merging RDF files out of core with bounded memory, see {@link #runExternalMerger}.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class LktExternalMergerJena {
+    /**
+     * Access to the main LOGGER.
+     */
+    private static final Logger LOGGER = Logger.getLogger(LktExternalMergerJena.class.getName());
+
+    /**
+     * Method merges RDF files one after the other into a main RDF file out of core. Every RDF file is parsed once
+     * and converted into N-Triples lines sorted by subject using an {@link ExternalLineSorter}, that spills sorted
+     * runs to a temporary directory whenever its buffer is full. Each merge RDF file is then merged with the
+     * sorted main RDF graph by a streaming merge join, applying the rules of {@link LktMergerJena#runMerger}
+     * subject by subject:
+     * the triples of all URI subjects of the merge RDF graph are dropped from the main RDF graph, the blank nodes
+     * referenced by dropped triples are sorted and their triples are dropped in further merge joins over the
+     * blank node triples of the main RDF graph, until no further blank nodes are reached.
+     * The memory used depends on the size of the sort buffer, not on the size of the RDF files. The output file
+     * is always written in the N-Triples format sorted by subject, it is compressed if its name ends with a
+     * compression extension. If the output file is the same as the main RDF file, a backup of the main RDF file
+     * is created. All temporary files are deleted after the merge.
+     * @param mainFile Main RDF file. Information will be merged into this file.
+     * @param mergeFiles Merge RDF files. Information from these files will be merged into the mainFile
+     *                   in the order of the list.
+     * @param outputFile Name and Path of the output file.
+     * @param settings Size of the sort buffer and directory of the temporary files.
+     * @return True if the merged RDF graph has been saved, false otherwise.
+     */
+    public static boolean runExternalMerger(final String mainFile, final List<String> mergeFiles,
+                                            final String outputFile, final LktMergeSettings settings) {
+        final long sortBuffer = settings.getSortBuffer();
+        Path tmpDir = null;
+        try {
+            final Future<Boolean> backup = LktMergerJena.startBackup(mainFile, outputFile, settings);
+            tmpDir = settings.getTempDir() == null
+                    ? Files.createTempDirectory("merge-rdf")
+                    : Files.createTempDirectory(Paths.get(settings.getTempDir()), "merge-rdf");
+
+            Path merged = LktExternalMergerJena.sortRdfFile(mainFile, tmpDir, sortBuffer);
+            if (merged == null) {
+                return false;
+            }
+            for (int i = 0; i < mergeFiles.size(); i++) {
+                final String mergeFile = mergeFiles.get(i);
+                final Path sortedMerge = LktExternalMergerJena.sortRdfFile(mergeFile, tmpDir, sortBuffer);
+                if (sortedMerge == null) {
+                    return false;
+                }
+                LktExternalMergerJena.LOGGER.info(
+                        String.join("", "Merging file ", String.valueOf(i + 1), " of ",
+                                String.valueOf(mergeFiles.size()), " '", mergeFile, "'")
+                );
+                final Path next = Files.createTempFile(tmpDir, "merged", ".nt");
+                LktExternalMergerJena.mergeSorted(merged, sortedMerge, next, tmpDir, sortBuffer);
+                Files.delete(merged);
+                Files.delete(sortedMerge);
+                merged = next;
+            }
+
+            if (!BackupService.await(mainFile, backup)) {
+                LktExternalMergerJena.LOGGER.error(
+                        String.join("", "[ERROR ] While saving backup for file '", mainFile, "'")
+                );
+                return false;
+            }
+            LktExternalMergerJena.LOGGER.info(
+                    String.join("", "Writing sorted data to RDF file '", outputFile, "' using format 'NTRIPLES'")
+            );
+            LktExternalMergerJena.writeOutput(merged, outputFile, settings.isSync());
+            if (mainFile.equals(outputFile)) {
+                settings.getBackupService().pruneBackups(mainFile);
+            }
+            return true;
+        } catch (IOException e) {
+            LktExternalMergerJena.LOGGER.error(
+                    String.join("", "Out of core merge failed: ", e.getMessage())
+            );
+            return false;
+        } finally {
+            if (tmpDir != null) {
+                LktExternalMergerJena.deleteTempDir(tmpDir);
+            }
+        }
+    }
+
+    /**
+     * Method parses an RDF file and sorts its triples as N-Triples lines into a temporary file.
+     * @param rdfFile RDF file.
+     * @param tmpDir Directory of the temporary files.
+     * @param sortBuffer Maximum size of the sort buffer in bytes.
+     * @return Sorted N-Triples file, null if the RDF file is not a valid RDF file.
+     * @throws IOException If the sorted file cannot be written.
+     */
+    private static Path sortRdfFile(final String rdfFile, final Path tmpDir, final long sortBuffer)
+            throws IOException {
+        LktExternalMergerJena.LOGGER.info(String.join("", "Sorting file '", rdfFile, "'"));
+        try (ExternalLineSorter sorter = new ExternalLineSorter(tmpDir, sortBuffer)) {
+            // A fixed scope creates blank nodes from their labels without keeping the labels in memory.
+            if (!RdfFileServiceJena.parseRdfFile(rdfFile, new StreamLineSorterJena(sorter), UUID.randomUUID())) {
+                return null;
+            }
+            final Path sorted = Files.createTempFile(tmpDir, "sorted", ".nt");
+            sorter.sortTo(sorted);
+            return sorted;
+        }
+    }
+
+    /**
+     * Method merges a sorted merge N-Triples file into a sorted main N-Triples file. The first merge join drops
+     * all main triples of the URI subjects of the merge file and sorts the blank nodes referenced by dropped
+     * triples. The blank node triples of the main file are joined with these blank nodes repeatedly, until no
+     * further blank nodes are reached. The kept main triples, the remaining blank node triples and the merge
+     * triples are merged into the sorted output file.
+     * @param main Sorted main N-Triples file.
+     * @param merge Sorted merge N-Triples file.
+     * @param out Sorted merged N-Triples file.
+     * @param tmpDir Directory of the temporary files.
+     * @param sortBuffer Maximum size of the sort buffer in bytes.
+     * @throws IOException If a file cannot be read or written.
+     */
+    private static void mergeSorted(final Path main, final Path merge, final Path out, final Path tmpDir,
+                                    final long sortBuffer) throws IOException {
+        final Path kept = Files.createTempFile(tmpDir, "kept", ".nt");
+        Path blankNodes = Files.createTempFile(tmpDir, "blank", ".nt");
+        long dropped;
+        try (ExternalLineSorter reached = new ExternalLineSorter(tmpDir, sortBuffer)) {
+            try (BufferedReader mainReader = Files.newBufferedReader(main, StandardCharsets.UTF_8);
+                 BufferedReader mergeReader = Files.newBufferedReader(merge, StandardCharsets.UTF_8);
+                 BufferedWriter keptWriter = Files.newBufferedWriter(kept, StandardCharsets.UTF_8);
+                 BufferedWriter blankWriter = Files.newBufferedWriter(blankNodes, StandardCharsets.UTF_8)) {
+                final SubjectCursor replaced = new SubjectCursor(mergeReader);
+                dropped = 0;
+                for (String line = mainReader.readLine(); line != null; line = mainReader.readLine()) {
+                    final String subject = StreamLineSorterJena.subjectOf(line);
+                    if (subject.startsWith("_:")) {
+                        LktExternalMergerJena.writeLine(blankWriter, line);
+                    } else if (replaced.contains(subject)) {
+                        dropped++;
+                        LktExternalMergerJena.addBlankObject(reached, line);
+                    } else {
+                        LktExternalMergerJena.writeLine(keptWriter, line);
+                    }
+                }
+            }
+
+            final Path frontier = Files.createTempFile(tmpDir, "frontier", ".txt");
+            while (reached.sortTo(frontier) > 0) {
+                final Path remaining = Files.createTempFile(tmpDir, "blank", ".nt");
+                try (BufferedReader blankReader = Files.newBufferedReader(blankNodes, StandardCharsets.UTF_8);
+                     BufferedReader frontierReader = Files.newBufferedReader(frontier, StandardCharsets.UTF_8);
+                     BufferedWriter remainingWriter = Files.newBufferedWriter(remaining, StandardCharsets.UTF_8)) {
+                    final SubjectCursor removed = new SubjectCursor(frontierReader);
+                    for (String line = blankReader.readLine(); line != null; line = blankReader.readLine()) {
+                        if (removed.contains(StreamLineSorterJena.subjectOf(line))) {
+                            dropped++;
+                            LktExternalMergerJena.addBlankObject(reached, line);
+                        } else {
+                            LktExternalMergerJena.writeLine(remainingWriter, line);
+                        }
+                    }
+                }
+                Files.delete(blankNodes);
+                blankNodes = remaining;
+            }
+            Files.delete(frontier);
+        }
+
+        final long lines = ExternalLineSorter.merge(Arrays.asList(kept, blankNodes, merge), out);
+        Files.delete(kept);
+        Files.delete(blankNodes);
+        LktExternalMergerJena.LOGGER.info(
+                String.join("", "Removed ", String.valueOf(dropped), " triples of the main file, the merged ",
+                        "file contains ", String.valueOf(lines), " triples.")
+        );
+    }
+
+    /**
+     * Add the blank node object of a dropped N-Triples line to the reached blank nodes.
+     * @param reached Sorter of the reached blank nodes.
+     * @param line Dropped N-Triples line.
+     * @throws IOException If a sorted run cannot be written.
+     */
+    private static void addBlankObject(final ExternalLineSorter reached, final String line) throws IOException {
+        final String blankObject = StreamLineSorterJena.blankObjectOf(line);
+        if (blankObject != null) {
+            reached.add(blankObject);
+        }
+    }
+
+    /**
+     * Write a line followed by a line break.
+     * @param writer Writer.
+     * @param line Line.
+     * @throws IOException If the line cannot be written.
+     */
+    private static void writeLine(final BufferedWriter writer, final String line) throws IOException {
+        writer.write(line);
+        writer.write('\n');
+    }
+
+    /**
+     * Copy the sorted merged N-Triples file to the output file. The output file is written to a temporary file
+     * next to it first, which replaces the output file once it has been written completely.
+     * @param merged Sorted merged N-Triples file.
+     * @param outputFile Name and Path of the output file.
+     * @param sync Force the output file to the storage device before it replaces an existing file.
+     * @throws IOException If the output file cannot be written.
+     */
+    private static void writeOutput(final Path merged, final String outputFile, final boolean sync)
+            throws IOException {
+        final Path outPath = Paths.get(outputFile).toAbsolutePath();
+        final Path tmpPath = FileService.createSiblingTempFile(outPath);
+        try {
+            try (InputStream in = Files.newInputStream(merged);
+                 OutputStream out = CompressionService.openOutputStream(
+                         tmpPath, CompressionService.getCompressionByName(outputFile))) {
+                final byte[] buffer = new byte[64 * 1024];
+                for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                    out.write(buffer, 0, n);
+                }
+            }
+            FileService.replaceAtomically(tmpPath, outPath, sync);
+        } finally {
+            Files.deleteIfExists(tmpPath);
+        }
+    }
+
+    /**
+     * Delete the temporary directory of a merge including all remaining files. Errors are logged.
+     * @param tmpDir Temporary directory.
+     */
+    private static void deleteTempDir(final Path tmpDir) {
+        try {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(tmpDir)) {
+                for (final Path f : files) {
+                    Files.delete(f);
+                }
+            }
+            Files.delete(tmpDir);
+        } catch (IOException e) {
+            LktExternalMergerJena.LOGGER.error(
+                    String.join("", "Could not delete temporary directory '", tmpDir.toString(), "': ",
+                            e.getMessage())
+            );
+        }
+    }
+
+    /**
+     * Cursor over the distinct subjects of a sorted file, used to test ascending subjects for containment.
+     * The lines of the file are either N-Triples lines or plain subject terms.
+     */
+    private static final class SubjectCursor {
+        /**
+         * Reader of the sorted file.
+         */
+        private final BufferedReader reader;
+        /**
+         * Current subject, null if the end of the file has been reached.
+         */
+        private String current = "";
+
+        /**
+         * Constructor.
+         * @param reader Reader of the sorted file.
+         */
+        SubjectCursor(final BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Method tests if the file contains a subject. Subjects have to be tested in ascending order.
+         * @param subject Subject term.
+         * @return True if the file contains the subject.
+         * @throws IOException If the file cannot be read.
+         */
+        boolean contains(final String subject) throws IOException {
+            while (this.current != null && this.current.compareTo(subject) < 0) {
+                this.current = this.reader.readLine();
+                if (this.current != null && this.current.indexOf(' ') >= 0) {
+                    this.current = StreamLineSorterJena.subjectOf(this.current);
+                }
+            }
+            return subject.equals(this.current);
+        }
+    }
+
+}
@@ -0,0 +1,555 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.mergers;
+
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.log4j.Logger;
+import org.g_node.micro.commons.CompressionService;
+import org.g_node.micro.rdf.RdfFileServiceJena;
+import org.g_node.micro.rdf.RdfJournalJena;
+import org.g_node.micro.rdf.RdfLoadResult;
+import org.g_node.micro.rdf.RdfUtilsJena;
+
+/**
+ * Class serving main RDF graphs kept in memory on a local HTTP server. Merge RDF graphs posted to the
+ * server are merged into a main RDF graph using the same rules as {@link LktMergerJena#runMerger}.
+ * Every main RDF graph is available under the file name of its main RDF file:
+ * <pre>
+ * GET  /models                 names and sizes of all main RDF graphs as JSON
+ * GET  /models/{name}?format=  current main RDF graph, default format 'TTL', see {@link #FORMAT_PARAM}
+ * POST /models/{name}?format=  merge the RDF request body, the format is taken from the Content-Type
+ *                              header or the format parameter, default 'TTL'; responds merge stats as JSON
+ * POST /models/{name}/save     write the main RDF graph back to its main RDF file
+ * </pre>
+ * At most the configured number of requests are processed concurrently, requests exceeding the configured
+ * queue size are rejected with '503 Service Unavailable'. Merges of the same main RDF graph are serialized,
+ * reading a main RDF graph is blocked only by a running merge. Every merge is appended to the merge journal of
+ * its main RDF file before it is answered, merges that have not been saved survive a crash of the service and
+ * are replayed, when the main RDF file is loaded again. Main RDF graphs with unsaved merges are written back to
+ * their main RDF files and their journals are deleted, when the service is stopped. A backup of a main RDF file
+ * is created before it is written for the first time.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class LktHttpServiceJena {
+    /**
+     * Context path of the main RDF graphs.
+     */
+    public static final String CONTEXT = "/models";
+    /**
+     * Query parameter selecting the RDF format, values are the keys of {@link RdfFileServiceJena#RDF_FORMAT_MAP}.
+     */
+    public static final String FORMAT_PARAM = "format";
+    /**
+     * Access to the main LOGGER.
+     */
+    private static final Logger LOGGER = Logger.getLogger(LktHttpServiceJena.class.getName());
+
+    /**
+     * Main RDF graphs by name.
+     */
+    private final Map<String, ServedModel> models = new TreeMap<>();
+    /**
+     * Store type and number of threads of the merges.
+     */
+    private final LktMergeSettings settings;
+    /**
+     * Permits for requests being processed or waiting to be processed.
+     */
+    private final Semaphore admitted;
+    /**
+     * Permits for requests being processed.
+     */
+    private final Semaphore working;
+    /**
+     * HTTP server, null while the service is not running.
+     */
+    private HttpServer server;
+    /**
+     * Threads handling the requests of the HTTP server.
+     */
+    private ExecutorService executor;
+
+    /**
+     * Constructor.
+     * @param settings Store type and number of threads of the merges.
+     * @param workers Maximum number of requests processed concurrently.
+     * @param queueSize Maximum number of requests waiting to be processed.
+     */
+    public LktHttpServiceJena(final LktMergeSettings settings, final int workers, final int queueSize) {
+        this.settings = settings;
+        this.working = new Semaphore(workers, true);
+        this.admitted = new Semaphore(workers + queueSize);
+    }
+
+    /**
+     * Method loads the main RDF files concurrently and replays their merge journals. A main RDF graph is served
+     * under the file name of its main RDF file.
+     * @param mainFiles Main RDF files.
+     * @return True if all main RDF files have been loaded, false otherwise.
+     */
+    public boolean load(final List<String> mainFiles) {
+        final List<RdfLoadResult> loaded =
+                RdfFileServiceJena.loadRdfFiles(mainFiles, this.settings.isUseSnapshot(), this.settings.getStore());
+        for (final RdfLoadResult result : loaded) {
+            if (!result.isValid()) {
+                return false;
+            }
+            final String mainFile = result.getFileName();
+            final String name = Paths.get(mainFile).getFileName().toString();
+            if (this.models.containsKey(name)) {
+                LktHttpServiceJena.LOGGER.error(
+                        String.join("", "Main files with the same name '", name, "' can not be served together.")
+                );
+                return false;
+            }
+            if (RdfJournalJena.replayJournal(mainFile, result.getModel()) < 0) {
+                return false;
+            }
+            this.models.put(name, new ServedModel(mainFile, result.getModel()));
+        }
+        return true;
+    }
+
+    /**
+     * Method starts the HTTP server on the loopback address.
+     * @param port Port of the HTTP server, 0 selects a free port.
+     * @return True if the HTTP server has been started, false otherwise.
+     */
+    public boolean start(final int port) {
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            LktHttpServiceJena.LOGGER.error(
+                    String.join("", "Could not start HTTP server on port ", String.valueOf(port), ": ",
+                            e.getMessage())
+            );
+            return false;
+        }
+        this.executor = Executors.newCachedThreadPool();
+        this.server.setExecutor(this.executor);
+        this.server.createContext(LktHttpServiceJena.CONTEXT, this::handle);
+        this.server.start();
+
+        LktHttpServiceJena.LOGGER.info(
+                String.join("", "Serving ", String.valueOf(this.models.size()), " main files on http://",
+                        this.server.getAddress().getHostString(), ":", String.valueOf(this.getPort()),
+                        LktHttpServiceJena.CONTEXT)
+        );
+        return true;
+    }
+
+    /**
+     * @return Port of the running HTTP server.
+     */
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Method stops the HTTP server after running requests have finished and writes all main RDF graphs
+     * with unsaved merges back to their main RDF files.
+     */
+    public void stop() {
+        if (this.server != null) {
+            this.server.stop(1);
+            this.executor.shutdown();
+            try {
+                this.executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.server = null;
+        }
+        this.models.values().forEach(served -> {
+            if (served.dirty) {
+                this.save(served);
+            }
+        });
+    }
+
+    /**
+     * Method handles a single request, requests exceeding the queue size are rejected.
+     * @param exchange HTTP request and response.
+     * @throws IOException If the response could not be sent.
+     */
+    private void handle(final HttpExchange exchange) throws IOException {
+        try {
+            if (!this.admitted.tryAcquire()) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                LktHttpServiceJena.sendText(exchange, 503, "Merge queue is full, retry later.");
+                return;
+            }
+            try {
+                this.working.acquireUninterruptibly();
+                try {
+                    this.route(exchange);
+                } finally {
+                    this.working.release();
+                }
+            } finally {
+                this.admitted.release();
+            }
+        } catch (RuntimeException e) {
+            LktHttpServiceJena.LOGGER.error(String.join("", "Request failed: ", String.valueOf(e)));
+            LktHttpServiceJena.sendText(exchange, 500, String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Method passes a request to the method handling its path and method.
+     * @param exchange HTTP request and response.
+     * @throws IOException If the response could not be sent.
+     */
+    private void route(final HttpExchange exchange) throws IOException {
+        final String method = exchange.getRequestMethod();
+        final String path = exchange.getRequestURI().getPath().substring(LktHttpServiceJena.CONTEXT.length());
+        if (path.isEmpty() || "/".equals(path)) {
+            if ("GET".equals(method)) {
+                this.list(exchange);
+            } else {
+                LktHttpServiceJena.sendText(exchange, 405, "Method not allowed.");
+            }
+            return;
+        }
+
+        final boolean saveRequest = path.endsWith("/save");
+        final String name = path.substring(1, saveRequest ? path.length() - "/save".length() : path.length());
+        final ServedModel served = this.models.get(name);
+        if (served == null) {
+            LktHttpServiceJena.sendText(exchange, 404, String.join("", "Unknown main file '", name, "'."));
+        } else if (saveRequest && "POST".equals(method)) {
+            if (this.save(served)) {
+                LktHttpServiceJena.sendJson(exchange, 200, String.join("", "{\"saved\":",
+                        LktHttpServiceJena.jsonString(served.mainFile), "}"));
+            } else {
+                LktHttpServiceJena.sendText(exchange, 500, "Could not save main file.");
+            }
+        } else if (!saveRequest && "POST".equals(method)) {
+            this.merge(exchange, served);
+        } else if (!saveRequest && "GET".equals(method)) {
+            this.serialize(exchange, served);
+        } else {
+            LktHttpServiceJena.sendText(exchange, 405, "Method not allowed.");
+        }
+    }
+
+    /**
+     * Method responds the names and sizes of all main RDF graphs.
+     * @param exchange HTTP request and response.
+     * @throws IOException If the response could not be sent.
+     */
+    private void list(final HttpExchange exchange) throws IOException {
+        final StringBuilder json = new StringBuilder("{");
+        for (final Map.Entry<String, ServedModel> entry : this.models.entrySet()) {
+            final ServedModel served = entry.getValue();
+            final long size;
+            served.lock.readLock().lock();
+            try {
+                size = served.model.size();
+            } finally {
+                served.lock.readLock().unlock();
+            }
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(LktHttpServiceJena.jsonString(entry.getKey())).append(":{\"triples\":").append(size)
+                    .append(",\"unsaved\":").append(served.dirty).append('}');
+        }
+        LktHttpServiceJena.sendJson(exchange, 200, json.append('}').toString());
+    }
+
+    /**
+     * Method merges the RDF graph of the request body into a main RDF graph and responds the merge stats.
+     * The merge is appended to the journal of the main RDF file first, a merge that cannot be journaled is
+     * rejected with '500 Internal Server Error'.
+     * @param exchange HTTP request and response.
+     * @param served Main RDF graph.
+     * @throws IOException If the request could not be read or the response could not be sent.
+     */
+    private void merge(final HttpExchange exchange, final ServedModel served) throws IOException {
+        Lang lang = null;
+        final String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType != null) {
+            lang = RDFLanguages.contentTypeToLang(contentType);
+        }
+        if (lang == null) {
+            final RDFFormat format = LktHttpServiceJena.requestFormat(exchange);
+            if (format == null) {
+                LktHttpServiceJena.sendText(exchange, 400, "Unsupported RDF format.");
+                return;
+            }
+            lang = format.getLang();
+        }
+
+        final long start = System.nanoTime();
+        final Model addModel = RdfFileServiceJena.createModel(this.settings.getStore());
+        try (InputStream in = exchange.getRequestBody()) {
+            RDFDataMgr.parse(StreamRDFLib.graph(addModel.getGraph()), in, lang);
+        } catch (RiotException e) {
+            LktHttpServiceJena.sendText(exchange, 400, String.join("", "Invalid RDF: ", e.getMessage()));
+            return;
+        }
+
+        final List<Triple> removed;
+        final long size;
+        served.lock.writeLock().lock();
+        try {
+            if (!RdfJournalJena.appendRecord(
+                    served.mainFile, RdfUtilsJena.getReplacedSubjects(addModel), addModel.getGraph())) {
+                LktHttpServiceJena.sendText(exchange, 500, "Could not append the merge to the journal.");
+                return;
+            }
+            removed = RdfUtilsJena.removeReplacedTriples(addModel, served.model, true, this.settings.getThreads());
+            served.model.add(addModel);
+            served.dirty = true;
+            size = served.model.size();
+        } finally {
+            served.lock.writeLock().unlock();
+        }
+
+        final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        LktHttpServiceJena.LOGGER.info(
+                String.join("", "Merged ", String.valueOf(addModel.size()), " triples into '", served.mainFile,
+                        "' in ", String.valueOf(millis), " ms.")
+        );
+        LktHttpServiceJena.sendJson(exchange, 200, String.join("",
+                "{\"removed\":", String.valueOf(removed.size()), ",\"added\":", String.valueOf(addModel.size()),
+                ",\"triples\":", String.valueOf(size), ",\"millis\":", String.valueOf(millis), "}"));
+    }
+
+    /**
+     * Method responds the current serialization of a main RDF graph.
+     * @param exchange HTTP request and response.
+     * @param served Main RDF graph.
+     * @throws IOException If the response could not be sent.
+     */
+    private void serialize(final HttpExchange exchange, final ServedModel served) throws IOException {
+        final RDFFormat format = LktHttpServiceJena.requestFormat(exchange);
+        if (format == null) {
+            LktHttpServiceJena.sendText(exchange, 400, "Unsupported RDF format.");
+            return;
+        }
+
+        served.lock.readLock().lock();
+        try {
+            exchange.getResponseHeaders().set("Content-Type",
+                    String.join("", format.getLang().getContentType().getContentType(), "; charset=utf-8"));
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                RDFDataMgr.write(out, served.model, format);
+            }
+        } finally {
+            served.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method writes a main RDF graph back to its main RDF file in the format of the file extension.
+     * A backup of the main RDF file is created before it is written for the first time.
+     * @param served Main RDF graph.
+     * @return True if the main RDF graph has been saved, false otherwise.
+     */
+    private boolean save(final ServedModel served) {
+        served.lock.readLock().lock();
+        try {
+            synchronized (served) {
+                if (!served.backedUp && !this.settings.getBackupService().backup(served.mainFile)) {
+                    LktHttpServiceJena.LOGGER.error(
+                            String.join("", "[ERROR ] While saving backup for file '", served.mainFile, "'")
+                    );
+                    return false;
+                }
+                served.backedUp = true;
+
+                final boolean dirty = served.dirty;
+                served.dirty = false;
+                if (!RdfFileServiceJena.saveModelToFile(served.mainFile, served.model,
+                        LktHttpServiceJena.fileFormat(served.mainFile), this.settings.getSaveOptions())) {
+                    served.dirty = dirty;
+                    return false;
+                }
+                this.settings.getBackupService().pruneBackups(served.mainFile);
+                return RdfJournalJena.deleteJournal(served.mainFile);
+            }
+        } finally {
+            served.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param fileName Name of an RDF file.
+     * @return Key of the RDF format of {@link RdfFileServiceJena#RDF_FORMAT_MAP} matching the file extension,
+     *  'TTL' if no format matches.
+     */
+    private static String fileFormat(final String fileName) {
+        final String name = CompressionService.stripCompressionExtension(fileName).toLowerCase(Locale.ENGLISH);
+        for (final Map.Entry<String, String> entry : RdfFileServiceJena.RDF_FORMAT_EXTENSION.entrySet()) {
+            if (name.endsWith(String.join("", ".", entry.getValue()))) {
+                return entry.getKey();
+            }
+        }
+        return "TTL";
+    }
+
+    /**
+     * @param exchange HTTP request.
+     * @return RDF format of the format query parameter of the request, 'TTL' if the parameter is missing,
+     *  null if the format is not supported.
+     */
+    private static RDFFormat requestFormat(final HttpExchange exchange) {
+        final Map<String, String> params = new HashMap<>();
+        final String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (final String param : query.split("&")) {
+                final int i = param.indexOf('=');
+                if (i > 0) {
+                    try {
+                        params.put(URLDecoder.decode(param.substring(0, i), "UTF-8"),
+                                URLDecoder.decode(param.substring(i + 1), "UTF-8"));
+                    } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return RdfFileServiceJena.RDF_FORMAT_MAP.get(
+                params.getOrDefault(LktHttpServiceJena.FORMAT_PARAM, "TTL").toUpperCase(Locale.ENGLISH));
+    }
+
+    /**
+     * @param value String value.
+     * @return Value as a quoted and escaped JSON string.
+     */
+    private static String jsonString(final String value) {
+        final StringBuilder json = new StringBuilder("\"");
+        for (final char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format(Locale.ENGLISH, "\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    /**
+     * Method sends a JSON response.
+     * @param exchange HTTP request and response.
+     * @param status HTTP status code.
+     * @param json JSON response body.
+     * @throws IOException If the response could not be sent.
+     */
+    private static void sendJson(final HttpExchange exchange, final int status, final String json)
+            throws IOException {
+        LktHttpServiceJena.send(exchange, status, "application/json; charset=utf-8", json);
+    }
+
+    /**
+     * Method sends a plain text response.
+     * @param exchange HTTP request and response.
+     * @param status HTTP status code.
+     * @param text Text response body.
+     * @throws IOException If the response could not be sent.
+     */
+    private static void sendText(final HttpExchange exchange, final int status, final String text)
+            throws IOException {
+        LktHttpServiceJena.send(exchange, status, "text/plain; charset=utf-8", text);
+    }
+
+    /**
+     * Method sends a response.
+     * @param exchange HTTP request and response.
+     * @param status HTTP status code.
+     * @param contentType Content type of the response body.
+     * @param body Response body.
+     * @throws IOException If the response could not be sent.
+     */
+    private static void send(final HttpExchange exchange, final int status, final String contentType,
+                             final String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Class holding a served main RDF graph.
+     */
+    private static final class ServedModel {
+        /**
+         * Main RDF file of the graph.
+         */
+        private final String mainFile;
+        /**
+         * Main RDF graph.
+         */
+        private final Model model;
+        /**
+         * Lock serializing merges and blocking reads during merges.
+         */
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        /**
+         * True if the graph contains merges, that have not been saved yet.
+         */
+        private volatile boolean dirty;
+        /**
+         * True if a backup of the main RDF file has been created.
+         */
+        private boolean backedUp;
+
+        /**
+         * Constructor.
+         * @param mainFile Main RDF file of the graph.
+         * @param model Main RDF graph.
+         */
+        ServedModel(final String mainFile, final Model model) {
+            this.mainFile = mainFile;
+            this.model = model;
+        }
+    }
+
+}
@@ -0,0 +1,322 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.mergers;
+
+import org.g_node.micro.commons.BackupService;
+import org.g_node.micro.rdf.RdfFileServiceJena;
+import org.g_node.micro.rdf.RdfSaveOptions;
+
+/**
+ * Class holding the optional settings of an in memory LKT merge. All setters return the settings object
+ * to allow chaining; settings that are not set use the documented default values.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class LktMergeSettings {
+    /**
+     * RDF format of the output file, default 'TTL'.
+     */
+    private String outputFormat = "TTL";
+    /**
+     * Load and save binary snapshots of the RDF files, default false.
+     */
+    private boolean useSnapshot;
+    /**
+     * Store type of the models holding the RDF graphs during the merge, default {@link RdfFileServiceJena#STORE_JENA}.
+     */
+    private String store = RdfFileServiceJena.STORE_JENA;
+    /**
+     * Number of threads replacing the subjects of the main RDF graph and writing N-Triples output, default 1.
+     */
+    private int threads = 1;
+    /**
+     * Path and filename of the RDF Patch file, default null if no patch file is written.
+     */
+    private String patchFile;
+    /**
+     * Write the full merged RDF graph to the output file, default true.
+     */
+    private boolean writeOutput = true;
+    /**
+     * Number of subject shards merged independently in parallel, default 1 if the RDF graphs are not sharded.
+     */
+    private int shards = 1;
+    /**
+     * Write every subject shard to its own output file instead of a single output file, default false.
+     */
+    private boolean splitOutput;
+    /**
+     * Maximum size of the sort buffer of an out of core merge in bytes, default 256 MB.
+     */
+    private long sortBuffer = 256L * 1024 * 1024;
+    /**
+     * Directory of the temporary files of an out of core merge, default null for the system temporary directory.
+     */
+    private String tempDir;
+    /**
+     * Force the output file to the storage device before it replaces an existing file.
+     */
+    private boolean sync;
+    /**
+     * Strategy of the backup of a replaced main RDF file, see {@link BackupService#STRATEGIES}.
+     */
+    private String backupStrategy = BackupService.LINK;
+    /**
+     * Maximum number of backups kept per main RDF file, 0 keeps all backups.
+     */
+    private int maxBackups;
+    /**
+     * Maximum age of kept backups in days, 0 keeps all backups.
+     */
+    private int maxBackupAge;
+
+    /**
+     * @return RDF format of the output file.
+     */
+    public String getOutputFormat() {
+        return this.outputFormat;
+    }
+
+    /**
+     * @param outputFormat RDF format of the output file.
+     * @return These settings.
+     */
+    public LktMergeSettings setOutputFormat(final String outputFormat) {
+        this.outputFormat = outputFormat;
+        return this;
+    }
+
+    /**
+     * @return True if binary snapshots of the RDF files are loaded and saved.
+     */
+    public boolean isUseSnapshot() {
+        return this.useSnapshot;
+    }
+
+    /**
+     * @param useSnapshot Load and save binary snapshots of the RDF files.
+     * @return These settings.
+     */
+    public LktMergeSettings setUseSnapshot(final boolean useSnapshot) {
+        this.useSnapshot = useSnapshot;
+        return this;
+    }
+
+    /**
+     * @return Store type of the models holding the RDF graphs during the merge.
+     */
+    public String getStore() {
+        return this.store;
+    }
+
+    /**
+     * @param store Store type of the models holding the RDF graphs during the merge,
+     *              see {@link RdfFileServiceJena#STORE_TYPES}.
+     * @return These settings.
+     */
+    public LktMergeSettings setStore(final String store) {
+        this.store = store;
+        return this;
+    }
+
+    /**
+     * @return Number of threads replacing the subjects of the main RDF graph and writing N-Triples output.
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * @param threads Number of threads replacing the subjects of the main RDF graph and writing N-Triples output.
+     * @return These settings.
+     */
+    public LktMergeSettings setThreads(final int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * @return Path and filename of the RDF Patch file, null if no patch file is written.
+     */
+    public String getPatchFile() {
+        return this.patchFile;
+    }
+
+    /**
+     * @param patchFile Path and filename of the RDF Patch file, null if no patch file is written.
+     * @return These settings.
+     */
+    public LktMergeSettings setPatchFile(final String patchFile) {
+        this.patchFile = patchFile;
+        return this;
+    }
+
+    /**
+     * @return True if the full merged RDF graph is written to the output file.
+     */
+    public boolean isWriteOutput() {
+        return this.writeOutput;
+    }
+
+    /**
+     * @param writeOutput Write the full merged RDF graph to the output file.
+     * @return These settings.
+     */
+    public LktMergeSettings setWriteOutput(final boolean writeOutput) {
+        this.writeOutput = writeOutput;
+        return this;
+    }
+
+    /**
+     * @return Number of subject shards merged independently in parallel.
+     */
+    public int getShards() {
+        return this.shards;
+    }
+
+    /**
+     * @param shards Number of subject shards merged independently in parallel.
+     * @return These settings.
+     */
+    public LktMergeSettings setShards(final int shards) {
+        this.shards = shards;
+        return this;
+    }
+
+    /**
+     * @return True if every subject shard is written to its own output file.
+     */
+    public boolean isSplitOutput() {
+        return this.splitOutput;
+    }
+
+    /**
+     * @param splitOutput Write every subject shard to its own output file.
+     * @return These settings.
+     */
+    public LktMergeSettings setSplitOutput(final boolean splitOutput) {
+        this.splitOutput = splitOutput;
+        return this;
+    }
+
+    /**
+     * @return Maximum size of the sort buffer of an out of core merge in bytes.
+     */
+    public long getSortBuffer() {
+        return this.sortBuffer;
+    }
+
+    /**
+     * @param sortBuffer Maximum size of the sort buffer of an out of core merge in bytes.
+     * @return These settings.
+     */
+    public LktMergeSettings setSortBuffer(final long sortBuffer) {
+        this.sortBuffer = sortBuffer;
+        return this;
+    }
+
+    /**
+     * @return Directory of the temporary files of an out of core merge, null for the system temporary directory.
+     */
+    public String getTempDir() {
+        return this.tempDir;
+    }
+
+    /**
+     * @param tempDir Directory of the temporary files of an out of core merge, null for the system
+     *                temporary directory.
+     * @return These settings.
+     */
+    public LktMergeSettings setTempDir(final String tempDir) {
+        this.tempDir = tempDir;
+        return this;
+    }
+
+    /**
+     * @return Force the output file to the storage device before it replaces an existing file.
+     */
+    public boolean isSync() {
+        return this.sync;
+    }
+
+    /**
+     * @param sync Force the output file to the storage device before it replaces an existing file.
+     * @return These settings.
+     */
+    public LktMergeSettings setSync(final boolean sync) {
+        this.sync = sync;
+        return this;
+    }
+
+    /**
+     * @return Strategy of the backup of a replaced main RDF file, see {@link BackupService#STRATEGIES}.
+     */
+    public String getBackupStrategy() {
+        return this.backupStrategy;
+    }
+
+    /**
+     * @param backupStrategy Strategy of the backup of a replaced main RDF file,
+     *                       see {@link BackupService#STRATEGIES}.
+     * @return These settings.
+     */
+    public LktMergeSettings setBackupStrategy(final String backupStrategy) {
+        this.backupStrategy = backupStrategy;
+        return this;
+    }
+
+    /**
+     * @return Maximum number of backups kept per main RDF file, 0 keeps all backups.
+     */
+    public int getMaxBackups() {
+        return this.maxBackups;
+    }
+
+    /**
+     * @param maxBackups Maximum number of backups kept per main RDF file, 0 keeps all backups.
+     * @return These settings.
+     */
+    public LktMergeSettings setMaxBackups(final int maxBackups) {
+        this.maxBackups = maxBackups;
+        return this;
+    }
+
+    /**
+     * @return Maximum age of kept backups in days, 0 keeps all backups.
+     */
+    public int getMaxBackupAge() {
+        return this.maxBackupAge;
+    }
+
+    /**
+     * @param maxBackupAge Maximum age of kept backups in days, 0 keeps all backups.
+     * @return These settings.
+     */
+    public LktMergeSettings setMaxBackupAge(final int maxBackupAge) {
+        this.maxBackupAge = maxBackupAge;
+        return this;
+    }
+
+    /**
+     * @return Service creating backups of replaced main RDF files using the backup settings.
+     */
+    public BackupService getBackupService() {
+        return new BackupService(this.backupStrategy, this.maxBackups, this.maxBackupAge);
+    }
+
+    /**
+     * @return Options saving the merged RDF graph using the snapshot, sync and thread settings.
+     */
+    public RdfSaveOptions getSaveOptions() {
+        return new RdfSaveOptions().setSaveSnapshot(this.useSnapshot).setSync(this.sync).setThreads(this.threads);
+    }
+
+}
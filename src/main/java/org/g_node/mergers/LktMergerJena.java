@@ -10,12 +10,39 @@
 
 package org.g_node.mergers;
 
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
 import com.hp.hpl.jena.rdf.model.Model;
-import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.util.iterator.ExtendedIterator;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
 import org.apache.log4j.Logger;
+import org.g_node.micro.commons.BackupService;
+import org.g_node.micro.commons.CompressionService;
 import org.g_node.micro.commons.FileService;
 import org.g_node.micro.rdf.RdfFileServiceJena;
+import org.g_node.micro.rdf.RdfJournalJena;
+import org.g_node.micro.rdf.RdfLoadResult;
+import org.g_node.micro.rdf.RdfPatchWriterJena;
 import org.g_node.micro.rdf.RdfUtilsJena;
+import org.g_node.micro.rdf.StreamBlankNodeCollectorJena;
+import org.g_node.micro.rdf.StreamSubjectFilterJena;
 
 /**
  * Class handling the merging of RDF documents using the Apache Jena RDF suite.
@@ -29,42 +56,441 @@ public class LktMergerJena {
     private static final Logger LOGGER = Logger.getLogger(LktMergerJena.class.getName());
 
     /**
-     * Method merges two RDF files, one named mergeRDF, the other mainRDF. Information will be merged from the
-     * mergeRDF file with the mainRDF file. If an output filename is provided, the merged RDF graph will be
-     * saved to this output file. If no output filename is specified, a backup of the mainRDF file will be created,
-     * using the format '[date_time]_backup_[main file name]' and the mainRDF file will be replaced with the merged
-     * RDF graph.
-     * If RDF Resources with the same URI are encountered in both mergeRDF and mainRDF, this Resource including all
-     * referenced Blank Nodes will be removed from the mainRDF before the merge of the two graphs is performed. This
-     * ensures, that only the information of the mergeRDF graph will be present in the merged final graph.
+     * Method merges RDF files, named mergeRDF files, one after the other into another RDF file, named mainRDF.
+     * Information will be merged from the mergeRDF files with the mainRDF file. If an output filename is
+     * provided, the merged RDF graph will be saved to this output file. If no output filename is specified,
+     * a backup of the mainRDF file will be created, using the format '[date_time]_backup_[main file name]' and
+     * the mainRDF file will be replaced with the merged RDF graph.
+     * If RDF Resources with the same URI are encountered in both a mergeRDF and the mainRDF graph, this Resource
+     * including all referenced Blank Nodes will be removed from the mainRDF graph before the mergeRDF graph is
+     * added. This ensures, that only the information of the latest mergeRDF graph will be present in the merged
+     * final graph. The mainRDF file is loaded and saved only once, while a mergeRDF file is merged, the next
+     * mergeRDF file is already loaded by a background thread. Each file is validated while it is loaded and
+     * parsed only once. If any file is not a valid RDF file, the merge is aborted without saving any output.
+     * With the store type {@link RdfFileServiceJena#STORE_COMPACT}, the RDF graphs are held in dictionary encoded
+     * graphs using considerably less memory than default Jena models. With {@link RdfFileServiceJena#STORE_OFFHEAP}
+     * the encoded terms and indexes of both graphs are kept in direct memory outside of the Java heap.
+     * If snapshots are used, the mainRDF file is loaded from its binary snapshot, if the snapshot matches the
+     * current state of the file, and a binary snapshot of the merged RDF graph is saved next to the output file.
+     * The subjects replaced by the mergeRDF graph are partitioned by hash and removed from the mainRDF graph
+     * using the configured number of threads, the merged graph does not depend on the number of threads.
+     * If a patch file is set, the exact differences between the mainRDF graph and the merged graph are written
+     * to this file in the RDF Patch format, see {@link RdfPatchWriterJena}. Writing the full merged graph to the
+     * output file can be skipped in this case.
+     * If the mainRDF file has a merge journal, see {@link RdfJournalJena}, all journaled merges are replayed on the
+     * mainRDF graph first. The journal is deleted, when the merged graph replaces the mainRDF file.
      * @param mainFile Main RDF file. Information will be merged into this file.
-     * @param mergeFile Merge RDF file. Information from this file will be merged into the mainFile.
+     * @param mergeFiles Merge RDF files. Information from these files will be merged into the mainFile
+     *                   in the order of the list.
+     * @param outputFile Name and Path of the output file.
+     * @param settings Output format, store type, number of threads and further settings of the merge.
+     * @return True if the merge was completed and its output has been saved, false otherwise.
+     */
+    public static boolean runMerger(final String mainFile, final List<String> mergeFiles, final String outputFile,
+                                    final LktMergeSettings settings) {
+
+        final ExecutorService prefetch = Executors.newSingleThreadExecutor();
+        try {
+            Future<RdfLoadResult> nextMerge = LktMergerJena.prefetch(prefetch, mergeFiles.get(0), settings);
+            final Future<Boolean> backup = LktMergerJena.startBackup(mainFile, outputFile, settings);
+
+            final RdfLoadResult mainResult =
+                    RdfFileServiceJena.loadRdfFile(mainFile, settings.isUseSnapshot(), settings.getStore());
+            if (!mainResult.isValid()) {
+                return false;
+            }
+            final Model mainModel = mainResult.getModel();
+            if (RdfJournalJena.replayJournal(mainFile, mainModel) < 0) {
+                return false;
+            }
+
+            final String patchFile = settings.getPatchFile();
+            boolean merged = false;
+            try (RdfPatchWriterJena patch = patchFile == null ? null : LktMergerJena.openPatch(patchFile)) {
+                for (int i = 0; i < mergeFiles.size(); i++) {
+                    final String mergeFile = mergeFiles.get(i);
+                    final RdfLoadResult addResult = RdfFileServiceJena.awaitLoad(mergeFile, nextMerge);
+                    if (i + 1 < mergeFiles.size()) {
+                        nextMerge = LktMergerJena.prefetch(prefetch, mergeFiles.get(i + 1), settings);
+                    }
+                    if (!addResult.isValid()) {
+                        break;
+                    }
+
+                    LktMergerJena.LOGGER.info(
+                            String.join("", "Merging file ", String.valueOf(i + 1), " of ",
+                                    String.valueOf(mergeFiles.size()), " '", mergeFile, "'")
+                    );
+                    final Model addModel = addResult.getModel();
+                    if (patch == null) {
+                        RdfUtilsJena.removePropertiesFromModel(addModel, mainModel, true, settings.getThreads());
+                    } else {
+                        final List<Triple> removed =
+                                RdfUtilsJena.removeReplacedTriples(addModel, mainModel, true, settings.getThreads());
+                        LktMergerJena.writePatch(patch, removed, mainModel.getGraph(), addModel.getGraph());
+                    }
+                    mainModel.setNsPrefixes(addResult.getPrefixes());
+                    mainModel.add(addModel);
+                    merged = i + 1 == mergeFiles.size();
+                }
+                if (patch != null && merged) {
+                    LktMergerJena.LOGGER.info(
+                            String.join("", "Patch replaces ", String.valueOf(patch.getReplacedSubjects()),
+                                    " subjects, deletes ", String.valueOf(patch.getDeletedTriples()),
+                                    " and adds ", String.valueOf(patch.getAddedTriples()), " triples.")
+                    );
+                }
+            } catch (IOException e) {
+                LktMergerJena.LOGGER.error(
+                        String.join("", "Could not write patch file '", patchFile, "': ", e.getMessage())
+                );
+                merged = false;
+            }
+
+            if (!merged) {
+                if (patchFile != null) {
+                    LktMergerJena.deleteIncompletePatch(patchFile);
+                }
+                return false;
+            }
+            return !settings.isWriteOutput()
+                    || LktMergerJena.saveMerged(mainFile, outputFile, mainModel, settings, backup);
+        } finally {
+            prefetch.shutdownNow();
+        }
+    }
+
+    /**
+     * Method starts the backup of the main RDF file in the background, if the main RDF file is replaced by the
+     * merge, so that the backup is written while the merge is computed, see {@link BackupService#backupAsync}.
+     * @param mainFile Main RDF file of the merge.
+     * @param outputFile Name and Path of the output file.
+     * @param settings Backup settings of the merge.
+     * @return Result of the backup, true if no backup is required.
+     */
+    static Future<Boolean> startBackup(final String mainFile, final String outputFile,
+                                       final LktMergeSettings settings) {
+        if (!mainFile.equals(outputFile) || !settings.isWriteOutput() || settings.isSplitOutput()) {
+            return CompletableFuture.completedFuture(true);
+        }
+        return settings.getBackupService().backupAsync(mainFile);
+    }
+
+    /**
+     * Method saves a merged RDF graph to the output file. If the output file is the main RDF file, the backup of
+     * the main RDF file has to be completed first. After the merged RDF graph has been saved, outdated backups
+     * and the merge journal of the main RDF file are deleted.
+     * @param mainFile Main RDF file of the merge.
+     * @param outputFile Name and Path of the output file.
+     * @param merged Merged RDF graph.
+     * @param settings Output format and snapshot usage of the merge.
+     * @param backup Result of the backup of the main RDF file, see {@link #startBackup}.
+     * @return True if the merged RDF graph has been saved, false otherwise.
+     */
+    static boolean saveMerged(final String mainFile, final String outputFile, final Model merged,
+                              final LktMergeSettings settings, final Future<Boolean> backup) {
+        if (!BackupService.await(mainFile, backup)) {
+            LktMergerJena.LOGGER.error(
+                    String.join("", "[ERROR ] While saving backup for file '", mainFile, "'")
+            );
+            return false;
+        }
+
+        if (!RdfFileServiceJena.saveModelToFile(
+                outputFile, merged, settings.getOutputFormat(), settings.getSaveOptions())) {
+            return false;
+        }
+        if (!mainFile.equals(outputFile)) {
+            return true;
+        }
+        settings.getBackupService().pruneBackups(mainFile);
+        return RdfJournalJena.deleteJournal(mainFile);
+    }
+
+    /**
+     * Start loading a merge RDF file on the prefetch thread.
+     * @param prefetch Single thread executor loading the merge RDF files.
+     * @param mergeFile Merge RDF file.
+     * @param settings Settings of the merge containing snapshot usage and store type.
+     * @return {@link Future} of the loaded merge RDF file.
+     */
+    private static Future<RdfLoadResult> prefetch(final ExecutorService prefetch, final String mergeFile,
+                                                  final LktMergeSettings settings) {
+        return prefetch.submit(
+                () -> RdfFileServiceJena.loadRdfFile(mergeFile, settings.isUseSnapshot(), settings.getStore()));
+    }
+
+    /**
+     * Method merges RDF files into a main RDF file by appending one record per mergeRDF file to the merge
+     * journal of the main RDF file, see {@link RdfJournalJena}. Only the mergeRDF files are loaded, a record
+     * contains the URI subjects of a mergeRDF graph, that replace identical Resources of the main RDF graph,
+     * and all triples of the mergeRDF graph. While a record is appended, the next mergeRDF file is already
+     * loaded by a background thread. If a mergeRDF file is not a valid RDF file, no further records are
+     * appended. The main RDF file itself is not changed, the journaled merges are applied
+     * when the main RDF file is merged in memory or compacted, see {@link #runCompaction}.
+     * @param mainFile Main RDF file, the journal is saved next to this file.
+     * @param mergeFiles Merge RDF files. Information from these files will be merged into the mainFile
+     *                   in the order of the list.
+     * @return True if a record has been appended for every merge RDF file, false otherwise.
+     */
+    public static boolean runJournalMerger(final String mainFile, final List<String> mergeFiles) {
+        final LktMergeSettings settings = new LktMergeSettings();
+        final ExecutorService prefetch = Executors.newSingleThreadExecutor();
+        try {
+            Future<RdfLoadResult> nextMerge = LktMergerJena.prefetch(prefetch, mergeFiles.get(0), settings);
+            for (int i = 0; i < mergeFiles.size(); i++) {
+                final String mergeFile = mergeFiles.get(i);
+                final RdfLoadResult addResult = RdfFileServiceJena.awaitLoad(mergeFile, nextMerge);
+                if (i + 1 < mergeFiles.size()) {
+                    nextMerge = LktMergerJena.prefetch(prefetch, mergeFiles.get(i + 1), settings);
+                }
+                if (!addResult.isValid()) {
+                    return false;
+                }
+
+                final Model addModel = addResult.getModel();
+                LktMergerJena.LOGGER.info(
+                        String.join("", "Appending merge of '", mergeFile, "' to journal '",
+                                RdfJournalJena.getJournalPath(mainFile).toString(), "'")
+                );
+                if (!RdfJournalJena.appendRecord(
+                        mainFile, RdfUtilsJena.getReplacedSubjects(addModel), addModel.getGraph())) {
+                    return false;
+                }
+            }
+        } finally {
+            prefetch.shutdownNow();
+        }
+        return true;
+    }
+
+    /**
+     * Method folds the merge journal of a main RDF file into a new main RDF file. The main RDF file is loaded,
+     * all journaled merges are replayed and the resulting RDF graph is saved to the output file. If the
+     * output file is the main RDF file, a backup of the main RDF file is created and the journal is deleted
+     * after the new main RDF file has been saved.
+     * @param mainFile Main RDF file with a merge journal.
      * @param outputFile Name and Path of the output file.
      * @param outputFormat RDF format of the output file.
+     * @param store Store type of the model holding the RDF graph, see {@link RdfFileServiceJena#STORE_TYPES}.
+     * @param backups Service creating the backup of the main RDF file.
+     * @return True if the compacted RDF graph has been saved, false otherwise.
      */
-    public static void runMerger(final String mainFile, final String mergeFile,
-                                 final String outputFile, final String outputFormat) {
+    public static boolean runCompaction(final String mainFile, final String outputFile, final String outputFormat,
+                                        final String store, final BackupService backups) {
+        final RdfLoadResult mainResult = RdfFileServiceJena.loadRdfFile(mainFile, false, store);
+        if (!mainResult.isValid()) {
+            return false;
+        }
+        final Model mainModel = mainResult.getModel();
+        if (RdfJournalJena.replayJournal(mainFile, mainModel) < 0) {
+            return false;
+        }
 
-        final Model mainModel = RdfFileServiceJena.openModelFromFile(mainFile);
-        final Model addModel = RdfFileServiceJena.openModelFromFile(mergeFile);
+        if (mainFile.equals(outputFile) && !backups.backup(mainFile)) {
+            LktMergerJena.LOGGER.error(
+                    String.join("", "[ERROR ] While saving backup for file '", mainFile, "'")
+            );
+            return false;
+        }
 
-        Model mergeModel = ModelFactory.createDefaultModel();
+        if (!RdfFileServiceJena.saveModelToFile(outputFile, mainModel, outputFormat, false)) {
+            return false;
+        }
+        if (!mainFile.equals(outputFile)) {
+            return true;
+        }
+        backups.pruneBackups(mainFile);
+        return RdfJournalJena.deleteJournal(mainFile);
+    }
 
-        mergeModel.setNsPrefixes(mainModel.getNsPrefixMap());
-        mergeModel.setNsPrefixes(addModel.getNsPrefixMap());
+    /**
+     * Method opens an RDF Patch file, the file is compressed if its name ends with a compression extension.
+     * @param patchFile Path and filename of the patch file.
+     * @return Writer of the patch file.
+     * @throws IOException If the patch file could not be opened.
+     */
+    private static RdfPatchWriterJena openPatch(final String patchFile) throws IOException {
+        LktMergerJena.LOGGER.info(String.join("", "Writing RDF patch file '", patchFile, "'"));
+        return new RdfPatchWriterJena(new BufferedOutputStream(CompressionService.openOutputStream(
+                Paths.get(patchFile), CompressionService.getCompressionByName(patchFile))));
+    }
 
-        mergeModel = RdfUtilsJena.removePropertiesFromModel(addModel, mainModel, true);
-        mergeModel.add(addModel);
+    /**
+     * Method writes the differences between the main RDF graph before and after merging a merge graph
+     * to an RDF Patch. Removed triples, that are added again by the merge graph, and added triples, that were
+     * already contained in the main graph before the merge, are not written.
+     * Blank nodes of the main graph are labeled per parse of the main file, a replica of the main file cannot
+     * match them. A replaced subject referencing blank nodes is therefore written as a replacement of the
+     * subject including all reachable blank nodes, see {@link RdfPatchWriterJena#replace(Node)}, followed by
+     * all triples of the subject in the merge graph; only removed triples without blank nodes are deleted
+     * triple by triple.
+     * @param patch Writer of the RDF Patch file.
+     * @param removed Triples removed from the main graph.
+     * @param mainGraph Main graph after the replaced triples have been removed.
+     * @param addGraph Merge graph, whose triples are added to the main graph.
+     * @throws IOException If the differences could not be written.
+     */
+    private static void writePatch(final RdfPatchWriterJena patch, final List<Triple> removed,
+                                   final Graph mainGraph, final Graph addGraph) throws IOException {
+        // Blank nodes are only reachable from replaced URI subjects referencing a blank node directly.
+        final Set<Node> replaced = new LinkedHashSet<>();
+        for (final Triple t : removed) {
+            if (t.getSubject().isURI() && t.getObject().isBlank()) {
+                replaced.add(t.getSubject());
+            }
+        }
+        for (final Node s : replaced) {
+            patch.replace(s);
+        }
+        for (final Triple t : removed) {
+            if (!addGraph.contains(t) && t.getSubject().isURI() && !replaced.contains(t.getSubject())) {
+                patch.delete(t);
+            }
+        }
+        final Set<Triple> removedSet = new HashSet<>(removed);
+        final ExtendedIterator<Triple> added = addGraph.find(Node.ANY, Node.ANY, Node.ANY);
+        try {
+            while (added.hasNext()) {
+                final Triple t = added.next();
+                final boolean readded = removedSet.contains(t);
+                if (readded ? replaced.contains(t.getSubject()) : !mainGraph.contains(t)) {
+                    patch.add(t);
+                }
+            }
+        } finally {
+            added.close();
+        }
+    }
 
-        // TODO test if this conditional works as required and maybe come up with a better solution.
-        // Create backup, if the output file is the same as the main RDF file.
-        if (mainFile.equals(outputFile) && !FileService.createTimeStampBackupFile(mainFile, "yyyyMMddHHmm")) {
+    /**
+     * Method removes the patch file of a merge, that could not be completed.
+     * @param patchFile Path and filename of the patch file.
+     */
+    private static void deleteIncompletePatch(final String patchFile) {
+        try {
+            Files.deleteIfExists(Paths.get(patchFile));
+        } catch (IOException e) {
+            LktMergerJena.LOGGER.error(
+                    String.join("", "Could not remove incomplete patch file '", patchFile, "': ", e.getMessage())
+            );
+        }
+    }
+
+    /**
+     * Method merges two RDF files in streaming mode. Only the mergeRDF file is loaded into memory, the mainRDF
+     * file has to be in a line based RDF format (N-Triples or N-Quads) and is streamed repeatedly: the first passes
+     * collect the blank nodes belonging to Resources that are replaced by the mergeRDF file until no new blank
+     * node is found, keeping only these blank nodes in memory, the last pass
+     * writes all triples of the mainRDF file that are not replaced directly to the output file, followed by
+     * the content of the mergeRDF file. The output file is always written in the N-Triples format, it is
+     * compressed if its name ends with a compression extension.
+     * The replacement follows the same rules as {@link #runMerger(String, List, String, LktMergeSettings)},
+     * blank nodes belonging to a replaced Resource are removed including all nested blank nodes.
+     * Several mergeRDF files are folded into a single merge graph in the order of the list before the mainRDF
+     * file is streamed: every mergeRDF graph replaces the Resources of the previous mergeRDF graphs and the
+     * mainRDF file, the passes over the mainRDF file are shared by all mergeRDF files.
+     * If the output file is the same as the mainRDF file, a backup of the mainRDF file is created.
+     * @param mainFile Main RDF file in N-Triples or N-Quads format. Information will be merged into this file.
+     * @param mergeFiles Merge RDF files. Information from these files will be merged into the mainFile
+     *                   in the order of the list.
+     * @param outputFile Name and Path of the output file.
+     * @param backups Service creating the backup of the main RDF file.
+     * @return True if the merged RDF graph has been saved, false otherwise.
+     */
+    public static boolean runStreamMerger(final String mainFile, final List<String> mergeFiles,
+                                          final String outputFile, final BackupService backups) {
+
+        final List<RdfLoadResult> addResults = RdfFileServiceJena.loadRdfFiles(mergeFiles);
+        if (addResults.stream().anyMatch(r -> !r.isValid())) {
+            return false;
+        }
+        final Model addModel = addResults.get(0).getModel();
+        final Set<Node> replacedSubjects = new HashSet<>(RdfUtilsJena.getReplacedSubjects(addModel));
+        for (final RdfLoadResult addResult : addResults.subList(1, addResults.size())) {
+            final Model nextModel = addResult.getModel();
+            replacedSubjects.addAll(RdfUtilsJena.getReplacedSubjects(nextModel));
+            RdfUtilsJena.removePropertiesFromModel(nextModel, addModel, true);
+            addModel.add(nextModel);
+        }
+
+        // Both passes over the main file have to create identical blank nodes.
+        final UUID blankNodeScope = UUID.randomUUID();
+        final StreamBlankNodeCollectorJena collector = new StreamBlankNodeCollectorJena(replacedSubjects);
+        do {
+            collector.startPass();
+            if (!RdfFileServiceJena.parseRdfFile(mainFile, collector, blankNodeScope)) {
+                return false;
+            }
+        } while (collector.hasGrown());
+        LktMergerJena.LOGGER.info(
+                String.join("", "Collected ", String.valueOf(collector.getBlankNodeClosure().size()),
+                        " blank nodes of replaced subjects in ", String.valueOf(collector.getPasses()), " passes.")
+        );
+        final Set<Node> removedBlankNodes = collector.getBlankNodeClosure();
+
+        if (mainFile.equals(outputFile) && !backups.backup(mainFile)) {
             LktMergerJena.LOGGER.error(
                     String.join("", "[ERROR ] While saving backup for file '", mainFile, "'")
             );
-            return;
+            return false;
         }
 
-        RdfFileServiceJena.saveModelToFile(outputFile, mergeModel, outputFormat);
+        LktMergerJena.LOGGER.info(
+                String.join("", "Streaming merged data to RDF file '", outputFile, "' using format 'NTRIPLES'")
+        );
+
+        final Path outPath = Paths.get(outputFile).toAbsolutePath();
+        boolean parsed = false;
+        Path tmpPath = null;
+        try {
+            tmpPath = FileService.createSiblingTempFile(outPath);
+            try (OutputStream out = new BufferedOutputStream(CompressionService.openOutputStream(
+                    tmpPath, CompressionService.getCompressionByName(outputFile)))) {
+                final StreamRDF writer = StreamRDFLib.writer(out);
+                final StreamSubjectFilterJena filter =
+                        new StreamSubjectFilterJena(writer, replacedSubjects, removedBlankNodes, addModel.getGraph());
+
+                parsed = RdfFileServiceJena.parseRdfFile(mainFile, filter, blankNodeScope);
+                if (parsed) {
+                    final ExtendedIterator<Triple> added = addModel.getGraph().find(Node.ANY, Node.ANY, Node.ANY);
+                    try {
+                        added.forEachRemaining(writer::triple);
+                    } finally {
+                        added.close();
+                    }
+                    writer.finish();
+                    LktMergerJena.LOGGER.info(
+                            String.join("", "Removed ", String.valueOf(filter.getDroppedTriples()),
+                                    " and kept ", String.valueOf(filter.getKeptTriples()),
+                                    " triples of the main file, added ", String.valueOf(addModel.size()),
+                                    " triples.")
+                    );
+                }
+            }
+            if (parsed) {
+                FileService.replaceAtomically(tmpPath, outPath, false);
+                if (mainFile.equals(outputFile)) {
+                    backups.pruneBackups(mainFile);
+                }
+            } else {
+                Files.deleteIfExists(tmpPath);
+            }
+        } catch (IOException e) {
+            LktMergerJena.LOGGER.error(
+                    String.join("", "Could not write output file '", outputFile, "': ", e.getMessage())
+            );
+            if (tmpPath != null) {
+                try {
+                    Files.deleteIfExists(tmpPath);
+                } catch (IOException d) {
+                    LktMergerJena.LOGGER.error(
+                            String.join("", "Could not delete temporary file '", tmpPath.toString(), "'"));
+                }
+            }
+            return false;
+        }
+        return parsed;
     }
+
 }
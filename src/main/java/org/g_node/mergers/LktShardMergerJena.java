@@ -0,0 +1,274 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.mergers;
+
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.Model;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.log4j.Logger;
+import org.g_node.micro.commons.CompressionService;
+import org.g_node.micro.rdf.ParallelNTriplesParser;
+import org.g_node.micro.rdf.RdfFileServiceJena;
+import org.g_node.micro.rdf.RdfJournalJena;
+import org.g_node.micro.rdf.RdfLoadResult;
+import org.g_node.micro.rdf.RdfUtilsJena;
+
+/**
+ * Class merging RDF files into a main RDF file with the RDF graphs split into shards by subject hash,
+ * each shard is merged independently by its own thread using the rules of {@link LktMergerJena#runMerger}.
+ *
+ * Blank Nodes are assigned to the shard of the subject referencing them. Subjects connected by shared
+ * Blank Nodes in the main or the merge RDF graph are assigned to the same shard, since replacing one of them
+ * removes the shared Blank Nodes as well. The merged RDF graph is therefore identical to the RDF graph
+ * merged by {@link LktMergerJena#runMerger} and does not depend on the number of shards.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class LktShardMergerJena {
+    /**
+     * Access to the main LOGGER.
+     */
+    private static final Logger LOGGER = Logger.getLogger(LktShardMergerJena.class.getName());
+
+    /**
+     * Method merges RDF files into a main RDF file in shards. The merge RDF files are folded into one merge
+     * RDF graph by {@link LktTreeMergerJena} while the main RDF file is loaded. Every shard thread copies the
+     * triples of its shard from the main and the merge RDF graph, which are only read, into its own RDF graphs
+     * and merges them. During the merge both the unsharded and the sharded RDF graphs are held in memory.
+     * The merged shards are either written to one output file each, named after the output file with the
+     * index of the shard in front of the file extension, e.g. 'out.0.ttl', or combined and saved to the output
+     * file like {@link LktMergerJena#runMerger} does; snapshots are only saved in the latter case.
+     * If the main RDF file has a merge journal, see {@link RdfJournalJena}, all journaled merges are replayed
+     * on the main RDF graph first.
+     * @param mainFile Main RDF file. Information will be merged into this file.
+     * @param mergeFiles Merge RDF files. Information from these files will be merged into the mainFile
+     *                   in the order of the list.
+     * @param outputFile Name and Path of the output file.
+     * @param settings Output format, store type, number of threads loading the merge RDF files, number of shards
+     *                 and further settings of the merge.
+     * @return True if the merge was completed and its output has been saved, false otherwise.
+     */
+    public static boolean runShardMerger(final String mainFile, final List<String> mergeFiles,
+                                         final String outputFile, final LktMergeSettings settings) {
+        final int shards = settings.getShards();
+        final ExecutorService workers = Executors.newFixedThreadPool(shards);
+        try {
+            final Future<Boolean> backup = LktMergerJena.startBackup(mainFile, outputFile, settings);
+            final Future<RdfLoadResult> mainLoad = workers.submit(
+                    () -> RdfFileServiceJena.loadRdfFile(mainFile, settings.isUseSnapshot(), settings.getStore()));
+            final Model mergeModel =
+                    LktTreeMergerJena.merge(mergeFiles, settings.getStore(), settings.getThreads());
+            final RdfLoadResult mainResult = RdfFileServiceJena.awaitLoad(mainFile, mainLoad);
+            if (mergeModel == null || !mainResult.isValid()) {
+                return false;
+            }
+            final Model mainModel = mainResult.getModel();
+            if (RdfJournalJena.replayJournal(mainFile, mainModel) < 0) {
+                return false;
+            }
+            final Map<String, String> prefixes = mainModel.getNsPrefixMap();
+            prefixes.putAll(mergeModel.getNsPrefixMap());
+
+            final Graph mainGraph = mainModel.getGraph();
+            final Graph mergeGraph = mergeModel.getGraph();
+            final Map<Node, Integer> components =
+                    LktShardMergerJena.assignComponents(shards, mainGraph, mergeGraph);
+            // Graphs may defer work until they are read, finish it before the graphs are read concurrently.
+            mainGraph.size();
+            mergeGraph.size();
+
+            LktShardMergerJena.LOGGER.info(
+                    String.join("", "Merging ", String.valueOf(mergeFiles.size()), " files into '", mainFile,
+                            "' using ", String.valueOf(shards), " shards.")
+            );
+            final List<Future<Model>> futures = new ArrayList<>(shards);
+            for (int i = 0; i < shards; i++) {
+                final int shard = i;
+                futures.add(workers.submit(() -> LktShardMergerJena.mergeShard(
+                        shard, components, mainGraph, mergeGraph, prefixes, outputFile, settings)));
+            }
+            final List<Model> merged = new ArrayList<>(shards);
+            for (final Future<Model> f : futures) {
+                merged.add(f.get());
+            }
+            if (merged.contains(null)) {
+                return false;
+            }
+            if (settings.isSplitOutput() || !settings.isWriteOutput()) {
+                return true;
+            }
+
+            final Model result = RdfFileServiceJena.createModel(settings.getStore());
+            result.setNsPrefixes(prefixes);
+            merged.forEach(result::add);
+            return LktMergerJena.saveMerged(mainFile, outputFile, result, settings, backup);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LktShardMergerJena.LOGGER.error("Sharded merge was interrupted.");
+            return false;
+        } catch (ExecutionException e) {
+            LktShardMergerJena.LOGGER.error(
+                    String.join("", "Sharded merge failed: ", String.valueOf(e.getCause()))
+            );
+            return false;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Method returns the name of the output file of a shard. The index of the shard is inserted in front of the
+     * file extension of the output file, compression extensions are kept, e.g. 'out.ttl.gz' becomes
+     * 'out.0.ttl.gz' for the first shard.
+     * @param outputFile Name and Path of the output file of the merge.
+     * @param shard Index of the shard.
+     * @return Name and Path of the output file of the shard.
+     */
+    static String getShardFileName(final String outputFile, final int shard) {
+        final String compression = CompressionService.getCompressionByName(outputFile);
+        final String fileName = CompressionService.stripCompressionExtension(outputFile);
+        final int dot = fileName.lastIndexOf('.');
+        String shardFile = String.join("", fileName.substring(0, dot), ".", String.valueOf(shard),
+                fileName.substring(dot));
+        if (!CompressionService.NONE.equals(compression)) {
+            shardFile = String.join("", shardFile, ".", compression.toLowerCase(Locale.ENGLISH));
+        }
+        return shardFile;
+    }
+
+    /**
+     * Method assigns subjects connected by Blank Nodes to shards. The subjects and Blank Nodes of the triples
+     * of both RDF graphs referencing a Blank Node are joined into connected components, every node of a component
+     * is assigned to the shard of the component. Nodes, that are not contained in the returned map, are assigned
+     * to their own shard, see {@link ParallelNTriplesParser#shardOf(Node, int)}.
+     * @param shards Number of shards.
+     * @param graphs RDF graphs of the merge.
+     * @return Shards of all nodes connected by Blank Nodes.
+     */
+    private static Map<Node, Integer> assignComponents(final int shards, final Graph... graphs) {
+        final Map<Node, Node> parents = new HashMap<>();
+        for (final Graph graph : graphs) {
+            graph.find(Node.ANY, Node.ANY, Node.ANY).forEachRemaining(t -> {
+                    if (t.getObject().isBlank()) {
+                        LktShardMergerJena.union(parents, t.getSubject(), t.getObject());
+                    }
+                });
+        }
+        final Map<Node, Integer> components = new HashMap<>();
+        parents.keySet().forEach(n -> components.put(
+                n, ParallelNTriplesParser.shardOf(LktShardMergerJena.find(parents, n), shards)));
+        return components;
+    }
+
+    /**
+     * Method joins the connected components of two nodes. URI nodes are preferred as the root of a component,
+     * a component containing a URI subject is therefore assigned to a shard by the hash of a URI.
+     * @param parents Parents of all joined nodes, roots are their own parents.
+     * @param first First node.
+     * @param second Second node.
+     */
+    private static void union(final Map<Node, Node> parents, final Node first, final Node second) {
+        final Node firstRoot = LktShardMergerJena.find(parents, first);
+        final Node secondRoot = LktShardMergerJena.find(parents, second);
+        if (firstRoot.equals(secondRoot)) {
+            return;
+        }
+        if (firstRoot.isBlank()) {
+            parents.put(firstRoot, secondRoot);
+        } else {
+            parents.put(secondRoot, firstRoot);
+        }
+    }
+
+    /**
+     * Method returns the root of the connected component of a node and compresses the path to the root.
+     * @param parents Parents of all joined nodes, roots are their own parents.
+     * @param node Node.
+     * @return Root node of the connected component.
+     */
+    private static Node find(final Map<Node, Node> parents, final Node node) {
+        Node root = parents.computeIfAbsent(node, n -> n);
+        while (!root.equals(parents.get(root))) {
+            root = parents.get(root);
+        }
+        Node current = node;
+        while (!current.equals(root)) {
+            current = parents.put(current, root);
+        }
+        return root;
+    }
+
+    /**
+     * Method merges one shard. The triples of the shard are copied from the main and the merge RDF graph,
+     * the Resources of the merge shard replace identical Resources of the main shard. If the output is split,
+     * the merged shard is written to its own output file.
+     * @param shard Index of the shard.
+     * @param components Shards of all nodes connected by Blank Nodes.
+     * @param mainGraph Main RDF graph, only read.
+     * @param mergeGraph Merge RDF graph, only read.
+     * @param prefixes Prefixes of the merged RDF graph.
+     * @param outputFile Name and Path of the output file of the merge.
+     * @param settings Settings of the merge.
+     * @return Merged RDF graph of the shard, null if the shard could not be saved.
+     */
+    private static Model mergeShard(final int shard, final Map<Node, Integer> components, final Graph mainGraph,
+                                    final Graph mergeGraph, final Map<String, String> prefixes,
+                                    final String outputFile, final LktMergeSettings settings) {
+        final int shards = settings.getShards();
+        final Model mainShard = RdfFileServiceJena.createModel(settings.getStore());
+        final Model mergeShard = RdfFileServiceJena.createModel(settings.getStore());
+        mainGraph.find(Node.ANY, Node.ANY, Node.ANY).forEachRemaining(t -> {
+                if (LktShardMergerJena.shardOf(t, components, shards) == shard) {
+                    mainShard.getGraph().add(t);
+                }
+            });
+        mergeGraph.find(Node.ANY, Node.ANY, Node.ANY).forEachRemaining(t -> {
+                if (LktShardMergerJena.shardOf(t, components, shards) == shard) {
+                    mergeShard.getGraph().add(t);
+                }
+            });
+
+        RdfUtilsJena.removePropertiesFromModel(mergeShard, mainShard, true);
+        mainShard.add(mergeShard);
+
+        if (settings.isSplitOutput() && settings.isWriteOutput()) {
+            mainShard.setNsPrefixes(prefixes);
+            if (!RdfFileServiceJena.saveModelToFile(LktShardMergerJena.getShardFileName(outputFile, shard),
+                    mainShard, settings.getOutputFormat(), settings.getSaveOptions().setSaveSnapshot(false))) {
+                return null;
+            }
+        }
+        return mainShard;
+    }
+
+    /**
+     * Method returns the shard of a triple, which is the shard of its subject.
+     * @param triple Triple.
+     * @param components Shards of all nodes connected by Blank Nodes.
+     * @param shards Number of shards.
+     * @return Index of the shard between 0 and shards - 1.
+     */
+    private static int shardOf(final Triple triple, final Map<Node, Integer> components, final int shards) {
+        final Integer component = components.get(triple.getSubject());
+        return component != null ? component : ParallelNTriplesParser.shardOf(triple.getSubject(), shards);
+    }
+
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.mergers;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.log4j.Logger;
+import org.g_node.micro.rdf.RdfFileServiceJena;
+import org.g_node.micro.rdf.RdfLoadResult;
+import org.g_node.micro.rdf.RdfUtilsJena;
+
+/**
+ * Class merging many RDF files into a single RDF graph by a parallel tree reduction. The files are split
+ * into halves recursively, both halves are merged in parallel and the merged RDF graph of the later half
+ * is merged into the merged RDF graph of the earlier half using the same rules as
+ * {@link LktMergerJena#runMerger}: Resources of the later RDF graph replace identical Resources of the earlier
+ * RDF graph including all referenced Blank Nodes.
+ *
+ * The result is the same as merging all files one after the other in the order of the list, since this
+ * merge is associative: the Resources of a merged RDF graph are the union of the Resources of its
+ * sources, and Blank Nodes of different files are always distinct. Every triple is therefore copied
+ * only O(log N) times instead of O(N) times when merging N files one after the other.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class LktTreeMergerJena {
+    /**
+     * Access to the main LOGGER.
+     */
+    private static final Logger LOGGER = Logger.getLogger(LktTreeMergerJena.class.getName());
+
+    /**
+     * Method merges RDF files by a parallel tree reduction and saves the merged RDF graph to an output file.
+     * Later files win over earlier files, if they contain identical Resources. If any file is not a valid
+     * RDF file, the merge is aborted without saving any output.
+     * @param sources RDF files in precedence order, later files replace Resources of earlier files.
+     * @param outputFile Name and Path of the output file, an existing file is replaced.
+     * @param settings Output format, store type and number of threads merging RDF graphs in parallel.
+     * @return True if the merged RDF graph has been saved, false otherwise.
+     */
+    public static boolean runTreeMerger(final List<String> sources, final String outputFile,
+                                        final LktMergeSettings settings) {
+        LktTreeMergerJena.LOGGER.info(
+                String.join("", "Merging ", String.valueOf(sources.size()), " files using ",
+                        String.valueOf(settings.getThreads()), " threads.")
+        );
+        final Model merged = LktTreeMergerJena.merge(sources, settings.getStore(), settings.getThreads());
+        if (merged == null) {
+            return false;
+        }
+        return RdfFileServiceJena.saveModelToFile(
+                outputFile, merged, settings.getOutputFormat(), settings.getSaveOptions());
+    }
+
+    /**
+     * Method merges RDF files by a parallel tree reduction.
+     * @param sources RDF files in precedence order, later files replace Resources of earlier files.
+     * @param store Store type of the models holding the RDF graphs, see {@link RdfFileServiceJena#STORE_TYPES}.
+     * @param threads Number of threads loading and merging RDF graphs in parallel.
+     * @return Merged RDF graph, null if any file could not be loaded.
+     */
+    public static Model merge(final List<String> sources, final String store, final int threads) {
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new MergeTask(sources, 0, sources.size(), store, new AtomicBoolean()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Method merges a later RDF graph into an earlier RDF graph. Resources of the later RDF graph replace
+     * identical Resources of the earlier RDF graph, the triples of the smaller RDF graph are added to the
+     * larger RDF graph.
+     * @param earlier Earlier RDF graph, changed by the merge.
+     * @param later Later RDF graph, changed by the merge.
+     * @return Merged RDF graph, either the earlier or the later model.
+     */
+    static Model mergePair(final Model earlier, final Model later) {
+        RdfUtilsJena.removePropertiesFromModel(later, earlier, true);
+        if (earlier.size() >= later.size()) {
+            earlier.setNsPrefixes(later.getNsPrefixMap());
+            earlier.add(later);
+            return earlier;
+        }
+        final Map<String, String> prefixes = earlier.getNsPrefixMap();
+        prefixes.putAll(later.getNsPrefixMap());
+        later.setNsPrefixes(prefixes);
+        later.add(earlier);
+        return later;
+    }
+
+    /**
+     * Fork/join task merging a range of RDF files.
+     */
+    private static final class MergeTask extends RecursiveTask<Model> {
+        /**
+         * Serial version UID of the task.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * RDF files in precedence order.
+         */
+        private final List<String> sources;
+        /**
+         * First RDF file of the range.
+         */
+        private final int from;
+        /**
+         * End of the range, exclusive.
+         */
+        private final int to;
+        /**
+         * Store type of the models holding the RDF graphs.
+         */
+        private final String store;
+        /**
+         * Set if any RDF file could not be loaded, no further files are loaded in this case.
+         */
+        private final AtomicBoolean failed;
+
+        /**
+         * Constructor.
+         * @param sources RDF files in precedence order.
+         * @param from First RDF file of the range.
+         * @param to End of the range, exclusive.
+         * @param store Store type of the models holding the RDF graphs.
+         * @param failed Set if any RDF file could not be loaded.
+         */
+        MergeTask(final List<String> sources, final int from, final int to, final String store,
+                  final AtomicBoolean failed) {
+            this.sources = sources;
+            this.from = from;
+            this.to = to;
+            this.store = store;
+            this.failed = failed;
+        }
+
+        /**
+         * @return Merged RDF graph of the range, null if any RDF file could not be loaded.
+         */
+        @Override
+        protected Model compute() {
+            if (this.to - this.from == 1) {
+                if (this.failed.get()) {
+                    return null;
+                }
+                final RdfLoadResult result =
+                        RdfFileServiceJena.loadRdfFile(this.sources.get(this.from), false, this.store);
+                if (!result.isValid()) {
+                    this.failed.set(true);
+                    return null;
+                }
+                return result.getModel();
+            }
+
+            final int mid = (this.from + this.to) >>> 1;
+            final MergeTask earlier = new MergeTask(this.sources, this.from, mid, this.store, this.failed);
+            earlier.fork();
+            final Model later = new MergeTask(this.sources, mid, this.to, this.store, this.failed).compute();
+            final Model merged = earlier.join();
+            if (merged == null || later == null) {
+                return null;
+            }
+            return LktTreeMergerJena.mergePair(merged, later);
+        }
+    }
+
+}
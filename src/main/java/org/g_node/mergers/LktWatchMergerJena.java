@@ -0,0 +1,486 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.mergers;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.log4j.Logger;
+import org.g_node.micro.rdf.RdfFileServiceJena;
+import org.g_node.micro.rdf.RdfJournalJena;
+import org.g_node.micro.rdf.RdfLoadResult;
+import org.g_node.micro.rdf.RdfUtilsJena;
+
+/**
+ * Class keeping a main RDF graph in memory and merging every RDF file arriving in a drop directory into
+ * the main RDF graph using the same rules as {@link LktMergerJena#runMerger}. The merged RDF graph is
+ * written with a delay: the output file is written after no further file has been merged for the write
+ * delay, but at the latest {@link #MAX_DELAY_FACTOR} times the write delay after the first unsaved merge,
+ * so that a burst of arriving files results in a single write.
+ *
+ * A file is merged once its size and modification time have not changed for {@link #SETTLE_MILLIS}, hidden
+ * files are ignored. Files are merged in the order of their names. After the merged RDF graph has been saved,
+ * merged files are moved to the subdirectory {@link #PROCESSED_DIR} of the drop directory, invalid RDF files
+ * are moved to the subdirectory {@link #FAILED_DIR} right away. Files merged but not saved before a crash
+ * remain in the drop directory and are merged again at the next start. A merged file, that is delivered again
+ * under the same name before it has been saved, is detected by its size, modification time and file key and
+ * merged again; only the version that has been merged is moved to {@link #PROCESSED_DIR}.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class LktWatchMergerJena {
+    /**
+     * Subdirectory of the drop directory receiving merged files.
+     */
+    public static final String PROCESSED_DIR = "processed";
+    /**
+     * Subdirectory of the drop directory receiving files, that are not valid RDF files.
+     */
+    public static final String FAILED_DIR = "failed";
+    /**
+     * Time in milliseconds the size and modification time of an arriving file have to be unchanged,
+     * before the file is merged.
+     */
+    public static final long SETTLE_MILLIS = 500;
+    /**
+     * Maximum delay of a write after the first unsaved merge as a multiple of the write delay.
+     */
+    public static final int MAX_DELAY_FACTOR = 10;
+    /**
+     * Access to the main LOGGER.
+     */
+    private static final Logger LOGGER = Logger.getLogger(LktWatchMergerJena.class.getName());
+
+    /**
+     * Main RDF file loaded at the start.
+     */
+    private final String mainFile;
+    /**
+     * Directory watched for arriving merge RDF files.
+     */
+    private final Path dropDir;
+    /**
+     * Output file the merged RDF graph is written to.
+     */
+    private final String outputFile;
+    /**
+     * Output format, store type and number of threads of the merges.
+     */
+    private final LktMergeSettings settings;
+    /**
+     * Time in milliseconds without merges before the merged RDF graph is written.
+     */
+    private final long writeDelay;
+    /**
+     * Arrived files, that have not been merged yet, sorted by name, with their last seen state.
+     */
+    private final Map<Path, FileState> pending = new TreeMap<>();
+    /**
+     * Merged files, that have not been saved yet, in the order of their merges with their state when merged.
+     */
+    private final Map<Path, FileState> unsaved = new LinkedHashMap<>();
+    /**
+     * Counted down after the watch loop has finished and all merged files have been saved.
+     */
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    /**
+     * Watch service of the drop directory, null before the watch loop has started.
+     */
+    private volatile WatchService watcher;
+    /**
+     * False after the watch loop has been asked to stop.
+     */
+    private volatile boolean running = true;
+    /**
+     * Time of the first unsaved merge in milliseconds, -1 if there are no unsaved merges.
+     */
+    private long firstUnsaved = -1;
+    /**
+     * Time of the last unsaved merge in milliseconds.
+     */
+    private long lastUnsaved;
+
+    /**
+     * Constructor.
+     * @param mainFile Main RDF file. Information will be merged into this file.
+     * @param dropDir Directory watched for arriving merge RDF files.
+     * @param outputFile Name and Path of the output file, if it is the mainFile, a backup of the
+     *                   mainFile is created before the first write.
+     * @param settings Output format, store type and number of threads of the merges.
+     * @param writeDelay Time in milliseconds without merges before the merged RDF graph is written.
+     */
+    public LktWatchMergerJena(final String mainFile, final Path dropDir, final String outputFile,
+                              final LktMergeSettings settings, final long writeDelay) {
+        this.mainFile = mainFile;
+        this.dropDir = dropDir;
+        this.outputFile = outputFile;
+        this.settings = settings;
+        this.writeDelay = writeDelay;
+    }
+
+    /**
+     * Method loads the main RDF file and merges arriving files until {@link #stop()} is called.
+     * All merged files are saved before this method returns.
+     * @return False if the main RDF file could not be loaded or the drop directory could not be watched,
+     *  true otherwise.
+     */
+    public boolean run() {
+        try {
+            final RdfLoadResult mainResult = RdfFileServiceJena.loadRdfFile(
+                    this.mainFile, this.settings.isUseSnapshot(), this.settings.getStore());
+            if (!mainResult.isValid()) {
+                return false;
+            }
+            final Model mainModel = mainResult.getModel();
+            if (RdfJournalJena.replayJournal(this.mainFile, mainModel) < 0) {
+                return false;
+            }
+            if (this.mainFile.equals(this.outputFile)
+                    && !this.settings.getBackupService().backup(this.mainFile)) {
+                LktWatchMergerJena.LOGGER.error(
+                        String.join("", "[ERROR ] While saving backup for file '", this.mainFile, "'")
+                );
+                return false;
+            }
+
+            try {
+                Files.createDirectories(this.dropDir.resolve(LktWatchMergerJena.PROCESSED_DIR));
+                Files.createDirectories(this.dropDir.resolve(LktWatchMergerJena.FAILED_DIR));
+                this.watcher = this.dropDir.getFileSystem().newWatchService();
+                this.dropDir.register(this.watcher,
+                        StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            } catch (IOException e) {
+                LktWatchMergerJena.LOGGER.error(
+                        String.join("", "Could not watch directory '", this.dropDir.toString(), "': ",
+                                e.getMessage())
+                );
+                return false;
+            }
+
+            LktWatchMergerJena.LOGGER.info(
+                    String.join("", "Watching directory '", this.dropDir.toString(), "' for merge files.")
+            );
+            this.watch(mainModel);
+            return true;
+        } finally {
+            this.closeWatcher();
+            this.terminated.countDown();
+        }
+    }
+
+    /**
+     * Method asks the watch loop to stop, merged files that have not been saved yet are saved before
+     * {@link #run()} returns.
+     */
+    public void stop() {
+        this.running = false;
+        this.closeWatcher();
+    }
+
+    /**
+     * Method waits until {@link #run()} has returned.
+     * @throws InterruptedException If the current thread was interrupted while waiting.
+     */
+    public void awaitTermination() throws InterruptedException {
+        this.terminated.await();
+    }
+
+    /**
+     * Watch loop merging arriving files and writing the merged RDF graph after the write delay.
+     * @param mainModel Main RDF graph.
+     */
+    private void watch(final Model mainModel) {
+        this.scanDropDir();
+        while (this.running) {
+            try {
+                final WatchKey key = this.watcher.poll(this.nextTimeout(), TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    this.collectEvents(key);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.running = false;
+            } catch (ClosedWatchServiceException e) {
+                this.running = false;
+            }
+            this.mergeSettledFiles(mainModel);
+
+            final long now = System.currentTimeMillis();
+            if (this.firstUnsaved >= 0 && now >= this.writeDeadline()) {
+                this.save(mainModel);
+            }
+        }
+        if (this.firstUnsaved >= 0) {
+            this.save(mainModel);
+        }
+    }
+
+    /**
+     * @return Time in milliseconds until the next pending file or the merged RDF graph have to be checked.
+     */
+    private long nextTimeout() {
+        long timeout = this.pending.isEmpty() ? Long.MAX_VALUE : LktWatchMergerJena.SETTLE_MILLIS;
+        if (this.firstUnsaved >= 0) {
+            timeout = Math.min(timeout, this.writeDeadline() - System.currentTimeMillis());
+        }
+        return Math.max(1, Math.min(timeout, TimeUnit.HOURS.toMillis(1)));
+    }
+
+    /**
+     * @return Time in milliseconds the merged RDF graph has to be written at.
+     */
+    private long writeDeadline() {
+        return Math.min(this.lastUnsaved + this.writeDelay,
+                this.firstUnsaved + LktWatchMergerJena.MAX_DELAY_FACTOR * this.writeDelay);
+    }
+
+    /**
+     * Method adds all arrived files of a watch key to the pending files, the whole drop directory is scanned
+     * again, if events have been lost.
+     * @param key Signalled watch key of the drop directory.
+     */
+    private void collectEvents(final WatchKey key) {
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                this.scanDropDir();
+            } else {
+                this.addPending(this.dropDir.resolve((Path) event.context()));
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * Method adds all files of the drop directory to the pending files.
+     */
+    private void scanDropDir() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.dropDir)) {
+            files.forEach(this::addPending);
+        } catch (IOException e) {
+            LktWatchMergerJena.LOGGER.error(
+                    String.join("", "Could not read directory '", this.dropDir.toString(), "': ", e.getMessage())
+            );
+        }
+    }
+
+    /**
+     * Method adds a file to the pending files, if it is a regular, not hidden file, that has not been merged yet
+     * or has changed since it has been merged.
+     * @param file Arrived file.
+     */
+    private void addPending(final Path file) {
+        try {
+            if (!Files.isRegularFile(file) || Files.isHidden(file)) {
+                return;
+            }
+            final FileState merged = this.unsaved.get(file);
+            if (merged == null || !merged.isSameVersion(Files.readAttributes(file, BasicFileAttributes.class))) {
+                this.pending.putIfAbsent(file, new FileState());
+            }
+        } catch (IOException e) {
+            LktWatchMergerJena.LOGGER.warn(String.join("", "Ignoring file '", file.toString(), "': ", e.getMessage()));
+        }
+    }
+
+    /**
+     * Method merges all pending files, whose size and modification time have not changed for
+     * {@link #SETTLE_MILLIS}, in the order of their names.
+     * @param mainModel Main RDF graph.
+     */
+    private void mergeSettledFiles(final Model mainModel) {
+        final long now = System.currentTimeMillis();
+        final Iterator<Map.Entry<Path, FileState>> it = this.pending.entrySet().iterator();
+        while (it.hasNext()) {
+            final Map.Entry<Path, FileState> entry = it.next();
+            final Path file = entry.getKey();
+            final BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (IOException e) {
+                // The file has been removed before it could be merged.
+                it.remove();
+                continue;
+            }
+            if (!entry.getValue().isSettled(attrs, now)) {
+                continue;
+            }
+            it.remove();
+            this.merge(file, entry.getValue(), mainModel);
+        }
+    }
+
+    /**
+     * Method merges a single file into the main RDF graph, invalid RDF files are moved to {@link #FAILED_DIR}.
+     * @param file File that is merged.
+     * @param state Settled state of the file.
+     * @param mainModel Main RDF graph.
+     */
+    private void merge(final Path file, final FileState state, final Model mainModel) {
+        final RdfLoadResult addResult = RdfFileServiceJena.loadRdfFile(
+                file.toString(), false, this.settings.getStore());
+        if (!addResult.isValid()) {
+            this.moveTo(file, LktWatchMergerJena.FAILED_DIR);
+            return;
+        }
+
+        LktWatchMergerJena.LOGGER.info(String.join("", "Merging file '", file.toString(), "'"));
+        final Model addModel = addResult.getModel();
+        RdfUtilsJena.removePropertiesFromModel(addModel, mainModel, true, this.settings.getThreads());
+        mainModel.setNsPrefixes(addResult.getPrefixes());
+        mainModel.add(addModel);
+
+        this.unsaved.put(file, state);
+        this.lastUnsaved = System.currentTimeMillis();
+        if (this.firstUnsaved < 0) {
+            this.firstUnsaved = this.lastUnsaved;
+        }
+    }
+
+    /**
+     * Method writes the merged RDF graph to the output file and moves all merged files to {@link #PROCESSED_DIR}.
+     * Files, that have changed since they have been merged, are kept in the drop directory and merged again.
+     * If writing fails, the merged files are kept and writing is retried after the next write delay.
+     * @param mainModel Main RDF graph.
+     */
+    private void save(final Model mainModel) {
+        LktWatchMergerJena.LOGGER.info(
+                String.join("", "Saving ", String.valueOf(this.unsaved.size()), " merged files.")
+        );
+        if (!RdfFileServiceJena.saveModelToFile(this.outputFile, mainModel, this.settings.getOutputFormat(),
+                this.settings.getSaveOptions())) {
+            this.firstUnsaved = System.currentTimeMillis();
+            this.lastUnsaved = this.firstUnsaved;
+            return;
+        }
+        if (this.mainFile.equals(this.outputFile)) {
+            this.settings.getBackupService().pruneBackups(this.mainFile);
+            RdfJournalJena.deleteJournal(this.mainFile);
+        }
+
+        this.unsaved.forEach((file, merged) -> {
+            BasicFileAttributes attrs = null;
+            try {
+                attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (IOException e) {
+                LktWatchMergerJena.LOGGER.warn(
+                        String.join("", "Merged file '", file.toString(), "' has been removed."));
+            }
+            if (attrs != null && merged.isSameVersion(attrs)) {
+                this.moveTo(file, LktWatchMergerJena.PROCESSED_DIR);
+            } else if (attrs != null) {
+                LktWatchMergerJena.LOGGER.info(
+                        String.join("", "File '", file.toString(), "' has changed since it was merged.")
+                );
+                this.pending.putIfAbsent(file, new FileState());
+            }
+        });
+        this.unsaved.clear();
+        this.firstUnsaved = -1;
+    }
+
+    /**
+     * Method moves a file of the drop directory to one of its subdirectories, existing files are replaced.
+     * @param file File of the drop directory.
+     * @param subDir Name of the subdirectory.
+     */
+    private void moveTo(final Path file, final String subDir) {
+        try {
+            Files.move(file, this.dropDir.resolve(subDir).resolve(file.getFileName()),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LktWatchMergerJena.LOGGER.error(
+                    String.join("", "Could not move file '", file.toString(), "' to '", subDir, "': ",
+                            e.getMessage())
+            );
+        }
+    }
+
+    /**
+     * Method closes the watch service of the drop directory, if it has been opened.
+     */
+    private void closeWatcher() {
+        final WatchService current = this.watcher;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.close();
+        } catch (IOException e) {
+            LktWatchMergerJena.LOGGER.error(String.join("", "Could not close directory watch: ", e.getMessage()));
+        }
+    }
+
+    /**
+     * Class holding the last seen size and modification time of a pending file.
+     */
+    private static final class FileState {
+        /**
+         * Last seen size of the file, -1 before the file has been checked.
+         */
+        private long size = -1;
+        /**
+         * Last seen modification time of the file in milliseconds.
+         */
+        private long modified;
+        /**
+         * Last seen file key of the file, null if the file system provides none.
+         */
+        private Object fileKey;
+        /**
+         * Time in milliseconds the size or modification time of the file were seen changing last.
+         */
+        private long changed;
+
+        /**
+         * @param attrs Current attributes of the file.
+         * @return True if the size, modification time and file key of the file equal the last seen ones.
+         */
+        private boolean isSameVersion(final BasicFileAttributes attrs) {
+            return attrs.size() == this.size && attrs.lastModifiedTime().toMillis() == this.modified
+                    && Objects.equals(attrs.fileKey(), this.fileKey);
+        }
+
+        /**
+         * Method compares the current attributes of the file with the last seen attributes.
+         * @param attrs Current attributes of the file.
+         * @param now Current time in milliseconds.
+         * @return True if the size and modification time of the file have not changed for
+         *  {@link #SETTLE_MILLIS}.
+         */
+        private boolean isSettled(final BasicFileAttributes attrs, final long now) {
+            if (!this.isSameVersion(attrs)) {
+                this.size = attrs.size();
+                this.modified = attrs.lastModifiedTime().toMillis();
+                this.fileKey = attrs.fileKey();
+                this.changed = now;
+                return false;
+            }
+            return now - this.changed >= LktWatchMergerJena.SETTLE_MILLIS;
+        }
+    }
+
+}
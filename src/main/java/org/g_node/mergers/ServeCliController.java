@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.mergers;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.log4j.Logger;
+import org.g_node.micro.commons.CliToolController;
+import org.g_node.srv.CliOptionService;
+import org.g_node.srv.CtrlCheckService;
+import org.g_node.srv.RdfServiceSwitch;
+
+/**
+ * Class handling validating commandline input and handling the local HTTP merge service,
+ * see {@link LktHttpServiceJena}.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class ServeCliController implements CliToolController {
+    /**
+     * Access to the main LOGGER.
+     */
+    private static final Logger LOGGER = Logger.getLogger(ServeCliController.class.getName());
+
+    /**
+     * Method returning the commandline options of the HTTP merge service.
+     *
+     * Option mainRDF: Main RDF files served by the service. Commandline option shorthands are "-m" and
+     * "-main-file". This option will always be "required".
+     *
+     * Option port: Port of the service on the loopback address. Commandline option shorthands are "-n" and
+     * "-port". This option is optional.
+     *
+     * Option threads: Maximum number of requests processed concurrently. Commandline option shorthands are
+     * "-p" and "-threads". This option is optional.
+     *
+     * Option queue: Maximum number of requests waiting to be processed. Commandline option shorthands are
+     * "-q" and "-queue". This option is optional.
+     *
+     * Option store: Store type holding the RDF graphs in memory. Commandline option shorthands are "-t" and
+     * "-store". This option is optional.
+     *
+     * @return Available {@link CommandLine} {@link Options}.
+     */
+    public final Options options() {
+
+        final Options options = new Options();
+
+        final Option opHelp = CliOptionService.getHelpOption("");
+
+        final Option opMainFile = Option.builder("m")
+                .longOpt("main-file")
+                .desc(String.join("", "RDF files containing the main databases. They are loaded once, kept in ",
+                        "memory and served as '", LktHttpServiceJena.CONTEXT, "/<file name>'. GET returns the ",
+                        "current RDF graph, POST merges the RDF request body into the RDF graph, POST to ",
+                        "'/<file name>/save' writes the RDF graph back to its file. The format of GET and POST ",
+                        "is selected with the query parameter '", LktHttpServiceJena.FORMAT_PARAM, "', e.g. ",
+                        "'?format=NTRIPLES', default is TTL."))
+                .required()
+                .hasArgs()
+                .build();
+
+        final Option opPort = Option.builder("n")
+                .longOpt("port")
+                .desc("Optional: port of the service, the service is only available on localhost. Default: 8080")
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final Option opThreads = Option.builder("p")
+                .longOpt("threads")
+                .desc(String.join("", "Optional: maximum number of requests processed concurrently. ",
+                        "Default is the number of available processors."))
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final Option opQueue = Option.builder("q")
+                .longOpt("queue")
+                .desc(String.join("", "Optional: maximum number of requests waiting to be processed, further ",
+                        "requests are rejected with status 503. Default: 16"))
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final Option opStore = Option.builder("t")
+                .longOpt("store")
+                .desc(String.join("", "Optional: store type holding the RDF graphs in memory. ",
+                        "Supported store types: ", String.join(", ", RdfServiceSwitch.STORE_TYPES)))
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        options.addOption(opHelp);
+        options.addOption(opMainFile);
+        options.addOption(opPort);
+        options.addOption(opThreads);
+        options.addOption(opQueue);
+        options.addOption(opStore);
+
+        return options;
+    }
+
+    /**
+     * Method validates the commandline input, loads the main RDF files and starts the HTTP merge service.
+     * The service runs until the application is terminated, unsaved merges are saved before the application
+     * exits.
+     *
+     * @param cmd User provided {@link CommandLine} input containing the main RDF files and the service settings.
+     */
+    public final void run(final CommandLine cmd) {
+
+        final List<String> mainFiles = Arrays.asList(cmd.getOptionValues("m"));
+        for (final String mainFile : mainFiles) {
+            if (!CtrlCheckService.isExistingFile(mainFile) || !CtrlCheckService.isSupportedCompression(mainFile)) {
+                return;
+            }
+        }
+
+        final String port = cmd.getOptionValue("n", "8080");
+        if (!CtrlCheckService.isPositiveIntCliArgValue(port, "-n/-port")) {
+            return;
+        }
+
+        final String threads = cmd.getOptionValue("p", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        if (!CtrlCheckService.isPositiveIntCliArgValue(threads, "-p/-threads")) {
+            return;
+        }
+
+        final String queue = cmd.getOptionValue("q", "16");
+        if (!"0".equals(queue) && !CtrlCheckService.isPositiveIntCliArgValue(queue, "-q/-queue")) {
+            return;
+        }
+
+        final String store = cmd.getOptionValue("t", RdfServiceSwitch.DEFAULT_STORE).toUpperCase(Locale.ENGLISH);
+        if (!CtrlCheckService.isSupportedCliArgValue(store, RdfServiceSwitch.STORE_TYPES, "-t/-store")) {
+            return;
+        }
+
+        final LktHttpServiceJena service = new LktHttpServiceJena(new LktMergeSettings().setStore(store),
+                Integer.parseInt(threads), Integer.parseInt(queue));
+        if (!service.load(mainFiles) || !service.start(Integer.parseInt(port))) {
+            return;
+        }
+
+        // Stop the service and save unsaved merges, when the application is terminated.
+        Runtime.getRuntime().addShutdownHook(new Thread(service::stop));
+        ServeCliController.LOGGER.info("Merge service started, terminate the application to stop the service.");
+    }
+
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.mergers;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.log4j.Logger;
+import org.g_node.micro.commons.CliToolController;
+import org.g_node.srv.CliOptionService;
+import org.g_node.srv.CtrlCheckService;
+import org.g_node.srv.RdfServiceSwitch;
+
+/**
+ * Class handling validating commandline input and handling the long running LKT merge of all RDF files
+ * arriving in a drop directory into a main RDF file kept in memory, see {@link LktWatchMergerJena}.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class WatchCliController implements CliToolController {
+    /**
+     * Access to the main LOGGER.
+     */
+    private static final Logger LOGGER = Logger.getLogger(WatchCliController.class.getName());
+
+    /**
+     * Method returning the commandline options of the watch merge tool.
+     *
+     * Option mainRDF: Main RDF file loaded once at the start. Commandline option shorthands are "-m" and
+     * "-main-file". This option will always be "required".
+     *
+     * Option dropDir: Directory watched for arriving merge RDF files. Commandline option shorthands are
+     * "-i" and "-drop-dir". This option will always be "required".
+     *
+     * Option store: Store type holding the RDF graphs in memory. Commandline option shorthands are "-t" and
+     * "-store". This option is optional.
+     *
+     * Option threads: Number of threads replacing the subjects of the main RDF graph. Commandline option
+     * shorthands are "-p" and "-threads". This option is optional.
+     *
+     * Option writeDelay: Seconds without arriving merge RDF files before the merged RDF graph is written.
+     * Commandline option shorthands are "-w" and "-write-delay". This option is optional.
+     *
+     * @return Available {@link CommandLine} {@link Options}.
+     */
+    public final Options options() {
+
+        final Options options = new Options();
+
+        final Option opHelp = CliOptionService.getHelpOption("");
+
+        final Option opMainFile = Option.builder("m")
+                .longOpt("main-file")
+                .desc(String.join("", "RDF file containing the main database. It is loaded once and kept in ",
+                        "memory, every RDF file arriving in the drop directory is merged into it. If no output ",
+                        "file is provided, a backup of this file is created and the file is replaced."))
+                .required()
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final Option opDropDir = Option.builder("i")
+                .longOpt("drop-dir")
+                .desc(String.join("", "Directory watched for arriving merge RDF files. Files are merged once ",
+                        "they have not changed for a moment, hidden files are ignored. Merged files are moved to ",
+                        "the subdirectory '", LktWatchMergerJena.PROCESSED_DIR, "' after they have been saved, ",
+                        "invalid RDF files to the subdirectory '", LktWatchMergerJena.FAILED_DIR, "'."))
+                .required()
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final Option opStore = Option.builder("t")
+                .longOpt("store")
+                .desc(String.join("", "Optional: store type holding the RDF graphs in memory. ",
+                        "Supported store types: ", String.join(", ", RdfServiceSwitch.STORE_TYPES)))
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final Option opThreads = Option.builder("p")
+                .longOpt("threads")
+                .desc("Optional: number of threads replacing the subjects of the main RDF graph. Default: 1")
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final Option opWriteDelay = Option.builder("w")
+                .longOpt("write-delay")
+                .desc(String.join("", "Optional: seconds without arriving merge RDF files before the merged ",
+                        "RDF graph is written, while files keep arriving it is written at the latest after ",
+                        String.valueOf(LktWatchMergerJena.MAX_DELAY_FACTOR), " times this delay. Default: 5"))
+                .hasArg()
+                .valueSeparator()
+                .build();
+
+        final Option opOut = CliOptionService.getOutFileOption("");
+        final Option opFormat = CliOptionService.getOutFormatOption("");
+
+        options.addOption(opHelp);
+        options.addOption(opMainFile);
+        options.addOption(opDropDir);
+        options.addOption(opOut);
+        options.addOption(opFormat);
+        options.addOption(opStore);
+        options.addOption(opThreads);
+        options.addOption(opWriteDelay);
+
+        return options;
+    }
+
+    /**
+     * Method validates the commandline input and runs the watch merge until the application is terminated.
+     * All merged files are saved before the application exits.
+     *
+     * @param cmd User provided {@link CommandLine} input containing the main RDF file, the drop directory,
+     *            the output filename and the output format.
+     */
+    public final void run(final CommandLine cmd) {
+
+        final String mainFile = cmd.getOptionValue("m");
+        if (!CtrlCheckService.isExistingFile(mainFile) || !CtrlCheckService.isSupportedCompression(mainFile)) {
+            return;
+        }
+
+        final Path dropDir = Paths.get(cmd.getOptionValue("i"));
+        if (!Files.isDirectory(dropDir)) {
+            WatchCliController.LOGGER.error(
+                    String.join("", "Drop directory '", dropDir.toString(), "' does not exist.")
+            );
+            return;
+        }
+
+        final String outputFormat = cmd.getOptionValue("f", "TTL").toUpperCase(Locale.ENGLISH);
+        if (!CtrlCheckService.isSupportedOutputFormat(outputFormat, RdfServiceSwitch.RDF_FORMAT_MAP_KEYS)) {
+            return;
+        }
+
+        final String store = cmd.getOptionValue("t", RdfServiceSwitch.DEFAULT_STORE).toUpperCase(Locale.ENGLISH);
+        if (!CtrlCheckService.isSupportedCliArgValue(store, RdfServiceSwitch.STORE_TYPES, "-t/-store")) {
+            return;
+        }
+
+        final String threads = cmd.getOptionValue("p", "1");
+        if (!CtrlCheckService.isPositiveIntCliArgValue(threads, "-p/-threads")) {
+            return;
+        }
+
+        final String writeDelay = cmd.getOptionValue("w", "5");
+        if (!CtrlCheckService.isPositiveIntCliArgValue(writeDelay, "-w/-write-delay")) {
+            return;
+        }
+
+        final String outputFile = LktCliController.getOutputFileName(cmd.getOptionValue("o", mainFile), outputFormat);
+        if (!CtrlCheckService.isSupportedCompression(outputFile)) {
+            return;
+        }
+
+        final LktMergeSettings settings = new LktMergeSettings()
+                .setOutputFormat(outputFormat)
+                .setStore(store)
+                .setThreads(Integer.parseInt(threads));
+        final LktWatchMergerJena watchMerger = new LktWatchMergerJena(mainFile, dropDir, outputFile, settings,
+                TimeUnit.SECONDS.toMillis(Integer.parseInt(writeDelay)));
+
+        // Save all merged files, when the application is terminated.
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            watchMerger.stop();
+            try {
+                watchMerger.awaitTermination();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        watchMerger.run();
+    }
+
+}
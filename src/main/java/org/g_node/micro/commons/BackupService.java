@@ -0,0 +1,465 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.commons;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.log4j.Logger;
+
+/**
+ * Service creating timestamped backups of files before they are replaced, see
+ * {@link FileService#getTimeStampBackupPath(Path, String)}. Backups are created using one of the strategies
+ * {@link #LINK}, {@link #COPY} or {@link #GZIP}, copies are written on a background thread.
+ *
+ * Copied backups are deduplicated by the SHA-256 hash of their content: the hash of every copied backup is
+ * saved in a hidden file next to it, e.g. '.202601011200_backup_main.ttl.sha256', a backup identical to an
+ * existing backup of the same strategy is created as a hard link to the existing backup. If a backup with the
+ * timestamp of the current minute exists already, an identical copy is not created again and a changed file
+ * is backed up using a sequence number appended to the timestamp, e.g. '202601011200-2_backup_main.ttl'.
+ * Once the backed up
+ * file has been replaced successfully, the oldest backups of the file are deleted according to the retention
+ * policy, see {@link #pruneBackups(String)}.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class BackupService {
+    /**
+     * Strategy creating backups as hard links to the backed up file. Requires the file to be replaced,
+     * e.g. by {@link FileService#replaceAtomically(Path, Path, boolean)}, and not changed in place.
+     * Falls back to {@link #COPY}, if the file system does not support hard links.
+     */
+    public static final String LINK = "LINK";
+    /**
+     * Strategy creating backups as copies of the backed up file.
+     */
+    public static final String COPY = "COPY";
+    /**
+     * Strategy creating backups as gzip compressed copies of the backed up file. Files, that are already
+     * compressed, are copied.
+     */
+    public static final String GZIP = "GZIP";
+    /**
+     * Supported backup strategies.
+     */
+    public static final Set<String> STRATEGIES =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+                    BackupService.LINK, BackupService.COPY, BackupService.GZIP)));
+    /**
+     * Format of the timestamp of backup file names.
+     */
+    public static final String TIMESTAMP_PATTERN = "yyyyMMddHHmm";
+    /**
+     * Separator between the timestamp and the sequence number of backups created within the same minute.
+     */
+    private static final String SEQUENCE_SEPARATOR = "-";
+    /**
+     * Part of backup file names between the timestamp and the name of the backed up file.
+     */
+    private static final String BACKUP_INFIX = "_backup_";
+    /**
+     * File extension of the hidden files containing the content hash of a backup.
+     */
+    private static final String HASH_EXTENSION = ".sha256";
+    /**
+     * Access to the main LOGGER.
+     */
+    private static final Logger LOGGER = Logger.getLogger(BackupService.class.getName());
+    /**
+     * Backup strategy, one of {@link #STRATEGIES}.
+     */
+    private final String strategy;
+    /**
+     * Maximum number of backups kept per file, 0 keeps all backups.
+     */
+    private final int maxBackups;
+    /**
+     * Maximum age of kept backups in days, 0 keeps all backups.
+     */
+    private final int maxAgeDays;
+
+    /**
+     * Constructor of a service keeping all backups.
+     * @param strategy Backup strategy, one of {@link #STRATEGIES}.
+     */
+    public BackupService(final String strategy) {
+        this(strategy, 0, 0);
+    }
+
+    /**
+     * Constructor.
+     * @param strategy Backup strategy, one of {@link #STRATEGIES}.
+     * @param maxBackups Maximum number of backups kept per file, 0 keeps all backups.
+     * @param maxAgeDays Maximum age of kept backups in days, 0 keeps all backups.
+     */
+    public BackupService(final String strategy, final int maxBackups, final int maxAgeDays) {
+        this.strategy = strategy;
+        this.maxBackups = maxBackups;
+        this.maxAgeDays = maxAgeDays;
+    }
+
+    /**
+     * Create a backup of a file and wait until it is complete, see {@link #backupAsync(String)}.
+     * @param file Name of the file that is to be backed up.
+     * @return True if the backup has been created, false if something failed.
+     */
+    public boolean backup(final String file) {
+        return BackupService.await(file, this.backupAsync(file));
+    }
+
+    /**
+     * Start a backup of a file. Hard links are created immediately, copies are written on a background thread.
+     * The file is opened before this method returns, the backup therefore contains the current content of the
+     * file, even if the file is replaced while the backup is written. A backup is skipped, if the latest backup
+     * of a hard linked file is still linked to the file. A backup with the same timestamp is never overwritten,
+     * see {@link #getFreeBackupPath(Path)}.
+     * @param file Name of the file that is to be backed up.
+     * @return Result of the backup, true if the backup has been created, false if something failed.
+     */
+    public Future<Boolean> backupAsync(final String file) {
+        final Path mainPath = Paths.get(file);
+        final boolean compress = BackupService.GZIP.equals(this.strategy)
+                && CompressionService.NONE.equals(CompressionService.getCompressionByName(file));
+        Path backupPath = FileService.getTimeStampBackupPath(mainPath, BackupService.TIMESTAMP_PATTERN);
+        if (compress) {
+            backupPath = Paths.get(String.join("", backupPath.toString(), ".gz"));
+        }
+
+        try {
+            if (BackupService.LINK.equals(this.strategy)) {
+                return CompletableFuture.completedFuture(this.linkBackup(mainPath, backupPath));
+            }
+            final InputStream in = Files.newInputStream(mainPath);
+            final Path target = backupPath;
+            final FutureTask<Boolean> task = new FutureTask<>(() -> this.copyBackup(in, mainPath, target, compress));
+            final Thread thread = new Thread(task, String.join("", "backup ", mainPath.getFileName().toString()));
+            thread.setDaemon(true);
+            thread.start();
+            return task;
+        } catch (IOException e) {
+            BackupService.LOGGER.error(e.toString());
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    /**
+     * Wait for a backup started by {@link #backupAsync(String)}.
+     * @param file Name of the backed up file.
+     * @param backup Result of the backup.
+     * @return True if the backup has been created, false if it failed or the thread has been interrupted.
+     */
+    public static boolean await(final String file, final Future<Boolean> backup) {
+        try {
+            return backup.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            BackupService.LOGGER.error(String.join("", "Backup of file '", file, "' was interrupted."));
+        } catch (ExecutionException e) {
+            BackupService.LOGGER.error(
+                    String.join("", "Backup of file '", file, "' failed: ", String.valueOf(e.getCause())));
+        }
+        return false;
+    }
+
+    /**
+     * Method returns all backups of a file created by this service sorted from oldest to latest.
+     * @param file Path of the backed up file.
+     * @return Paths of the backups, an empty list if the directory of the file cannot be read.
+     */
+    public static List<Path> listBackups(final Path file) {
+        final Path absolute = file.toAbsolutePath();
+        final String fileName = absolute.getFileName().toString();
+        final List<Path> backups = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(absolute.getParent())) {
+            for (final Path p : stream) {
+                final String name = p.getFileName().toString();
+                final int infix = name.indexOf(BackupService.BACKUP_INFIX);
+                final String backedUp = infix < 0 ? "" : name.substring(infix + BackupService.BACKUP_INFIX.length());
+                if ((backedUp.equals(fileName) || backedUp.equals(String.join("", fileName, ".gz")))
+                        && BackupService.getTimeStamp(p) != null) {
+                    backups.add(p);
+                }
+            }
+        } catch (IOException e) {
+            BackupService.LOGGER.error(
+                    String.join("", "Could not read backups of '", file.toString(), "': ", e.getMessage()));
+        }
+        backups.sort(Comparator.comparing(BackupService::getTimeStamp)
+                .thenComparingInt(BackupService::getSequence));
+        return backups;
+    }
+
+    /**
+     * Create a backup as a hard link to the file, the file is copied if hard links are not supported.
+     * If the backup path exists already, the next free sequence number is used.
+     * @param mainPath Path of the file that is to be backed up.
+     * @param backupPath Path of the backup without a sequence number.
+     * @return True if the backup has been created or is not required, false otherwise.
+     * @throws IOException If the file cannot be read or the backup cannot be created.
+     */
+    private boolean linkBackup(final Path mainPath, final Path backupPath) throws IOException {
+        final List<Path> backups = BackupService.listBackups(mainPath);
+        if (!backups.isEmpty() && Files.isSameFile(backups.get(backups.size() - 1), mainPath)) {
+            BackupService.LOGGER.info(
+                    String.join("", "File '", mainPath.toString(), "' has not changed since its latest backup."));
+            return true;
+        }
+        Path target = backupPath;
+        while (true) {
+            try {
+                Files.createLink(target, mainPath);
+                return true;
+            } catch (FileAlreadyExistsException e) {
+                target = BackupService.getFreeBackupPath(backupPath);
+            } catch (UnsupportedOperationException | IOException e) {
+                return this.copyBackup(Files.newInputStream(mainPath), mainPath, backupPath, false);
+            }
+        }
+    }
+
+    /**
+     * Copy the content of a file to a backup. The copy is written to a temporary file next to the backup first.
+     * If an existing backup of the file has the same content, the backup is created as a hard link to it.
+     * If the backup path exists already and contains the same content, the existing backup is kept, otherwise
+     * the next free sequence number is used.
+     * @param in Opened input stream of the file, closed by this method.
+     * @param mainPath Path of the file that is to be backed up.
+     * @param backupPath Path of the backup without a sequence number.
+     * @param compress Compress the backup using gzip.
+     * @return True if the backup has been created, false otherwise.
+     */
+    private boolean copyBackup(final InputStream in, final Path mainPath, final Path backupPath,
+                               final boolean compress) {
+        Path tmpPath = null;
+        Path target = backupPath;
+        try {
+            tmpPath = FileService.createSiblingTempFile(backupPath);
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream src = new DigestInputStream(in, digest);
+                 OutputStream out = CompressionService.openOutputStream(
+                         tmpPath, compress ? CompressionService.GZIP : CompressionService.NONE)) {
+                final byte[] buffer = new byte[64 * 1024];
+                for (int n = src.read(buffer); n >= 0; n = src.read(buffer)) {
+                    out.write(buffer, 0, n);
+                }
+            }
+            final String hash = Hex.encodeHexString(digest.digest());
+
+            if (Files.exists(target) && hash.equals(BackupService.readHash(target))) {
+                Files.delete(tmpPath);
+                BackupService.LOGGER.info(String.join("", "Backup '", target.toString(),
+                        "' already contains the content of '", mainPath.toString(), "'"));
+                return true;
+            }
+
+            final Path duplicate = BackupService.findDuplicate(mainPath, hash, compress);
+            boolean stored = false;
+            while (!stored) {
+                if (Files.exists(target)) {
+                    target = BackupService.getFreeBackupPath(backupPath);
+                }
+                try {
+                    if (duplicate != null && BackupService.tryLink(target, duplicate)) {
+                        Files.delete(tmpPath);
+                    } else {
+                        Files.move(tmpPath, target);
+                    }
+                    stored = true;
+                } catch (FileAlreadyExistsException e) {
+                    BackupService.LOGGER.debug(
+                            String.join("", "Backup '", target.toString(), "' was created meanwhile."));
+                }
+            }
+            Files.write(BackupService.getHashPath(target), hash.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException | NoSuchAlgorithmException e) {
+            BackupService.LOGGER.error(String.join("", "Could not create backup '", target.toString(),
+                    "': ", e.toString()));
+            try {
+                in.close();
+                if (tmpPath != null) {
+                    Files.deleteIfExists(tmpPath);
+                }
+            } catch (IOException c) {
+                BackupService.LOGGER.error(String.join("", "Could not delete '", String.valueOf(tmpPath), "'"));
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Create a backup as a hard link to an identical backup.
+     * @param target Path of the backup.
+     * @param duplicate Existing backup with the same content.
+     * @return True if the link has been created, false if hard links are not supported.
+     * @throws FileAlreadyExistsException If the backup path exists.
+     */
+    private static boolean tryLink(final Path target, final Path duplicate) throws FileAlreadyExistsException {
+        try {
+            Files.createLink(target, duplicate);
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (UnsupportedOperationException | IOException e) {
+            return false;
+        }
+        BackupService.LOGGER.info(String.join("", "Backup '", target.toString(),
+                "' is identical to '", duplicate.toString(), "' and has been linked to it."));
+        return true;
+    }
+
+    /**
+     * Method returns the first path of a backup created within the same minute as a backup, that does not exist.
+     * @param backupPath Path of the backup without a sequence number.
+     * @return Path of the backup with the lowest sequence number that does not exist, starting with 2.
+     */
+    private static Path getFreeBackupPath(final Path backupPath) {
+        final String name = backupPath.getFileName().toString();
+        final int infix = name.indexOf(BackupService.BACKUP_INFIX);
+        Path candidate;
+        int sequence = 2;
+        do {
+            candidate = backupPath.resolveSibling(String.join("", name.substring(0, infix),
+                    BackupService.SEQUENCE_SEPARATOR, String.valueOf(sequence), name.substring(infix)));
+            sequence++;
+        } while (Files.exists(candidate));
+        return candidate;
+    }
+
+    /**
+     * @param backup Path of a backup.
+     * @return Content hash of the backup, null if the backup has no readable hash file.
+     */
+    private static String readHash(final Path backup) {
+        final Path hashPath = BackupService.getHashPath(backup);
+        try {
+            return Files.exists(hashPath) ? new String(Files.readAllBytes(hashPath), StandardCharsets.UTF_8) : null;
+        } catch (IOException e) {
+            BackupService.LOGGER.warn(String.join("", "Could not read '", hashPath.toString(), "'"));
+            return null;
+        }
+    }
+
+    /**
+     * Method searches a backup of a file with the provided content hash.
+     * @param mainPath Path of the backed up file.
+     * @param hash SHA-256 hash of the content of the file.
+     * @param compressed Search compressed or uncompressed backups.
+     * @return Path of the latest backup with the content hash, null if there is none.
+     */
+    private static Path findDuplicate(final Path mainPath, final String hash, final boolean compressed) {
+        final List<Path> backups = BackupService.listBackups(mainPath);
+        for (int i = backups.size() - 1; i >= 0; i--) {
+            final Path backup = backups.get(i);
+            if (backup.getFileName().toString().endsWith(".gz") == compressed
+                    && hash.equals(BackupService.readHash(backup))) {
+                return backup;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Delete the oldest backups of a file exceeding the maximum number of backups and all backups exceeding
+     * the maximum age. The age of a backup is the timestamp in its name. The latest backup is always kept.
+     * Has to be called only after the backed up file has been replaced successfully, so that the backups
+     * are not reduced by a failed merge.
+     * @param file Name of the backed up file.
+     */
+    public void pruneBackups(final String file) {
+        if (this.maxBackups <= 0 && this.maxAgeDays <= 0) {
+            return;
+        }
+        final List<Path> backups = BackupService.listBackups(Paths.get(file));
+        final LocalDateTime oldest = LocalDateTime.now().minusDays(this.maxAgeDays);
+        for (int i = 0; i < backups.size() - 1; i++) {
+            final Path backup = backups.get(i);
+            final boolean tooMany = this.maxBackups > 0 && i < backups.size() - this.maxBackups;
+            final boolean tooOld = this.maxAgeDays > 0 && BackupService.getTimeStamp(backup).isBefore(oldest);
+            if (tooMany || tooOld) {
+                try {
+                    Files.delete(backup);
+                    Files.deleteIfExists(BackupService.getHashPath(backup));
+                    BackupService.LOGGER.info(String.join("", "Deleted backup '", backup.toString(), "'"));
+                } catch (IOException e) {
+                    BackupService.LOGGER.error(
+                            String.join("", "Could not delete backup '", backup.toString(), "': ", e.getMessage()));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param backup Path of a backup.
+     * @return Path of the hidden file containing the content hash of the backup.
+     */
+    private static Path getHashPath(final Path backup) {
+        return backup.resolveSibling(
+                String.join("", ".", backup.getFileName().toString(), BackupService.HASH_EXTENSION));
+    }
+
+    /**
+     * @param backup Path of a backup.
+     * @return Timestamp of the backup, null if the file name does not start with a timestamp
+     * in the format {@link #TIMESTAMP_PATTERN} followed by an optional sequence number.
+     */
+    private static LocalDateTime getTimeStamp(final Path backup) {
+        final String name = backup.getFileName().toString();
+        String stamp = name.substring(0, Math.max(name.indexOf(BackupService.BACKUP_INFIX), 0));
+        final int separator = stamp.indexOf(BackupService.SEQUENCE_SEPARATOR);
+        if (separator >= 0) {
+            if (!stamp.substring(separator + 1).matches("[1-9][0-9]{0,8}")) {
+                return null;
+            }
+            stamp = stamp.substring(0, separator);
+        }
+        try {
+            return LocalDateTime.parse(stamp, DateTimeFormatter.ofPattern(BackupService.TIMESTAMP_PATTERN));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param backup Path of a backup with a valid timestamp, see {@link #getTimeStamp(Path)}.
+     * @return Sequence number of the backup within the minute of its timestamp, 1 if the name has none.
+     */
+    private static int getSequence(final Path backup) {
+        final String name = backup.getFileName().toString();
+        final String stamp = name.substring(0, name.indexOf(BackupService.BACKUP_INFIX));
+        final int separator = stamp.indexOf(BackupService.SEQUENCE_SEPARATOR);
+        return separator < 0 ? 1 : Integer.parseInt(stamp.substring(separator + 1));
+    }
+
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.commons;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Service class for reading and writing compressed files. The compression of a file is detected
+ * by the magic bytes at the start of the file and, if the file does not exist yet or is empty, by the file
+ * extension. Compression types are identified by their upper case file extension.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class CompressionService {
+    /**
+     * Compression type of uncompressed files.
+     */
+    public static final String NONE = "";
+    /**
+     * Compression type of gzip compressed files.
+     */
+    public static final String GZIP = "GZ";
+    /**
+     * All compression types recognized by this service.
+     */
+    public static final Set<String> COMPRESSION_EXTENSIONS =
+            Collections.singleton(CompressionService.GZIP);
+    /**
+     * Compression types, that can be read and written by this service.
+     */
+    public static final Set<String> SUPPORTED_COMPRESSIONS =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+                    CompressionService.NONE, CompressionService.GZIP)));
+    /**
+     * Size of the buffers used when reading and writing compressed files.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * Magic bytes of gzip files.
+     */
+    private static final byte[] GZIP_MAGIC = {(byte) 0x1f, (byte) 0x8b};
+
+    /**
+     * Method returns the compression type corresponding to the file extension of a file.
+     * @param fileName Path and filename of the file.
+     * @return Compression type or {@link #NONE}, if the file extension is not a compression extension.
+     */
+    public static String getCompressionByName(final String fileName) {
+        final int i = fileName.lastIndexOf('.');
+        if (i > 0) {
+            final String ext = fileName.substring(i + 1).toUpperCase(Locale.ENGLISH);
+            if (CompressionService.COMPRESSION_EXTENSIONS.contains(ext)) {
+                return ext;
+            }
+        }
+        return CompressionService.NONE;
+    }
+
+    /**
+     * Method detects the compression type of a file. The magic bytes of an existing file take precedence
+     * over its file extension.
+     * @param file Path of the file.
+     * @return Compression type of the file.
+     */
+    public static String detectCompression(final Path file) {
+        final byte[] head = new byte[CompressionService.GZIP_MAGIC.length];
+        int read = 0;
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                int r = 0;
+                while (read < head.length && r >= 0) {
+                    r = in.read(head, read, head.length - read);
+                    read += Math.max(r, 0);
+                }
+            } catch (IOException e) {
+                read = 0;
+            }
+        }
+        if (read == 0) {
+            return CompressionService.getCompressionByName(file.toString());
+        }
+
+        if (CompressionService.startsWith(head, read, CompressionService.GZIP_MAGIC)) {
+            return CompressionService.GZIP;
+        }
+        return CompressionService.NONE;
+    }
+
+    /**
+     * Method removes a compression extension from a filename, e.g. 'data.ttl.gz' results in 'data.ttl'.
+     * @param fileName Path and filename.
+     * @return Filename without the compression extension, the unchanged filename, if it does not end
+     *  with a compression extension.
+     */
+    public static String stripCompressionExtension(final String fileName) {
+        if (CompressionService.NONE.equals(CompressionService.getCompressionByName(fileName))) {
+            return fileName;
+        }
+        return fileName.substring(0, fileName.lastIndexOf('.'));
+    }
+
+    /**
+     * Open a file for reading, a compressed file is decompressed while reading.
+     * @param file Path of the file.
+     * @return InputStream providing the uncompressed content of the file.
+     * @throws IOException If the file cannot be opened or the compression of the file is not supported.
+     */
+    public static InputStream openInputStream(final Path file) throws IOException {
+        final String compression = CompressionService.detectCompression(file);
+        CompressionService.checkSupported(compression);
+
+        final InputStream in = new BufferedInputStream(Files.newInputStream(file), CompressionService.BUFFER_SIZE);
+        if (CompressionService.GZIP.equals(compression)) {
+            return new GZIPInputStream(in, CompressionService.BUFFER_SIZE);
+        }
+        return in;
+    }
+
+    /**
+     * Open a file for writing. If a compression type is provided, the data written to the returned stream
+     * is compressed on a separate thread, so that compression overlaps with producing the data.
+     * @param file Path of the file, existing files are overwritten.
+     * @param compression Compression type of the file.
+     * @return OutputStream writing to the file.
+     * @throws IOException If the file cannot be opened or the compression type is not supported.
+     */
+    public static OutputStream openOutputStream(final Path file, final String compression) throws IOException {
+        CompressionService.checkSupported(compression);
+
+        final OutputStream out = Files.newOutputStream(file);
+        if (CompressionService.GZIP.equals(compression)) {
+            return new ThreadedCompressorOutputStream(
+                    new GZIPOutputStream(out, CompressionService.BUFFER_SIZE), file.toString());
+        }
+        return out;
+    }
+
+    /**
+     * Method checks if a compression type can be read and written by this service.
+     * @param compression Compression type.
+     * @throws IOException If the compression type is not supported.
+     */
+    private static void checkSupported(final String compression) throws IOException {
+        if (!CompressionService.SUPPORTED_COMPRESSIONS.contains(compression)) {
+            throw new IOException(String.join("", "Compression type '", compression, "' is not supported, ",
+                    "supported compression types: ", CompressionService.GZIP));
+        }
+    }
+
+    /**
+     * Method checks if a byte array starts with the provided magic bytes.
+     * @param head Bytes at the start of a file.
+     * @param read Number of valid bytes of head.
+     * @param magic Magic bytes.
+     * @return True if head starts with the magic bytes.
+     */
+    private static boolean startsWith(final byte[] head, final int read, final byte[] magic) {
+        if (read < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (head[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,248 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.commons;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Class sorting lines of text with bounded memory. Added lines are collected in a buffer, whenever the
+ * estimated size of the buffer exceeds the configured size, the buffer is sorted and spilled to a run file
+ * in a temporary directory. The sorted runs are merged into a single sorted file, at most {@link #MAX_FAN_IN}
+ * runs are merged at once, so that the memory used does not depend on the number of lines.
+ * Lines are sorted by {@link String#compareTo(String)}, duplicate lines are removed.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class ExternalLineSorter implements Closeable {
+    /**
+     * Maximum number of sorted files merged at once.
+     */
+    public static final int MAX_FAN_IN = 64;
+    /**
+     * Estimated number of bytes a buffered line requires in addition to its characters.
+     */
+    private static final long LINE_OVERHEAD = 64;
+    /**
+     * Directory of the run files.
+     */
+    private final Path tmpDir;
+    /**
+     * Maximum estimated size of the buffer in bytes.
+     */
+    private final long bufferSize;
+    /**
+     * Buffered lines, not yet written to a run file.
+     */
+    private final List<String> buffer = new ArrayList<>();
+    /**
+     * Estimated size of the buffered lines in bytes.
+     */
+    private long buffered;
+    /**
+     * Sorted run files, that have not been merged yet.
+     */
+    private final List<Path> runs = new ArrayList<>();
+
+    /**
+     * Constructor.
+     * @param tmpDir Existing directory the run files are written to.
+     * @param bufferSize Maximum estimated size of the lines held in memory in bytes.
+     */
+    public ExternalLineSorter(final Path tmpDir, final long bufferSize) {
+        this.tmpDir = tmpDir;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Add a line. If the buffer is full, the buffer is sorted and written to a new run file.
+     * @param line Line without line break.
+     * @throws IOException If the run file cannot be written.
+     */
+    public void add(final String line) throws IOException {
+        this.buffer.add(line);
+        this.buffered += 2L * line.length() + ExternalLineSorter.LINE_OVERHEAD;
+        if (this.buffered >= this.bufferSize) {
+            this.spill();
+        }
+    }
+
+    /**
+     * Sort all added lines into a file. All run files are deleted, the sorter is empty afterwards.
+     * @param out File the sorted distinct lines are written to, an existing file is replaced.
+     * @return Number of distinct lines written.
+     * @throws IOException If a run file cannot be read or the sorted file cannot be written.
+     */
+    public long sortTo(final Path out) throws IOException {
+        this.spill();
+        while (this.runs.size() > ExternalLineSorter.MAX_FAN_IN) {
+            final List<Path> merged = new ArrayList<>(this.runs.subList(0, ExternalLineSorter.MAX_FAN_IN));
+            final Path run = Files.createTempFile(this.tmpDir, "run", ".txt");
+            ExternalLineSorter.merge(merged, run);
+            this.runs.removeAll(merged);
+            this.runs.add(run);
+            for (final Path p : merged) {
+                Files.delete(p);
+            }
+        }
+        final long lines = ExternalLineSorter.merge(this.runs, out);
+        this.close();
+        return lines;
+    }
+
+    /**
+     * Delete all run files, that have not been merged yet, and clear the buffer.
+     * @throws IOException If a run file cannot be deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        for (final Path run : this.runs) {
+            Files.deleteIfExists(run);
+        }
+        this.runs.clear();
+        this.buffer.clear();
+        this.buffered = 0;
+    }
+
+    /**
+     * Merge sorted files into a single sorted file, duplicate lines are removed. The files are only read.
+     * @param sorted Files containing sorted lines, see {@link String#compareTo(String)}.
+     * @param out File the merged lines are written to, an existing file is replaced.
+     * @return Number of distinct lines written.
+     * @throws IOException If a file cannot be read or the merged file cannot be written.
+     */
+    public static long merge(final List<Path> sorted, final Path out) throws IOException {
+        final PriorityQueue<SortedReader> queue = new PriorityQueue<>(Math.max(1, sorted.size()));
+        long lines = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            for (final Path p : sorted) {
+                final SortedReader reader = new SortedReader(Files.newBufferedReader(p, StandardCharsets.UTF_8));
+                if (reader.advance()) {
+                    queue.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            String last = null;
+            while (!queue.isEmpty()) {
+                final SortedReader reader = queue.poll();
+                if (!reader.getLine().equals(last)) {
+                    last = reader.getLine();
+                    writer.write(last);
+                    writer.write('\n');
+                    lines++;
+                }
+                if (reader.advance()) {
+                    queue.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+        } finally {
+            for (final SortedReader reader : queue) {
+                reader.close();
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Sort the buffer and write its distinct lines to a new run file.
+     * @throws IOException If the run file cannot be written.
+     */
+    private void spill() throws IOException {
+        if (this.buffer.isEmpty()) {
+            return;
+        }
+        Collections.sort(this.buffer);
+        final Path run = Files.createTempFile(this.tmpDir, "run", ".txt");
+        this.runs.add(run);
+        try (BufferedWriter writer = Files.newBufferedWriter(run, StandardCharsets.UTF_8)) {
+            String last = null;
+            for (final String line : this.buffer) {
+                if (!line.equals(last)) {
+                    writer.write(line);
+                    writer.write('\n');
+                    last = line;
+                }
+            }
+        }
+        this.buffer.clear();
+        this.buffered = 0;
+    }
+
+    /**
+     * Reader of a sorted file holding the current line.
+     */
+    private static final class SortedReader implements Comparable<SortedReader>, Closeable {
+        /**
+         * Reader of the sorted file.
+         */
+        private final BufferedReader reader;
+        /**
+         * Current line, null if the end of the file has been reached.
+         */
+        private String line;
+
+        /**
+         * Constructor.
+         * @param reader Reader of the sorted file.
+         */
+        SortedReader(final BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Read the next line.
+         * @return True if a line has been read, false if the end of the file has been reached.
+         * @throws IOException If the file cannot be read.
+         */
+        boolean advance() throws IOException {
+            this.line = this.reader.readLine();
+            return this.line != null;
+        }
+
+        /**
+         * @return Current line.
+         */
+        String getLine() {
+            return this.line;
+        }
+
+        /**
+         * @param other Other reader.
+         * @return Comparison of the current lines of both readers.
+         */
+        @Override
+        public int compareTo(final SortedReader other) {
+            return this.line.compareTo(other.line);
+        }
+
+        /**
+         * Close the reader.
+         * @throws IOException If the reader cannot be closed.
+         */
+        @Override
+        public void close() throws IOException {
+            this.reader.close();
+        }
+    }
+
+}
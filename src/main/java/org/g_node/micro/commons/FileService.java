@@ -10,10 +10,24 @@
 
 package org.g_node.micro.commons;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 import org.apache.log4j.Logger;
@@ -75,13 +89,8 @@ public final class FileService {
      */
     public static boolean createTimeStampBackupFile(final String file, final String dateTimeFormatPattern) {
         final Path mainPath = Paths.get(file);
-        final String fileName = mainPath.getFileName().toString();
-        final String ts = AppUtils.getTimeStamp(dateTimeFormatPattern);
-        final String backupName = String.join("", ts, "_backup_", fileName);
-        final String backupPath = mainPath.toString().replaceFirst(fileName, backupName);
-
         try {
-            Files.copy(mainPath, Paths.get(backupPath));
+            Files.copy(mainPath, FileService.getTimeStampBackupPath(mainPath, dateTimeFormatPattern));
         } catch (IOException e) {
             FileService.LOGGER.error(e.toString());
             FileService.LOGGER.error(e.getMessage());
@@ -90,4 +99,129 @@ public final class FileService {
         return true;
     }
 
+    /**
+     * Method returns the path of a backup file with the current timestamp and the string "backup" in its name.
+     * @param mainPath Path of the file that is to be backed up.
+     * @param dateTimeFormatPattern Format of the timestamp, use DateTimeFormatter pattern conventions.
+     * @return Path of the backup file, the file name is prefixed with the timestamp and "_backup_".
+     */
+    public static Path getTimeStampBackupPath(final Path mainPath, final String dateTimeFormatPattern) {
+        final String fileName = mainPath.getFileName().toString();
+        final String ts = AppUtils.getTimeStamp(dateTimeFormatPattern);
+        final String backupName = String.join("", ts, "_backup_", fileName);
+        return Paths.get(mainPath.toString().replaceFirst(fileName, backupName));
+    }
+
+    /**
+     * Method creates a new empty temporary file a file is written to before it is moved into place by
+     * {@link #replaceAtomically(Path, Path, boolean)}. The temporary file is a hidden file with a unique name
+     * in the same directory, e.g. '.out.ttl.4711.tmp' for 'out.ttl', so that it can be renamed to the file
+     * and concurrent writers of the same file do not overwrite each other's temporary files. On POSIX file
+     * systems the temporary file gets the permissions of the existing file or 'rw-r--r--' for a new file.
+     * @param file Path of the file.
+     * @return Path of the temporary file.
+     * @throws IOException If the temporary file cannot be created.
+     */
+    public static Path createSiblingTempFile(final Path file) throws IOException {
+        final Path absolute = file.toAbsolutePath();
+        final Path tmpPath = Files.createTempFile(absolute.getParent(),
+                String.join("", ".", absolute.getFileName().toString(), "."), ".tmp");
+        final PosixFileAttributeView view = Files.getFileAttributeView(tmpPath, PosixFileAttributeView.class);
+        if (view != null) {
+            view.setPermissions(Files.exists(absolute) ? Files.getPosixFilePermissions(absolute)
+                    : PosixFilePermissions.fromString("rw-r--r--"));
+        }
+        return tmpPath;
+    }
+
+    /**
+     * Method moves a completely written file into place by an atomic rename, an existing target file is
+     * replaced. Readers and a crash during the move see either the complete old or the complete new file.
+     * If the file system does not support atomic moves, the file is moved non atomically.
+     * @param source Completely written file, usually see {@link #createSiblingTempFile(Path)}.
+     * @param target File that is replaced.
+     * @param sync Force the content of the source file to the storage device before the move and the
+     *             directory entry of the target file after the move, so that the new file survives
+     *             a power failure.
+     * @throws IOException If the file cannot be synced or moved.
+     */
+    public static void replaceAtomically(final Path source, final Path target, final boolean sync)
+            throws IOException {
+        if (sync) {
+            try (FileChannel channel = FileChannel.open(source, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+        }
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (sync) {
+            final Path dir = target.toAbsolutePath().getParent();
+            try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+                channel.force(true);
+            } catch (IOException e) {
+                // Directories cannot be synced on every platform, the rename has been done regardless.
+                FileService.LOGGER.debug(String.join("", "Could not sync directory '", dir.toString(), "'"));
+            }
+        }
+    }
+
+    /**
+     * Method resolves a file name, a directory or a glob pattern to a list of files. A directory resolves
+     * to all regular, not hidden files directly contained in the directory, a glob pattern like
+     * 'updates/*.ttl' resolves to all regular files of its parent directory matching the file name pattern.
+     * Directories and glob patterns are resolved to files sorted by name. Any other name is returned
+     * as it is, whether the file exists or not.
+     * @param fileName Name of a file, a directory or a glob pattern, glob characters are only supported
+     *                 in the last element of the path.
+     * @return List of resolved file names, an empty list if a directory or glob pattern could not be read.
+     */
+    public static List<String> resolveFiles(final String fileName) {
+        final List<String> files = new ArrayList<>();
+
+        Path dir;
+        String pattern = "*";
+        try {
+            dir = Paths.get(fileName);
+        } catch (InvalidPathException e) {
+            dir = null;
+        }
+        if (dir == null || !Files.isDirectory(dir)) {
+            final int i = Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf(File.separatorChar));
+            pattern = fileName.substring(i + 1);
+            if (!FileService.isGlobPattern(pattern)) {
+                files.add(fileName);
+                return files;
+            }
+            dir = Paths.get(i < 0 ? "." : fileName.substring(0, i + 1));
+        }
+
+        final PathMatcher matcher = FileSystems.getDefault().getPathMatcher(String.join("", "glob:", pattern));
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (final Path p : stream) {
+                if (Files.isRegularFile(p) && !Files.isHidden(p) && matcher.matches(p.getFileName())) {
+                    files.add(p.toString());
+                }
+            }
+        } catch (IOException | InvalidPathException e) {
+            FileService.LOGGER.error(
+                    String.join("", "Could not read files of '", fileName, "': ", e.getMessage())
+            );
+            files.clear();
+        }
+        Collections.sort(files);
+
+        return files;
+    }
+
+    /**
+     * @param name File name.
+     * @return True if the file name contains a glob character.
+     */
+    private static boolean isGlobPattern(final String name) {
+        return name.indexOf('*') >= 0 || name.indexOf('?') >= 0 || name.indexOf('[') >= 0 || name.indexOf('{') >= 0;
+    }
+
 }
@@ -0,0 +1,208 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.commons;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * OutputStream handing the written data in blocks to a separate compressor thread, which writes the blocks
+ * to a compressing OutputStream. The thread writing to this stream only copies data into blocks,
+ * while the previous blocks are being compressed. Errors of the compressor thread are reported by the
+ * next write or by closing the stream.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+final class ThreadedCompressorOutputStream extends OutputStream {
+    /**
+     * Size of the blocks handed to the compressor thread.
+     */
+    private static final int BLOCK_SIZE = 1 << 18;
+    /**
+     * Number of blocks waiting for compression, before writing to this stream blocks.
+     */
+    private static final int QUEUE_CAPACITY = 8;
+    /**
+     * Block signalling the compressor thread that all data has been written.
+     */
+    private static final byte[] END = new byte[0];
+
+    /**
+     * Blocks waiting for compression.
+     */
+    private final BlockingQueue<byte[]> queue =
+            new ArrayBlockingQueue<>(ThreadedCompressorOutputStream.QUEUE_CAPACITY);
+    /**
+     * Thread compressing the blocks.
+     */
+    private final Thread compressor;
+    /**
+     * Error of the compressor thread.
+     */
+    private volatile IOException failure;
+    /**
+     * Block currently being filled.
+     */
+    private byte[] block = new byte[ThreadedCompressorOutputStream.BLOCK_SIZE];
+    /**
+     * Number of bytes of the current block.
+     */
+    private int pos;
+    /**
+     * True if the stream has been closed.
+     */
+    private boolean closed;
+
+    /**
+     * Constructor, starts the compressor thread.
+     * @param compressed Compressing OutputStream, is closed by the compressor thread after the last block.
+     * @param name Name of the written file, used to name the compressor thread.
+     */
+    ThreadedCompressorOutputStream(final OutputStream compressed, final String name) {
+        this.compressor = new Thread(() -> this.compress(compressed), String.join("", "compressor-", name));
+        this.compressor.setDaemon(true);
+        this.compressor.start();
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        if (this.pos == this.block.length) {
+            this.handOff(this.block);
+            this.block = new byte[ThreadedCompressorOutputStream.BLOCK_SIZE];
+            this.pos = 0;
+        }
+        this.block[this.pos++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            if (this.pos == this.block.length) {
+                this.handOff(this.block);
+                this.block = new byte[ThreadedCompressorOutputStream.BLOCK_SIZE];
+                this.pos = 0;
+            }
+            final int n = Math.min(remaining, this.block.length - this.pos);
+            System.arraycopy(b, offset, this.block, this.pos, n);
+            this.pos += n;
+            offset += n;
+            remaining -= n;
+        }
+    }
+
+    /**
+     * Hand the data written so far to the compressor thread.
+     * @throws IOException If the compressor thread failed.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (this.pos > 0) {
+            this.handOff(Arrays.copyOf(this.block, this.pos));
+            this.pos = 0;
+        }
+    }
+
+    /**
+     * Hand the remaining data to the compressor thread and wait until all data has been compressed
+     * and the compressing stream has been closed.
+     * @throws IOException If the compressor thread failed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            this.flush();
+        } finally {
+            this.finishCompressor();
+        }
+        this.checkFailure();
+    }
+
+    /**
+     * Signal the compressor thread that all data has been written and wait until it has finished.
+     * The compressor thread keeps taking blocks after an error, so passing the end signal cannot block forever.
+     * @throws IOException If waiting for the compressor thread was interrupted.
+     */
+    private void finishCompressor() throws IOException {
+        try {
+            this.queue.put(ThreadedCompressorOutputStream.END);
+            this.compressor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the compressor thread.");
+        }
+    }
+
+    /**
+     * Pass a block to the compressor thread, blocks while the queue is full.
+     * @param data Block of data.
+     * @throws IOException If the compressor thread failed.
+     */
+    private void handOff(final byte[] data) throws IOException {
+        this.checkFailure();
+        try {
+            this.queue.put(data);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while passing data to the compressor thread.");
+        }
+    }
+
+    /**
+     * @throws IOException The error of the compressor thread, if it failed.
+     */
+    private void checkFailure() throws IOException {
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+
+    /**
+     * Main loop of the compressor thread. After an error, all further blocks are discarded,
+     * so that the writing thread never blocks on a full queue.
+     * @param compressed Compressing OutputStream.
+     */
+    private void compress(final OutputStream compressed) {
+        try {
+            byte[] data = this.queue.take();
+            while (data != ThreadedCompressorOutputStream.END) {
+                if (this.failure == null) {
+                    try {
+                        compressed.write(data);
+                    } catch (IOException e) {
+                        this.failure = e;
+                    }
+                }
+                data = this.queue.take();
+            }
+        } catch (InterruptedException e) {
+            this.failure = new InterruptedIOException("Compressor thread was interrupted.");
+        } finally {
+            try {
+                compressed.close();
+            } catch (IOException e) {
+                if (this.failure == null) {
+                    this.failure = e;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,562 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.graph.impl.GraphBase;
+import com.hp.hpl.jena.util.iterator.ExtendedIterator;
+import com.hp.hpl.jena.util.iterator.NiceIterator;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Set;
+import java.util.function.LongFunction;
+
+/**
+ * Memory efficient Jena {@link com.hp.hpl.jena.graph.Graph} implementation. All RDF terms are stored once
+ * in a {@link TermDictionary}, triples are stored as integer IDs in blocks of primitive integers: a sorted
+ * SPO block containing three IDs per triple and an OSP block containing the triple positions sorted by object,
+ * subject and predicate. Deleted triples are marked in a {@link BitSet} and dropped, when added triples are
+ * merged into the indexes.
+ * The graph is optimized for bulk loading followed by reads and deletes: added triples are collected
+ * in an unsorted buffer, which is sorted and merged into both indexes with the next read access.
+ * The default graph keeps all data on the Java heap, a graph created by {@link #createOffHeap()} keeps
+ * the encoded terms and all index blocks in direct memory, leaving only small handles on the heap.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class CompactGraph extends GraphBase {
+    /**
+     * Field order of the SPO index.
+     */
+    private static final int[] SPO_ORDER = {0, 1, 2};
+    /**
+     * Field order of the OSP index.
+     */
+    private static final int[] OSP_ORDER = {2, 0, 1};
+    /**
+     * Initial size of the buffer of added triples.
+     */
+    private static final int INITIAL_PENDING_SIZE = 3 * 1024;
+
+    /**
+     * Dictionary of all RDF terms of the graph.
+     */
+    private final TermDictionary dictionary;
+    /**
+     * Factory of the integer blocks used for the indexes and buffers of the graph.
+     */
+    private final LongFunction<IntBlock> blocks;
+    /**
+     * Indexed triples, three term IDs per triple sorted by subject, predicate and object.
+     */
+    private IntBlock spo;
+    /**
+     * Positions of the indexed triples sorted by object, subject and predicate.
+     */
+    private IntBlock osp;
+    /**
+     * Number of indexed triples including deleted triples.
+     */
+    private int indexed;
+    /**
+     * Positions of deleted indexed triples.
+     */
+    private BitSet deleted = new BitSet();
+    /**
+     * Number of deleted indexed triples.
+     */
+    private int deletedCount;
+    /**
+     * Added triples, that are not yet indexed, three term IDs per triple.
+     */
+    private IntBlock pending;
+    /**
+     * Number of term IDs in the buffer of added triples.
+     */
+    private long pendingSize;
+
+    /**
+     * Constructor of a graph keeping all data on the Java heap.
+     */
+    public CompactGraph() {
+        this(new NodeDictionary(), HeapIntBlock::new);
+    }
+
+    /**
+     * Constructor.
+     * @param dictionary Dictionary of the RDF terms of the graph.
+     * @param blocks Factory of the integer blocks of the graph.
+     */
+    private CompactGraph(final TermDictionary dictionary, final LongFunction<IntBlock> blocks) {
+        this.dictionary = dictionary;
+        this.blocks = blocks;
+        this.spo = blocks.apply(0);
+        this.osp = blocks.apply(0);
+        this.pending = blocks.apply(CompactGraph.INITIAL_PENDING_SIZE);
+    }
+
+    /**
+     * Method creates a graph keeping the encoded RDF terms and all index blocks in direct memory
+     * outside of the Java heap. The available memory is limited by the JVM option -XX:MaxDirectMemorySize.
+     * @return Empty off-heap graph.
+     */
+    public static CompactGraph createOffHeap() {
+        return new CompactGraph(new OffHeapNodeDictionary(), DirectIntBlock::new);
+    }
+
+    /**
+     * Add a triple to the buffer of not yet indexed triples.
+     * @param t Added triple.
+     */
+    @Override
+    public void performAdd(final Triple t) {
+        if (this.pendingSize + 3 > this.pending.length()) {
+            this.pending = this.pending.resize(this.pending.length() * 2);
+        }
+        this.pending.set(this.pendingSize++, this.dictionary.intern(t.getSubject()));
+        this.pending.set(this.pendingSize++, this.dictionary.intern(t.getPredicate()));
+        this.pending.set(this.pendingSize++, this.dictionary.intern(t.getObject()));
+    }
+
+    /**
+     * Mark a triple as deleted.
+     * @param t Deleted triple.
+     */
+    @Override
+    public void performDelete(final Triple t) {
+        this.ensureIndexed();
+        final int s = this.dictionary.lookup(t.getSubject());
+        final int p = this.dictionary.lookup(t.getPredicate());
+        final int o = this.dictionary.lookup(t.getObject());
+        if (s == NodeDictionary.NOT_FOUND || p == NodeDictionary.NOT_FOUND || o == NodeDictionary.NOT_FOUND) {
+            return;
+        }
+
+        final int from = this.spoBound(s, p, false);
+        final int to = this.spoBound(s, p, true);
+        for (int i = from; i < to; i++) {
+            if (this.spo.get(3L * i + 2) == o) {
+                this.markDeleted(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return Number of triples of the graph.
+     */
+    @Override
+    protected int graphBaseSize() {
+        this.ensureIndexed();
+        return this.indexed - this.deletedCount;
+    }
+
+    /**
+     * Find all triples matching a pattern. The SPO index is used for patterns with a concrete subject,
+     * the OSP index for patterns with a concrete object, all other patterns scan all triples.
+     * @param pattern Triple pattern.
+     * @return Iterator over all matching triples.
+     */
+    @Override
+    protected ExtendedIterator<Triple> graphBaseFind(final Triple pattern) {
+        this.ensureIndexed();
+        final int s = this.lookupPattern(pattern.getSubject());
+        final int p = this.lookupPattern(pattern.getPredicate());
+        final int o = this.lookupPattern(pattern.getObject());
+        if (s == NodeDictionary.NOT_FOUND || p == NodeDictionary.NOT_FOUND || o == NodeDictionary.NOT_FOUND) {
+            return NiceIterator.emptyIterator();
+        }
+
+        if (s >= 0) {
+            return new TripleIterator(null, this.spoBound(s, p, false), this.spoBound(s, p, true), s, p, o);
+        } else if (o >= 0) {
+            return new TripleIterator(this.osp, this.ospBound(o, false), this.ospBound(o, true), s, p, o);
+        }
+        return new TripleIterator(null, 0, this.indexed, s, p, o);
+    }
+
+    /**
+     * Remove all triples of the provided subjects directly on the term IDs. If removeAnonNodes is set,
+     * all triples of blank nodes reachable from the removed triples are removed as well. The blank nodes
+     * are traversed using an explicit worklist of term IDs, each blank node is visited only once.
+     * @param subjects Subjects whose triples are removed.
+     * @param removeAnonNodes Remove the triples of blank nodes referenced by the removed triples.
+     * @return Number of removed triples.
+     */
+    public int removeSubjects(final Set<Node> subjects, final boolean removeAnonNodes) {
+        this.ensureIndexed();
+        final int before = this.deletedCount;
+
+        int[] worklist = new int[Math.max(16, subjects.size())];
+        int worklistSize = 0;
+        for (final Node n : subjects) {
+            final int s = this.dictionary.lookup(n);
+            if (s != NodeDictionary.NOT_FOUND) {
+                worklist[worklistSize++] = s;
+            }
+        }
+
+        final BitSet visited = new BitSet();
+        while (worklistSize > 0) {
+            final int s = worklist[--worklistSize];
+            final int to = this.spoBound(s, NodeDictionary.NOT_FOUND, true);
+            for (int i = this.spoBound(s, NodeDictionary.NOT_FOUND, false); i < to; i++) {
+                if (this.deleted.get(i)) {
+                    continue;
+                }
+                final int o = this.spo.get(3L * i + 2);
+                if (removeAnonNodes && !visited.get(o) && this.dictionary.isBlank(o)) {
+                    visited.set(o);
+                    if (worklistSize == worklist.length) {
+                        worklist = Arrays.copyOf(worklist, worklist.length * 2);
+                    }
+                    worklist[worklistSize++] = o;
+                }
+                this.markDeleted(i);
+            }
+        }
+        return this.deletedCount - before;
+    }
+
+    /**
+     * @return Number of distinct RDF terms, that have been added to the graph.
+     */
+    public int getTermCount() {
+        return this.dictionary.size();
+    }
+
+    /**
+     * Method returns the ID of a node of a triple pattern.
+     * @param node Node of a triple pattern.
+     * @return ID of a concrete node, {@link NodeDictionary#NOT_FOUND} if a concrete node is not part
+     *  of the graph, -2 for wildcard nodes.
+     */
+    private int lookupPattern(final Node node) {
+        if (node == null || !node.isConcrete()) {
+            return -2;
+        }
+        return this.dictionary.lookup(node);
+    }
+
+    /**
+     * Mark an indexed triple as deleted.
+     * @param position Position of the triple.
+     */
+    private void markDeleted(final int position) {
+        if (!this.deleted.get(position)) {
+            this.deleted.set(position);
+            this.deletedCount++;
+        }
+    }
+
+    /**
+     * Binary search of the SPO index.
+     * @param s Subject ID.
+     * @param p Predicate ID, a negative value matches all predicates.
+     * @param upper If false, the first position matching subject and predicate is returned, if true,
+     *              the position after the last match.
+     * @return Position within the SPO index.
+     */
+    private int spoBound(final int s, final int p, final boolean upper) {
+        int lo = 0;
+        int hi = this.indexed;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            int c = Integer.compare(this.spo.get(3L * mid), s);
+            if (c == 0 && p >= 0) {
+                c = Integer.compare(this.spo.get(3L * mid + 1), p);
+            }
+            if (c < 0 || (upper && c == 0)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Binary search of the OSP index.
+     * @param o Object ID.
+     * @param upper If false, the first position matching the object is returned, if true,
+     *              the position after the last match.
+     * @return Position within the OSP index.
+     */
+    private int ospBound(final int o, final boolean upper) {
+        int lo = 0;
+        int hi = this.indexed;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            final int c = Integer.compare(this.spo.get(3L * this.osp.get(mid) + 2), o);
+            if (c < 0 || (upper && c == 0)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Merge the triples added since the last access into both indexes. Only the added triples are sorted,
+     * they are merged with the existing sorted indexes in a single pass, so that adding k triples to a graph
+     * of n triples takes O(n + k log k). Deleted triples are dropped and duplicate triples are removed.
+     */
+    private void ensureIndexed() {
+        if (this.pendingSize == 0) {
+            return;
+        }
+
+        final int added = Math.toIntExact(this.pendingSize / 3);
+        final IntBlock addedOrder = this.sortedPositions(this.pending, added, CompactGraph.SPO_ORDER);
+        final int count = this.indexed - this.deletedCount + added;
+        final IntBlock sorted = this.blocks.apply(3L * count);
+        // New positions of the kept indexed triples and of the added triples, that are no duplicates.
+        final IntBlock indexedPositions = this.blocks.apply(this.indexed);
+        final IntBlock addedPositions = this.blocks.apply(added);
+        int unique = 0;
+        int addedUnique = 0;
+        int i = 0;
+        int j = 0;
+        while (i < this.indexed || j < added) {
+            if (i < this.indexed && this.deleted.get(i)) {
+                i++;
+            } else if (j == added || (i < this.indexed && CompactGraph.compare(
+                    this.spo, i, this.pending, addedOrder.get(j), CompactGraph.SPO_ORDER) <= 0)) {
+                CompactGraph.copyTriple(this.spo, i, sorted, unique);
+                indexedPositions.set(i++, unique++);
+            } else {
+                final int t = addedOrder.get(j++);
+                if (unique == 0 || CompactGraph.compare(
+                        this.pending, t, sorted, unique - 1, CompactGraph.SPO_ORDER) != 0) {
+                    CompactGraph.copyTriple(this.pending, t, sorted, unique);
+                    addedPositions.set(addedUnique++, unique++);
+                }
+            }
+        }
+
+        // The added triples are sorted by object separately and merged with the existing OSP index.
+        final IntBlock addedTriples = this.blocks.apply(3L * addedUnique);
+        for (int a = 0; a < addedUnique; a++) {
+            CompactGraph.copyTriple(sorted, addedPositions.get(a), addedTriples, a);
+        }
+        final IntBlock addedOsp = this.sortedPositions(addedTriples, addedUnique, CompactGraph.OSP_ORDER);
+        final IntBlock osp = this.blocks.apply(unique);
+        int pos = 0;
+        i = 0;
+        j = 0;
+        while (i < this.indexed || j < addedUnique) {
+            if (i < this.indexed && this.deleted.get(this.osp.get(i))) {
+                i++;
+                continue;
+            }
+            final int next = j < addedUnique ? addedPositions.get(addedOsp.get(j)) : -1;
+            if (j == addedUnique || (i < this.indexed && CompactGraph.compare(sorted,
+                    indexedPositions.get(this.osp.get(i)), sorted, next, CompactGraph.OSP_ORDER) <= 0)) {
+                osp.set(pos++, indexedPositions.get(this.osp.get(i++)));
+            } else {
+                osp.set(pos++, next);
+                j++;
+            }
+        }
+
+        this.spo = unique == count ? sorted : sorted.resize(3L * unique);
+        this.osp = unique == count ? osp : osp.resize(unique);
+        this.indexed = unique;
+        this.deleted = new BitSet();
+        this.deletedCount = 0;
+        this.pending = this.blocks.apply(CompactGraph.INITIAL_PENDING_SIZE);
+        this.pendingSize = 0;
+    }
+
+    /**
+     * Copy the term IDs of a triple.
+     * @param src Block containing the triple.
+     * @param srcPos Position of the triple.
+     * @param dst Block the triple is copied to.
+     * @param dstPos Position of the copied triple.
+     */
+    private static void copyTriple(final IntBlock src, final int srcPos, final IntBlock dst, final int dstPos) {
+        for (int f = 0; f < 3; f++) {
+            dst.set(3L * dstPos + f, src.get(3L * srcPos + f));
+        }
+    }
+
+    /**
+     * Sort the positions of triples using a bottom up merge sort on blocks of primitive integers.
+     * @param triples Triples, three term IDs per triple.
+     * @param count Number of triples.
+     * @param fields Field order used to compare triples.
+     * @return Positions of the triples in sorted order.
+     */
+    private IntBlock sortedPositions(final IntBlock triples, final int count, final int[] fields) {
+        IntBlock src = this.blocks.apply(count);
+        IntBlock dst = this.blocks.apply(count);
+        for (int i = 0; i < count; i++) {
+            src.set(i, i);
+        }
+
+        for (int width = 1; width < count; width *= 2) {
+            for (int lo = 0; lo < count; lo += 2 * width) {
+                final int mid = Math.min(lo + width, count);
+                final int hi = Math.min(lo + 2 * width, count);
+                int l = lo;
+                int r = mid;
+                for (int k = lo; k < hi; k++) {
+                    final boolean takeLeft = l < mid
+                            && (r >= hi || CompactGraph.compare(triples, src.get(l), triples, src.get(r), fields) <= 0);
+                    if (takeLeft) {
+                        dst.set(k, src.get(l++));
+                    } else {
+                        dst.set(k, src.get(r++));
+                    }
+                }
+            }
+            final IntBlock swap = src;
+            src = dst;
+            dst = swap;
+        }
+        return src;
+    }
+
+    /**
+     * Compare two triples.
+     * @param a Block containing the first triple.
+     * @param posA Position of the first triple.
+     * @param b Block containing the second triple.
+     * @param posB Position of the second triple.
+     * @param fields Field order used to compare the triples.
+     * @return Negative, zero or positive value, if the first triple is smaller, equal or larger.
+     */
+    private static int compare(final IntBlock a, final int posA, final IntBlock b, final int posB,
+                               final int[] fields) {
+        for (final int f : fields) {
+            final int c = Integer.compare(a.get(3L * posA + f), b.get(3L * posB + f));
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Iterator over a range of the SPO or OSP index, skipping deleted triples and triples,
+     * that do not match the pattern.
+     */
+    private final class TripleIterator extends NiceIterator<Triple> {
+        /**
+         * SPO index at the time the iterator was created.
+         */
+        private final IntBlock triples = CompactGraph.this.spo;
+        /**
+         * Deleted triples of the index.
+         */
+        private final BitSet deletedTriples = CompactGraph.this.deleted;
+        /**
+         * OSP index, null if the SPO index is iterated directly.
+         */
+        private final IntBlock positions;
+        /**
+         * Current position within the iterated range.
+         */
+        private int current;
+        /**
+         * End of the iterated range.
+         */
+        private final int end;
+        /**
+         * Subject ID of the pattern, negative values match all IDs.
+         */
+        private final int s;
+        /**
+         * Predicate ID of the pattern.
+         */
+        private final int p;
+        /**
+         * Object ID of the pattern.
+         */
+        private final int o;
+        /**
+         * Position of the next matching triple, -1 if not yet searched.
+         */
+        private int next = -1;
+        /**
+         * Position of the triple returned last, -1 if there is none.
+         */
+        private int last = -1;
+
+        /**
+         * Constructor.
+         * @param positions OSP index or null, if the SPO index is iterated.
+         * @param from Start of the iterated range.
+         * @param to End of the iterated range.
+         * @param s Subject ID of the pattern.
+         * @param p Predicate ID of the pattern.
+         * @param o Object ID of the pattern.
+         */
+        TripleIterator(final IntBlock positions, final int from, final int to, final int s, final int p, final int o) {
+            this.positions = positions;
+            this.current = from;
+            this.end = to;
+            this.s = s;
+            this.p = p;
+            this.o = o;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.next < 0 && this.current < this.end) {
+                final int t = this.positions == null ? this.current : this.positions.get(this.current);
+                this.current++;
+                if (!this.deletedTriples.get(t)
+                        && (this.s < 0 || this.triples.get(3L * t) == this.s)
+                        && (this.p < 0 || this.triples.get(3L * t + 1) == this.p)
+                        && (this.o < 0 || this.triples.get(3L * t + 2) == this.o)) {
+                    this.next = t;
+                }
+            }
+            return this.next >= 0;
+        }
+
+        @Override
+        public Triple next() {
+            this.ensureHasNext();
+            this.last = this.next;
+            this.next = -1;
+            return this.triple(this.last);
+        }
+
+        @Override
+        public void remove() {
+            if (this.last < 0) {
+                throw new IllegalStateException("No triple to remove.");
+            }
+            if (this.triples == CompactGraph.this.spo) {
+                CompactGraph.this.markDeleted(this.last);
+            } else {
+                CompactGraph.this.performDelete(this.triple(this.last));
+            }
+            this.last = -1;
+        }
+
+        /**
+         * @param t Position of a triple within the iterated SPO index.
+         * @return Triple created from the term IDs at the position.
+         */
+        private Triple triple(final int t) {
+            final TermDictionary dict = CompactGraph.this.dictionary;
+            return Triple.create(dict.get(this.triples.get(3L * t)), dict.get(this.triples.get(3L * t + 1)),
+                    dict.get(this.triples.get(3L * t + 2)));
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * {@link IntBlock} keeping its integers in pages of direct {@link ByteBuffer}s outside of the Java heap.
+ * Only the array of page handles is kept on the heap, the block grows by adding pages without copying
+ * existing pages. The available off-heap memory is limited by the JVM option -XX:MaxDirectMemorySize.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+final class DirectIntBlock implements IntBlock {
+    /**
+     * Binary logarithm of the number of integers of a single page.
+     */
+    private static final int PAGE_SHIFT = 20;
+    /**
+     * Number of integers of a single page.
+     */
+    private static final int PAGE_SIZE = 1 << DirectIntBlock.PAGE_SHIFT;
+    /**
+     * Mask returning the index within a page.
+     */
+    private static final long PAGE_MASK = DirectIntBlock.PAGE_SIZE - 1;
+
+    /**
+     * Pages of the block.
+     */
+    private IntBuffer[] pages;
+    /**
+     * Number of integers of the block.
+     */
+    private long length;
+
+    /**
+     * Constructor.
+     * @param length Number of integers of the block.
+     */
+    DirectIntBlock(final long length) {
+        this.pages = new IntBuffer[0];
+        this.grow(length);
+    }
+
+    @Override
+    public int get(final long index) {
+        return this.pages[(int) (index >>> DirectIntBlock.PAGE_SHIFT)].get((int) (index & DirectIntBlock.PAGE_MASK));
+    }
+
+    @Override
+    public void set(final long index, final int value) {
+        this.pages[(int) (index >>> DirectIntBlock.PAGE_SHIFT)]
+                .put((int) (index & DirectIntBlock.PAGE_MASK), value);
+    }
+
+    @Override
+    public long length() {
+        return this.length;
+    }
+
+    /**
+     * Grow the block by adding pages, shrinking keeps the pages but clears the dropped integers.
+     * @param newLength Length of the resized block.
+     * @return This block.
+     */
+    @Override
+    public IntBlock resize(final long newLength) {
+        if (newLength > this.length) {
+            this.grow(newLength);
+        } else {
+            for (long i = newLength; i < this.length; i++) {
+                this.set(i, 0);
+            }
+            this.length = newLength;
+        }
+        return this;
+    }
+
+    /**
+     * Add pages until the block can hold the requested number of integers.
+     * @param newLength Length of the grown block.
+     */
+    private void grow(final long newLength) {
+        final int pageCount =
+                Math.toIntExact((newLength + DirectIntBlock.PAGE_SIZE - 1) >>> DirectIntBlock.PAGE_SHIFT);
+        if (pageCount > this.pages.length) {
+            final int oldCount = this.pages.length;
+            this.pages = Arrays.copyOf(this.pages, pageCount);
+            for (int i = oldCount; i < pageCount; i++) {
+                this.pages[i] = ByteBuffer.allocateDirect(DirectIntBlock.PAGE_SIZE * Integer.BYTES)
+                        .order(ByteOrder.nativeOrder()).asIntBuffer();
+            }
+        }
+        this.length = newLength;
+    }
+
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import java.util.Arrays;
+
+/**
+ * {@link IntBlock} backed by a primitive integer array on the Java heap.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+final class HeapIntBlock implements IntBlock {
+    /**
+     * Integers of the block.
+     */
+    private final int[] values;
+
+    /**
+     * Constructor.
+     * @param length Number of integers of the block.
+     */
+    HeapIntBlock(final long length) {
+        this.values = new int[Math.toIntExact(length)];
+    }
+
+    /**
+     * Constructor wrapping an existing array.
+     * @param values Integers of the block.
+     */
+    private HeapIntBlock(final int[] values) {
+        this.values = values;
+    }
+
+    @Override
+    public int get(final long index) {
+        return this.values[(int) index];
+    }
+
+    @Override
+    public void set(final long index, final int value) {
+        this.values[(int) index] = value;
+    }
+
+    @Override
+    public long length() {
+        return this.values.length;
+    }
+
+    @Override
+    public IntBlock resize(final long newLength) {
+        return new HeapIntBlock(Arrays.copyOf(this.values, Math.toIntExact(newLength)));
+    }
+
+}
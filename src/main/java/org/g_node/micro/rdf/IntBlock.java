@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+/**
+ * Fixed size block of primitive integers used by the {@link CompactGraph} to store term IDs and
+ * triple positions. Implementations keep the integers either on the Java heap or in off-heap memory.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+interface IntBlock {
+    /**
+     * @param index Index of an integer.
+     * @return Integer at the index.
+     */
+    int get(long index);
+
+    /**
+     * @param index Index of an integer.
+     * @param value New value of the integer at the index.
+     */
+    void set(long index, int value);
+
+    /**
+     * @return Number of integers of the block.
+     */
+    long length();
+
+    /**
+     * Method returns a block of a new length containing the integers of this block. Integers beyond the
+     * length of this block are 0, integers beyond the new length are dropped.
+     * @param newLength Length of the resized block.
+     * @return Resized block, implementations may return this block, if it can grow in place.
+     */
+    IntBlock resize(long newLength);
+}
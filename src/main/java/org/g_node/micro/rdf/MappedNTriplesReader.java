@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.RiotParseException;
+import org.apache.jena.riot.system.StreamRDF;
+
+/**
+ * Reader for N-Triples and N-Quads files using memory mapped file regions instead of input streams.
+ * The file content is tokenized directly from the mapped bytes, which avoids copying the file through
+ * stream buffers and decoding the whole file to characters. Files larger than a single mapping
+ * are read using multiple consecutive mappings, each ending at a line break.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class MappedNTriplesReader {
+    /**
+     * Maximum size of a single mapped region of a file.
+     */
+    public static final int MAX_MAPPING_SIZE = 1 << 30;
+
+    /**
+     * Read an N-Triples or N-Quads file and send the parsed data to a {@link StreamRDF}.
+     * Blank nodes are created with a new document scope.
+     * @param file Path of the file.
+     * @param dest {@link StreamRDF} receiving the parsed data.
+     * @throws RiotException If the file cannot be read or contains invalid data.
+     */
+    public static void read(final Path file, final StreamRDF dest) {
+        MappedNTriplesReader.read(file, dest, UUID.randomUUID(), MappedNTriplesReader.MAX_MAPPING_SIZE);
+    }
+
+    /**
+     * Read an N-Triples or N-Quads file and send the parsed data to a {@link StreamRDF}.
+     * @param file Path of the file.
+     * @param dest {@link StreamRDF} receiving the parsed data.
+     * @param blankNodeScope Document scope used to create blank nodes from their labels.
+     * @param maxMappingSize Maximum size of a single mapped region, lines must not be longer than this size.
+     * @throws RiotException If the file cannot be read or contains invalid data.
+     */
+    public static void read(final Path file, final StreamRDF dest, final UUID blankNodeScope,
+                            final int maxMappingSize) {
+
+        final NTriplesByteParser parser = new NTriplesByteParser(dest, blankNodeScope);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            long offset = 0;
+            long line = 1;
+
+            dest.start();
+            while (offset < size) {
+                final int length = (int) Math.min(maxMappingSize, size - offset);
+                final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+
+                int end = length;
+                if (offset + length < size) {
+                    end = MappedNTriplesReader.lastLineEnd(mapped, length);
+                    if (end == 0) {
+                        throw new RiotParseException("Line exceeds the maximum mapping size", line, 1);
+                    }
+                }
+                line += parser.parse(mapped, 0, end, line);
+                offset += end;
+            }
+            dest.finish();
+        } catch (IOException e) {
+            throw new RiotException(
+                    String.join("", "Could not read file '", file.toString(), "': ", e.getMessage()));
+        }
+    }
+
+    /**
+     * Find the end of the last complete line of a mapped region.
+     * @param mapped Mapped region.
+     * @param length Length of the mapped region.
+     * @return Position after the last line break of the region, 0 if the region does not contain a line break.
+     */
+    private static int lastLineEnd(final MappedByteBuffer mapped, final int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (mapped.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+}
@@ -0,0 +1,413 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.datatypes.TypeMapper;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.NodeFactory;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.sparql.core.Quad;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import org.apache.jena.riot.RiotParseException;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.apache.jena.riot.system.StreamRDF;
+
+/**
+ * Parser for N-Triples and N-Quads lines tokenizing directly from a {@link ByteBuffer}. Only the bytes of
+ * individual terms are copied and decoded, the buffer itself is never decoded as a whole. Parsed triples and
+ * quads of the default graph are sent to a {@link StreamRDF} as triples, quads of named graphs as quads.
+ * Blank nodes are created from their labels using a document scope, parsers using the same scope create
+ * identical blank nodes for identical labels. Instances are not thread safe.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+final class NTriplesByteParser {
+    /**
+     * Initial size of the buffer used to copy the bytes of a single term.
+     */
+    private static final int INITIAL_TERM_BUFFER = 256;
+    /**
+     * Number of hex digits of a short unicode escape sequence.
+     */
+    private static final int SHORT_UCHAR = 4;
+    /**
+     * Number of hex digits of a long unicode escape sequence.
+     */
+    private static final int LONG_UCHAR = 8;
+    /**
+     * Radix of unicode escape sequences.
+     */
+    private static final int HEX = 16;
+    /**
+     * Destination of the parsed data.
+     */
+    private final StreamRDF dest;
+    /**
+     * Mapping of blank node labels to blank nodes.
+     */
+    private final LabelToNode labels;
+    /**
+     * Buffer the bytes of a single term are copied to before decoding.
+     */
+    private byte[] termBuffer = new byte[NTriplesByteParser.INITIAL_TERM_BUFFER];
+    /**
+     * Buffer that is currently parsed.
+     */
+    private ByteBuffer buf;
+    /**
+     * View of the parsed buffer used for bulk copies of term bytes.
+     */
+    private ByteBuffer view;
+    /**
+     * Current parse position within the buffer.
+     */
+    private int pos;
+    /**
+     * Position of the first byte of the current line.
+     */
+    private int lineStart;
+    /**
+     * Position after the last byte of the current line.
+     */
+    private int lineEnd;
+    /**
+     * Number of the current line within the parsed document.
+     */
+    private long line;
+
+    /**
+     * Constructor.
+     * @param dest {@link StreamRDF} receiving the parsed data.
+     * @param blankNodeScope Document scope used to create blank nodes from their labels.
+     */
+    NTriplesByteParser(final StreamRDF dest, final UUID blankNodeScope) {
+        this.dest = dest;
+        this.labels = LabelToNode.createScopeByDocumentHash(blankNodeScope);
+    }
+
+    /**
+     * Parse all lines of a buffer within a range of positions. The range has to start at the beginning of
+     * a line and has to end after a line break or at the end of the document.
+     * @param buffer Buffer containing N-Triples or N-Quads lines.
+     * @param start Position of the first byte to parse.
+     * @param end Position after the last byte to parse.
+     * @param firstLine Line number of the first line within the document, used for error messages.
+     * @return Number of parsed lines.
+     */
+    long parse(final ByteBuffer buffer, final int start, final int end, final long firstLine) {
+        this.buf = buffer;
+        this.view = buffer.duplicate();
+        this.line = firstLine;
+        this.pos = start;
+
+        while (this.pos < end) {
+            this.lineStart = this.pos;
+            this.lineEnd = this.pos;
+            while (this.lineEnd < end && this.buf.get(this.lineEnd) != '\n') {
+                this.lineEnd++;
+            }
+            this.parseLine();
+            this.pos = this.lineEnd + 1;
+            this.line++;
+        }
+        return this.line - firstLine;
+    }
+
+    /**
+     * Parse a single line containing a triple, a quad, a comment or nothing at all.
+     */
+    private void parseLine() {
+        this.skipWhitespace();
+        if (this.atLineEnd() || this.peek() == '#') {
+            return;
+        }
+
+        final Node subj = this.readSubjectOrGraph("subject");
+        this.skipWhitespace();
+        final Node pred = this.readIri();
+        this.skipWhitespace();
+        final Node obj = this.readObject();
+        this.skipWhitespace();
+
+        Node graph = null;
+        if (!this.atLineEnd() && this.peek() != '.') {
+            graph = this.readSubjectOrGraph("graph label");
+            this.skipWhitespace();
+        }
+        if (this.atLineEnd() || this.peek() != '.') {
+            throw this.error("Expected '.' at the end of the statement");
+        }
+        this.pos++;
+        this.skipWhitespace();
+        if (!this.atLineEnd() && this.peek() != '#') {
+            throw this.error("Unexpected content after the end of the statement");
+        }
+
+        if (graph == null || Quad.isDefaultGraph(graph)) {
+            this.dest.triple(Triple.create(subj, pred, obj));
+        } else {
+            this.dest.quad(Quad.create(graph, subj, pred, obj));
+        }
+    }
+
+    /**
+     * Read an IRI or a blank node at the current position.
+     * @param position Position of the term within the statement, used for error messages.
+     * @return Parsed {@link Node}.
+     */
+    private Node readSubjectOrGraph(final String position) {
+        final byte b = this.peek();
+        if (b == '<') {
+            return this.readIri();
+        } else if (b == '_') {
+            return this.readBlankNode();
+        }
+        throw this.error(String.join("", "Expected an IRI or a blank node as ", position));
+    }
+
+    /**
+     * Read an IRI, a blank node or a literal at the current position.
+     * @return Parsed {@link Node}.
+     */
+    private Node readObject() {
+        if (this.atLineEnd()) {
+            throw this.error("Expected an object");
+        }
+        final byte b = this.peek();
+        if (b == '"') {
+            return this.readLiteral();
+        }
+        return this.readSubjectOrGraph("object");
+    }
+
+    /**
+     * Read an IRI enclosed in angle brackets at the current position.
+     * @return Parsed URI {@link Node}.
+     */
+    private Node readIri() {
+        if (this.atLineEnd() || this.peek() != '<') {
+            throw this.error("Expected an IRI");
+        }
+        final int start = ++this.pos;
+        boolean escaped = false;
+        while (!this.atLineEnd()) {
+            final byte b = this.peek();
+            if (b == '>') {
+                final String iri = this.decode(start, this.pos);
+                this.pos++;
+                return NodeFactory.createURI(escaped ? this.unescape(iri, false) : iri);
+            }
+            if (b == '\\') {
+                escaped = true;
+            } else if ((b & 0xFF) <= ' ' || b == '<' || b == '"' || b == '{' || b == '}'
+                    || b == '|' || b == '^' || b == '`') {
+                throw this.error("Illegal character in IRI");
+            }
+            this.pos++;
+        }
+        throw this.error("Unterminated IRI");
+    }
+
+    /**
+     * Read a blank node label at the current position.
+     * @return Blank {@link Node} corresponding to the label.
+     */
+    private Node readBlankNode() {
+        if (this.pos + 2 >= this.lineEnd || this.buf.get(this.pos + 1) != ':') {
+            throw this.error("Expected a blank node label");
+        }
+        this.pos += 2;
+        final int start = this.pos;
+        while (!this.atLineEnd()) {
+            final byte b = this.peek();
+            if (b == ' ' || b == '\t' || b == '\r' || b == '<' || b == '"' || b == '#') {
+                break;
+            }
+            this.pos++;
+        }
+        // A trailing '.' terminates the statement and is not part of the label.
+        while (this.pos > start && this.buf.get(this.pos - 1) == '.') {
+            this.pos--;
+        }
+        if (this.pos == start) {
+            throw this.error("Empty blank node label");
+        }
+        return this.labels.get(null, this.decode(start, this.pos));
+    }
+
+    /**
+     * Read a literal including an optional language tag or datatype at the current position.
+     * @return Parsed literal {@link Node}.
+     */
+    private Node readLiteral() {
+        final int start = ++this.pos;
+        boolean escaped = false;
+        while (!this.atLineEnd() && this.peek() != '"') {
+            if (this.peek() == '\\') {
+                escaped = true;
+                this.pos++;
+            }
+            this.pos++;
+        }
+        if (this.atLineEnd()) {
+            throw this.error("Unterminated literal");
+        }
+        final String raw = this.decode(start, this.pos);
+        final String lex = escaped ? this.unescape(raw, true) : raw;
+        this.pos++;
+
+        if (!this.atLineEnd() && this.peek() == '@') {
+            final int langStart = ++this.pos;
+            while (!this.atLineEnd() && (Character.isLetterOrDigit(this.peek()) || this.peek() == '-')) {
+                this.pos++;
+            }
+            if (this.pos == langStart) {
+                throw this.error("Empty language tag");
+            }
+            return NodeFactory.createLiteral(lex, this.decode(langStart, this.pos), false);
+        }
+        if (!this.atLineEnd() && this.peek() == '^') {
+            if (this.pos + 1 >= this.lineEnd || this.buf.get(this.pos + 1) != '^') {
+                throw this.error("Expected '^^' before the datatype");
+            }
+            this.pos += 2;
+            final String datatype = this.readIri().getURI();
+            return NodeFactory.createLiteral(lex, null, TypeMapper.getInstance().getSafeTypeByName(datatype));
+        }
+        return NodeFactory.createLiteral(lex);
+    }
+
+    /**
+     * Resolve escape sequences within a term.
+     * @param term Decoded term containing escape sequences.
+     * @param isLiteral True if the term is a literal, where character escapes are allowed in addition
+     *                  to unicode escapes.
+     * @return Term without escape sequences.
+     */
+    private String unescape(final String term, final boolean isLiteral) {
+        final StringBuilder sb = new StringBuilder(term.length());
+        int i = 0;
+        while (i < term.length()) {
+            final char c = term.charAt(i);
+            if (c != '\\' || i + 1 >= term.length()) {
+                sb.append(c);
+                i++;
+                continue;
+            }
+            final char e = term.charAt(i + 1);
+            if (e == 'u' || e == 'U') {
+                final int digits = e == 'u' ? NTriplesByteParser.SHORT_UCHAR : NTriplesByteParser.LONG_UCHAR;
+                if (i + 2 + digits > term.length()) {
+                    throw this.error("Incomplete unicode escape sequence");
+                }
+                try {
+                    final String hex = term.substring(i + 2, i + 2 + digits);
+                    sb.appendCodePoint(Integer.parseInt(hex, NTriplesByteParser.HEX));
+                } catch (IllegalArgumentException exc) {
+                    throw this.error("Illegal unicode escape sequence");
+                }
+                i += 2 + digits;
+                continue;
+            }
+            if (!isLiteral) {
+                throw this.error("Illegal escape sequence in IRI");
+            }
+            final char unescaped = NTriplesByteParser.unescapeChar(e);
+            if (unescaped == 0) {
+                throw this.error("Illegal escape sequence in literal");
+            }
+            sb.append(unescaped);
+            i += 2;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Resolve a character escape sequence.
+     * @param c Character following the backslash.
+     * @return Escaped character, 0 if the escape sequence is not supported.
+     */
+    private static char unescapeChar(final char c) {
+        switch (c) {
+            case 't':
+                return '\t';
+            case 'b':
+                return '\b';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 'f':
+                return '\f';
+            case '"':
+            case '\'':
+            case '\\':
+                return c;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Decode a range of the parsed buffer as UTF-8.
+     * @param from Position of the first byte.
+     * @param to Position after the last byte.
+     * @return Decoded String.
+     */
+    private String decode(final int from, final int to) {
+        final int len = to - from;
+        if (len > this.termBuffer.length) {
+            this.termBuffer = new byte[Math.max(len, this.termBuffer.length * 2)];
+        }
+        this.view.position(from);
+        this.view.get(this.termBuffer, 0, len);
+        return new String(this.termBuffer, 0, len, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Move the current position behind any spaces, tabs and carriage returns.
+     */
+    private void skipWhitespace() {
+        while (!this.atLineEnd()) {
+            final byte b = this.peek();
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return;
+            }
+            this.pos++;
+        }
+    }
+
+    /**
+     * @return True if the current position is at the end of the current line.
+     */
+    private boolean atLineEnd() {
+        return this.pos >= this.lineEnd;
+    }
+
+    /**
+     * @return Byte at the current position.
+     */
+    private byte peek() {
+        return this.buf.get(this.pos);
+    }
+
+    /**
+     * Create a parse exception for the current position.
+     * @param message Error message.
+     * @return {@link RiotParseException} containing line and column of the current position.
+     */
+    private RiotParseException error(final String message) {
+        return new RiotParseException(message, this.line, this.pos - this.lineStart + 1);
+    }
+
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.graph.Node;
+import java.util.Arrays;
+
+/**
+ * Dictionary mapping RDF terms to consecutive integer IDs starting with 0. Each term is stored only once
+ * as a {@link Node} on the Java heap, the lookup table is an open addressing hash table of primitive integers,
+ * no boxed values are created.
+ * Terms are never removed from the dictionary.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class NodeDictionary implements TermDictionary {
+    /**
+     * ID returned for terms, that are not contained in the dictionary.
+     */
+    public static final int NOT_FOUND = -1;
+    /**
+     * Initial number of terms the dictionary can hold without growing.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Terms of the dictionary, the index of a term is its ID.
+     */
+    private Node[] nodes = new Node[NodeDictionary.INITIAL_CAPACITY];
+    /**
+     * Hash table containing term ID + 1 for each used slot, 0 for empty slots.
+     */
+    private int[] table = new int[NodeDictionary.INITIAL_CAPACITY * 2];
+    /**
+     * Number of terms.
+     */
+    private int size;
+
+    /**
+     * Method returns the ID of a term and adds the term to the dictionary, if it is not yet contained.
+     * @param node RDF term.
+     * @return ID of the term.
+     */
+    @Override
+    public int intern(final Node node) {
+        int slot = this.slot(node);
+        if (this.table[slot] != 0) {
+            return this.table[slot] - 1;
+        }
+
+        if (this.size == this.nodes.length) {
+            this.nodes = Arrays.copyOf(this.nodes, this.nodes.length * 2);
+            this.rehash(this.table.length * 2);
+            slot = this.slot(node);
+        }
+        this.nodes[this.size] = node;
+        this.table[slot] = this.size + 1;
+        return this.size++;
+    }
+
+    /**
+     * Method returns the ID of a term without adding it to the dictionary.
+     * @param node RDF term.
+     * @return ID of the term or {@link #NOT_FOUND}.
+     */
+    @Override
+    public int lookup(final Node node) {
+        return this.table[this.slot(node)] - 1;
+    }
+
+    /**
+     * @param id ID of a term.
+     * @return RDF term of the ID.
+     */
+    @Override
+    public Node get(final int id) {
+        return this.nodes[id];
+    }
+
+    /**
+     * @param id ID of a term.
+     * @return True if the term is a blank node.
+     */
+    @Override
+    public boolean isBlank(final int id) {
+        return this.nodes[id].isBlank();
+    }
+
+    /**
+     * @return Number of terms of the dictionary.
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Method returns the slot of the hash table containing a term or the empty slot, where the term
+     * has to be inserted.
+     * @param node RDF term.
+     * @return Slot of the hash table.
+     */
+    private int slot(final Node node) {
+        final int mask = this.table.length - 1;
+        int slot = NodeDictionary.spread(node.hashCode()) & mask;
+        while (this.table[slot] != 0 && !this.nodes[this.table[slot] - 1].equals(node)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Rebuild the hash table with a new capacity.
+     * @param capacity New capacity of the hash table, has to be a power of two.
+     */
+    private void rehash(final int capacity) {
+        this.table = new int[capacity];
+        final int mask = capacity - 1;
+        for (int id = 0; id < this.size; id++) {
+            int slot = NodeDictionary.spread(this.nodes[id].hashCode()) & mask;
+            while (this.table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.table[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Spread the bits of a hash code, since the hash table only uses the lower bits.
+     * @param hash Hash code of a term.
+     * @return Spread hash code.
+     */
+    private static int spread(final int hash) {
+        final int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -0,0 +1,306 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.datatypes.TypeMapper;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.NodeFactory;
+import com.hp.hpl.jena.rdf.model.AnonId;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * {@link TermDictionary} keeping all data outside of the Java heap. Terms are encoded to bytes and appended
+ * to pages of direct {@link ByteBuffer}s, the addresses and hashes of the terms as well as the hash table
+ * are kept in {@link DirectIntBlock}s. {@link Node}s are only created, when a term is read.
+ * Encoded term record: length (int), kind (byte), URI | blank node label | lexical form length (int),
+ * lexical form, language length (int), language, datatype URI. All Strings are UTF-8 encoded.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+final class OffHeapNodeDictionary implements TermDictionary {
+    /**
+     * Size of the pages holding the encoded terms.
+     */
+    private static final int PAGE_SIZE = 1 << 24;
+    /**
+     * Initial number of terms the dictionary can hold without growing.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+    /**
+     * Record kind of URI nodes.
+     */
+    private static final byte KIND_URI = 0;
+    /**
+     * Record kind of blank nodes.
+     */
+    private static final byte KIND_BLANK = 1;
+    /**
+     * Record kind of literal nodes.
+     */
+    private static final byte KIND_LITERAL = 2;
+
+    /**
+     * Pages holding the encoded terms.
+     */
+    private ByteBuffer[] pages = new ByteBuffer[0];
+    /**
+     * Write position within the last page.
+     */
+    private int pagePosition;
+    /**
+     * Page index and position within the page of the record of each term.
+     */
+    private IntBlock addresses = new DirectIntBlock(2 * OffHeapNodeDictionary.INITIAL_CAPACITY);
+    /**
+     * Hash of the encoded bytes of each term.
+     */
+    private IntBlock hashes = new DirectIntBlock(OffHeapNodeDictionary.INITIAL_CAPACITY);
+    /**
+     * Hash table containing term ID + 1 for each used slot, 0 for empty slots.
+     */
+    private IntBlock table = new DirectIntBlock(2 * OffHeapNodeDictionary.INITIAL_CAPACITY);
+    /**
+     * Number of terms.
+     */
+    private int size;
+
+    @Override
+    public int intern(final Node node) {
+        final byte[] encoded = OffHeapNodeDictionary.encode(node);
+        final int hash = OffHeapNodeDictionary.hash(encoded);
+        long slot = this.slot(encoded, hash);
+        if (this.table.get(slot) != 0) {
+            return this.table.get(slot) - 1;
+        }
+
+        if (2L * (this.size + 1) > this.table.length()) {
+            this.rehash(this.table.length() * 2);
+            slot = this.slot(encoded, hash);
+        }
+        if (this.size == this.hashes.length()) {
+            this.hashes = this.hashes.resize(this.hashes.length() * 2);
+            this.addresses = this.addresses.resize(this.addresses.length() * 2);
+        }
+
+        this.store(this.size, encoded);
+        this.hashes.set(this.size, hash);
+        this.table.set(slot, this.size + 1);
+        return this.size++;
+    }
+
+    @Override
+    public int lookup(final Node node) {
+        final byte[] encoded = OffHeapNodeDictionary.encode(node);
+        return this.table.get(this.slot(encoded, OffHeapNodeDictionary.hash(encoded))) - 1;
+    }
+
+    @Override
+    public Node get(final int id) {
+        final ByteBuffer page = this.pages[this.addresses.get(2L * id)];
+        final int position = this.addresses.get(2L * id + 1);
+        return OffHeapNodeDictionary.decode(page, position + Integer.BYTES, page.getInt(position));
+    }
+
+    @Override
+    public boolean isBlank(final int id) {
+        final ByteBuffer page = this.pages[this.addresses.get(2L * id)];
+        return page.get(this.addresses.get(2L * id + 1) + Integer.BYTES) == OffHeapNodeDictionary.KIND_BLANK;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Method returns the slot of the hash table containing a term or the empty slot, where the term
+     * has to be inserted.
+     * @param encoded Encoded term.
+     * @param hash Hash of the encoded term.
+     * @return Slot of the hash table.
+     */
+    private long slot(final byte[] encoded, final int hash) {
+        final long mask = this.table.length() - 1;
+        long slot = hash & mask;
+        int entry = this.table.get(slot);
+        while (entry != 0 && (this.hashes.get(entry - 1) != hash || !this.matches(entry - 1, encoded))) {
+            slot = (slot + 1) & mask;
+            entry = this.table.get(slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Rebuild the hash table with a new capacity.
+     * @param capacity New capacity of the hash table, has to be a power of two.
+     */
+    private void rehash(final long capacity) {
+        this.table = new DirectIntBlock(capacity);
+        final long mask = capacity - 1;
+        for (int id = 0; id < this.size; id++) {
+            long slot = this.hashes.get(id) & mask;
+            while (this.table.get(slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.table.set(slot, id + 1);
+        }
+    }
+
+    /**
+     * Append the record of a term to the last page, a new page is added, if the record does not fit.
+     * @param id ID of the term.
+     * @param encoded Encoded term.
+     */
+    private void store(final int id, final byte[] encoded) {
+        final int recordSize = Integer.BYTES + encoded.length;
+        if (this.pages.length == 0
+                || this.pagePosition + recordSize > this.pages[this.pages.length - 1].capacity()) {
+            this.pages = Arrays.copyOf(this.pages, this.pages.length + 1);
+            this.pages[this.pages.length - 1] =
+                    ByteBuffer.allocateDirect(Math.max(OffHeapNodeDictionary.PAGE_SIZE, recordSize));
+            this.pagePosition = 0;
+        }
+
+        final ByteBuffer page = this.pages[this.pages.length - 1];
+        page.putInt(this.pagePosition, encoded.length);
+        final ByteBuffer target = page.duplicate();
+        target.position(this.pagePosition + Integer.BYTES);
+        target.put(encoded);
+
+        this.addresses.set(2L * id, this.pages.length - 1);
+        this.addresses.set(2L * id + 1, this.pagePosition);
+        this.pagePosition += recordSize;
+    }
+
+    /**
+     * Compare the stored record of a term with an encoded term.
+     * @param id ID of the stored term.
+     * @param encoded Encoded term.
+     * @return True if the record contains the encoded term.
+     */
+    private boolean matches(final int id, final byte[] encoded) {
+        final ByteBuffer page = this.pages[this.addresses.get(2L * id)];
+        final int position = this.addresses.get(2L * id + 1);
+        if (page.getInt(position) != encoded.length) {
+            return false;
+        }
+        final int start = position + Integer.BYTES;
+        for (int i = 0; i < encoded.length; i++) {
+            if (page.get(start + i) != encoded[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encode an RDF term.
+     * @param node RDF term.
+     * @return Encoded term without the length prefix.
+     */
+    private static byte[] encode(final Node node) {
+        if (node.isURI()) {
+            return OffHeapNodeDictionary.concat(
+                    OffHeapNodeDictionary.KIND_URI, node.getURI().getBytes(StandardCharsets.UTF_8));
+        } else if (node.isBlank()) {
+            return OffHeapNodeDictionary.concat(
+                    OffHeapNodeDictionary.KIND_BLANK, node.getBlankNodeLabel().getBytes(StandardCharsets.UTF_8));
+        } else if (node.isLiteral()) {
+            final byte[] lex = node.getLiteralLexicalForm().getBytes(StandardCharsets.UTF_8);
+            final byte[] lang = node.getLiteralLanguage().getBytes(StandardCharsets.UTF_8);
+            final String datatypeURI = node.getLiteralDatatypeURI();
+            final byte[] datatype =
+                    datatypeURI == null ? new byte[0] : datatypeURI.getBytes(StandardCharsets.UTF_8);
+
+            final ByteBuffer buf =
+                    ByteBuffer.allocate(1 + 2 * Integer.BYTES + lex.length + lang.length + datatype.length);
+            buf.put(OffHeapNodeDictionary.KIND_LITERAL);
+            buf.putInt(lex.length).put(lex);
+            buf.putInt(lang.length).put(lang);
+            buf.put(datatype);
+            return buf.array();
+        }
+        throw new IllegalArgumentException(String.join("", "Unsupported RDF term: ", node.toString()));
+    }
+
+    /**
+     * Decode an RDF term.
+     * @param page Page containing the encoded term.
+     * @param position Start of the encoded term within the page.
+     * @param length Length of the encoded term.
+     * @return RDF term.
+     */
+    private static Node decode(final ByteBuffer page, final int position, final int length) {
+        final byte kind = page.get(position);
+        if (kind == OffHeapNodeDictionary.KIND_URI) {
+            return NodeFactory.createURI(OffHeapNodeDictionary.string(page, position + 1, length - 1));
+        } else if (kind == OffHeapNodeDictionary.KIND_BLANK) {
+            return NodeFactory.createAnon(new AnonId(OffHeapNodeDictionary.string(page, position + 1, length - 1)));
+        }
+
+        int pos = position + 1;
+        final int lexLength = page.getInt(pos);
+        final String lex = OffHeapNodeDictionary.string(page, pos + Integer.BYTES, lexLength);
+        pos += Integer.BYTES + lexLength;
+        final int langLength = page.getInt(pos);
+        final String lang = OffHeapNodeDictionary.string(page, pos + Integer.BYTES, langLength);
+        pos += Integer.BYTES + langLength;
+        final String datatype = OffHeapNodeDictionary.string(page, pos, position + length - pos);
+
+        if (!lang.isEmpty() || datatype.isEmpty()) {
+            return NodeFactory.createLiteral(lex, lang, false);
+        }
+        return NodeFactory.createLiteral(lex, TypeMapper.getInstance().getSafeTypeByName(datatype));
+    }
+
+    /**
+     * Read a UTF-8 encoded String from a page.
+     * @param page Page containing the String.
+     * @param position Start of the String.
+     * @param length Number of bytes of the String.
+     * @return Decoded String.
+     */
+    private static String string(final ByteBuffer page, final int position, final int length) {
+        final byte[] bytes = new byte[length];
+        final ByteBuffer source = page.duplicate();
+        source.position(position);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param kind Record kind.
+     * @param value Encoded value.
+     * @return Record kind followed by the value.
+     */
+    private static byte[] concat(final byte kind, final byte[] value) {
+        final byte[] result = new byte[value.length + 1];
+        result[0] = kind;
+        System.arraycopy(value, 0, result, 1, value.length);
+        return result;
+    }
+
+    /**
+     * FNV-1a hash of an encoded term.
+     * @param encoded Encoded term.
+     * @return Hash of the term.
+     */
+    private static int hash(final byte[] encoded) {
+        int h = 0x811c9dc5;
+        for (final byte b : encoded) {
+            h = (h ^ (b & 0xff)) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+}
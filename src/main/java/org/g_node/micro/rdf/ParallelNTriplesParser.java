@@ -0,0 +1,330 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.sparql.core.Quad;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.RiotParseException;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.riot.system.StreamRDFLib;
+
+/**
+ * Parallel parser for N-Triples and N-Quads files. Memory mapped regions of a file are split into chunks at
+ * line breaks and the chunks are parsed concurrently on a {@link ForkJoinPool}. The parsed data is passed
+ * on either to a single destination or to several shard destinations, selected by the hash of the subject
+ * of a triple. Calls to the same destination are serialized, destinations do not need to be thread safe,
+ * but the order of the parsed data is not preserved. All chunks of a file share the same blank node scope,
+ * identical blank node labels in different chunks result in identical blank nodes.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class ParallelNTriplesParser {
+    /**
+     * Default size of the chunks a file is split into.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Parse an N-Triples or N-Quads file in parallel and add the parsed triples to a graph.
+     * Quads of named graphs are ignored.
+     * @param file Path of the file.
+     * @param target {@link Graph} the triples are added to.
+     * @throws RiotException If the file cannot be read or contains invalid data.
+     */
+    public static void parse(final Path file, final Graph target) {
+        final StreamRDF[] dest = {StreamRDFLib.graph(target)};
+        ParallelNTriplesParser.parse(file, dest, UUID.randomUUID(), ForkJoinPool.commonPool(),
+                ParallelNTriplesParser.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Parse an N-Triples or N-Quads file in parallel and send the parsed data to one or more destinations.
+     * If more than one destination is provided, each triple or quad is sent to the destination
+     * corresponding to the hash of its subject, see {@link #shardOf(Node, int)}.
+     * @param file Path of the file.
+     * @param shards Destinations of the parsed data.
+     * @param blankNodeScope Document scope used to create blank nodes from their labels.
+     * @param pool {@link ForkJoinPool} used to parse the chunks of the file.
+     * @param chunkSize Approximate size of the chunks the file is split into.
+     * @throws RiotException If the file cannot be read or contains invalid data.
+     */
+    public static void parse(final Path file, final StreamRDF[] shards, final UUID blankNodeScope,
+                             final ForkJoinPool pool, final int chunkSize) {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            long offset = 0;
+
+            for (final StreamRDF s : shards) {
+                s.start();
+            }
+            while (offset < size) {
+                final int length = (int) Math.min(MappedNTriplesReader.MAX_MAPPING_SIZE, size - offset);
+                final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+
+                int end = length;
+                if (offset + length < size) {
+                    end = ParallelNTriplesParser.lineEndBefore(mapped, length);
+                    if (end == 0) {
+                        throw new RiotParseException("Line exceeds the maximum mapping size",
+                                ParallelNTriplesParser.countLines(channel, offset) + 1, 1);
+                    }
+                }
+                final ChunkTask task = new ChunkTask(mapped, 0, end, shards, blankNodeScope, chunkSize);
+                try {
+                    pool.invoke(task);
+                } catch (ChunkParseException e) {
+                    final long line = ParallelNTriplesParser.countLines(channel, offset + e.chunkStart) + e.line;
+                    throw new RiotParseException(e.getCause().getOriginalMessage(), line, e.getCause().getCol());
+                }
+                offset += end;
+            }
+            for (final StreamRDF s : shards) {
+                s.finish();
+            }
+        } catch (IOException e) {
+            throw new RiotException(
+                    String.join("", "Could not read file '", file.toString(), "': ", e.getMessage()));
+        }
+    }
+
+    /**
+     * Method returns the shard of a subject.
+     * @param subject Subject {@link Node}.
+     * @param shards Number of shards.
+     * @return Index of the shard between 0 and shards - 1.
+     */
+    public static int shardOf(final Node subject, final int shards) {
+        return Math.floorMod(subject.hashCode(), shards);
+    }
+
+    /**
+     * Find the position after the last line break before a position of a mapped region.
+     * @param mapped Mapped region.
+     * @param before Position before which the line break is searched.
+     * @return Position after the line break, 0 if there is no line break before the position.
+     */
+    private static int lineEndBefore(final MappedByteBuffer mapped, final int before) {
+        for (int i = before - 1; i >= 0; i--) {
+            if (mapped.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Count the line breaks of a file before a position. Only used to report the line of a parse error.
+     * @param channel {@link FileChannel} of the file.
+     * @param position Position up to which line breaks are counted.
+     * @return Number of line breaks.
+     * @throws IOException If the file cannot be read.
+     */
+    private static long countLines(final FileChannel channel, final long position) throws IOException {
+        long lines = 0;
+        long offset = 0;
+        while (offset < position) {
+            final int length = (int) Math.min(MappedNTriplesReader.MAX_MAPPING_SIZE, position - offset);
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            for (int i = 0; i < length; i++) {
+                if (mapped.get(i) == '\n') {
+                    lines++;
+                }
+            }
+            offset += length;
+        }
+        return lines;
+    }
+
+    /**
+     * Task parsing a range of a mapped region. Ranges larger than the chunk size are split in two
+     * at a line break and parsed as separate tasks.
+     */
+    private static final class ChunkTask extends RecursiveAction {
+        /**
+         * Serial version.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Mapped region containing the range.
+         */
+        private final transient MappedByteBuffer mapped;
+        /**
+         * Start position of the range.
+         */
+        private final int start;
+        /**
+         * End position of the range.
+         */
+        private final int end;
+        /**
+         * Destinations of the parsed data.
+         */
+        private final transient StreamRDF[] shards;
+        /**
+         * Document scope used to create blank nodes.
+         */
+        private final UUID blankNodeScope;
+        /**
+         * Size up to which a range is parsed without splitting it.
+         */
+        private final int chunkSize;
+
+        /**
+         * Constructor.
+         * @param mapped Mapped region containing the range.
+         * @param start Start position of the range, has to be the start of a line.
+         * @param end End position of the range, has to be the end of a line.
+         * @param shards Destinations of the parsed data.
+         * @param blankNodeScope Document scope used to create blank nodes.
+         * @param chunkSize Size up to which a range is parsed without splitting it.
+         */
+        ChunkTask(final MappedByteBuffer mapped, final int start, final int end, final StreamRDF[] shards,
+                  final UUID blankNodeScope, final int chunkSize) {
+            this.mapped = mapped;
+            this.start = start;
+            this.end = end;
+            this.shards = shards;
+            this.blankNodeScope = blankNodeScope;
+            this.chunkSize = chunkSize;
+        }
+
+        /**
+         * Parse the range or split it into two tasks.
+         */
+        @Override
+        protected void compute() {
+            if (this.end - this.start > this.chunkSize) {
+                final int split = ParallelNTriplesParser.lineEndBefore(
+                        this.mapped, this.start + (this.end - this.start) / 2);
+                if (split > this.start) {
+                    ForkJoinTask.invokeAll(
+                            new ChunkTask(this.mapped, this.start, split, this.shards,
+                                    this.blankNodeScope, this.chunkSize),
+                            new ChunkTask(this.mapped, split, this.end, this.shards,
+                                    this.blankNodeScope, this.chunkSize));
+                    return;
+                }
+            }
+            this.parseChunk();
+        }
+
+        /**
+         * Parse the range into local buffers and pass the buffered data on to the destinations.
+         */
+        private void parseChunk() {
+            final ChunkCollector collector = new ChunkCollector(this.shards.length);
+            try {
+                new NTriplesByteParser(collector, this.blankNodeScope).parse(this.mapped, this.start, this.end, 1);
+            } catch (RiotParseException e) {
+                throw new ChunkParseException(this.start, e);
+            }
+
+            for (int i = 0; i < this.shards.length; i++) {
+                final StreamRDF shard = this.shards[i];
+                if (collector.triples.get(i).isEmpty() && collector.quads.get(i).isEmpty()) {
+                    continue;
+                }
+                synchronized (shard) {
+                    collector.triples.get(i).forEach(shard::triple);
+                    collector.quads.get(i).forEach(shard::quad);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@link StreamRDF} buffering the data of a single chunk per shard.
+     */
+    private static final class ChunkCollector extends StreamRDFBase {
+        /**
+         * Buffered triples per shard.
+         */
+        private final List<List<Triple>> triples;
+        /**
+         * Buffered quads per shard.
+         */
+        private final List<List<Quad>> quads;
+
+        /**
+         * Constructor.
+         * @param shards Number of shards.
+         */
+        ChunkCollector(final int shards) {
+            this.triples = new ArrayList<>(shards);
+            this.quads = new ArrayList<>(shards);
+            for (int i = 0; i < shards; i++) {
+                this.triples.add(new ArrayList<>());
+                this.quads.add(new ArrayList<>());
+            }
+        }
+
+        @Override
+        public void triple(final Triple triple) {
+            this.triples.get(ParallelNTriplesParser.shardOf(triple.getSubject(), this.triples.size())).add(triple);
+        }
+
+        @Override
+        public void quad(final Quad quad) {
+            this.quads.get(ParallelNTriplesParser.shardOf(quad.getSubject(), this.quads.size())).add(quad);
+        }
+    }
+
+    /**
+     * Exception wrapping a parse error of a chunk together with the start position of the chunk.
+     */
+    private static final class ChunkParseException extends RuntimeException {
+        /**
+         * Serial version.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Start position of the chunk within its mapped region.
+         */
+        private final int chunkStart;
+        /**
+         * Line of the error relative to the start of the chunk, starting with 1.
+         */
+        private final long line;
+
+        /**
+         * Constructor.
+         * @param chunkStart Start position of the chunk within its mapped region.
+         * @param cause Parse error of the chunk.
+         */
+        ChunkParseException(final int chunkStart, final RiotParseException cause) {
+            super(cause);
+            this.chunkStart = chunkStart;
+            this.line = cause.getLine();
+        }
+
+        @Override
+        public synchronized RiotParseException getCause() {
+            return (RiotParseException) super.getCause();
+        }
+    }
+
+}
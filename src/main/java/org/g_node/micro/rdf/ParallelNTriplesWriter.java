@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.util.iterator.ExtendedIterator;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.jena.riot.RiotException;
+
+/**
+ * Parallel writer for N-Triples files. The triples of a graph are partitioned into chunks of
+ * {@link #DEFAULT_CHUNK_TRIPLES} triples, the chunks are serialized into byte buffers concurrently and written
+ * to the file in the order of the chunks by gathering writes to a {@link FileChannel}. At most two chunks per
+ * thread are held in memory at once. The graph is only read by the calling thread.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class ParallelNTriplesWriter {
+    /**
+     * Default number of triples of a chunk.
+     */
+    public static final int DEFAULT_CHUNK_TRIPLES = 64 * 1024;
+
+    /**
+     * Write all triples of a graph to an N-Triples file in parallel.
+     * @param file Path of the file, an existing file is replaced.
+     * @param graph {@link Graph} containing the triples.
+     * @param threads Number of threads serializing chunks.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(final Path file, final Graph graph, final int threads) throws IOException {
+        ParallelNTriplesWriter.write(file, graph, threads, ParallelNTriplesWriter.DEFAULT_CHUNK_TRIPLES);
+    }
+
+    /**
+     * Write all triples of a graph to an N-Triples file in parallel.
+     * @param file Path of the file, an existing file is replaced.
+     * @param graph {@link Graph} containing the triples.
+     * @param threads Number of threads serializing chunks.
+     * @param chunkTriples Number of triples of a chunk.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(final Path file, final Graph graph, final int threads, final int chunkTriples)
+            throws IOException {
+
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final Deque<Future<ByteBuffer>> pending = new ArrayDeque<>();
+        final ExtendedIterator<Triple> triples = graph.find(Node.ANY, Node.ANY, Node.ANY);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            List<Triple> chunk = new ArrayList<>(chunkTriples);
+            while (triples.hasNext()) {
+                chunk.add(triples.next());
+                if (chunk.size() == chunkTriples) {
+                    final List<Triple> full = chunk;
+                    pending.add(pool.submit(() -> ParallelNTriplesWriter.serialize(full)));
+                    chunk = new ArrayList<>(chunkTriples);
+                    if (pending.size() >= 2 * threads) {
+                        ParallelNTriplesWriter.writeCompleted(channel, pending, false);
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                final List<Triple> last = chunk;
+                pending.add(pool.submit(() -> ParallelNTriplesWriter.serialize(last)));
+            }
+            ParallelNTriplesWriter.writeCompleted(channel, pending, true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                    String.join("", "Writing file '", file.toString(), "' was interrupted."));
+        } catch (ExecutionException e) {
+            throw new RiotException(e.getCause());
+        } finally {
+            triples.close();
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Write serialized chunks to the channel in the order they have been submitted. The first chunk is always
+     * awaited, further chunks are written in the same gathering write, if they are already serialized.
+     * @param channel Channel of the file.
+     * @param pending Serializations of the chunks in order, written chunks are removed.
+     * @param all Await and write all chunks.
+     * @throws IOException If the file cannot be written.
+     * @throws InterruptedException If the thread is interrupted while waiting for a chunk.
+     * @throws ExecutionException If a chunk could not be serialized.
+     */
+    private static void writeCompleted(final FileChannel channel, final Deque<Future<ByteBuffer>> pending,
+                                       final boolean all) throws IOException, InterruptedException,
+                                                                 ExecutionException {
+        while (!pending.isEmpty()) {
+            final List<ByteBuffer> buffers = new ArrayList<>();
+            buffers.add(pending.poll().get());
+            while (!pending.isEmpty() && (all || pending.peek().isDone())) {
+                buffers.add(pending.poll().get());
+            }
+            final ByteBuffer[] gather = buffers.toArray(new ByteBuffer[buffers.size()]);
+            final ByteBuffer lastBuffer = gather[gather.length - 1];
+            while (lastBuffer.hasRemaining()) {
+                channel.write(gather);
+            }
+            if (!all) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Serialize triples as N-Triples lines.
+     * @param triples Triples.
+     * @return Buffer containing the UTF-8 encoded lines.
+     */
+    private static ByteBuffer serialize(final List<Triple> triples) {
+        final StringBuilder lines = new StringBuilder(triples.size() * 128);
+        for (final Triple t : triples) {
+            lines.append(StreamLineSorterJena.toLine(t)).append('\n');
+        }
+        return ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -10,6 +10,10 @@
 
 package org.g_node.micro.rdf;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Class providing constants associated with RDF but independent from any implemented RDF library.
  *
@@ -64,4 +68,18 @@ public final class RdfConstants {
      * G-Node ontology namespace prefix.
      */
     public static final String RDF_NS_GN_ONT_ABR = "gn";
+    /**
+     * Map of the namespace prefixes of this class to their namespaces.
+     */
+    public static final Map<String, String> NAMESPACES =
+            Collections.unmodifiableMap(new HashMap<String, String>(6) {
+                {
+                    put(RdfConstants.RDF_NS_RDF_ABR, RdfConstants.RDF_NS_RDF);
+                    put(RdfConstants.RDF_NS_RDFS_ABR, RdfConstants.RDF_NS_RDFS);
+                    put(RdfConstants.RDF_NS_XSD_ABR, RdfConstants.RDF_NS_XSD);
+                    put(RdfConstants.RDF_NS_FOAF_ABR, RdfConstants.RDF_NS_FOAF);
+                    put(RdfConstants.RDF_NS_DC_ABR, RdfConstants.RDF_NS_DC);
+                    put(RdfConstants.RDF_NS_GN_ONT_ABR, RdfConstants.RDF_NS_GN_ONT);
+                }
+            });
 }
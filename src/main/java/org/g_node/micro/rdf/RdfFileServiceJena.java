@@ -16,13 +16,28 @@ import com.hp.hpl.jena.rdf.model.Model;
 import com.hp.hpl.jena.rdf.model.ModelFactory;
 import com.hp.hpl.jena.sparql.util.Context;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import org.apache.jena.atlas.io.IO;
 import org.apache.jena.atlas.web.ContentType;
 import org.apache.jena.atlas.web.TypedInputStream;
@@ -34,11 +49,18 @@ import org.apache.jena.riot.RDFParserRegistry;
 import org.apache.jena.riot.ReaderRIOT;
 import org.apache.jena.riot.ReaderRIOTFactory;
 import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.RiotParseException;
 import org.apache.jena.riot.SysRIOT;
 import org.apache.jena.riot.WebContent;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.apache.jena.riot.system.ErrorHandler;
+import org.apache.jena.riot.system.ErrorHandlerFactory;
+import org.apache.jena.riot.system.ParserProfile;
+import org.apache.jena.riot.system.RiotLib;
 import org.apache.jena.riot.system.StreamRDF;
 import org.apache.jena.riot.system.StreamRDFLib;
 import org.apache.log4j.Logger;
+import org.g_node.micro.commons.CompressionService;
 import org.g_node.micro.commons.FileService;
 
 /**
@@ -54,6 +76,7 @@ public final class RdfFileServiceJena {
             Collections.unmodifiableMap(new HashMap<String, RDFFormat>(3) {
                 {
                     put("TTL", RDFFormat.TURTLE_PRETTY);
+                    put("TTL-STREAM", TurtleStreamWriterJena.FORMAT);
                     put("RDF/XML", RDFFormat.RDFXML);
                     put("NTRIPLES", RDFFormat.NTRIPLES);
                     put("JSON-LD", RDFFormat.JSONLD);
@@ -67,12 +90,26 @@ public final class RdfFileServiceJena {
             Collections.unmodifiableMap(new HashMap<String, String>(3) {
                 {
                     put("TTL", "ttl");
+                    put("TTL-STREAM", "ttl");
                     put("RDF/XML", "rdf");
                     put("NTRIPLES", "nt");
                     put("JSON-LD", "jsonld");
                 }
             });
 
+    /**
+     * Number of triples, from which on models are saved in format 'TTL' using the streaming Turtle writer
+     * 'TTL-STREAM' instead of the pretty Turtle writer, which analyses the whole RDF graph before writing.
+     */
+    public static final long TURTLE_STREAM_THRESHOLD = 1_000_000;
+
+    /**
+     * File extensions of line based RDF formats, that can be merged in streaming mode.
+     * Set entries are upper case.
+     */
+    public static final Set<String> STREAM_FORMAT_EXTENSIONS =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList("NT", "NQ")));
+
     /**
      * Query results of this RDFService can be saved to these file formats.
      * Map keys should always be upper case.
@@ -85,6 +122,34 @@ public final class RdfFileServiceJena {
                 }
             });
 
+    /**
+     * Store type of default Jena in-memory models.
+     */
+    public static final String STORE_JENA = "JENA";
+
+    /**
+     * Store type of models backed by a dictionary encoded {@link CompactGraph}.
+     */
+    public static final String STORE_COMPACT = "COMPACT";
+
+    /**
+     * Store type of models backed by a {@link CompactGraph} keeping terms and indexes in off-heap memory.
+     */
+    public static final String STORE_OFFHEAP = "OFFHEAP";
+
+    /**
+     * Store types of the models, that can be created by this service. Set entries are upper case.
+     */
+    public static final Set<String> STORE_TYPES =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+                    RdfFileServiceJena.STORE_JENA, RdfFileServiceJena.STORE_COMPACT,
+                    RdfFileServiceJena.STORE_OFFHEAP)));
+
+    /**
+     * Local N-Triples and N-Quads files of at least this size in bytes are parsed in parallel.
+     */
+    public static final long PARALLEL_PARSE_THRESHOLD = 64L * 1024 * 1024;
+
     /**
      * Access to the main LOGGER.
      */
@@ -98,29 +163,309 @@ public final class RdfFileServiceJena {
      * @return Model created from the data within the provided RDF file.
      */
     public static Model openModelFromFile(final String fileName) {
+        if (RdfFileServiceJena.isMappableFile(fileName)) {
+            final Model m = ModelFactory.createDefaultModel();
+            RdfFileServiceJena.readMappableFile(Paths.get(fileName), StreamRDFLib.graph(m.getGraph()),
+                    UUID.randomUUID());
+            return m;
+        }
+        if (RdfFileServiceJena.isCompressedFile(fileName)) {
+            final Model m = ModelFactory.createDefaultModel();
+            RdfFileServiceJena.readRdfFile(fileName, StreamRDFLib.graph(m.getGraph()), null);
+            return m;
+        }
         return RDFDataMgr.loadModel(fileName);
     }
 
+    /**
+     * Create an empty RDF model using one of the supported store types, see {@link #STORE_TYPES}.
+     * @param store Store type of the model, default Jena models are created for unknown store types.
+     * @return Empty RDF model.
+     */
+    public static Model createModel(final String store) {
+        if (RdfFileServiceJena.STORE_COMPACT.equals(store)) {
+            return ModelFactory.createModelForGraph(new CompactGraph());
+        } else if (RdfFileServiceJena.STORE_OFFHEAP.equals(store)) {
+            return ModelFactory.createModelForGraph(CompactGraph.createOffHeap());
+        }
+        return ModelFactory.createDefaultModel();
+    }
+
+    /**
+     * Method checks if a file is a local compressed file, see {@link CompressionService#detectCompression(Path)}.
+     * @param uri Uri of the file.
+     * @return True if the file is a local compressed file.
+     */
+    public static boolean isCompressedFile(final String uri) {
+        try {
+            final Path file = Paths.get(uri);
+            return Files.isRegularFile(file)
+                    && !CompressionService.NONE.equals(CompressionService.detectCompression(file));
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Read a local N-Triples or N-Quads file. Files of at least {@link #PARALLEL_PARSE_THRESHOLD} bytes
+     * are parsed in parallel using the {@link ParallelNTriplesParser}, smaller files are read sequentially
+     * using the {@link MappedNTriplesReader}.
+     * @param file Path of the file.
+     * @param dest {@link StreamRDF} receiving the parsed data.
+     * @param blankNodeScope Document scope used to create blank nodes from their labels.
+     * @throws RiotException If the file cannot be read or contains invalid data.
+     */
+    private static void readMappableFile(final Path file, final StreamRDF dest, final UUID blankNodeScope) {
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (IOException e) {
+            size = 0;
+        }
+
+        if (size >= RdfFileServiceJena.PARALLEL_PARSE_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            final StreamRDF[] shards = {dest};
+            ParallelNTriplesParser.parse(file, shards, blankNodeScope, ForkJoinPool.commonPool(),
+                    ParallelNTriplesParser.DEFAULT_CHUNK_SIZE);
+        } else {
+            MappedNTriplesReader.read(file, dest, blankNodeScope, MappedNTriplesReader.MAX_MAPPING_SIZE);
+        }
+    }
+
+    /**
+     * Method checks if a file is an uncompressed local N-Triples or N-Quads file, that can be read using
+     * the {@link MappedNTriplesReader}.
+     * @param uri Uri of the file.
+     * @return True if the file is a local N-Triples or N-Quads file.
+     */
+    public static boolean isMappableFile(final String uri) {
+        final Lang lang = RDFLanguages.filenameToLang(uri);
+        if (!Lang.NTRIPLES.equals(lang) && !Lang.NQUADS.equals(lang)) {
+            return false;
+        }
+        try {
+            final Path file = Paths.get(uri);
+            return Files.isRegularFile(file)
+                    && CompressionService.NONE.equals(CompressionService.detectCompression(file));
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Open an RDF file, validate its content and load the data into a new RDF model in a single pass.
+     * The file is parsed only once: if parsing succeeds, the returned {@link RdfLoadResult} contains
+     * the model, if parsing fails, it contains the parse error including its position within the file.
+     * @param uri Uri of the file to be loaded.
+     * @return {@link RdfLoadResult} containing either the loaded model or the parse error.
+     */
+    public static RdfLoadResult loadRdfFile(final String uri) {
+        return RdfFileServiceJena.loadRdfFile(uri, false);
+    }
+
+    /**
+     * Open an RDF file, validate its content and load the data into a new RDF model in a single pass.
+     * If useSnapshot is set and a binary snapshot of the file exists, that matches the current state of
+     * the file, the model is loaded from the snapshot instead of parsing the file,
+     * see {@link RdfSnapshotJena#readSnapshot(String)}.
+     * @param uri Uri of the file to be loaded.
+     * @param useSnapshot Load the model from a matching binary snapshot of the file, if one exists.
+     * @return {@link RdfLoadResult} containing either the loaded model or the parse error.
+     */
+    public static RdfLoadResult loadRdfFile(final String uri, final boolean useSnapshot) {
+        return RdfFileServiceJena.loadRdfFile(uri, useSnapshot, RdfFileServiceJena.STORE_JENA);
+    }
+
+    /**
+     * Open an RDF file, validate its content and load the data in a single pass into a new RDF model
+     * using the provided store type, see {@link #createModel(String)}.
+     * If useSnapshot is set and a binary snapshot of the file exists, that matches the current state of
+     * the file, the model is loaded from the snapshot instead of parsing the file.
+     * @param uri Uri of the file to be loaded.
+     * @param useSnapshot Load the model from a matching binary snapshot of the file, if one exists.
+     * @param store Store type of the loaded model.
+     * @return {@link RdfLoadResult} containing either the loaded model or the parse error.
+     */
+    public static RdfLoadResult loadRdfFile(final String uri, final boolean useSnapshot, final String store) {
+        if (useSnapshot) {
+            final Model snapshotModel = RdfSnapshotJena.readSnapshot(uri, RdfFileServiceJena.createModel(store));
+            if (snapshotModel != null) {
+                return RdfLoadResult.success(uri, snapshotModel);
+            }
+        }
+
+        final Model m = RdfFileServiceJena.createModel(store);
+        try {
+            RdfFileServiceJena.readRdfFile(uri, StreamRDFLib.graph(m.getGraph()), null);
+        } catch (RiotException e) {
+            RdfFileServiceJena.logLoadError(uri, e);
+            final long line = e instanceof RiotParseException
+                    ? ((RiotParseException) e).getLine() : RdfLoadResult.UNKNOWN_POSITION;
+            final long col = e instanceof RiotParseException
+                    ? ((RiotParseException) e).getCol() : RdfLoadResult.UNKNOWN_POSITION;
+            return RdfLoadResult.failure(uri, e.getMessage(), line, col);
+        }
+        return RdfLoadResult.success(uri, m);
+    }
+
+    /**
+     * Validate and load several RDF files concurrently, each file is parsed on its own thread.
+     * Errors of individual files do not affect the loading of the other files, they are returned as
+     * invalid {@link RdfLoadResult}s.
+     * @param uris Uris of the files to be loaded.
+     * @return List of {@link RdfLoadResult}s in the same order as the provided uris.
+     */
+    public static List<RdfLoadResult> loadRdfFiles(final List<String> uris) {
+        return RdfFileServiceJena.loadRdfFiles(uris, false);
+    }
+
+    /**
+     * Validate and load several RDF files concurrently, each file is parsed on its own thread.
+     * Errors of individual files do not affect the loading of the other files, they are returned as
+     * invalid {@link RdfLoadResult}s.
+     * @param uris Uris of the files to be loaded.
+     * @param useSnapshots Load models from matching binary snapshots of the files, if they exist.
+     * @return List of {@link RdfLoadResult}s in the same order as the provided uris.
+     */
+    public static List<RdfLoadResult> loadRdfFiles(final List<String> uris, final boolean useSnapshots) {
+        return RdfFileServiceJena.loadRdfFiles(uris, useSnapshots, RdfFileServiceJena.STORE_JENA);
+    }
+
+    /**
+     * Validate and load several RDF files concurrently into models of the provided store type,
+     * each file is parsed on its own thread. Errors of individual files do not affect the loading
+     * of the other files, they are returned as invalid {@link RdfLoadResult}s.
+     * @param uris Uris of the files to be loaded.
+     * @param useSnapshots Load models from matching binary snapshots of the files, if they exist.
+     * @param store Store type of the loaded models, see {@link #createModel(String)}.
+     * @return List of {@link RdfLoadResult}s in the same order as the provided uris.
+     */
+    public static List<RdfLoadResult> loadRdfFiles(final List<String> uris, final boolean useSnapshots,
+                                                   final String store) {
+        final List<RdfLoadResult> results = new ArrayList<>(uris.size());
+        if (uris.isEmpty()) {
+            return results;
+        }
+
+        final ExecutorService loader = Executors.newFixedThreadPool(
+                Math.min(uris.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            final List<Future<RdfLoadResult>> futures = new ArrayList<>(uris.size());
+            uris.forEach(uri -> futures.add(
+                    loader.submit(() -> RdfFileServiceJena.loadRdfFile(uri, useSnapshots, store))));
+
+            for (int i = 0; i < uris.size(); i++) {
+                results.add(RdfFileServiceJena.awaitLoad(uris.get(i), futures.get(i)));
+            }
+        } finally {
+            loader.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Wait for an RDF file to be loaded by a background thread and convert any unexpected failure
+     * of the loading thread into an invalid {@link RdfLoadResult}.
+     * @param uri Uri of the file that is being loaded.
+     * @param loading {@link Future} of the loading thread.
+     * @return {@link RdfLoadResult} of the loaded file.
+     */
+    public static RdfLoadResult awaitLoad(final String uri, final Future<RdfLoadResult> loading) {
+        String error;
+        try {
+            return loading.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Loading was interrupted.";
+        } catch (ExecutionException e) {
+            error = String.valueOf(e.getCause());
+        }
+        RdfFileServiceJena.LOGGER.error(
+                String.join("", "Failed to load file '", uri, "'.\n\t\tActual error message: ", error));
+
+        return RdfLoadResult.failure(uri, error, RdfLoadResult.UNKNOWN_POSITION, RdfLoadResult.UNKNOWN_POSITION);
+    }
+
+    /**
+     * Method parses a supported RDF file and sends the parsed data to a {@link StreamRDF} destination
+     * without loading it into a model. Parse errors are logged.
+     * @param uri Uri of the file to be parsed.
+     * @param dest {@link StreamRDF} receiving the parsed data.
+     * @return True if the file was parsed successfully, false otherwise.
+     */
+    public static boolean parseRdfFile(final String uri, final StreamRDF dest) {
+        return RdfFileServiceJena.parseRdfFile(uri, dest, null);
+    }
+
+    /**
+     * Method parses a supported RDF file and sends the parsed data to a {@link StreamRDF} destination
+     * without loading it into a model. Parse errors are logged. Blank nodes are created from their labels
+     * within the file using the provided scope, parsing the same file twice with the same scope results
+     * in identical blank nodes.
+     * @param uri Uri of the file to be parsed.
+     * @param dest {@link StreamRDF} receiving the parsed data.
+     * @param blankNodeScope Scope used to create blank nodes, if null, new blank nodes are created with every
+     *                       parse.
+     * @return True if the file was parsed successfully, false otherwise.
+     */
+    public static boolean parseRdfFile(final String uri, final StreamRDF dest, final UUID blankNodeScope) {
+        try {
+            RdfFileServiceJena.readRdfFile(uri, dest, blankNodeScope);
+        } catch (RiotException e) {
+            RdfFileServiceJena.logLoadError(uri, e);
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Method tries to open a supported file, testing if it is a valid RDF file.
+     * The parsed data is discarded, use {@link #loadRdfFile(String)} if the data of a
+     * file is required after validation.
+     * @param uri Uri of the file to be checked.
+     * @return True if file can be parsed as RDF or false if not.
+     */
+    public static boolean isValidRdfFile(final String uri) {
+        return RdfFileServiceJena.parseRdfFile(uri, StreamRDFLib.sinkNull());
+    }
+
+    /**
+     * Method parses a supported file and sends the parsed data to a {@link StreamRDF} destination.
+     * Uncompressed local N-Triples and N-Quads files are read using memory mapped file regions,
+     * compressed local files are decompressed while parsing.
      * The implementation of the method is implemented as it is, since Jena's RDFDataMgr.loadModel does
      * not close a file stream properly, if the content type of a file cannot be determined. Only after the
      * program is closed, the file will be accessible again. Maybe this issue will be resolved in
      * a later Apache Jena version.
-     * @param uri Uri of the file to be checked.
-     * @return True if file can be parsed as RDF or false if not.
+     * @param uri Uri of the file to be parsed.
+     * @param dest {@link StreamRDF} receiving the parsed data.
+     * @param blankNodeScope Scope used to create blank nodes from their labels, null for the default
+     *                       allocation of new blank nodes.
+     * @throws RiotException If the file cannot be opened or is not a valid RDF file.
      */
-    public static boolean isValidRdfFile(final String uri) {
-        final Model m = ModelFactory.createDefaultModel();
+    private static void readRdfFile(final String uri, final StreamRDF dest, final UUID blankNodeScope) {
+        if (RdfFileServiceJena.isMappableFile(uri)) {
+            final UUID scope = blankNodeScope != null ? blankNodeScope : UUID.randomUUID();
+            RdfFileServiceJena.readMappableFile(Paths.get(uri), dest, scope);
+            return;
+        }
 
         final String base = SysRIOT.chooseBaseIRI(uri);
-        final Lang hintLang = RDFLanguages.filenameToLang(uri);
+        final Lang hintLang = RDFLanguages.filenameToLang(CompressionService.stripCompressionExtension(uri));
         final Context context = null;
-        final StreamRDF dest = StreamRDFLib.graph(m.getGraph());
 
         TypedInputStream in = null;
         try {
-            in = RDFDataMgr.open(uri, context);
+            if (RdfFileServiceJena.isCompressedFile(uri)) {
+                try {
+                    in = new TypedInputStream(CompressionService.openInputStream(Paths.get(uri)));
+                } catch (IOException e) {
+                    throw new RiotException(
+                            String.join("", "Could not read file '", uri, "': ", e.getMessage()));
+                }
+            } else {
+                in = RDFDataMgr.open(uri, context);
+            }
 
             final ContentType ct = WebContent.determineCT(in.getContentType(), hintLang, base);
             if (ct == null) {
@@ -142,18 +487,57 @@ public final class RdfFileServiceJena {
                 throw new RiotException(
                         String.join("", "No parser registered for content type: ", ct.getContentType()));
             }
+            final ErrorHandler handler = RdfFileServiceJena.positionErrorHandler(reader.getErrorHandler());
+            if (blankNodeScope != null) {
+                final ParserProfile profile = RiotLib.profile(lang, base, handler);
+                profile.setLabelToNode(LabelToNode.createScopeByDocumentHash(blankNodeScope));
+                reader.setParserProfile(profile);
+            }
+            reader.setErrorHandler(handler);
             reader.read(in, base, ct, dest, context);
-
-            IO.close(in);
-        } catch (RiotException e) {
+        } finally {
             IO.close(in);
-            RdfFileServiceJena.LOGGER.error(
-                    String.join("",
-                            "Failed to load file '", uri, "'. Ensure it is a valid RDF file.",
-                            "\n\t\tActual error message: ", e.getMessage()));
-            return false;
         }
-        return true;
+    }
+
+    /**
+     * Create a parser {@link ErrorHandler} that raises errors as {@link RiotParseException}s, keeping the
+     * line and column of the error available to the caller. Warnings are passed on to the original handler.
+     * @param warningHandler {@link ErrorHandler} handling warnings, the default handler is used if null.
+     * @return {@link ErrorHandler} reporting the position of parse errors.
+     */
+    private static ErrorHandler positionErrorHandler(final ErrorHandler warningHandler) {
+        final ErrorHandler warn = warningHandler != null
+                ? warningHandler : ErrorHandlerFactory.getDefaultErrorHandler();
+
+        return new ErrorHandler() {
+            @Override
+            public void warning(final String message, final long line, final long col) {
+                warn.warning(message, line, col);
+            }
+
+            @Override
+            public void error(final String message, final long line, final long col) {
+                throw new RiotParseException(message, line, col);
+            }
+
+            @Override
+            public void fatal(final String message, final long line, final long col) {
+                throw new RiotParseException(message, line, col);
+            }
+        };
+    }
+
+    /**
+     * Log an error that occurred while loading an RDF file.
+     * @param uri Uri of the file that could not be loaded.
+     * @param e Exception raised while loading the file.
+     */
+    private static void logLoadError(final String uri, final RiotException e) {
+        RdfFileServiceJena.LOGGER.error(
+                String.join("",
+                        "Failed to load file '", uri, "'. Ensure it is a valid RDF file.",
+                        "\n\t\tActual error message: ", e.getMessage()));
     }
 
     /**
@@ -163,36 +547,146 @@ public final class RdfFileServiceJena {
      * @param fileName Path and filename of the output file.
      * @param model RDF model that's supposed to be written to the file.
      * @param format Output format of the RDF file.
+     * @return True if the model was written to the file, false otherwise.
+     */
+    public static boolean saveModelToFile(final String fileName, final Model model, final String format) {
+        return RdfFileServiceJena.saveModelToFile(fileName, model, format, false);
+    }
+
+    /**
+     * Write an RDF model to an output file using an RDF file format supported by this tool, specified
+     * in {@link RdfFileServiceJena#RDF_FORMAT_MAP}. If saveSnapshot is set, a binary snapshot of the model
+     * is saved next to the output file after the file has been written successfully,
+     * see {@link RdfSnapshotJena#writeSnapshot(String, Model)}.
+     * This method will overwrite any files with the same path and filename.
+     * @param fileName Path and filename of the output file.
+     * @param model RDF model that's supposed to be written to the file.
+     * @param format Output format of the RDF file.
+     * @param saveSnapshot Save a binary snapshot of the model next to the output file.
+     * @return True if the model was written to the file, false otherwise.
      */
-    public static void saveModelToFile(final String fileName, final Model model, final String format) {
+    public static boolean saveModelToFile(final String fileName, final Model model, final String format,
+                                          final boolean saveSnapshot) {
+        return RdfFileServiceJena.saveModelToFile(
+                fileName, model, format, new RdfSaveOptions().setSaveSnapshot(saveSnapshot));
+    }
 
-        final File file = new File(fileName);
+    /**
+     * Write an RDF model to an output file using an RDF file format supported by this tool, specified
+     * in {@link RdfFileServiceJena#RDF_FORMAT_MAP}. If snapshots are enabled in the options, a binary snapshot
+     * of the model is saved next to the output file after the file has been written successfully,
+     * see {@link RdfSnapshotJena#writeSnapshot(String, Model)}.
+     * If the filename ends with a compression extension, the file is compressed while writing,
+     * see {@link CompressionService#openOutputStream(Path, String)}.
+     * Models of at least {@link #TURTLE_STREAM_THRESHOLD} triples are written in format 'TTL-STREAM',
+     * if format 'TTL' is requested. Uncompressed N-Triples files are written in parallel using the number of
+     * threads of the options, see {@link ParallelNTriplesWriter}.
+     * The model is written to a temporary file next to the output file, which replaces the output file
+     * by an atomic rename once it is complete, see {@link FileService#replaceAtomically(Path, Path, boolean)}.
+     * An existing output file is therefore never left partially written, if writing fails or is interrupted.
+     * @param fileName Path and filename of the output file.
+     * @param model RDF model that's supposed to be written to the file.
+     * @param requestedFormat Output format of the RDF file.
+     * @param options Snapshot, sync and thread settings of the output file.
+     * @return True if the model was written to the file, false otherwise.
+     */
+    public static boolean saveModelToFile(final String fileName, final Model model, final String requestedFormat,
+                                          final RdfSaveOptions options) {
 
-        try {
-            final FileOutputStream fos = new FileOutputStream(file);
-            RdfFileServiceJena.LOGGER.info(
-                    String.join(
-                            "", "Writing data to RDF file '", fileName, "' using format '", format, "'"
-                    )
+        boolean saved = false;
+        String format = requestedFormat;
+        if ("TTL".equals(format) && model.size() >= RdfFileServiceJena.TURTLE_STREAM_THRESHOLD) {
+            format = "TTL-STREAM";
+        }
+
+        final Path outPath = Paths.get(fileName);
+        if (Files.isDirectory(outPath)) {
+            RdfFileServiceJena.LOGGER.error(
+                    String.join("", "Could not open output file ", fileName, ": file is a directory."));
+            return false;
+        }
+        if (!RdfFileServiceJena.RDF_FORMAT_MAP.containsKey(format)) {
+            RdfFileServiceJena.LOGGER.error(
+                    String.join("", "Error when saving output file: output format '",
+                            format, "' is not supported.")
             );
-            if (RdfFileServiceJena.RDF_FORMAT_MAP.containsKey(format)) {
-                RDFDataMgr.write(fos, model, RdfFileServiceJena.RDF_FORMAT_MAP.get(format));
+            return false;
+        }
+        Path tmpPath = null;
+        try {
+            tmpPath = FileService.createSiblingTempFile(outPath);
+            if ("NTRIPLES".equals(format) && CompressionService.NONE.equals(
+                    CompressionService.getCompressionByName(fileName))) {
+                saved = RdfFileServiceJena.writeNTriplesParallel(fileName, tmpPath, model, options.getThreads());
             } else {
-                RdfFileServiceJena.LOGGER.error(
-                        String.join("", "Error when saving output file: output format '",
-                                format, "' is not supported.")
+                RdfFileServiceJena.LOGGER.info(
+                        String.join(
+                                "", "Writing data to RDF file '", fileName, "' using format '", format, "'"
+                        )
                 );
+                try (OutputStream fos = CompressionService.openOutputStream(
+                        tmpPath, CompressionService.getCompressionByName(fileName))) {
+                    RDFDataMgr.write(fos, model, RdfFileServiceJena.RDF_FORMAT_MAP.get(format));
+                }
+                saved = true;
             }
-            try {
-                fos.close();
-            } catch (IOException e) {
-                RdfFileServiceJena.LOGGER.error("Error closing file stream.");
-                e.printStackTrace();
+            if (saved) {
+                FileService.replaceAtomically(tmpPath, outPath, options.isSync());
+            }
+        } catch (IOException | RuntimeException exc) {
+            RdfFileServiceJena.LOGGER.error(
+                    String.join("", "Could not write output file ", fileName, ": ", exc.toString()));
+            saved = false;
+        } finally {
+            if (!saved && tmpPath != null) {
+                RdfFileServiceJena.deleteTempFile(tmpPath);
             }
-        } catch (FileNotFoundException exc) {
-            RdfFileServiceJena.LOGGER.error(String.join("", "Could not open output file ", fileName));
+        }
+
+        if (saved && options.isSaveSnapshot()) {
+            RdfSnapshotJena.writeSnapshot(fileName, model);
+        }
+
+        return saved;
+    }
+
+    /**
+     * Write an RDF model to an uncompressed N-Triples file in parallel.
+     * @param fileName Path and filename of the output file.
+     * @param file File the model is written to.
+     * @param model RDF model that's supposed to be written to the file.
+     * @param threads Number of threads serializing the triples.
+     * @return True if the model was written to the file, false otherwise.
+     */
+    private static boolean writeNTriplesParallel(final String fileName, final Path file, final Model model,
+                                                 final int threads) {
+        RdfFileServiceJena.LOGGER.info(
+                String.join("", "Writing data to RDF file '", fileName, "' using format 'NTRIPLES' and ",
+                        String.valueOf(threads), " threads")
+        );
+        try {
+            ParallelNTriplesWriter.write(file, model.getGraph(), threads);
+            return true;
+        } catch (IOException | RiotException exc) {
+            RdfFileServiceJena.LOGGER.error(
+                    String.join("", "Could not write output file ", fileName, ": ", exc.getMessage()));
+            return false;
+        }
+    }
+
+    /**
+     * Delete the temporary file of an output file, that could not be saved.
+     * @param tmpPath Path of the temporary file.
+     */
+    private static void deleteTempFile(final Path tmpPath) {
+        try {
+            Files.deleteIfExists(tmpPath);
+        } catch (IOException exc) {
+            RdfFileServiceJena.LOGGER.error(
+                    String.join("", "Could not delete temporary file ", tmpPath.toString(), ": ", exc.getMessage()));
         }
     }
+
     /**
      * Helper method saving a JENA RDF {@link ResultSet} to an output file in a specified output format.
      * @param result JENA RDF {@link ResultSet} that will be saved.
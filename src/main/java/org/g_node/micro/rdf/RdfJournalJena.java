@@ -0,0 +1,342 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.util.iterator.ExtendedIterator;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.apache.jena.riot.tokens.Token;
+import org.apache.jena.riot.tokens.TokenType;
+import org.apache.jena.riot.tokens.Tokenizer;
+import org.apache.jena.riot.tokens.TokenizerFactory;
+import org.apache.log4j.Logger;
+
+/**
+ * Class handling the append-only merge journal of a main RDF file. The journal is saved next to the main
+ * file and contains one record per journaled merge. A record lists the subjects replaced by the merge and
+ * the triples added by the merge; the current state of the main RDF graph is the main file with all
+ * records of the journal replayed in order.
+ *
+ * Journal format: one line per entry, RDF terms are written in N-Triples syntax.
+ * <pre>
+ * TX .                 start of a record
+ * R subject .          subject replaced by the record, including all reachable blank nodes
+ * A subject pred obj . triple added by the record
+ * TC .                 end of a record
+ * </pre>
+ * Every entry is a single line, line breaks within RDF terms are escaped. A record interrupted by a crash
+ * while appending can only be the last record of the journal; it is ignored by a replay and removed before
+ * the next record is appended.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class RdfJournalJena {
+    /**
+     * File extension appended to the name of a main RDF file to get the name of its journal file.
+     */
+    public static final String JOURNAL_EXTENSION = ".journal";
+    /**
+     * Access to the main LOGGER.
+     */
+    private static final Logger LOGGER = Logger.getLogger(RdfJournalJena.class.getName());
+    /**
+     * Line ending a record.
+     */
+    private static final String RECORD_END = "TC .";
+    /**
+     * Size of the blocks read while searching the end of the last complete record.
+     */
+    private static final int SCAN_BLOCK_SIZE = 64 * 1024;
+    /**
+     * Objects serializing the appends of this process per normalized absolute journal path.
+     */
+    private static final ConcurrentMap<Path, Object> APPEND_LOCKS = new ConcurrentHashMap<>();
+
+    /**
+     * @param mainFile Path and filename of a main RDF file.
+     * @return Path of the journal file of the main RDF file.
+     */
+    public static Path getJournalPath(final String mainFile) {
+        return Paths.get(String.join("", mainFile, RdfJournalJena.JOURNAL_EXTENSION));
+    }
+
+    /**
+     * @param mainFile Path and filename of a main RDF file.
+     * @return True if a journal file of the main RDF file exists.
+     */
+    public static boolean hasJournal(final String mainFile) {
+        return Files.exists(RdfJournalJena.getJournalPath(mainFile));
+    }
+
+    /**
+     * Append a record to the journal of a main RDF file. The journal is created, if it does not exist yet,
+     * and synced to the storage device after the record has been written. An incomplete last record is
+     * truncated from the journal before the record is appended. The journal is locked while it is truncated
+     * and appended, concurrent appends of the same or other processes therefore never interleave records.
+     * @param mainFile Path and filename of the main RDF file.
+     * @param replacedSubjects Subjects replaced by the record.
+     * @param added Graph containing the triples added by the record.
+     * @return True if the record was appended, false otherwise.
+     */
+    public static boolean appendRecord(final String mainFile, final Set<Node> replacedSubjects, final Graph added) {
+        final Path journal = RdfJournalJena.getJournalPath(mainFile);
+        final Object appendLock = RdfJournalJena.APPEND_LOCKS.computeIfAbsent(
+                journal.toAbsolutePath().normalize(), k -> new Object());
+        synchronized (appendLock) {
+            return RdfJournalJena.appendLocked(journal, replacedSubjects, added);
+        }
+    }
+
+    /**
+     * Append a record to a journal, see {@link #appendRecord(String, Set, Graph)}. File locks are held on behalf
+     * of the whole process, appends of the same process have to be serialized by the caller.
+     * @param journal Path of the journal file.
+     * @param replacedSubjects Subjects replaced by the record.
+     * @param added Graph containing the triples added by the record.
+     * @return True if the record was appended, false otherwise.
+     */
+    private static boolean appendLocked(final Path journal, final Set<Node> replacedSubjects, final Graph added) {
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+             FileLock lock = channel.lock()) {
+            final long size = channel.size();
+            final long recordEnd = RdfJournalJena.lastRecordEnd(channel);
+            final long keep = recordEnd < 0 ? 0 : Math.min(recordEnd + 1, size);
+            if (keep < size) {
+                RdfJournalJena.LOGGER.warn(
+                        String.join("", "Removing incomplete last record of journal '", journal.toString(), "'")
+                );
+                channel.truncate(keep);
+            }
+            channel.position(keep);
+
+            final Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+            if (keep == recordEnd) {
+                writer.write("\n");
+            }
+            writer.write("TX .\n");
+            for (final Node s : replacedSubjects) {
+                writer.write(String.join("", "R ", NodeFmtLib.str(s), " .\n"));
+            }
+            final ExtendedIterator<Triple> triples = added.find(Node.ANY, Node.ANY, Node.ANY);
+            while (triples.hasNext()) {
+                final Triple t = triples.next();
+                writer.write(String.join("", "A ", NodeFmtLib.str(t.getSubject()), " ",
+                        NodeFmtLib.str(t.getPredicate()), " ", NodeFmtLib.str(t.getObject()), " .\n"));
+            }
+            writer.write(RdfJournalJena.RECORD_END);
+            writer.write("\n");
+            writer.flush();
+            channel.force(true);
+        } catch (IOException e) {
+            RdfJournalJena.LOGGER.error(
+                    String.join("", "Could not append to journal '", journal.toString(), "': ", e.getMessage())
+            );
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Replay all complete records of the journal of a main RDF file on a model containing the main RDF file.
+     * For each record, the triples of the replaced subjects including all reachable blank nodes are removed
+     * from the model, before the added triples are added to the model. An incomplete last record is ignored,
+     * the journal is rejected, if a complete record follows an incomplete one.
+     * @param mainFile Path and filename of the main RDF file.
+     * @param model Model containing the main RDF file, the records are replayed on this model.
+     * @return Number of replayed records, 0 if no journal exists, -1 if the journal could not be read.
+     */
+    public static int replayJournal(final String mainFile, final Model model) {
+        final Path journal = RdfJournalJena.getJournalPath(mainFile);
+        if (!Files.exists(journal)) {
+            return 0;
+        }
+
+        int records = 0;
+        final Set<Node> replaced = new HashSet<>();
+        final List<Triple> added = new ArrayList<>();
+        boolean inRecord = false;
+        String broken = null;
+        try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (broken != null) {
+                    if (RdfJournalJena.RECORD_END.equals(line)) {
+                        throw new RiotException(String.join("", "Complete record follows incomplete record: ",
+                                broken));
+                    }
+                    continue;
+                }
+                try {
+                    final Tokenizer tokenizer = TokenizerFactory.makeTokenizerString(line);
+                    final Token op = tokenizer.next();
+                    final String image = op.hasType(TokenType.KEYWORD) ? op.getImage() : "";
+                    if ("TX".equals(image) && !inRecord) {
+                        RdfJournalJena.endOfEntry(tokenizer);
+                        replaced.clear();
+                        added.clear();
+                        inRecord = true;
+                    } else if ("R".equals(image) && inRecord) {
+                        replaced.add(RdfJournalJena.nextNode(tokenizer));
+                        RdfJournalJena.endOfEntry(tokenizer);
+                    } else if ("A".equals(image) && inRecord) {
+                        added.add(Triple.create(RdfJournalJena.nextNode(tokenizer),
+                                RdfJournalJena.nextNode(tokenizer), RdfJournalJena.nextNode(tokenizer)));
+                        RdfJournalJena.endOfEntry(tokenizer);
+                    } else if ("TC".equals(image) && inRecord) {
+                        RdfJournalJena.endOfEntry(tokenizer);
+                        RdfUtilsJena.removeSubjects(model.getGraph(), replaced, true);
+                        added.forEach(model.getGraph()::add);
+                        inRecord = false;
+                        records++;
+                    } else {
+                        throw new RiotException(String.join("", "Unexpected journal entry '", line, "'"));
+                    }
+                } catch (RiotException | NoSuchElementException e) {
+                    // A record interrupted by a crash while appending is expected at the end of the journal.
+                    if (!inRecord) {
+                        throw e;
+                    }
+                    broken = e.getMessage();
+                }
+            }
+        } catch (IOException | RiotException | NoSuchElementException e) {
+            RdfJournalJena.LOGGER.error(
+                    String.join("", "Could not read journal '", journal.toString(), "': ", e.getMessage())
+            );
+            return -1;
+        }
+
+        if (inRecord) {
+            RdfJournalJena.LOGGER.warn(
+                    String.join("", "Ignoring incomplete last record of journal '", journal.toString(), "'")
+            );
+        }
+        RdfJournalJena.LOGGER.info(
+                String.join("", "Replayed ", String.valueOf(records), " records of journal '", journal.toString(), "'")
+        );
+        return records;
+    }
+
+    /**
+     * Method searches the end of the last complete record of a journal, a line '{@value #RECORD_END}'.
+     * The journal is read backwards in blocks, an intact journal is only read at its end.
+     * @param channel Channel of the journal file.
+     * @return Offset directly after the '{@value #RECORD_END}' of the last complete record, excluding the line
+     * break, -1 if the journal contains no complete record.
+     * @throws IOException If the journal could not be read.
+     */
+    private static long lastRecordEnd(final FileChannel channel) throws IOException {
+        final byte[] end = String.join("", "\n", RdfJournalJena.RECORD_END).getBytes(StandardCharsets.UTF_8);
+        final long size = channel.size();
+        long pos = size;
+        while (pos > 0) {
+            final long start = Math.max(0, pos - RdfJournalJena.SCAN_BLOCK_SIZE);
+            final ByteBuffer buffer = ByteBuffer.allocate((int) (Math.min(pos + end.length + 1, size) - start));
+            int read = 0;
+            while (buffer.hasRemaining() && read >= 0) {
+                read = channel.read(buffer, start + buffer.position());
+            }
+            final byte[] block = buffer.array();
+            for (int i = (int) (pos - start) - 1; i >= 0; i--) {
+                final int after = i + end.length;
+                final boolean lineEnd = start + after == size || (after < block.length && block[after] == '\n');
+                if (after <= block.length && lineEnd && RdfJournalJena.matches(block, i, end)) {
+                    return start + after;
+                }
+            }
+            pos = start;
+        }
+        return -1;
+    }
+
+    /**
+     * @param data Bytes.
+     * @param offset Offset within data.
+     * @param pattern Searched bytes.
+     * @return True if data contains the pattern at the offset.
+     */
+    private static boolean matches(final byte[] data, final int offset, final byte[] pattern) {
+        for (int i = 0; i < pattern.length; i++) {
+            if (data[offset + i] != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Delete the journal of a main RDF file, e.g. after its records have been folded into the main file.
+     * @param mainFile Path and filename of the main RDF file.
+     * @return True if no journal exists anymore, false if the journal could not be deleted.
+     */
+    public static boolean deleteJournal(final String mainFile) {
+        final Path journal = RdfJournalJena.getJournalPath(mainFile);
+        try {
+            Files.deleteIfExists(journal);
+        } catch (IOException e) {
+            RdfJournalJena.LOGGER.error(
+                    String.join("", "Could not delete journal '", journal.toString(), "': ", e.getMessage())
+            );
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Read the '.' terminating a journal entry.
+     * @param tokenizer Tokenizer of the journal.
+     */
+    private static void endOfEntry(final Tokenizer tokenizer) {
+        final Token end = tokenizer.next();
+        if (!end.hasType(TokenType.DOT)) {
+            throw new RiotException(String.join("", "Expected '.' but found '", end.toString(), "'"));
+        }
+    }
+
+    /**
+     * @param tokenizer Tokenizer of the journal.
+     * @return RDF term of the next token.
+     */
+    private static Node nextNode(final Tokenizer tokenizer) {
+        final Token token = tokenizer.next();
+        if (!token.isNode()) {
+            throw new RiotException(String.join("", "Expected an RDF term but found '", token.toString(), "'"));
+        }
+        return token.asNode();
+    }
+
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Class holding the outcome of loading an RDF file: either the parsed {@link Model}
+ * or the details of the error that prevented the file from being parsed.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class RdfLoadResult {
+    /**
+     * Value used for line and column, if the position of a parse error is not known.
+     */
+    public static final long UNKNOWN_POSITION = -1;
+    /**
+     * Path and filename of the loaded RDF file.
+     */
+    private final String fileName;
+    /**
+     * Model containing the parsed data, null if the file could not be parsed.
+     */
+    private final Model model;
+    /**
+     * Namespace prefixes declared in the loaded RDF file.
+     */
+    private final Map<String, String> prefixes;
+    /**
+     * Error message describing why the file could not be parsed, null if the file was parsed successfully.
+     */
+    private final String errorMessage;
+    /**
+     * Line of the parse error within the file.
+     */
+    private final long line;
+    /**
+     * Column of the parse error within the file.
+     */
+    private final long column;
+
+    /**
+     * Constructor.
+     * @param fileName Path and filename of the loaded RDF file.
+     * @param model Model containing the parsed data or null.
+     * @param errorMessage Error message or null.
+     * @param line Line of the parse error.
+     * @param column Column of the parse error.
+     */
+    private RdfLoadResult(final String fileName, final Model model, final String errorMessage,
+                          final long line, final long column) {
+        this.fileName = fileName;
+        this.model = model;
+        this.prefixes = model != null
+                ? Collections.unmodifiableMap(model.getNsPrefixMap()) : Collections.<String, String>emptyMap();
+        this.errorMessage = errorMessage;
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * Create the result of a successfully parsed RDF file.
+     * @param fileName Path and filename of the loaded RDF file.
+     * @param model Model containing the parsed data.
+     * @return Valid {@link RdfLoadResult}.
+     */
+    public static RdfLoadResult success(final String fileName, final Model model) {
+        return new RdfLoadResult(fileName, model, null, RdfLoadResult.UNKNOWN_POSITION,
+                RdfLoadResult.UNKNOWN_POSITION);
+    }
+
+    /**
+     * Create the result of an RDF file that could not be parsed.
+     * @param fileName Path and filename of the RDF file.
+     * @param errorMessage Message describing the parse error.
+     * @param line Line of the parse error, {@link #UNKNOWN_POSITION} if not known.
+     * @param column Column of the parse error, {@link #UNKNOWN_POSITION} if not known.
+     * @return Invalid {@link RdfLoadResult}.
+     */
+    public static RdfLoadResult failure(final String fileName, final String errorMessage,
+                                        final long line, final long column) {
+        return new RdfLoadResult(fileName, null, errorMessage, line, column);
+    }
+
+    /**
+     * @return True if the file was parsed successfully, false otherwise.
+     */
+    public boolean isValid() {
+        return this.model != null;
+    }
+
+    /**
+     * @return Path and filename of the loaded RDF file.
+     */
+    public String getFileName() {
+        return this.fileName;
+    }
+
+    /**
+     * @return Model containing the parsed data, null if the file could not be parsed.
+     */
+    public Model getModel() {
+        return this.model;
+    }
+
+    /**
+     * @return Namespace prefixes declared in the loaded RDF file, empty if the file could not be parsed.
+     */
+    public Map<String, String> getPrefixes() {
+        return this.prefixes;
+    }
+
+    /**
+     * @return Error message of the failed parse, null if the file was parsed successfully.
+     */
+    public String getErrorMessage() {
+        return this.errorMessage;
+    }
+
+    /**
+     * @return Line of the parse error, {@link #UNKNOWN_POSITION} if not known.
+     */
+    public long getLine() {
+        return this.line;
+    }
+
+    /**
+     * @return Column of the parse error, {@link #UNKNOWN_POSITION} if not known.
+     */
+    public long getColumn() {
+        return this.column;
+    }
+
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import org.apache.jena.riot.out.NodeFmtLib;
+
+/**
+ * Class writing the changes of an RDF graph as a stream in the RDF Patch format. The patch consists of
+ * a header containing a random patch id and a single transaction containing one line per deleted ('D')
+ * and added ('A') triple. RDF terms are written in N-Triples syntax, blank nodes keep their labels.
+ *
+ * Blank nodes of the patched graph have no labels a replica could match, their triples are therefore removed
+ * by replacement lines ('R'), an extension of the RDF Patch format with the same meaning as in the merge journal,
+ * see {@link RdfJournalJena}. A replica applies the lines of the transaction in order:
+ * <pre>
+ * R subject .          delete all triples of the URI subject and of all blank nodes reachable from them,
+ *                      e.g. by RdfUtilsJena.removeSubjects(graph, subjects, true)
+ * D subject pred obj . delete the triple, it never contains a blank node
+ * A subject pred obj . add the triple, equal blank node labels denote the same new blank node
+ * </pre>
+ * All lines of a patch have to be parsed with the same blank node label scope.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class RdfPatchWriterJena implements AutoCloseable {
+    /**
+     * Writer of the patch file.
+     */
+    private final Writer writer;
+    /**
+     * Number of written replaced subjects.
+     */
+    private long replaced;
+    /**
+     * Number of written deleted triples.
+     */
+    private long deleted;
+    /**
+     * Number of written added triples.
+     */
+    private long added;
+
+    /**
+     * Constructor, writes the header of the patch and starts the transaction.
+     * @param out Stream the patch is written to, the stream is closed with this writer.
+     * @throws IOException If the header could not be written.
+     */
+    public RdfPatchWriterJena(final OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.writer.write(String.join("", "H id <uuid:", UUID.randomUUID().toString(), "> .\n"));
+        this.writer.write("TX .\n");
+    }
+
+    /**
+     * Write a replaced URI subject, whose triples and reachable blank nodes are deleted.
+     * @param subject Replaced subject.
+     * @throws IOException If the subject could not be written.
+     */
+    public void replace(final Node subject) throws IOException {
+        this.writer.write("R ");
+        this.writer.write(NodeFmtLib.str(subject));
+        this.writer.write(" .\n");
+        this.replaced++;
+    }
+
+    /**
+     * Write a deleted triple.
+     * @param t Deleted triple.
+     * @throws IOException If the triple could not be written.
+     */
+    public void delete(final Triple t) throws IOException {
+        this.write("D ", t);
+        this.deleted++;
+    }
+
+    /**
+     * Write an added triple.
+     * @param t Added triple.
+     * @throws IOException If the triple could not be written.
+     */
+    public void add(final Triple t) throws IOException {
+        this.write("A ", t);
+        this.added++;
+    }
+
+    /**
+     * @return Number of replaced subjects written so far.
+     */
+    public long getReplacedSubjects() {
+        return this.replaced;
+    }
+
+    /**
+     * @return Number of deleted triples written so far.
+     */
+    public long getDeletedTriples() {
+        return this.deleted;
+    }
+
+    /**
+     * @return Number of added triples written so far.
+     */
+    public long getAddedTriples() {
+        return this.added;
+    }
+
+    /**
+     * Commit the transaction and close the underlying stream.
+     * @throws IOException If the patch could not be completed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            this.writer.write("TC .\n");
+        } finally {
+            this.writer.close();
+        }
+    }
+
+    /**
+     * Write a single patch line.
+     * @param op Operation code of the line followed by a space.
+     * @param t Triple of the line.
+     * @throws IOException If the line could not be written.
+     */
+    private void write(final String op, final Triple t) throws IOException {
+        this.writer.write(op);
+        this.writer.write(NodeFmtLib.str(t.getSubject()));
+        this.writer.write(' ');
+        this.writer.write(NodeFmtLib.str(t.getPredicate()));
+        this.writer.write(' ');
+        this.writer.write(NodeFmtLib.str(t.getObject()));
+        this.writer.write(" .\n");
+    }
+
+}
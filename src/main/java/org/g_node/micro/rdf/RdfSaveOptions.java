@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+/**
+ * Class holding the optional settings of saving an RDF model to a file, see
+ * {@link RdfFileServiceJena#saveModelToFile(String, com.hp.hpl.jena.rdf.model.Model, String, RdfSaveOptions)}.
+ * All setters return the options object to allow chaining; options that are not set use the documented
+ * default values.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class RdfSaveOptions {
+    /**
+     * Save a binary snapshot of the model next to the output file, default false.
+     */
+    private boolean saveSnapshot;
+    /**
+     * Force the output file to the storage device before it replaces an existing file, default false.
+     */
+    private boolean sync;
+    /**
+     * Number of threads writing N-Triples files, default 0 for one thread per available processor.
+     */
+    private int threads;
+
+    /**
+     * @return True if a binary snapshot of the model is saved next to the output file.
+     */
+    public boolean isSaveSnapshot() {
+        return this.saveSnapshot;
+    }
+
+    /**
+     * @param saveSnapshot Save a binary snapshot of the model next to the output file.
+     * @return These options.
+     */
+    public RdfSaveOptions setSaveSnapshot(final boolean saveSnapshot) {
+        this.saveSnapshot = saveSnapshot;
+        return this;
+    }
+
+    /**
+     * @return True if the output file is forced to the storage device before it replaces an existing file.
+     */
+    public boolean isSync() {
+        return this.sync;
+    }
+
+    /**
+     * @param sync Force the output file to the storage device before it replaces an existing file.
+     * @return These options.
+     */
+    public RdfSaveOptions setSync(final boolean sync) {
+        this.sync = sync;
+        return this;
+    }
+
+    /**
+     * @return Number of threads writing N-Triples files, at least 1.
+     */
+    public int getThreads() {
+        return this.threads > 0 ? this.threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @param threads Number of threads writing N-Triples files, 0 for one thread per available processor.
+     * @return These options.
+     */
+    public RdfSaveOptions setThreads(final int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+}
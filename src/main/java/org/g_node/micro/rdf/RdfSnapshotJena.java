@@ -0,0 +1,361 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.datatypes.TypeMapper;
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.NodeFactory;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.AnonId;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.util.iterator.ExtendedIterator;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Map;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Class handling binary snapshots of RDF models. A snapshot is saved next to the RDF file it was created from
+ * and can be loaded instead of parsing the RDF file again, as long as the RDF file has not been changed.
+ *
+ * Snapshot format: all RDF terms of the model are stored once in a dictionary, each triple is stored as
+ * three integer IDs referencing the dictionary. Strings are stored as UTF-8 bytes prefixed by their length.
+ * <pre>
+ * header:     magic "RDFSNAP", format version (byte)
+ * source:     file size (long), last modified time in milliseconds (long), SHA-1 hash of the content (string)
+ * prefixes:   count (int), [prefix (string), namespace (string)]
+ * dictionary: count (int), [kind (byte), URI | blank node label | lexical form, language, datatype URI]
+ * triples:    count (int), [subject ID (int), predicate ID (int), object ID (int)]
+ * </pre>
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class RdfSnapshotJena {
+    /**
+     * File extension appended to the name of an RDF file to get the name of its snapshot file.
+     */
+    public static final String SNAPSHOT_EXTENSION = ".rdfsnap";
+    /**
+     * Magic bytes at the start of each snapshot file.
+     */
+    private static final byte[] MAGIC = "RDFSNAP".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Version of the snapshot format.
+     */
+    private static final byte FORMAT_VERSION = 1;
+    /**
+     * Dictionary entry kind of URI nodes.
+     */
+    private static final byte KIND_URI = 0;
+    /**
+     * Dictionary entry kind of blank nodes.
+     */
+    private static final byte KIND_BLANK = 1;
+    /**
+     * Dictionary entry kind of literal nodes.
+     */
+    private static final byte KIND_LITERAL = 2;
+    /**
+     * Size of the buffers used to read and write snapshot files.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * Access to the main LOGGER.
+     */
+    private static final Logger LOGGER = Logger.getLogger(RdfSnapshotJena.class.getName());
+
+    /**
+     * Method returns the path of the snapshot file of an RDF file.
+     * @param sourceFile Path and filename of the RDF file.
+     * @return Path of the snapshot file.
+     */
+    public static Path getSnapshotPath(final String sourceFile) {
+        return Paths.get(String.join("", sourceFile, RdfSnapshotJena.SNAPSHOT_EXTENSION));
+    }
+
+    /**
+     * Save a binary snapshot of an RDF model next to the RDF file the model has been saved to. The snapshot
+     * contains the size, the modification time and the content hash of the RDF file at the time
+     * the snapshot was created. Errors are logged, an incomplete snapshot file is removed.
+     * @param sourceFile Path and filename of the RDF file containing the data of the model.
+     * @param model RDF model that is saved to the snapshot.
+     * @return True if the snapshot was saved, false otherwise.
+     */
+    public static boolean writeSnapshot(final String sourceFile, final Model model) {
+        final Path source = Paths.get(sourceFile);
+        final Path snapshot = RdfSnapshotJena.getSnapshotPath(sourceFile);
+        final Path tmpSnapshot = snapshot.resolveSibling(
+                String.join("", ".", snapshot.getFileName().toString(), ".tmp"));
+
+        RdfSnapshotJena.LOGGER.info(String.join("", "Writing snapshot file '", snapshot.toString(), "'"));
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmpSnapshot), RdfSnapshotJena.BUFFER_SIZE))) {
+
+                out.write(RdfSnapshotJena.MAGIC);
+                out.writeByte(RdfSnapshotJena.FORMAT_VERSION);
+                out.writeLong(Files.size(source));
+                out.writeLong(Files.getLastModifiedTime(source).toMillis());
+                RdfSnapshotJena.writeString(out, RdfSnapshotJena.getContentHash(source));
+
+                final Map<String, String> prefixes = model.getNsPrefixMap();
+                out.writeInt(prefixes.size());
+                for (final Map.Entry<String, String> e : prefixes.entrySet()) {
+                    RdfSnapshotJena.writeString(out, e.getKey());
+                    RdfSnapshotJena.writeString(out, e.getValue());
+                }
+
+                RdfSnapshotJena.writeGraph(out, model.getGraph());
+            }
+            Files.move(tmpSnapshot, snapshot, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            RdfSnapshotJena.LOGGER.error(
+                    String.join("", "Could not write snapshot file '", snapshot.toString(), "': ", e.getMessage()));
+            try {
+                Files.deleteIfExists(tmpSnapshot);
+            } catch (IOException ex) {
+                RdfSnapshotJena.LOGGER.error(
+                        String.join("", "Could not remove file '", tmpSnapshot.toString(), "'"));
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Load the binary snapshot of an RDF file. The snapshot is only used, if the size, the modification time
+     * and the content hash of the RDF file match the values stored in the snapshot.
+     * @param sourceFile Path and filename of the RDF file.
+     * @return RDF model loaded from the snapshot, null if there is no snapshot, the snapshot is outdated
+     *  or cannot be read.
+     */
+    public static Model readSnapshot(final String sourceFile) {
+        return RdfSnapshotJena.readSnapshot(sourceFile, ModelFactory.createDefaultModel());
+    }
+
+    /**
+     * Load the binary snapshot of an RDF file into an empty model. The snapshot is only used, if the size,
+     * the modification time and the content hash of the RDF file match the values stored in the snapshot.
+     * @param sourceFile Path and filename of the RDF file.
+     * @param model Empty RDF model the content of the snapshot is added to.
+     * @return The provided model, null if there is no snapshot, the snapshot is outdated or cannot be read.
+     */
+    public static Model readSnapshot(final String sourceFile, final Model model) {
+        final Path source = Paths.get(sourceFile);
+        final Path snapshot = RdfSnapshotJena.getSnapshotPath(sourceFile);
+        if (!Files.isRegularFile(snapshot) || !Files.isRegularFile(source)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshot), RdfSnapshotJena.BUFFER_SIZE))) {
+
+            final byte[] magic = new byte[RdfSnapshotJena.MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, RdfSnapshotJena.MAGIC) || in.readByte() != RdfSnapshotJena.FORMAT_VERSION) {
+                RdfSnapshotJena.LOGGER.warn(
+                        String.join("", "Ignoring snapshot file '", snapshot.toString(), "' of unknown format"));
+                return null;
+            }
+
+            if (in.readLong() != Files.size(source)
+                    || in.readLong() != Files.getLastModifiedTime(source).toMillis()
+                    || !RdfSnapshotJena.readString(in).equals(RdfSnapshotJena.getContentHash(source))) {
+                RdfSnapshotJena.LOGGER.info(
+                        String.join("", "Ignoring outdated snapshot file '", snapshot.toString(), "'"));
+                return null;
+            }
+
+            final int prefixCount = in.readInt();
+            for (int i = 0; i < prefixCount; i++) {
+                model.setNsPrefix(RdfSnapshotJena.readString(in), RdfSnapshotJena.readString(in));
+            }
+            RdfSnapshotJena.readGraph(in, model.getGraph());
+
+            RdfSnapshotJena.LOGGER.info(
+                    String.join("", "Loaded file '", sourceFile, "' from snapshot file '", snapshot.toString(), "'"));
+            return model;
+        } catch (IOException | RuntimeException e) {
+            RdfSnapshotJena.LOGGER.warn(
+                    String.join("", "Could not read snapshot file '", snapshot.toString(), "': ", e.toString()));
+            return null;
+        }
+    }
+
+    /**
+     * Method returns the SHA-1 hash of the content of a file.
+     * @param file Path of the file.
+     * @return Hexadecimal String of the SHA-1 hash.
+     * @throws IOException If the file cannot be read.
+     */
+    private static String getContentHash(final Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), RdfSnapshotJena.BUFFER_SIZE)) {
+            return DigestUtils.shaHex(in);
+        }
+    }
+
+    /**
+     * Write the dictionary and the triples of a graph. The graph is read twice: the first pass collects the
+     * RDF terms in a {@link NodeDictionary}, the second pass writes the IDs of the triples directly to the
+     * snapshot, the triples are never held in memory.
+     * @param out Snapshot output stream.
+     * @param graph Graph that is written, it must not be changed while it is written.
+     * @throws IOException If the snapshot cannot be written or the graph has been changed.
+     */
+    private static void writeGraph(final DataOutputStream out, final Graph graph) throws IOException {
+        final NodeDictionary dictionary = new NodeDictionary();
+        ExtendedIterator<Triple> it = graph.find(Node.ANY, Node.ANY, Node.ANY);
+        try {
+            while (it.hasNext()) {
+                final Triple t = it.next();
+                dictionary.intern(t.getSubject());
+                dictionary.intern(t.getPredicate());
+                dictionary.intern(t.getObject());
+            }
+        } finally {
+            it.close();
+        }
+
+        out.writeInt(dictionary.size());
+        for (int id = 0; id < dictionary.size(); id++) {
+            RdfSnapshotJena.writeTerm(out, dictionary.get(id));
+        }
+
+        final int tripleCount = graph.size();
+        out.writeInt(tripleCount);
+        int written = 0;
+        it = graph.find(Node.ANY, Node.ANY, Node.ANY);
+        try {
+            while (it.hasNext() && written < tripleCount) {
+                final Triple t = it.next();
+                final int s = dictionary.lookup(t.getSubject());
+                final int p = dictionary.lookup(t.getPredicate());
+                final int o = dictionary.lookup(t.getObject());
+                if (s == NodeDictionary.NOT_FOUND || p == NodeDictionary.NOT_FOUND || o == NodeDictionary.NOT_FOUND) {
+                    break;
+                }
+                out.writeInt(s);
+                out.writeInt(p);
+                out.writeInt(o);
+                written++;
+            }
+            if (written != tripleCount || it.hasNext()) {
+                throw new IOException("The RDF graph has been changed while it was written.");
+            }
+        } finally {
+            it.close();
+        }
+    }
+
+    /**
+     * Read the dictionary and the triples of a snapshot and add the triples to a graph.
+     * @param in Snapshot input stream.
+     * @param graph Graph the triples are added to.
+     * @throws IOException If the snapshot cannot be read.
+     */
+    private static void readGraph(final DataInputStream in, final Graph graph) throws IOException {
+        final Node[] terms = new Node[in.readInt()];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = RdfSnapshotJena.readTerm(in);
+        }
+
+        final int tripleCount = in.readInt();
+        for (int i = 0; i < tripleCount; i++) {
+            graph.add(Triple.create(terms[in.readInt()], terms[in.readInt()], terms[in.readInt()]));
+        }
+    }
+
+    /**
+     * Write a single dictionary entry.
+     * @param out Snapshot output stream.
+     * @param node RDF term of the entry.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    private static void writeTerm(final DataOutputStream out, final Node node) throws IOException {
+        if (node.isURI()) {
+            out.writeByte(RdfSnapshotJena.KIND_URI);
+            RdfSnapshotJena.writeString(out, node.getURI());
+        } else if (node.isBlank()) {
+            out.writeByte(RdfSnapshotJena.KIND_BLANK);
+            RdfSnapshotJena.writeString(out, node.getBlankNodeLabel());
+        } else if (node.isLiteral()) {
+            final String datatype = node.getLiteralDatatypeURI();
+            out.writeByte(RdfSnapshotJena.KIND_LITERAL);
+            RdfSnapshotJena.writeString(out, node.getLiteralLexicalForm());
+            RdfSnapshotJena.writeString(out, node.getLiteralLanguage());
+            RdfSnapshotJena.writeString(out, datatype == null ? "" : datatype);
+        } else {
+            throw new IOException(String.join("", "Unsupported RDF term: ", node.toString()));
+        }
+    }
+
+    /**
+     * Read a single dictionary entry.
+     * @param in Snapshot input stream.
+     * @return RDF term of the entry.
+     * @throws IOException If the snapshot cannot be read or contains an unknown kind of entry.
+     */
+    private static Node readTerm(final DataInputStream in) throws IOException {
+        final byte kind = in.readByte();
+        if (kind == RdfSnapshotJena.KIND_URI) {
+            return NodeFactory.createURI(RdfSnapshotJena.readString(in));
+        } else if (kind == RdfSnapshotJena.KIND_BLANK) {
+            return NodeFactory.createAnon(new AnonId(RdfSnapshotJena.readString(in)));
+        } else if (kind == RdfSnapshotJena.KIND_LITERAL) {
+            final String lex = RdfSnapshotJena.readString(in);
+            final String lang = RdfSnapshotJena.readString(in);
+            final String datatype = RdfSnapshotJena.readString(in);
+            if (!lang.isEmpty() || datatype.isEmpty()) {
+                return NodeFactory.createLiteral(lex, lang, false);
+            }
+            return NodeFactory.createLiteral(lex, TypeMapper.getInstance().getSafeTypeByName(datatype));
+        }
+        throw new IOException(String.join("", "Unknown dictionary entry kind ", String.valueOf(kind)));
+    }
+
+    /**
+     * Write a String as UTF-8 bytes prefixed by the number of bytes.
+     * @param out Snapshot output stream.
+     * @param value String that is written.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Read a String stored as UTF-8 bytes prefixed by the number of bytes.
+     * @param in Snapshot input stream.
+     * @return String that was read.
+     * @throws IOException If the snapshot cannot be read.
+     */
+    private static String readString(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
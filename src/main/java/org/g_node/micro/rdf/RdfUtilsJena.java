@@ -10,11 +10,27 @@
 
 package org.g_node.micro.rdf;
 
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.GraphUtil;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
 import com.hp.hpl.jena.rdf.model.Model;
 import com.hp.hpl.jena.rdf.model.Property;
 import com.hp.hpl.jena.rdf.model.Resource;
 import com.hp.hpl.jena.rdf.model.Statement;
 import com.hp.hpl.jena.rdf.model.StmtIterator;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Class contains small helper functions when dealing with Jena RDF models.
@@ -35,10 +51,13 @@ public final class RdfUtilsJena {
         }
     }
     /**
-     * Walk through existing {@link Resource}s of an input RDF {@link Model}, check for Resources
-     * identical by URI with another model and remove all Property and anonymous RDFNodes
-     * from these identical Resources of the second model.
-     * @param inModel RDF {@link Model} from which the Resources are printed and checked for in the removeFromModel.
+     * Remove all properties of the Resources of a second RDF {@link Model}, that are identical by URI with
+     * the subjects of an input RDF Model. The distinct URI subjects of the input model are collected once,
+     * the subject index of the second model is probed directly on the {@link Graph} level for each of them
+     * and all collected triples are deleted in one bulk operation.
+     * If the second model is backed by a {@link CompactGraph}, the Resources are removed directly on the
+     * term IDs of the graph.
+     * @param inModel RDF {@link Model} containing the subjects, that are replaced in the removeFromModel.
      * @param removeFromModel RDF {@link Model} from which the resources are removed if identical with resources
      *                  in the inModel.
      * @param removeAnonNodes If true, anonymous RDFNodes that are referenced by properties
@@ -48,32 +67,185 @@ public final class RdfUtilsJena {
      */
     public static Model removePropertiesFromModel(final Model inModel, final Model removeFromModel,
                                                   final boolean removeAnonNodes) {
-        inModel.listObjects().forEachRemaining(o -> {
-                if (o.isURIResource()
-                        && o.asResource().listProperties().hasNext()
-                        && removeFromModel.containsResource(o.asResource())) {
-                    final Resource resRemoveProps = removeFromModel.getResource(o.asResource().getURI());
-                    if (removeAnonNodes) {
-                        removeAnonProperties(resRemoveProps.listProperties());
+        RdfUtilsJena.removeSubjects(
+                removeFromModel.getGraph(), RdfUtilsJena.getReplacedSubjects(inModel), removeAnonNodes);
+        return removeFromModel;
+    }
+    /**
+     * Remove all triples of the provided subjects from a {@link Graph}. The subject index of the graph is
+     * probed for each subject and all collected triples are deleted in one bulk operation. If the graph
+     * is a {@link CompactGraph}, the triples are removed directly on the term IDs of the graph.
+     * @param graph {@link Graph} from which the triples are removed.
+     * @param subjects Subjects whose triples are removed.
+     * @param removeAnonNodes If true, the triples of all blank nodes reachable from the removed triples
+     *                        are removed as well.
+     */
+    public static void removeSubjects(final Graph graph, final Set<Node> subjects, final boolean removeAnonNodes) {
+        if (graph instanceof CompactGraph) {
+            ((CompactGraph) graph).removeSubjects(subjects, removeAnonNodes);
+        } else {
+            GraphUtil.delete(graph, RdfUtilsJena.collectReplacedTriples(graph, subjects, removeAnonNodes));
+        }
+    }
+    /**
+     * Parallel variant of {@link #removePropertiesFromModel(Model, Model, boolean)}. The distinct URI subjects
+     * of the input model are partitioned by their hash into one shard per thread. Each thread collects the
+     * triples of its shard including the referenced blank nodes from the unmodified second model, the
+     * collected triples of all shards are deleted afterwards in one serialized bulk operation. The resulting
+     * model is identical to the result of the sequential variant.
+     * @param inModel RDF {@link Model} containing the subjects, that are replaced in the removeFromModel.
+     * @param removeFromModel RDF {@link Model} from which the resources are removed if identical with resources
+     *                  in the inModel.
+     * @param removeAnonNodes If true, anonymous RDFNodes that are referenced by properties
+     *                        that are to be removed, are removed as well.
+     * @param threads Number of threads, the sequential variant is used for values below 2.
+     * @return The {@link Model} removeFromModel from which all Properties and anonymous Nodes
+     * of {@link Model} inModel identical by URI have been removed.
+     */
+    public static Model removePropertiesFromModel(final Model inModel, final Model removeFromModel,
+                                                  final boolean removeAnonNodes, final int threads) {
+        if (threads < 2) {
+            return RdfUtilsJena.removePropertiesFromModel(inModel, removeFromModel, removeAnonNodes);
+        }
+        RdfUtilsJena.removeReplacedTriples(inModel, removeFromModel, removeAnonNodes, threads);
+        return removeFromModel;
+    }
+    /**
+     * Remove all properties of the Resources of a second RDF {@link Model}, that are identical by URI with
+     * the subjects of an input RDF Model, and return the removed triples. The triples are collected as
+     * described in {@link #removePropertiesFromModel(Model, Model, boolean, int)} for any number of threads,
+     * also for models backed by a {@link CompactGraph}, and deleted in one bulk operation.
+     * @param inModel RDF {@link Model} containing the subjects, that are replaced in the removeFromModel.
+     * @param removeFromModel RDF {@link Model} from which the resources are removed if identical with resources
+     *                  in the inModel.
+     * @param removeAnonNodes If true, anonymous RDFNodes that are referenced by properties
+     *                        that are to be removed, are removed as well.
+     * @param threads Number of threads collecting the triples.
+     * @return Distinct triples, that have been removed from the removeFromModel.
+     */
+    public static List<Triple> removeReplacedTriples(final Model inModel, final Model removeFromModel,
+                                                     final boolean removeAnonNodes, final int threads) {
+        final Graph graph = removeFromModel.getGraph();
+        final List<Triple> remove;
+        if (threads < 2) {
+            remove = RdfUtilsJena.collectReplacedTriples(
+                    graph, RdfUtilsJena.getReplacedSubjects(inModel), removeAnonNodes);
+        } else {
+            remove = RdfUtilsJena.collectReplacedTriples(graph, inModel, removeAnonNodes, threads);
+        }
+        GraphUtil.delete(graph, remove);
+        return remove;
+    }
+    /**
+     * Method collects the triples of the replaced subjects in parallel, one shard of subjects per thread.
+     * Triples found by more than one thread, e.g. of blank nodes shared by subjects of different shards,
+     * are only returned once; the order of the triples does not depend on the scheduling of the threads.
+     * @param graph {@link Graph} containing the triples, the graph is only read.
+     * @param inModel RDF {@link Model} containing the replaced subjects.
+     * @param removeAnonNodes Collect the triples of referenced blank nodes.
+     * @param threads Number of threads.
+     * @return Distinct collected triples.
+     */
+    private static List<Triple> collectReplacedTriples(final Graph graph, final Model inModel,
+                                                       final boolean removeAnonNodes, final int threads) {
+        final List<List<Node>> shards = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            shards.add(new ArrayList<>());
+        }
+        RdfUtilsJena.getReplacedSubjects(inModel)
+                .forEach(n -> shards.get(ParallelNTriplesParser.shardOf(n, threads)).add(n));
+
+        // Graphs may defer work until they are read, finish it before the graph is read concurrently.
+        graph.size();
+
+        final ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<List<Triple>>> futures = new ArrayList<>(threads);
+            shards.forEach(shard -> futures.add(workers.submit(
+                    () -> RdfUtilsJena.collectReplacedTriples(graph, shard, removeAnonNodes))));
+
+            final Set<Triple> remove = new LinkedHashSet<>();
+            for (final Future<List<Triple>> f : futures) {
+                remove.addAll(f.get());
+            }
+            return new ArrayList<>(remove);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Replacement of subjects was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Replacement of subjects failed.", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+    /**
+     * Method collects all triples of a graph with one of the provided subjects. If removeAnonNodes is set,
+     * the triples of all blank nodes reachable from the collected triples are collected as well, resulting
+     * in the concise bounded description of each subject. An explicit worklist is used, each blank node is
+     * visited only once, deep and cyclic blank node chains are supported. The graph is only read.
+     * @param graph {@link Graph} containing the triples.
+     * @param subjects Subjects whose triples are collected.
+     * @param removeAnonNodes Collect the triples of referenced blank nodes.
+     * @return List of collected triples.
+     */
+    private static List<Triple> collectReplacedTriples(final Graph graph, final Collection<Node> subjects,
+                                                       final boolean removeAnonNodes) {
+        final List<Triple> remove = new ArrayList<>();
+        final Set<Node> visited = new HashSet<>();
+        final Deque<Node> worklist = new ArrayDeque<>(subjects);
+
+        while (!worklist.isEmpty()) {
+            graph.find(worklist.pop(), Node.ANY, Node.ANY).forEachRemaining(t -> {
+                    remove.add(t);
+                    if (removeAnonNodes && t.getObject().isBlank() && visited.add(t.getObject())) {
+                        worklist.push(t.getObject());
                     }
-                    resRemoveProps.removeProperties();
+                });
+        }
+        return remove;
+    }
+    /**
+     * Method returns the distinct URI subjects of an RDF {@link Model}. During a merge, these nodes
+     * replace all properties of identical nodes of the other model.
+     * @param inModel RDF {@link Model} containing the replacing Resources.
+     * @return Set of URI {@link Node}s.
+     */
+    public static Set<Node> getReplacedSubjects(final Model inModel) {
+        final Set<Node> replaced = new HashSet<>();
+        inModel.getGraph().find(Node.ANY, Node.ANY, Node.ANY).forEachRemaining(t -> {
+                if (t.getSubject().isURI()) {
+                    replaced.add(t.getSubject());
                 }
             });
-        return removeFromModel;
+        return replaced;
     }
     /**
      * Check if a statement has an anonymous RDFNode as
      * an RDF Object and remove all properties of such an anonymous RDFNode
      * from the containing model without removing the anonymous RDFNode itself.
+     * Properties of anonymous RDFNodes nested within these anonymous RDFNodes are removed as well.
+     * The nested nodes are traversed using an explicit worklist, each anonymous RDFNode is visited only once.
      * @param checkAnon This {@link StmtIterator} contains a list of statements.
      */
     public static void removeAnonProperties(final StmtIterator checkAnon) {
-        while (checkAnon.hasNext()) {
-            final Statement currStmt = checkAnon.nextStatement();
-            if (currStmt.getObject().isAnon()) {
-                currStmt.getObject().asResource().removeProperties();
-            }
+        final Set<Resource> visited = new HashSet<>();
+        final Deque<Resource> worklist = new ArrayDeque<>();
+        checkAnon.forEachRemaining(stmt -> {
+                if (stmt.getObject().isAnon() && visited.add(stmt.getObject().asResource())) {
+                    worklist.push(stmt.getObject().asResource());
+                }
+            });
+
+        final List<Statement> remove = new ArrayList<>();
+        while (!worklist.isEmpty()) {
+            worklist.pop().listProperties().forEachRemaining(stmt -> {
+                    remove.add(stmt);
+                    if (stmt.getObject().isAnon() && visited.add(stmt.getObject().asResource())) {
+                        worklist.push(stmt.getObject().asResource());
+                    }
+                });
         }
+        remove.forEach(stmt -> stmt.getModel().remove(stmt));
     }
 
 }
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.sparql.core.Quad;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.jena.riot.system.StreamRDFBase;
+
+/**
+ * {@link org.apache.jena.riot.system.StreamRDF} collecting all blank nodes that are referenced directly or
+ * indirectly by a set of replaced subjects. Only the blank nodes reachable from the replaced subjects are kept
+ * in memory, all other triples are discarded, including references between unrelated blank nodes.
+ * A blank node referenced by a collected blank node before the referencing blank node itself has been
+ * collected is missed by a single pass, the RDF file is therefore parsed repeatedly with the same blank node
+ * scope until a pass does not collect any new blank node, see {@link #startPass()}.
+ * Quads of named graphs are ignored, since they are not part of a loaded RDF model either.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class StreamBlankNodeCollectorJena extends StreamRDFBase {
+    /**
+     * Subjects whose blank node descendants are collected.
+     */
+    private final Set<Node> replacedSubjects;
+    /**
+     * Blank nodes reachable from the replaced subjects collected so far.
+     */
+    private final Set<Node> closure = new HashSet<>();
+    /**
+     * Number of blank nodes collected by the current pass.
+     */
+    private long collected;
+    /**
+     * Number of passes started.
+     */
+    private int passes;
+
+    /**
+     * Constructor.
+     * @param replacedSubjects Subjects whose blank node descendants are collected.
+     */
+    public StreamBlankNodeCollectorJena(final Set<Node> replacedSubjects) {
+        this.replacedSubjects = replacedSubjects;
+    }
+
+    /**
+     * Record blank node objects of replaced subjects and of blank nodes collected so far.
+     * @param triple Parsed triple.
+     */
+    @Override
+    public void triple(final Triple triple) {
+        final Node obj = triple.getObject();
+        if (!obj.isBlank()) {
+            return;
+        }
+        final Node subj = triple.getSubject();
+        if ((this.replacedSubjects.contains(subj) || this.closure.contains(subj)) && this.closure.add(obj)) {
+            this.collected++;
+        }
+    }
+
+    /**
+     * Quads of the default graph are handled like triples, quads of named graphs are ignored.
+     * @param quad Parsed quad.
+     */
+    @Override
+    public void quad(final Quad quad) {
+        if (quad.isTriple() || quad.isDefaultGraph()) {
+            this.triple(quad.asTriple());
+        }
+    }
+
+    /**
+     * Method has to be called before every pass over the RDF file.
+     */
+    public void startPass() {
+        this.collected = 0;
+        this.passes++;
+    }
+
+    /**
+     * Method returns whether the last pass collected new blank nodes. In this case another pass is required,
+     * since the new blank nodes might reference blank nodes appearing earlier in the RDF file.
+     * @return True if another pass over the RDF file is required, false if the closure is complete.
+     */
+    public boolean hasGrown() {
+        return this.collected > 0;
+    }
+
+    /**
+     * @return Number of passes over the RDF file started so far.
+     */
+    public int getPasses() {
+        return this.passes;
+    }
+
+    /**
+     * Method returns all blank nodes reachable from the replaced subjects. The closure is complete,
+     * once a pass has not collected any new blank node, see {@link #hasGrown()}.
+     * @return Set of blank nodes that are removed together with the replaced subjects.
+     */
+    public Set<Node> getBlankNodeClosure() {
+        return this.closure;
+    }
+
+}
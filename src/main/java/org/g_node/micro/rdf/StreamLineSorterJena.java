@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.sparql.core.Quad;
+import java.io.IOException;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.g_node.micro.commons.ExternalLineSorter;
+
+/**
+ * {@link org.apache.jena.riot.system.StreamRDF} adding every triple as an N-Triples line to an
+ * {@link ExternalLineSorter}. Blank nodes are written with labels derived from their internal ids, no labels
+ * are kept in memory; blank nodes of different parses of the same file are identical, if the file is parsed
+ * with the same blank node scope, see {@link RdfFileServiceJena#parseRdfFile(String,
+ * org.apache.jena.riot.system.StreamRDF, java.util.UUID)}.
+ * Quads of named graphs are ignored, since they are not part of a loaded RDF model either.
+ *
+ * Since the subject is the first term of a line and terms do not contain spaces outside of literals, all lines
+ * of a subject are adjacent in the sorted lines and the subjects of the sorted lines are sorted as well.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class StreamLineSorterJena extends StreamRDFBase {
+    /**
+     * Sorter receiving the N-Triples lines.
+     */
+    private final ExternalLineSorter sorter;
+
+    /**
+     * Constructor.
+     * @param sorter Sorter receiving the N-Triples lines.
+     */
+    public StreamLineSorterJena(final ExternalLineSorter sorter) {
+        this.sorter = sorter;
+    }
+
+    /**
+     * Add the N-Triples line of a triple to the sorter.
+     * @param triple Parsed triple.
+     */
+    @Override
+    public void triple(final Triple triple) {
+        try {
+            this.sorter.add(StreamLineSorterJena.toLine(triple));
+        } catch (IOException e) {
+            throw new RiotException(String.join("", "Could not write sorted run: ", e.getMessage()));
+        }
+    }
+
+    /**
+     * Quads of the default graph are handled like triples, quads of named graphs are ignored.
+     * @param quad Parsed quad.
+     */
+    @Override
+    public void quad(final Quad quad) {
+        if (quad.isTriple() || quad.isDefaultGraph()) {
+            this.triple(quad.asTriple());
+        }
+    }
+
+    /**
+     * Method returns the N-Triples line of a triple without line break.
+     * @param triple Triple.
+     * @return N-Triples line.
+     */
+    public static String toLine(final Triple triple) {
+        return String.join(" ", NodeFmtLib.str(triple.getSubject()), NodeFmtLib.str(triple.getPredicate()),
+                NodeFmtLib.str(triple.getObject()), ".");
+    }
+
+    /**
+     * Method returns the subject term of an N-Triples line.
+     * @param line N-Triples line written by {@link #toLine(Triple)}.
+     * @return Subject term, either a bracketed IRI or a blank node label starting with '_:'.
+     */
+    public static String subjectOf(final String line) {
+        return line.substring(0, line.indexOf(' '));
+    }
+
+    /**
+     * Method returns the object term of an N-Triples line, if it is a blank node. The last term of a line
+     * containing a literal always contains a quote, blank node labels never do.
+     * @param line N-Triples line written by {@link #toLine(Triple)}.
+     * @return Blank node label starting with '_:', null if the object is not a blank node.
+     */
+    public static String blankObjectOf(final String line) {
+        final String terms = line.substring(0, line.length() - 2);
+        final String obj = terms.substring(terms.lastIndexOf(' ') + 1);
+        return obj.startsWith("_:") && obj.indexOf('"') < 0 ? obj : null;
+    }
+
+}
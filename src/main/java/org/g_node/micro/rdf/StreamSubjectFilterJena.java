@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.sparql.core.Quad;
+import java.util.Set;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWrapper;
+
+/**
+ * {@link StreamRDF} filter dropping all triples whose subject is either a replaced subject or a blank node
+ * belonging to a replaced subject. Triples contained in the graph of the merged data are dropped as well,
+ * since they will be written together with the merged data. All other triples are passed on to the
+ * wrapped {@link StreamRDF}.
+ * Quads of the default graph are passed on as triples, quads of named graphs are dropped, since they
+ * are not part of a loaded RDF model either.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class StreamSubjectFilterJena extends StreamRDFWrapper {
+    /**
+     * Subjects whose triples are dropped.
+     */
+    private final Set<Node> replacedSubjects;
+    /**
+     * Blank nodes whose triples are dropped.
+     */
+    private final Set<Node> removedBlankNodes;
+    /**
+     * Graph containing the merged data.
+     */
+    private final Graph mergeGraph;
+    /**
+     * Number of triples passed on to the wrapped stream.
+     */
+    private long keptTriples;
+    /**
+     * Number of dropped triples.
+     */
+    private long droppedTriples;
+
+    /**
+     * Constructor.
+     * @param sink {@link StreamRDF} receiving all triples that are not dropped.
+     * @param replacedSubjects Subjects whose triples are dropped.
+     * @param removedBlankNodes Blank nodes whose triples are dropped,
+     *                          see {@link StreamBlankNodeCollectorJena#getBlankNodeClosure()}.
+     * @param mergeGraph Graph containing the merged data.
+     */
+    public StreamSubjectFilterJena(final StreamRDF sink, final Set<Node> replacedSubjects,
+                                   final Set<Node> removedBlankNodes, final Graph mergeGraph) {
+        super(sink);
+        this.replacedSubjects = replacedSubjects;
+        this.removedBlankNodes = removedBlankNodes;
+        this.mergeGraph = mergeGraph;
+    }
+
+    /**
+     * Pass on a triple, if its subject is neither replaced nor a removed blank node and
+     * if it is not part of the merged data.
+     * @param triple Parsed triple.
+     */
+    @Override
+    public void triple(final Triple triple) {
+        final Node subj = triple.getSubject();
+        if (this.replacedSubjects.contains(subj) || this.removedBlankNodes.contains(subj)
+                || this.mergeGraph.contains(triple)) {
+            this.droppedTriples++;
+            return;
+        }
+        this.keptTriples++;
+        this.sink.triple(triple);
+    }
+
+    /**
+     * Quads of the default graph are filtered like triples, quads of named graphs are dropped.
+     * @param quad Parsed quad.
+     */
+    @Override
+    public void quad(final Quad quad) {
+        if (quad.isTriple() || quad.isDefaultGraph()) {
+            this.triple(quad.asTriple());
+        } else {
+            this.droppedTriples++;
+        }
+    }
+
+    /**
+     * @return Number of triples passed on to the wrapped stream.
+     */
+    public long getKeptTriples() {
+        return this.keptTriples;
+    }
+
+    /**
+     * @return Number of dropped triples.
+     */
+    public long getDroppedTriples() {
+        return this.droppedTriples;
+    }
+
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.graph.Node;
+
+/**
+ * Dictionary mapping RDF terms to consecutive integer IDs starting with 0, used by the {@link CompactGraph}.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+interface TermDictionary {
+    /**
+     * Method returns the ID of a term and adds the term to the dictionary, if it is not yet contained.
+     * @param node RDF term.
+     * @return ID of the term.
+     */
+    int intern(Node node);
+
+    /**
+     * Method returns the ID of a term without adding it to the dictionary.
+     * @param node RDF term.
+     * @return ID of the term or {@link NodeDictionary#NOT_FOUND}.
+     */
+    int lookup(Node node);
+
+    /**
+     * @param id ID of a term.
+     * @return RDF term of the ID.
+     */
+    Node get(int id);
+
+    /**
+     * @param id ID of a term.
+     * @return True if the term is a blank node.
+     */
+    boolean isBlank(int id);
+
+    /**
+     * @return Number of terms of the dictionary.
+     */
+    int size();
+}
@@ -0,0 +1,396 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.GraphUtil;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.NodeFactory;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.sparql.util.Context;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.RDFFormatVariant;
+import org.apache.jena.riot.RDFWriterRegistry;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.WriterGraphRIOT;
+import org.apache.jena.riot.WriterGraphRIOTFactory;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.apache.jena.riot.system.PrefixMap;
+
+/**
+ * Turtle writer serializing an RDF graph subject by subject without analysing the whole graph first, see
+ * {@link #FORMAT}. Only the number of references of every blank node is counted before writing. The triples
+ * of a subject are written as one block grouped by predicate. Blank nodes referenced exactly once are written
+ * inline as blank node property lists, all other blank nodes are written with labels. IRIs are abbreviated
+ * using the prefixes of the graph and the namespaces of {@link RdfConstants}, namespaces of
+ * {@link RdfConstants} are only declared, if they are used and not mapped by the graph already.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public final class TurtleStreamWriterJena implements WriterGraphRIOT {
+    /**
+     * RDF format of this writer, registered with the Jena writer registry.
+     */
+    public static final RDFFormat FORMAT = new RDFFormat(Lang.TURTLE, new RDFFormatVariant("stream"));
+    /**
+     * Size of the character buffer between the writer and the output stream.
+     */
+    public static final int BUFFER_SIZE = 1 << 20;
+    /**
+     * Maximum nesting depth of inline blank nodes, deeper blank nodes are written as separate blocks.
+     */
+    private static final int MAX_INLINE_DEPTH = 8;
+    /**
+     * Indentation of a nesting level.
+     */
+    private static final String INDENT = "    ";
+
+    static {
+        RDFWriterRegistry.register(TurtleStreamWriterJena.FORMAT,
+                (WriterGraphRIOTFactory) format -> new TurtleStreamWriterJena());
+    }
+
+    /**
+     * Write a graph to an output stream using a buffered UTF-8 writer. The output stream is not closed.
+     * @param out Output stream.
+     * @param graph Graph.
+     * @param prefixMap Prefixes of the graph.
+     * @param baseURI Not used.
+     * @param context Not used.
+     */
+    @Override
+    public void write(final OutputStream out, final Graph graph, final PrefixMap prefixMap, final String baseURI,
+                      final Context context) {
+        final Writer writer = new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8), TurtleStreamWriterJena.BUFFER_SIZE);
+        this.write(writer, graph, prefixMap, baseURI, context);
+    }
+
+    /**
+     * Write a graph to a writer. The writer is flushed, but not closed.
+     * @param out Writer.
+     * @param graph Graph.
+     * @param prefixMap Prefixes of the graph.
+     * @param baseURI Not used.
+     * @param context Not used.
+     */
+    @Override
+    public void write(final Writer out, final Graph graph, final PrefixMap prefixMap, final String baseURI,
+                      final Context context) {
+        try {
+            new Serializer(out, graph, prefixMap.getMappingCopyStr()).write();
+            out.flush();
+        } catch (IOException e) {
+            throw new RiotException(e);
+        }
+    }
+
+    /**
+     * @return Language of this writer.
+     */
+    @Override
+    public Lang getLang() {
+        return Lang.TURTLE;
+    }
+
+    /**
+     * State of a single serialization.
+     */
+    private static final class Serializer {
+        /**
+         * Destination of the serialization.
+         */
+        private final Writer out;
+        /**
+         * Serialized graph.
+         */
+        private final Graph graph;
+        /**
+         * Declared prefixes mapped to their namespaces.
+         */
+        private final Map<String, String> prefixes;
+        /**
+         * Declared namespaces mapped to their prefixes.
+         */
+        private final Map<String, String> namespaces = new HashMap<>();
+        /**
+         * Number of references of all blank nodes used as objects.
+         */
+        private final Map<Node, Integer> blankReferences = new HashMap<>();
+        /**
+         * Blank nodes, whose triples have been written.
+         */
+        private final Set<Node> written = new HashSet<>();
+
+        /**
+         * Constructor.
+         * @param out Destination of the serialization.
+         * @param graph Serialized graph.
+         * @param prefixes Prefixes of the graph mapped to their namespaces.
+         */
+        Serializer(final Writer out, final Graph graph, final Map<String, String> prefixes) {
+            this.out = out;
+            this.graph = graph;
+            this.prefixes = new TreeMap<>(prefixes);
+        }
+
+        /**
+         * Write prefixes and all triples of the graph.
+         * @throws IOException If the destination cannot be written.
+         */
+        void write() throws IOException {
+            this.prefixes.forEach((prefix, ns) -> this.namespaces.putIfAbsent(ns, prefix));
+            final Map<String, String> constants = new HashMap<>();
+            RdfConstants.NAMESPACES.forEach((prefix, ns) -> {
+                    if (!this.prefixes.containsKey(prefix) && !this.namespaces.containsKey(ns)) {
+                        constants.put(ns, prefix);
+                    }
+                });
+
+            // Count blank node references and find the used namespaces of RdfConstants.
+            this.graph.find(Node.ANY, Node.ANY, Node.ANY).forEachRemaining(t -> {
+                    final Node obj = t.getObject();
+                    if (obj.isBlank()) {
+                        this.blankReferences.merge(obj, 1, Integer::sum);
+                    }
+                    if (!constants.isEmpty()) {
+                        Serializer.useConstant(t.getSubject(), constants, this.prefixes);
+                        Serializer.useConstant(t.getPredicate(), constants, this.prefixes);
+                        Serializer.useConstant(obj.isLiteral() && obj.getLiteralDatatypeURI() != null
+                                ? NodeFactory.createURI(obj.getLiteralDatatypeURI()) : obj, constants, this.prefixes);
+                    }
+                });
+            this.prefixes.forEach((prefix, ns) -> this.namespaces.putIfAbsent(ns, prefix));
+
+            for (final Map.Entry<String, String> e : this.prefixes.entrySet()) {
+                this.out.write(String.join("", "@prefix ", e.getKey(), ": <", e.getValue(), "> .\n"));
+            }
+            if (!this.prefixes.isEmpty()) {
+                this.out.write('\n');
+            }
+
+            GraphUtil.listSubjects(this.graph, Node.ANY, Node.ANY).forEachRemaining(s -> {
+                    if (!this.isInline(s)) {
+                        this.writeBlock(s);
+                    }
+                });
+
+            // Blank nodes referenced once, that have not been reached, e.g. in cycles or below the maximum
+            // nesting depth, are written as separate blocks.
+            boolean progress = true;
+            while (progress) {
+                progress = false;
+                for (final Node b : this.blankReferences.keySet()) {
+                    if (this.isInline(b) && !this.written.contains(b) && this.graph.contains(b, Node.ANY, Node.ANY)) {
+                        this.writeBlock(b);
+                        progress = true;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Method declares the namespace of a URI node, if it is a namespace of {@link RdfConstants}.
+         * @param node Node.
+         * @param constants Namespaces of {@link RdfConstants}, that have not been declared yet.
+         * @param prefixes Declared prefixes.
+         */
+        private static void useConstant(final Node node, final Map<String, String> constants,
+                                        final Map<String, String> prefixes) {
+            if (node.isURI()) {
+                final String ns = Serializer.namespaceOf(node.getURI());
+                final String prefix = constants.remove(ns);
+                if (prefix != null) {
+                    prefixes.put(prefix, ns);
+                }
+            }
+        }
+
+        /**
+         * @param uri URI.
+         * @return Namespace of the URI up to and including the last '#' or '/'.
+         */
+        private static String namespaceOf(final String uri) {
+            return uri.substring(0, Math.max(uri.lastIndexOf('#'), uri.lastIndexOf('/')) + 1);
+        }
+
+        /**
+         * @param node Node.
+         * @return True if the node is a blank node referenced exactly once.
+         */
+        private boolean isInline(final Node node) {
+            return node.isBlank() && this.blankReferences.getOrDefault(node, 0) == 1;
+        }
+
+        /**
+         * Write all triples of a subject as one block.
+         * @param subject Subject.
+         */
+        private void writeBlock(final Node subject) {
+            try {
+                this.written.add(subject);
+                this.out.write(this.term(subject));
+                this.writeProperties(subject, 1);
+                this.out.write(" .\n");
+            } catch (IOException e) {
+                throw new RiotException(e);
+            }
+        }
+
+        /**
+         * Write the predicates and objects of a subject, objects of the same predicate are separated by commas.
+         * @param subject Subject.
+         * @param depth Nesting depth of the subject.
+         * @throws IOException If the destination cannot be written.
+         */
+        private void writeProperties(final Node subject, final int depth) throws IOException {
+            final List<Triple> triples = this.graph.find(subject, Node.ANY, Node.ANY).toList();
+            triples.sort(Comparator.comparing((Triple t) -> !RdfConstants.RDF_NS_RDF.concat("type")
+                    .equals(t.getPredicate().getURI())).thenComparing(t -> t.getPredicate().getURI()));
+            Node predicate = null;
+            for (final Triple t : triples) {
+                if (predicate == null) {
+                    this.out.write(' ');
+                } else if (predicate.equals(t.getPredicate())) {
+                    this.out.write(" , ");
+                } else {
+                    this.out.write(" ;\n");
+                    this.indent(depth);
+                }
+                if (!t.getPredicate().equals(predicate)) {
+                    predicate = t.getPredicate();
+                    this.out.write(RdfConstants.RDF_NS_RDF.concat("type").equals(predicate.getURI())
+                            ? "a" : this.term(predicate));
+                    this.out.write(' ');
+                }
+                this.writeObject(t.getObject(), depth);
+            }
+        }
+
+        /**
+         * Write an object. Blank nodes referenced only by this triple are written inline.
+         * @param object Object.
+         * @param depth Nesting depth of the subject of the object.
+         * @throws IOException If the destination cannot be written.
+         */
+        private void writeObject(final Node object, final int depth) throws IOException {
+            if (!this.isInline(object) || depth >= TurtleStreamWriterJena.MAX_INLINE_DEPTH
+                    || this.written.contains(object)) {
+                this.out.write(this.term(object));
+                return;
+            }
+            this.written.add(object);
+            if (!this.graph.contains(object, Node.ANY, Node.ANY)) {
+                this.out.write("[]");
+                return;
+            }
+            this.out.write('[');
+            this.writeProperties(object, depth + 1);
+            this.out.write('\n');
+            this.indent(depth);
+            this.out.write(']');
+        }
+
+        /**
+         * Write the indentation of a nesting depth.
+         * @param depth Nesting depth.
+         * @throws IOException If the destination cannot be written.
+         */
+        private void indent(final int depth) throws IOException {
+            for (int i = 0; i < depth; i++) {
+                this.out.write(TurtleStreamWriterJena.INDENT);
+            }
+        }
+
+        /**
+         * @param node URI, blank node or literal.
+         * @return Turtle term of the node.
+         */
+        private String term(final Node node) {
+            if (node.isURI()) {
+                return this.iri(node.getURI());
+            } else if (node.isLiteral()) {
+                final String lexical = String.join("", "\"", Serializer.escape(node.getLiteralLexicalForm()), "\"");
+                final String lang = node.getLiteralLanguage();
+                final String datatype = node.getLiteralDatatypeURI();
+                if (lang != null && !lang.isEmpty()) {
+                    return String.join("", lexical, "@", lang);
+                } else if (datatype != null && !datatype.equals(RdfConstants.RDF_NS_XSD.concat("string"))) {
+                    return String.join("", lexical, "^^", this.iri(datatype));
+                }
+                return lexical;
+            }
+            return NodeFmtLib.str(node);
+        }
+
+        /**
+         * @param uri URI.
+         * @return Prefixed name of the URI, if its namespace is declared and its local name is safe,
+         * the bracketed URI otherwise.
+         */
+        private String iri(final String uri) {
+            final String ns = Serializer.namespaceOf(uri);
+            final String prefix = this.namespaces.get(ns);
+            final String local = uri.substring(ns.length());
+            if (prefix != null && local.chars().allMatch(c -> c < 128 && (Character.isLetterOrDigit(c)
+                    || c == '_' || c == '-')) && !local.startsWith("-")) {
+                return String.join("", prefix, ":", local);
+            }
+            return NodeFmtLib.str(NodeFactory.createURI(uri));
+        }
+
+        /**
+         * @param lexical Lexical form of a literal.
+         * @return Lexical form with escaped quotes, backslashes and line breaks.
+         */
+        private static String escape(final String lexical) {
+            final StringBuilder escaped = new StringBuilder(lexical.length() + 8);
+            for (int i = 0; i < lexical.length(); i++) {
+                final char c = lexical.charAt(i);
+                switch (c) {
+                    case '"':
+                        escaped.append("\\\"");
+                        break;
+                    case '\\':
+                        escaped.append("\\\\");
+                        break;
+                    case '\n':
+                        escaped.append("\\n");
+                        break;
+                    case '\r':
+                        escaped.append("\\r");
+                        break;
+                    case '\t':
+                        escaped.append("\\t");
+                        break;
+                    default:
+                        escaped.append(c);
+                }
+            }
+            return escaped.toString();
+        }
+    }
+
+}
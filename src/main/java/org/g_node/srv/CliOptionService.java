@@ -71,7 +71,8 @@ public final class CliOptionService {
         final String defaultDesc = String.join("",
                 "Optional: format of the RDF file that will be written.\n",
                 "Supported file formats: ", RdfFileServiceJena.RDF_FORMAT_MAP.keySet().toString(),
-                "\nDefault setting is the Turtle (TTL) format.");
+                "\nDefault setting is the Turtle (TTL) format, large RDF graphs are written",
+                " by the streaming Turtle writer (TTL-STREAM).");
         final String desc = !altDesc.isEmpty() ? altDesc : defaultDesc;
 
         return Option.builder("f")
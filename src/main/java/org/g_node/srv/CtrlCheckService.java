@@ -14,7 +14,9 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Locale;
 import java.util.Set;
+import java.util.stream.Collectors;
 import org.apache.log4j.Logger;
+import org.g_node.micro.commons.CompressionService;
 import org.g_node.micro.commons.FileService;
 
 /**
@@ -68,6 +70,29 @@ public final class CtrlCheckService {
         return true;
     }
 
+    /**
+     * Method checks if the compression of a file is supported, logs the findings accordingly and returns
+     * the corresponding boolean value. The compression of an existing file is detected by its content,
+     * the compression of a new file by its file extension.
+     * @param file Path and filename of the file that is supposed to be checked.
+     * @return True if the file is not compressed or its compression is supported, false otherwise.
+     */
+    public static boolean isSupportedCompression(final String file) {
+        final String compression = CompressionService.detectCompression(Paths.get(file));
+        if (!CompressionService.SUPPORTED_COMPRESSIONS.contains(compression)) {
+            CtrlCheckService.LOGGER.error(
+                    String.join("",
+                            "Compression '", compression, "' of file ", file, " is not supported.",
+                            "\n\t\tPlease use uncompressed files or one of the following: ",
+                            CompressionService.SUPPORTED_COMPRESSIONS.stream()
+                                    .filter(c -> !CompressionService.NONE.equals(c))
+                                    .collect(Collectors.joining(" ")))
+            );
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Method checks with the contents of a set, if a provided output file format is supported by the current tool
      * and logs the results of the check.
@@ -114,4 +139,30 @@ public final class CtrlCheckService {
         return true;
     }
 
+    /**
+     * Method checks if a String value is a positive integer.
+     * @param cliArgValue Input value that is checked.
+     * @param cliArgDesc Description of the checked CLI argument value; required for proper logging
+     *                   the details of the check.
+     * @return True if the input value is a positive integer, false if not.
+     */
+    public static boolean isPositiveIntCliArgValue(final String cliArgValue, final String cliArgDesc) {
+        CtrlCheckService.LOGGER.info(String.join("", "Checking value of command line option '", cliArgDesc, "'..."));
+        boolean valid;
+        try {
+            valid = Integer.parseInt(cliArgValue) > 0;
+        } catch (NumberFormatException e) {
+            valid = false;
+        }
+        if (!valid) {
+            CtrlCheckService.LOGGER.error(
+                    String.join("",
+                            "'", cliArgValue, "' is not a supported value of command line option '", cliArgDesc, "'.",
+                            "\n\t\t Please use a positive integer."
+                    )
+            );
+        }
+        return valid;
+    }
+
 }
@@ -10,10 +10,17 @@
 
 package org.g_node.srv;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import org.g_node.mergers.LktExternalMergerJena;
+import org.g_node.mergers.LktMergeSettings;
 import org.g_node.mergers.LktMergerJena;
+import org.g_node.mergers.LktShardMergerJena;
+import org.g_node.mergers.LktTreeMergerJena;
+import org.g_node.micro.commons.BackupService;
 import org.g_node.micro.rdf.RdfFileServiceJena;
+import org.g_node.micro.rdf.RdfJournalJena;
 
 /**
  * Class used as a switch between different RDF APIs.
@@ -31,6 +38,22 @@ public final class RdfServiceSwitch {
      */
     public static final Map<String, String> RDF_FORMAT_EXTENSION = RdfFileServiceJena.RDF_FORMAT_EXTENSION;
 
+    /**
+     * Switch to the file extensions of the RDF formats, that can be merged in streaming mode
+     * by the currently used RDF API.
+     */
+    public static final Set<String> STREAM_FORMAT_EXTENSIONS = RdfFileServiceJena.STREAM_FORMAT_EXTENSIONS;
+
+    /**
+     * Switch to the store types of the RDF graphs supported by the currently used RDF API.
+     */
+    public static final Set<String> STORE_TYPES = RdfFileServiceJena.STORE_TYPES;
+
+    /**
+     * Switch to the default store type of the currently used RDF API.
+     */
+    public static final String DEFAULT_STORE = RdfFileServiceJena.STORE_JENA;
+
     /**
      * Switch to the method that checks, if the provided file is a valid RDF file. This check is
      * dependent on the used RDF API.
@@ -42,16 +65,107 @@ public final class RdfServiceSwitch {
     }
 
     /**
-     * Switch to the method merging two RDF files and saving the resulting RDF graph to an output file
-     * as a specified RDF format.
+     * Switch to the method merging RDF files one after the other into a main RDF file and saving the resulting
+     * RDF graph to an output file as a specified RDF format.
      * @param mainFile RDF file.
-     * @param mergeFile RDF file that is merged with the mainFile.
+     * @param mergeFiles RDF files that are merged with the mainFile in the order of the list.
      * @param outputFile Path and filename of the file the merged RDF graph is saved to.
+     * @param settings Output format, store type, see {@link #STORE_TYPES}, and further settings of the merge.
+     * @return True if the merge was completed and its output has been saved.
+     */
+    public static boolean runMerger(final String mainFile, final List<String> mergeFiles, final String outputFile,
+                                    final LktMergeSettings settings) {
+        return LktMergerJena.runMerger(mainFile, mergeFiles, outputFile, settings);
+    }
+
+    /**
+     * Switch to the method merging RDF files into a main RDF file by appending records to the merge journal
+     * of the main RDF file.
+     * @param mainFile RDF file the journal belongs to.
+     * @param mergeFiles RDF files that are merged with the mainFile in the order of the list.
+     * @return True if a record has been appended for every merge file.
+     */
+    public static boolean runJournalMerger(final String mainFile, final List<String> mergeFiles) {
+        return LktMergerJena.runJournalMerger(mainFile, mergeFiles);
+    }
+
+    /**
+     * Switch to the method folding the merge journal of a main RDF file into a new main RDF file.
+     * @param mainFile RDF file with a merge journal.
+     * @param outputFile Path and filename of the file the compacted RDF graph is saved to.
      * @param outputFormat RDF format of the result file.
+     * @param store Store type of the RDF graph during the compaction, see {@link #STORE_TYPES}.
+     * @param backups Service creating the backup of the main RDF file.
+     * @return True if the compacted RDF graph has been saved.
+     */
+    public static boolean runCompaction(final String mainFile, final String outputFile, final String outputFormat,
+                                        final String store, final BackupService backups) {
+        return LktMergerJena.runCompaction(mainFile, outputFile, outputFormat, store, backups);
+    }
+
+    /**
+     * Switch to the method checking, if a main RDF file has a merge journal.
+     * @param mainFile RDF file.
+     * @return True if the file has a merge journal.
+     */
+    public static boolean hasJournal(final String mainFile) {
+        return RdfJournalJena.hasJournal(mainFile);
+    }
+
+    /**
+     * Switch to the method merging RDF files into a main RDF file in streaming mode and saving the resulting
+     * RDF graph to an N-Triples output file.
+     * @param mainFile RDF file in a line based RDF format.
+     * @param mergeFiles RDF files that are merged with the mainFile in the order of the list.
+     * @param outputFile Path and filename of the file the merged RDF graph is saved to.
+     * @param backups Service creating the backup of the main RDF file.
+     * @return True if the merged RDF graph has been saved.
+     */
+    public static boolean runStreamMerger(final String mainFile, final List<String> mergeFiles,
+                                          final String outputFile, final BackupService backups) {
+        return LktMergerJena.runStreamMerger(mainFile, mergeFiles, outputFile, backups);
+    }
+
+    /**
+     * Switch to the method merging RDF files by a parallel tree reduction and saving the resulting RDF graph
+     * to an output file as a specified RDF format.
+     * @param sources RDF files in precedence order, later files replace Resources of earlier files.
+     * @param outputFile Path and filename of the file the merged RDF graph is saved to.
+     * @param settings Output format, store type, see {@link #STORE_TYPES}, and number of threads of the merge.
+     * @return True if the merged RDF graph has been saved.
+     */
+    public static boolean runTreeMerger(final List<String> sources, final String outputFile,
+                                        final LktMergeSettings settings) {
+        return LktTreeMergerJena.runTreeMerger(sources, outputFile, settings);
+    }
+
+    /**
+     * Switch to the method merging RDF files into a main RDF file with the RDF graphs split into shards by subject
+     * hash, every shard is merged by its own thread.
+     * @param mainFile RDF file.
+     * @param mergeFiles RDF files that are merged with the mainFile in the order of the list.
+     * @param outputFile Path and filename of the file the merged RDF graph is saved to.
+     * @param settings Output format, store type, see {@link #STORE_TYPES}, number of shards and further settings
+     *                 of the merge.
+     * @return True if the merge was completed and its output has been saved.
+     */
+    public static boolean runShardMerger(final String mainFile, final List<String> mergeFiles,
+                                         final String outputFile, final LktMergeSettings settings) {
+        return LktShardMergerJena.runShardMerger(mainFile, mergeFiles, outputFile, settings);
+    }
+
+    /**
+     * Switch to the method merging RDF files into a main RDF file out of core with bounded memory and saving
+     * the resulting RDF graph to an N-Triples output file sorted by subject.
+     * @param mainFile RDF file.
+     * @param mergeFiles RDF files that are merged with the mainFile in the order of the list.
+     * @param outputFile Path and filename of the file the merged RDF graph is saved to.
+     * @param settings Size of the sort buffer and directory of the temporary files of the merge.
+     * @return True if the merged RDF graph has been saved.
      */
-    public static void runMerger(final String mainFile, final String mergeFile,
-                                 final String outputFile, final String outputFormat) {
-        LktMergerJena.runMerger(mainFile, mergeFile, outputFile, outputFormat);
+    public static boolean runExternalMerger(final String mainFile, final List<String> mergeFiles,
+                                            final String outputFile, final LktMergeSettings settings) {
+        return LktExternalMergerJena.runExternalMerger(mainFile, mergeFiles, outputFile, settings);
     }
 
 }
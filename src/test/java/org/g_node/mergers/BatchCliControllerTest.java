@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.mergers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.apache.commons.io.FileUtils;
+import org.apache.log4j.ConsoleAppender;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.g_node.App;
+import org.g_node.micro.rdf.RdfFileServiceJena;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link BatchCliController} class. Output and Error streams are redirected
+ * from the console to a different PrintStream and reset after tests are finished.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class BatchCliControllerTest {
+
+    private ByteArrayOutputStream outStream;
+    private PrintStream stdout;
+
+    private final String tmpRoot = System.getProperty("java.io.tmpdir");
+    private final String testFolderName = this.getClass().getSimpleName();
+    private final Path testFileFolder = Paths.get(tmpRoot, testFolderName);
+    private final Path manifest = this.testFileFolder.resolve("manifest.txt");
+
+    /**
+     * Create two main files with one update file each and redirect the Out stream.
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        this.stdout = System.out;
+        this.outStream = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(this.outStream));
+
+        FileUtils.write(this.testFileFolder.resolve("main1.ttl").toFile(),
+                "@prefix t: <http://test.org/> . t:A t:name \"main1\" .");
+        FileUtils.write(this.testFileFolder.resolve("main2.ttl").toFile(),
+                "@prefix t: <http://test.org/> . t:A t:name \"main2\" .");
+        FileUtils.write(this.testFileFolder.resolve("update1.ttl").toFile(),
+                "@prefix t: <http://test.org/> . t:A t:name \"update1\" .");
+        FileUtils.write(this.testFileFolder.resolve("update2.ttl").toFile(),
+                "@prefix t: <http://test.org/> . t:A t:name \"update2\" .");
+
+        Logger rootLogger = Logger.getRootLogger();
+        rootLogger.setLevel(Level.INFO);
+        rootLogger.addAppender(
+                new ConsoleAppender(
+                        new PatternLayout("[%-5p] %m%n")
+                )
+        );
+    }
+
+    /**
+     * Reset Out stream to the console and remove all created folders and files after the tests are done.
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        System.setOut(this.stdout);
+
+        if (Files.exists(this.testFileFolder)) {
+            FileUtils.deleteDirectory(this.testFileFolder.toFile());
+        }
+    }
+
+    @Test
+    public void testRunManifest() throws Exception {
+        final String folder = this.testFileFolder.toString();
+        FileUtils.write(this.manifest.toFile(), String.join("\n",
+                "# Jobs of two main files",
+                String.join("", "-m ", folder, "/main1.ttl -i ", folder, "/update1.ttl -o ", folder, "/out1a.ttl"),
+                "",
+                String.join("", "-m ", folder, "/main2.ttl -i ", folder, "/update2.ttl -o ", folder, "/out2.nt",
+                        " -f NTRIPLES"),
+                String.join("", "-m ", folder, "/main1.ttl -i ", folder, "/update2.ttl -o ", folder, "/out1b.ttl"),
+                ""));
+
+        App.main(new String[]{"batch", "-i", this.manifest.toString(), "-p", "2"});
+
+        assertThat(RdfFileServiceJena.openModelFromFile(this.testFileFolder.resolve("out1a.ttl").toString())
+                .listObjects().next().toString()).isEqualTo("update1");
+        assertThat(RdfFileServiceJena.openModelFromFile(this.testFileFolder.resolve("out1b.ttl").toString())
+                .listObjects().next().toString()).isEqualTo("update2");
+        assertThat(this.testFileFolder.resolve("out2.nt").toFile()).exists();
+        assertThat(this.outStream.toString()).contains("3 of 3 jobs succeeded");
+    }
+
+    @Test
+    public void testFailedJobSkipsMainFile() throws Exception {
+        final String folder = this.testFileFolder.toString();
+        FileUtils.write(this.manifest.toFile(), String.join("\n",
+                String.join("", "-m ", folder, "/main1.ttl -i ", folder, "/iDoNotExist.ttl -o ", folder, "/out1a.ttl"),
+                String.join("", "-m ", folder, "/main1.ttl -i ", folder, "/update1.ttl -o ", folder, "/out1b.ttl"),
+                String.join("", "-m ", folder, "/main2.ttl -i ", folder, "/update2.ttl -o ", folder, "/out2.ttl"),
+                ""));
+
+        App.main(new String[]{"batch", "-i", this.manifest.toString()});
+
+        assertThat(this.testFileFolder.resolve("out1b.ttl").toFile()).doesNotExist();
+        assertThat(this.testFileFolder.resolve("out2.ttl").toFile()).exists();
+        assertThat(this.outStream.toString())
+                .contains("FAILED")
+                .contains("SKIPPED")
+                .contains("1 of 3 jobs succeeded");
+    }
+
+    @Test
+    public void testJobsSharingOutputFile() throws Exception {
+        final String folder = this.testFileFolder.toString();
+        FileUtils.write(this.manifest.toFile(), String.join("\n",
+                String.join("", "-m ", folder, "/main1.ttl -i ", folder, "/iDoNotExist.ttl -o ", folder, "/out"),
+                String.join("", "-m ", folder, "/main2.ttl -i ", folder, "/update2.ttl -o ", folder, "/./out.ttl"),
+                String.join("", "-m ", folder, "/out.ttl -i ", folder, "/update1.ttl -o ", folder, "/out3.ttl"),
+                String.join("", "-m ", folder, "/main2.ttl -i ", folder, "/update1.ttl -o ", folder, "/out4.ttl"),
+                ""));
+
+        App.main(new String[]{"batch", "-i", this.manifest.toString()});
+
+        assertThat(this.testFileFolder.resolve("out.ttl").toFile()).doesNotExist();
+        assertThat(this.testFileFolder.resolve("out3.ttl").toFile()).doesNotExist();
+        assertThat(this.testFileFolder.resolve("out4.ttl").toFile()).doesNotExist();
+        assertThat(this.outStream.toString())
+                .contains("4 jobs in 1 groups")
+                .contains("0 of 4 jobs succeeded");
+    }
+
+    @Test
+    public void testJobsReplacingSameMainFile() throws Exception {
+        final String folder = this.testFileFolder.toString();
+        FileUtils.write(this.manifest.toFile(), String.join("\n",
+                String.join("", "-m ", folder, "/main1.ttl -i ", folder, "/update1.ttl"),
+                String.join("", "-m ", folder, "/main1.ttl -i ", folder, "/update2.ttl"),
+                ""));
+
+        App.main(new String[]{"batch", "-i", this.manifest.toString()});
+
+        assertThat(RdfFileServiceJena.openModelFromFile(this.testFileFolder.resolve("main1.ttl").toString())
+                .listObjects().next().toString()).isEqualTo("update2");
+        assertThat(Files.list(this.testFileFolder)
+                .filter(p -> p.getFileName().toString().endsWith("_backup_main1.ttl")).count()).isEqualTo(2);
+        assertThat(this.outStream.toString()).contains("2 of 2 jobs succeeded");
+    }
+
+    @Test
+    public void testInvalidManifest() throws Exception {
+        FileUtils.write(this.manifest.toFile(), "-m main1.ttl -unknown\n");
+
+        App.main(new String[]{"batch", "-i", this.manifest.toString()});
+        assertThat(this.outStream.toString()).contains("Invalid job in line 1");
+    }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.mergers;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.g_node.App;
+import org.g_node.micro.rdf.RdfFileServiceJena;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link LktExternalMergerJena} class.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class LktExternalMergerJenaTest {
+
+    private final String tmpRoot = System.getProperty("java.io.tmpdir");
+    private final String testFolderName = this.getClass().getSimpleName();
+    private final Path testFileFolder = Paths.get(tmpRoot, testFolderName);
+    private final Path mainFile = this.testFileFolder.resolve("main.ttl");
+    private final Path tempDir = this.testFileFolder.resolve("tmp");
+    private List<String> mergeFiles;
+
+    /**
+     * Create a main RDF file with nested, shared and cyclic Blank Nodes and two merge RDF files.
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        final StringBuilder main = new StringBuilder("@prefix t: <http://test.org/> .\n");
+        for (int i = 0; i < 30; i++) {
+            main.append(String.join("", "t:R", String.valueOf(i), " t:name \"main _:b", String.valueOf(i),
+                    "\" ; t:has [ t:value ", String.valueOf(i), " ; t:has [ t:value \"nested\" ] ] .\n"));
+        }
+        main.append("t:S1 t:shared _:shared . t:S2 t:shared _:shared . _:shared t:value \"shared\" .\n");
+        main.append("t:C t:has _:c1 . _:c1 t:next _:c2 . _:c2 t:next _:c1 .\n");
+        main.append("_:orphan t:value \"orphan\" .\n");
+        FileUtils.write(this.mainFile.toFile(), main.toString());
+
+        final Path merge1 = this.testFileFolder.resolve("merge1.ttl");
+        FileUtils.write(merge1.toFile(), String.join("", "@prefix t: <http://test.org/> .\n",
+                "t:R1 t:name \"merge1\" . t:R2 t:name \"merge1\" ; t:has [ t:value \"merge1\" ] .\n",
+                "t:S1 t:name \"merge1\" . t:C t:name \"merge1\" . t:N1 t:name \"merge1\" .\n"));
+        final Path merge2 = this.testFileFolder.resolve("merge2.nt");
+        FileUtils.write(merge2.toFile(), String.join("",
+                "<http://test.org/R2> <http://test.org/name> \"merge2\" .\n",
+                "<http://test.org/R3> <http://test.org/name> \"merge2\" .\n"));
+        this.mergeFiles = Arrays.asList(merge1.toString(), merge2.toString());
+        Files.createDirectories(this.tempDir);
+    }
+
+    /**
+     * Remove all created folders and files after the tests are done.
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (Files.exists(this.testFileFolder)) {
+            FileUtils.deleteDirectory(this.testFileFolder.toFile());
+        }
+    }
+
+    @Test
+    public void testExternalMergeEqualsMerge() throws Exception {
+        final Path expectedFile = this.testFileFolder.resolve("expected.ttl");
+        assertThat(LktMergerJena.runMerger(this.mainFile.toString(), this.mergeFiles, expectedFile.toString(),
+                new LktMergeSettings())).isTrue();
+
+        // A small sort buffer spills many sorted runs.
+        final Path outFile = this.testFileFolder.resolve("out.nt.gz");
+        assertThat(LktExternalMergerJena.runExternalMerger(this.mainFile.toString(), this.mergeFiles,
+                outFile.toString(), new LktMergeSettings().setSortBuffer(1024).setTempDir(this.tempDir.toString())))
+                .isTrue();
+
+        final Model merged = RdfFileServiceJena.openModelFromFile(outFile.toString());
+        assertThat(merged.isIsomorphicWith(RdfFileServiceJena.openModelFromFile(expectedFile.toString()))).isTrue();
+        assertThat(this.tempDir.toFile().list()).isEmpty();
+    }
+
+    @Test
+    public void testExternalMergeCli() throws Exception {
+        final Path expectedFile = this.testFileFolder.resolve("expected.ttl");
+        assertThat(LktMergerJena.runMerger(this.mainFile.toString(), this.mergeFiles, expectedFile.toString(),
+                new LktMergeSettings())).isTrue();
+
+        final Path outFile = this.testFileFolder.resolve("out.nt");
+        final String[] cliArgs = {"lkt", "-m", this.mainFile.toString(), "-i", this.mergeFiles.get(0),
+            this.mergeFiles.get(1), "-o", outFile.toString(), "-b", "1", "-w", this.tempDir.toString()};
+        App.main(cliArgs);
+
+        final List<String> lines = Files.readAllLines(outFile);
+        final List<String> sorted = new ArrayList<>(lines);
+        Collections.sort(sorted);
+        assertThat(lines).isEqualTo(sorted);
+        assertThat(RdfFileServiceJena.openModelFromFile(outFile.toString())
+                .isIsomorphicWith(RdfFileServiceJena.openModelFromFile(expectedFile.toString()))).isTrue();
+    }
+
+    @Test
+    public void testExternalMergeRejectsStoreAndThreads() throws Exception {
+        final Path outFile = this.testFileFolder.resolve("out.nt");
+        App.main(new String[]{"lkt", "-m", this.mainFile.toString(), "-i", this.mergeFiles.get(0),
+            "-o", outFile.toString(), "-b", "1", "-p", "2"});
+        App.main(new String[]{"lkt", "-m", this.mainFile.toString(), "-i", this.mergeFiles.get(0),
+            "-o", outFile.toString(), "-b", "1", "-t", "COMPACT"});
+
+        assertThat(outFile.toFile()).doesNotExist();
+    }
+
+}
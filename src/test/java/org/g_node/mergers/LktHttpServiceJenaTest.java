@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.mergers;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.g_node.micro.rdf.RdfFileServiceJena;
+import org.g_node.micro.rdf.RdfJournalJena;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link LktHttpServiceJena} class. The service is started on a free port of the loopback
+ * address, requests are sent using {@link HttpURLConnection}.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class LktHttpServiceJenaTest {
+
+    private final String tmpRoot = System.getProperty("java.io.tmpdir");
+    private final String testFolderName = this.getClass().getSimpleName();
+    private final Path testFileFolder = Paths.get(tmpRoot, testFolderName);
+    private final Path mainFile = this.testFileFolder.resolve("main.ttl");
+
+    private LktHttpServiceJena service;
+    private String baseUrl;
+
+    /**
+     * Create the main RDF file and start the service.
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        FileUtils.write(this.mainFile.toFile(), String.join("",
+                "@prefix t: <http://test.org/> . t:A t:name \"main\" ; t:has [ t:name \"anon\" ] .",
+                " t:B t:name \"main\" ."));
+
+        this.service = new LktHttpServiceJena(new LktMergeSettings(), 2, 2);
+        assertThat(this.service.load(Collections.singletonList(this.mainFile.toString()))).isTrue();
+        assertThat(this.service.start(0)).isTrue();
+        this.baseUrl = String.join("", "http://localhost:", String.valueOf(this.service.getPort()),
+                LktHttpServiceJena.CONTEXT);
+    }
+
+    /**
+     * Stop the service and remove all created folders and files after the tests are done.
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        this.service.stop();
+        if (Files.exists(this.testFileFolder)) {
+            FileUtils.deleteDirectory(this.testFileFolder.toFile());
+        }
+    }
+
+    @Test
+    public void testMergeAndGet() throws Exception {
+        HttpURLConnection con = this.request("/main.ttl", "POST",
+                "@prefix t: <http://test.org/> . t:A t:name \"merged\" .", "text/turtle");
+        assertThat(con.getResponseCode()).isEqualTo(200);
+        assertThat(IOUtils.toString(con.getInputStream(), StandardCharsets.UTF_8))
+                .contains("\"removed\":3").contains("\"added\":1").contains("\"triples\":2");
+
+        con = this.request("/main.ttl?format=NTRIPLES", "GET", null, null);
+        assertThat(con.getResponseCode()).isEqualTo(200);
+        final Model served = ModelFactory.createDefaultModel();
+        try (InputStream in = con.getInputStream()) {
+            RDFDataMgr.read(served, in, Lang.NTRIPLES);
+        }
+        final Model expected = ModelFactory.createDefaultModel();
+        RDFDataMgr.read(expected, new ByteArrayInputStream(String.join("",
+                "@prefix t: <http://test.org/> . t:A t:name \"merged\" . t:B t:name \"main\" .")
+                .getBytes(StandardCharsets.UTF_8)), Lang.TURTLE);
+        assertThat(served.isIsomorphicWith(expected)).isTrue();
+
+        con = this.request("", "GET", null, null);
+        assertThat(IOUtils.toString(con.getInputStream(), StandardCharsets.UTF_8))
+                .isEqualTo("{\"main.ttl\":{\"triples\":2,\"unsaved\":true}}");
+
+        con = this.request("/main.ttl/save", "POST", "", null);
+        assertThat(con.getResponseCode()).isEqualTo(200);
+        assertThat(RdfFileServiceJena.openModelFromFile(this.mainFile.toString()).isIsomorphicWith(expected))
+                .isTrue();
+    }
+
+    @Test
+    public void testMergeJournaled() throws Exception {
+        final String mainTTL = FileUtils.readFileToString(this.mainFile.toFile());
+        final HttpURLConnection con = this.request("/main.ttl", "POST",
+                "@prefix t: <http://test.org/> . t:A t:name \"merged\" ; t:has [ t:name \"new anon\" ] .",
+                "text/turtle");
+        assertThat(con.getResponseCode()).isEqualTo(200);
+
+        // The merge survives a crash of the service before the main file has been saved.
+        assertThat(FileUtils.readFileToString(this.mainFile.toFile())).isEqualTo(mainTTL);
+        assertThat(RdfJournalJena.hasJournal(this.mainFile.toString())).isTrue();
+        final Model replayed = RdfFileServiceJena.openModelFromFile(this.mainFile.toString());
+        assertThat(RdfJournalJena.replayJournal(this.mainFile.toString(), replayed)).isEqualTo(1);
+        final Model expected = ModelFactory.createDefaultModel();
+        RDFDataMgr.read(expected, new ByteArrayInputStream(String.join("",
+                "@prefix t: <http://test.org/> . t:A t:name \"merged\" ; t:has [ t:name \"new anon\" ] .",
+                " t:B t:name \"main\" .").getBytes(StandardCharsets.UTF_8)), Lang.TURTLE);
+        assertThat(replayed.isIsomorphicWith(expected)).isTrue();
+
+        assertThat(this.request("/main.ttl/save", "POST", "", null).getResponseCode()).isEqualTo(200);
+        assertThat(RdfJournalJena.hasJournal(this.mainFile.toString())).isFalse();
+        assertThat(RdfFileServiceJena.openModelFromFile(this.mainFile.toString()).isIsomorphicWith(expected))
+                .isTrue();
+    }
+
+    @Test
+    public void testInvalidRequests() throws Exception {
+        assertThat(this.request("/unknown.ttl", "GET", null, null).getResponseCode()).isEqualTo(404);
+        assertThat(this.request("/main.ttl?format=unknown", "GET", null, null).getResponseCode()).isEqualTo(400);
+        assertThat(this.request("/main.ttl", "POST", "I am not RDF.", "text/turtle").getResponseCode())
+                .isEqualTo(400);
+        assertThat(this.request("/main.ttl", "DELETE", null, null).getResponseCode()).isEqualTo(405);
+    }
+
+    /**
+     * Send a request to the service.
+     * @param path Path of the request below the context of the service.
+     * @param method HTTP method.
+     * @param body Request body, null if no body is sent.
+     * @param contentType Content type of the request body.
+     * @return Connection of the sent request.
+     * @throws Exception
+     */
+    private HttpURLConnection request(final String path, final String method, final String body,
+                                      final String contentType) throws Exception {
+        final HttpURLConnection con = (HttpURLConnection) new URL(String.join("", this.baseUrl, path))
+                .openConnection();
+        con.setRequestMethod(method);
+        if (body != null) {
+            con.setDoOutput(true);
+            if (contentType != null) {
+                con.setRequestProperty("Content-Type", contentType);
+            }
+            try (OutputStream out = con.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return con;
+    }
+
+}
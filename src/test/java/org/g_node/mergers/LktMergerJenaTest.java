@@ -10,22 +10,38 @@
 
 package org.g_node.mergers;
 
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 import org.apache.commons.io.FileUtils;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
 import org.apache.log4j.ConsoleAppender;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 import org.apache.log4j.PatternLayout;
 import static org.assertj.core.api.Assertions.assertThat;
 import org.g_node.App;
+import org.g_node.micro.commons.CompressionService;
+import org.g_node.micro.rdf.RdfFileServiceJena;
+import org.g_node.micro.rdf.RdfUtilsJena;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -131,10 +147,10 @@ public class LktMergerJenaTest {
     }
 
     @Test
-    public void testBackupFail() throws Exception {
+    public void testRepeatedBackup() throws Exception {
         final String useCase = "lkt";
         final String mainFile = this.testMainRdfFile.getAbsolutePath();
-        final String errorMessage = String.join("", "[ERROR ] While saving backup for file '", mainFile, "'");
+        final String backupNameTail = String.join("", "backup_", this.testMainRdfFileName);
 
         final String[] cliArgs = new String[5];
         cliArgs[0] = useCase;
@@ -145,7 +161,379 @@ public class LktMergerJenaTest {
 
         App.main(cliArgs);
         App.main(cliArgs);
-        assertThat(this.outStream.toString()).contains(errorMessage);
+        assertThat(this.outStream.toString()).doesNotContain("[ERROR ]");
+
+        final Object[] findFileArray = Files.find(this.testFileFolder, 1, (path, attr) ->
+                String.valueOf(path).endsWith(backupNameTail)).toArray();
+        assertThat(findFileArray.length).isEqualTo(2);
+    }
+
+    @Test
+    public void testStreamMergeAndSave() throws Exception {
+        final String mainNT = String.join("\n",
+                "<http://test.org/Root> <http://test.org/has> <http://test.org/A> .",
+                "<http://test.org/A> <http://test.org/name> \"old\" .",
+                "_:b3 <http://test.org/value> \"deep\" .",
+                "_:b2 <http://test.org/nested> _:b3 .",
+                "<http://test.org/A> <http://test.org/anon> _:b1 .",
+                "_:b1 <http://test.org/nested> _:b2 .",
+                "_:b2 <http://test.org/value> \"nested\" .",
+                "<http://test.org/B> <http://test.org/name> \"keep\" .", "");
+        final File mainFile = this.testFileFolder.resolve("testMain.nt").toFile();
+        FileUtils.write(mainFile, mainNT);
+
+        final String mergeTTL = String.join("",
+                "@prefix t: <http://test.org/> . t:Root t:has t:A . t:A t:name \"new\" .");
+        FileUtils.write(this.testMergeRdfFile, mergeTTL);
+
+        final Path outputFile = this.testFileFolder.resolve("out.nt");
+
+        final String[] cliArgs = new String[8];
+        cliArgs[0] = "lkt";
+        cliArgs[1] = "-m";
+        cliArgs[2] = mainFile.getAbsolutePath();
+        cliArgs[3] = "-i";
+        cliArgs[4] = this.testMergeRdfFile.getAbsolutePath();
+        cliArgs[5] = "-o";
+        cliArgs[6] = outputFile.toString();
+        cliArgs[7] = "-s";
+
+        App.main(cliArgs);
+        assertThat(Files.exists(outputFile)).isTrue();
+
+        final List<String> readFile = Files.readAllLines(outputFile);
+        assertThat(readFile.size()).isEqualTo(3);
+        assertThat(readFile).contains(
+                "<http://test.org/A> <http://test.org/name> \"new\" .",
+                "<http://test.org/B> <http://test.org/name> \"keep\" .");
+        assertThat(readFile.toString()).doesNotContain("old").doesNotContain("nested");
+
+        // Options of in memory merges are rejected.
+        final String[] patchArgs = Arrays.copyOf(cliArgs, 10);
+        patchArgs[8] = "-d";
+        patchArgs[9] = this.testFileFolder.resolve("out.rdfp").toString();
+        App.main(patchArgs);
+        assertThat(this.outStream.toString()).contains("Streaming mode is not available with patch files");
+        assertThat(Files.exists(this.testFileFolder.resolve("out.rdfp"))).isFalse();
+
+        // Streaming mode requires a line based main file.
+        cliArgs[2] = this.testMainRdfFile.getAbsolutePath();
+        App.main(cliArgs);
+        assertThat(this.outStream.toString()).contains("Only the following file formats are supported");
+    }
+
+    @Test
+    public void testSnapshotMergeAndSave() throws Exception {
+        final Path outputFile = this.testFileFolder.resolve("out.ttl");
+        final Path snapshotFile = this.testFileFolder.resolve("out.ttl.rdfsnap");
+
+        final String[] cliArgs = new String[8];
+        cliArgs[0] = "lkt";
+        cliArgs[1] = "-m";
+        cliArgs[2] = this.testMainRdfFile.getAbsolutePath();
+        cliArgs[3] = "-i";
+        cliArgs[4] = this.testMergeRdfFile.getAbsolutePath();
+        cliArgs[5] = "-o";
+        cliArgs[6] = outputFile.toString();
+        cliArgs[7] = "-c";
+
+        App.main(cliArgs);
+        assertThat(Files.exists(outputFile)).isTrue();
+        assertThat(Files.exists(snapshotFile)).isTrue();
+
+        // The merged output file is loaded from its snapshot when used as the main file.
+        cliArgs[2] = outputFile.toString();
+        cliArgs[6] = this.testFileFolder.resolve("out2.ttl").toString();
+        App.main(cliArgs);
+        assertThat(this.outStream.toString()).contains("from snapshot file");
+        assertThat(Files.exists(this.testFileFolder.resolve("out2.ttl.rdfsnap"))).isTrue();
+    }
+
+    @Test
+    public void testCompressedMergeAndSave() throws Exception {
+        final File mainFile = this.testFileFolder.resolve("testMain.ttl.gz").toFile();
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(mainFile))) {
+            out.write(FileUtils.readFileToByteArray(this.testMainRdfFile));
+        }
+
+        final String[] cliArgs = new String[9];
+        cliArgs[0] = "lkt";
+        cliArgs[1] = "-m";
+        cliArgs[2] = mainFile.getAbsolutePath();
+        cliArgs[3] = "-i";
+        cliArgs[4] = this.testMergeRdfFile.getAbsolutePath();
+        cliArgs[5] = "-o";
+        cliArgs[6] = this.testFileFolder.resolve("out.gz").toString();
+        cliArgs[7] = "-f";
+        cliArgs[8] = "NTRIPLES";
+
+        App.main(cliArgs);
+        final Path outputFile = this.testFileFolder.resolve("out.nt.gz");
+        assertThat(Files.exists(outputFile)).isTrue();
+        assertThat(CompressionService.detectCompression(outputFile)).isEqualTo(CompressionService.GZIP);
+        assertThat(RdfFileServiceJena.openModelFromFile(outputFile.toString()).size()).isEqualTo(2);
+
+        // Files using other compressions are not recognized as RDF files.
+        final File bz2File = this.testFileFolder.resolve("testMain.ttl.bz2").toFile();
+        FileUtils.write(bz2File, "BZh91AY&SY");
+        cliArgs[2] = bz2File.getAbsolutePath();
+        App.main(cliArgs);
+        assertThat(this.outStream.toString()).contains("Ensure it is a valid RDF file.");
+    }
+
+    @Test
+    public void testCompactStoreMergeAndSave() throws Exception {
+        final String mainTTL = String.join("",
+                "@prefix t: <http://test.org/> . t:Root t:has t:A . t:A t:name \"old\" ; t:anon [ t:value \"v\" ] .",
+                " t:B t:name \"keep\" .");
+        FileUtils.write(this.testMainRdfFile, mainTTL);
+        final String mergeTTL = "@prefix t: <http://test.org/> . t:Root t:has t:A . t:A t:name \"new\" .";
+        FileUtils.write(this.testMergeRdfFile, mergeTTL);
+
+        final Path jenaOutputFile = this.testFileFolder.resolve("jena.ttl");
+        final Path compactOutputFile = this.testFileFolder.resolve("compact.ttl");
+
+        final String[] cliArgs = new String[9];
+        cliArgs[0] = "lkt";
+        cliArgs[1] = "-m";
+        cliArgs[2] = this.testMainRdfFile.getAbsolutePath();
+        cliArgs[3] = "-i";
+        cliArgs[4] = this.testMergeRdfFile.getAbsolutePath();
+        cliArgs[5] = "-o";
+        cliArgs[6] = jenaOutputFile.toString();
+        cliArgs[7] = "-t";
+        cliArgs[8] = "jena";
+        App.main(cliArgs);
+
+        cliArgs[6] = compactOutputFile.toString();
+        cliArgs[8] = "compact";
+        App.main(cliArgs);
+
+        final Model compactModel = RdfFileServiceJena.openModelFromFile(compactOutputFile.toString());
+        assertThat(compactModel.size()).isEqualTo(3);
+        assertThat(compactModel.isIsomorphicWith(
+                RdfFileServiceJena.openModelFromFile(jenaOutputFile.toString()))).isTrue();
+
+        final Path offHeapOutputFile = this.testFileFolder.resolve("offheap.ttl");
+        cliArgs[6] = offHeapOutputFile.toString();
+        cliArgs[8] = "offheap";
+        App.main(cliArgs);
+
+        assertThat(RdfFileServiceJena.openModelFromFile(offHeapOutputFile.toString()).isIsomorphicWith(
+                RdfFileServiceJena.openModelFromFile(jenaOutputFile.toString()))).isTrue();
+
+        // Unknown store types are rejected.
+        cliArgs[8] = "unknown";
+        App.main(cliArgs);
+        assertThat(this.outStream.toString()).contains("is not a supported value of command line option");
+    }
+
+    @Test
+    public void testPatchOutput() throws Exception {
+        final String mainTTL = String.join("",
+                "@prefix t: <http://test.org/> . t:Root t:has t:A . t:A t:name \"old\" ; t:kept \"same\" .",
+                " t:B t:name \"keep\" .");
+        FileUtils.write(this.testMainRdfFile, mainTTL);
+        final String mergeTTL = "@prefix t: <http://test.org/> . t:A t:name \"new\" ; t:kept \"same\" .";
+        FileUtils.write(this.testMergeRdfFile, mergeTTL);
+
+        final Path outputFile = this.testFileFolder.resolve("out.ttl");
+        final Path patchFile = this.testFileFolder.resolve("out.rdfp");
+
+        final String[] cliArgs = new String[9];
+        cliArgs[0] = "lkt";
+        cliArgs[1] = "-m";
+        cliArgs[2] = this.testMainRdfFile.getAbsolutePath();
+        cliArgs[3] = "-i";
+        cliArgs[4] = this.testMergeRdfFile.getAbsolutePath();
+        cliArgs[5] = "-o";
+        cliArgs[6] = outputFile.toString();
+        cliArgs[7] = "-d";
+        cliArgs[8] = patchFile.toString();
+        App.main(cliArgs);
+
+        assertThat(outputFile.toFile()).exists();
+        final List<String> patch = Files.readAllLines(patchFile);
+        assertThat(patch.get(0)).startsWith("H id <uuid:");
+        assertThat(patch.subList(1, patch.size())).containsExactly(
+                "TX .",
+                "D <http://test.org/A> <http://test.org/name> \"old\" .",
+                "A <http://test.org/A> <http://test.org/name> \"new\" .",
+                "TC .");
+
+        // The full output is skipped with patch-only.
+        Files.delete(outputFile);
+        final String[] patchOnlyArgs = Arrays.copyOf(cliArgs, 10);
+        patchOnlyArgs[9] = "-x";
+        App.main(patchOnlyArgs);
+        assertThat(patchFile.toFile()).exists();
+        assertThat(outputFile.toFile()).doesNotExist();
+    }
+
+    @Test
+    public void testPatchAppliedToReplica() throws Exception {
+        final String mainTTL = String.join("",
+                "@prefix t: <http://test.org/> . t:A t:name \"old\" ; t:has [ t:name \"anon\" ;",
+                " t:has [ t:name \"nested\" ; t:has [ t:name \"deep\" ] ] ] .",
+                " t:B t:name \"keep\" ; t:has [ t:name \"kept\" ] . t:C t:name \"c\" .");
+        FileUtils.write(this.testMainRdfFile, mainTTL);
+        final String mergeTTL = String.join("",
+                "@prefix t: <http://test.org/> . t:A t:name \"old\" ; t:has [ t:name \"added\" ] .",
+                " t:C t:name \"new\" .");
+        FileUtils.write(this.testMergeRdfFile, mergeTTL);
+
+        final Path outputFile = this.testFileFolder.resolve("out.ttl");
+        final Path patchFile = this.testFileFolder.resolve("out.rdfp");
+
+        final String[] cliArgs = new String[9];
+        cliArgs[0] = "lkt";
+        cliArgs[1] = "-m";
+        cliArgs[2] = this.testMainRdfFile.getAbsolutePath();
+        cliArgs[3] = "-i";
+        cliArgs[4] = this.testMergeRdfFile.getAbsolutePath();
+        cliArgs[5] = "-o";
+        cliArgs[6] = outputFile.toString();
+        cliArgs[7] = "-d";
+        cliArgs[8] = patchFile.toString();
+        App.main(cliArgs);
+
+        final List<String> patch = Files.readAllLines(patchFile);
+        assertThat(patch).contains("R <http://test.org/A> .");
+        assertThat(patch).contains("D <http://test.org/C> <http://test.org/name> \"c\" .");
+        assertThat(patch.stream().filter(l -> l.startsWith("D ")).noneMatch(l -> l.contains("_:"))).isTrue();
+
+        // Apply the patch in order, all lines share one blank node label scope.
+        final Model replica = RdfFileServiceJena.openModelFromFile(this.testMainRdfFile.getAbsolutePath());
+        final Model replacedModel = ModelFactory.createDefaultModel();
+        final StringBuilder deleted = new StringBuilder();
+        final StringBuilder added = new StringBuilder();
+        for (final String line : patch) {
+            if (line.startsWith("R ")) {
+                replacedModel.add(this.parseNTriples(String.join("", line.substring(2, line.length() - 2),
+                        " <http://test.org/replaced> \"\" .\n")));
+            } else if (line.startsWith("D ")) {
+                deleted.append(line.substring(2)).append('\n');
+            } else if (line.startsWith("A ")) {
+                added.append(line.substring(2)).append('\n');
+            }
+        }
+        final Set<Node> replaced = replacedModel.getGraph().find(Node.ANY, Node.ANY, Node.ANY)
+                .mapWith(Triple::getSubject).toSet();
+        assertThat(replaced).hasSize(1);
+        RdfUtilsJena.removeSubjects(replica.getGraph(), replaced, true);
+        replica.remove(this.parseNTriples(deleted.toString()));
+        replica.add(this.parseNTriples(added.toString()));
+        assertThat(replica.isIsomorphicWith(RdfFileServiceJena.openModelFromFile(outputFile.toString()))).isTrue();
+        assertThat(replica.listObjectsOfProperty(replica.createProperty("http://test.org/name")).toList())
+                .extracting(Object::toString).doesNotContain("anon", "nested", "deep").contains("kept", "added");
+    }
+
+    /**
+     * Parse N-Triples into a new model.
+     * @param nTriples N-Triples lines.
+     * @return Model containing the triples.
+     */
+    private Model parseNTriples(final String nTriples) {
+        final Model model = ModelFactory.createDefaultModel();
+        RDFDataMgr.read(model, new ByteArrayInputStream(nTriples.getBytes(StandardCharsets.UTF_8)), Lang.NTRIPLES);
+        return model;
+    }
+
+    @Test
+    public void testJournalMergeAndCompact() throws Exception {
+        final String mainTTL = String.join("",
+                "@prefix t: <http://test.org/> . t:A t:name \"old\" . t:B t:name \"keep\" .");
+        FileUtils.write(this.testMainRdfFile, mainTTL);
+        final String mergeTTL = "@prefix t: <http://test.org/> . t:A t:name \"new\" ; t:has [ t:name \"anon\" ] .";
+        FileUtils.write(this.testMergeRdfFile, mergeTTL);
+
+        final String mainFile = this.testMainRdfFile.getAbsolutePath();
+        final Path journal = Paths.get(String.join("", mainFile, ".journal"));
+
+        final String[] cliArgs = new String[6];
+        cliArgs[0] = "lkt";
+        cliArgs[1] = "-m";
+        cliArgs[2] = mainFile;
+        cliArgs[3] = "-i";
+        cliArgs[4] = this.testMergeRdfFile.getAbsolutePath();
+        cliArgs[5] = "-j";
+        App.main(cliArgs);
+
+        // The merge is only appended to the journal, the main file is left untouched.
+        assertThat(journal.toFile()).exists();
+        assertThat(FileUtils.readFileToString(this.testMainRdfFile)).isEqualTo(mainTTL);
+
+        // Replaying the same merge twice does not duplicate the blank node of the merge.
+        App.main(cliArgs);
+
+        // Options concerning the output file are rejected instead of being ignored.
+        final Path ignoredOutput = this.testFileFolder.resolve("ignored.ttl");
+        App.main(new String[]{"lkt", "-m", mainFile, "-i", cliArgs[4], "-j", "-o", ignoredOutput.toString()});
+        assertThat(this.outStream.toString()).contains("Option -j/-journal does not write an output file");
+        assertThat(ignoredOutput.toFile()).doesNotExist();
+
+        final Path outputFile = this.testFileFolder.resolve("out.ttl");
+        App.main(new String[]{"compact", "-m", mainFile, "-o", outputFile.toString()});
+        assertThat(journal.toFile()).exists();
+
+        final String expectedTTL = String.join("",
+                "@prefix t: <http://test.org/> . t:A t:name \"new\" ; t:has [ t:name \"anon\" ] .",
+                " t:B t:name \"keep\" .");
+        final Path expectedFile = this.testFileFolder.resolve("expected.ttl");
+        FileUtils.write(expectedFile.toFile(), expectedTTL);
+        final Model expected = RdfFileServiceJena.openModelFromFile(expectedFile.toString());
+        assertThat(RdfFileServiceJena.openModelFromFile(outputFile.toString()).isIsomorphicWith(expected)).isTrue();
+
+        // Compacting into the main file folds the journal into the main file and removes the journal.
+        App.main(new String[]{"compact", "-m", mainFile});
+        assertThat(journal.toFile()).doesNotExist();
+        assertThat(RdfFileServiceJena.openModelFromFile(mainFile).isIsomorphicWith(expected)).isTrue();
+        final File[] backups = this.testFileFolder.toFile().listFiles(
+                (dir, name) -> name.endsWith(this.testMainRdfFileName) && !name.equals(this.testMainRdfFileName));
+        assertThat(backups).hasSize(1);
+    }
+
+    @Test
+    public void testBatchMergeAndSave() throws Exception {
+        final String mainTTL = "@prefix t: <http://test.org/> . t:A t:name \"main\" . t:B t:name \"main\" .";
+        FileUtils.write(this.testMainRdfFile, mainTTL);
+
+        final Path updates = this.testFileFolder.resolve("updates");
+        FileUtils.write(updates.resolve("01.ttl").toFile(),
+                "@prefix t: <http://test.org/> . t:A t:name \"first\" ; t:has [ t:name \"first\" ] .");
+        FileUtils.write(updates.resolve("02.ttl").toFile(),
+                "@prefix t: <http://test.org/> . t:A t:name \"second\" . t:C t:name \"second\" .");
+        FileUtils.write(updates.resolve("03.nt").toFile(),
+                "<http://test.org/B> <http://test.org/name> \"third\" .");
+
+        final String expectedTTL = String.join("",
+                "@prefix t: <http://test.org/> . t:A t:name \"second\" . t:B t:name \"third\" .",
+                " t:C t:name \"second\" .");
+        final Path expectedFile = this.testFileFolder.resolve("expected.ttl");
+        FileUtils.write(expectedFile.toFile(), expectedTTL);
+        final Model expected = RdfFileServiceJena.openModelFromFile(expectedFile.toString());
+
+        // A directory is merged in the order of its file names.
+        final Path outputFile = this.testFileFolder.resolve("out.ttl");
+        App.main(new String[]{"lkt", "-m", this.testMainRdfFile.getAbsolutePath(),
+                "-i", updates.toString(), "-o", outputFile.toString()});
+        assertThat(RdfFileServiceJena.openModelFromFile(outputFile.toString()).isIsomorphicWith(expected)).isTrue();
+
+        // Files and glob patterns are merged in the order provided.
+        final Path globOutputFile = this.testFileFolder.resolve("glob.ttl");
+        App.main(new String[]{"lkt", "-m", this.testMainRdfFile.getAbsolutePath(),
+                "-i", updates.resolve("03.nt").toString(), updates.resolve("0[12].ttl").toString(),
+                "-o", globOutputFile.toString()});
+        assertThat(RdfFileServiceJena.openModelFromFile(globOutputFile.toString()).isIsomorphicWith(expected))
+                .isTrue();
+
+        // An invalid file aborts the whole batch without writing any output.
+        FileUtils.write(updates.resolve("04.ttl").toFile(), "I am not an RDF file.");
+        final Path invalidOutputFile = this.testFileFolder.resolve("invalid.ttl");
+        App.main(new String[]{"lkt", "-m", this.testMainRdfFile.getAbsolutePath(),
+                "-i", updates.toString(), "-o", invalidOutputFile.toString()});
+        assertThat(invalidOutputFile.toFile()).doesNotExist();
+        assertThat(this.outStream.toString()).contains("Failed to load file");
     }
 
 }
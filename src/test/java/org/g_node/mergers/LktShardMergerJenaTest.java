@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.mergers;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.g_node.App;
+import org.g_node.micro.rdf.RdfFileServiceJena;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link LktShardMergerJena} class.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class LktShardMergerJenaTest {
+
+    private final String tmpRoot = System.getProperty("java.io.tmpdir");
+    private final String testFolderName = this.getClass().getSimpleName();
+    private final Path testFileFolder = Paths.get(tmpRoot, testFolderName);
+    private final Path mainFile = this.testFileFolder.resolve("main.ttl");
+    private List<String> mergeFiles;
+
+    /**
+     * Create a main RDF file with Blank Nodes shared by several subjects and two merge RDF files.
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        final StringBuilder main = new StringBuilder("@prefix t: <http://test.org/> .\n");
+        for (int i = 0; i < 20; i++) {
+            main.append(String.join("", "t:R", String.valueOf(i), " t:name \"main\" ; t:has [ t:value ",
+                    String.valueOf(i), " ; t:has [ t:value \"nested\" ] ] .\n"));
+        }
+        main.append("t:S1 t:shared _:shared . t:S2 t:shared _:shared . _:shared t:value \"shared\" .\n");
+        FileUtils.write(this.mainFile.toFile(), main.toString());
+
+        final Path merge1 = this.testFileFolder.resolve("merge1.ttl");
+        FileUtils.write(merge1.toFile(), String.join("", "@prefix t: <http://test.org/> .\n",
+                "t:R1 t:name \"merge1\" . t:R2 t:name \"merge1\" ; t:has [ t:value \"merge1\" ] .\n",
+                "t:S1 t:name \"merge1\" . t:N1 t:name \"merge1\" .\n"));
+        final Path merge2 = this.testFileFolder.resolve("merge2.ttl");
+        FileUtils.write(merge2.toFile(), String.join("", "@prefix m: <http://merge.org/> .\n",
+                "<http://test.org/R2> m:name \"merge2\" . <http://test.org/R3> m:name \"merge2\" .\n"));
+        this.mergeFiles = Arrays.asList(merge1.toString(), merge2.toString());
+    }
+
+    /**
+     * Remove all created folders and files after the tests are done.
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (Files.exists(this.testFileFolder)) {
+            FileUtils.deleteDirectory(this.testFileFolder.toFile());
+        }
+    }
+
+    @Test
+    public void testShardMergeEqualsMerge() throws Exception {
+        final Path expectedFile = this.testFileFolder.resolve("expected.ttl");
+        assertThat(LktMergerJena.runMerger(this.mainFile.toString(), this.mergeFiles, expectedFile.toString(),
+                new LktMergeSettings())).isTrue();
+        final Model expected = RdfFileServiceJena.openModelFromFile(expectedFile.toString());
+
+        for (final int shards : new int[] {1, 2, 5}) {
+            for (final String store : RdfFileServiceJena.STORE_TYPES) {
+                final Path outFile = this.testFileFolder.resolve(
+                        String.join("", "out", String.valueOf(shards), store, ".ttl"));
+                assertThat(LktShardMergerJena.runShardMerger(this.mainFile.toString(), this.mergeFiles,
+                        outFile.toString(), new LktMergeSettings().setShards(shards).setStore(store))).isTrue();
+
+                final Model merged = RdfFileServiceJena.openModelFromFile(outFile.toString());
+                assertThat(merged.isIsomorphicWith(expected)).isTrue();
+                assertThat(merged.getNsPrefixURI("m")).isEqualTo("http://merge.org/");
+            }
+        }
+    }
+
+    @Test
+    public void testSplitOutput() throws Exception {
+        final Path expectedFile = this.testFileFolder.resolve("expected.ttl");
+        assertThat(LktMergerJena.runMerger(this.mainFile.toString(), this.mergeFiles, expectedFile.toString(),
+                new LktMergeSettings())).isTrue();
+
+        final Path outFile = this.testFileFolder.resolve("out.ttl");
+        final String[] cliArgs = {"lkt", "-m", this.mainFile.toString(), "-i",
+            this.testFileFolder.resolve("merge*.ttl").toString(), "-o", outFile.toString(), "-k", "3", "-e"};
+        App.main(cliArgs);
+
+        assertThat(outFile.toFile()).doesNotExist();
+        final Model merged = ModelFactory.createDefaultModel();
+        for (int i = 0; i < 3; i++) {
+            final Path shardFile = this.testFileFolder.resolve(String.join("", "out.", String.valueOf(i), ".ttl"));
+            assertThat(shardFile.toFile()).exists();
+            merged.add(RdfFileServiceJena.openModelFromFile(shardFile.toString()));
+        }
+        assertThat(merged.isIsomorphicWith(RdfFileServiceJena.openModelFromFile(expectedFile.toString()))).isTrue();
+    }
+
+    @Test
+    public void testGetShardFileName() throws Exception {
+        assertThat(LktShardMergerJena.getShardFileName("dir/out.ttl", 0)).isEqualTo("dir/out.0.ttl");
+        assertThat(LktShardMergerJena.getShardFileName("dir/out.nt.gz", 3)).isEqualTo("dir/out.3.nt.gz");
+    }
+
+}
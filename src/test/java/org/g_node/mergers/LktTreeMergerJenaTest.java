@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.mergers;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.g_node.App;
+import org.g_node.micro.rdf.RdfFileServiceJena;
+import org.g_node.micro.rdf.RdfUtilsJena;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link LktTreeMergerJena} class.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class LktTreeMergerJenaTest {
+
+    private static final int SOURCES = 9;
+
+    private final String tmpRoot = System.getProperty("java.io.tmpdir");
+    private final String testFolderName = this.getClass().getSimpleName();
+    private final Path testFileFolder = Paths.get(tmpRoot, testFolderName);
+    private final List<String> sources = new ArrayList<>();
+
+    /**
+     * Create source files with overlapping Resources of different sizes and Blank Nodes.
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        for (int i = 0; i < SOURCES; i++) {
+            final StringBuilder content = new StringBuilder("@prefix t: <http://test.org/> .\n");
+            for (int j = i % 3; j < 2 * i + 2; j += 2) {
+                content.append(String.join("", "t:R", String.valueOf(j), " t:source \"", String.valueOf(i),
+                        "\" ; t:has [ t:name \"anon", String.valueOf(i), "\" ] .\n"));
+            }
+            final Path source = this.testFileFolder.resolve(String.join("", "source", String.valueOf(i), ".ttl"));
+            FileUtils.write(source.toFile(), content.toString());
+            this.sources.add(source.toString());
+        }
+    }
+
+    /**
+     * Remove all created folders and files after the tests are done.
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (Files.exists(this.testFileFolder)) {
+            FileUtils.deleteDirectory(this.testFileFolder.toFile());
+        }
+    }
+
+    @Test
+    public void testMergeEqualsSequentialMerge() throws Exception {
+        final Model expected = RdfFileServiceJena.openModelFromFile(this.sources.get(0));
+        for (int i = 1; i < SOURCES; i++) {
+            final Model later = RdfFileServiceJena.openModelFromFile(this.sources.get(i));
+            RdfUtilsJena.removePropertiesFromModel(later, expected, true);
+            expected.add(later);
+        }
+
+        for (final int threads : new int[] {1, 3}) {
+            for (final String store : RdfFileServiceJena.STORE_TYPES) {
+                final Model merged = LktTreeMergerJena.merge(this.sources, store, threads);
+                assertThat(merged.isIsomorphicWith(expected)).isTrue();
+            }
+        }
+    }
+
+    @Test
+    public void testMergeInvalidSource() throws Exception {
+        final Path invalid = this.testFileFolder.resolve("invalid.ttl");
+        FileUtils.write(invalid.toFile(), "I am not an RDF file.");
+        this.sources.add(SOURCES / 2, invalid.toString());
+
+        assertThat(LktTreeMergerJena.merge(this.sources, RdfFileServiceJena.STORE_JENA, 2)).isNull();
+    }
+
+    @Test
+    public void testBuild() throws Exception {
+        final Path outFile = this.testFileFolder.resolve("out.ttl");
+        final String[] cliArgs = {"build", "-i", this.testFileFolder.resolve("source*.ttl").toString(),
+            "-o", outFile.toString(), "-p", "2"};
+        App.main(cliArgs);
+
+        final Model merged = RdfFileServiceJena.openModelFromFile(outFile.toString());
+        assertThat(merged.isIsomorphicWith(LktTreeMergerJena.merge(this.sources, RdfFileServiceJena.STORE_JENA, 1)))
+                .isTrue();
+        assertThat(merged.getNsPrefixURI("t")).isEqualTo("http://test.org/");
+    }
+
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.mergers;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import org.apache.commons.io.FileUtils;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.g_node.micro.rdf.RdfFileServiceJena;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link LktWatchMergerJena} class. The watch merge runs on a separate thread,
+ * merge files are dropped into a test directory.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class LktWatchMergerJenaTest {
+
+    private static final long TIMEOUT_MILLIS = 20000;
+
+    private final String tmpRoot = System.getProperty("java.io.tmpdir");
+    private final String testFolderName = this.getClass().getSimpleName();
+    private final Path testFileFolder = Paths.get(tmpRoot, testFolderName);
+    private final Path mainFile = this.testFileFolder.resolve("main.ttl");
+    private final Path outputFile = this.testFileFolder.resolve("out.ttl");
+    private final Path dropDir = this.testFileFolder.resolve("drop");
+
+    /**
+     * Create the main RDF file and the drop directory containing two merge files.
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        FileUtils.write(this.mainFile.toFile(),
+                "@prefix t: <http://test.org/> . t:A t:name \"main\" . t:B t:name \"main\" .");
+        FileUtils.write(this.dropDir.resolve("01.ttl").toFile(),
+                "@prefix t: <http://test.org/> . t:A t:name \"first\" . t:B t:name \"first\" .");
+        FileUtils.write(this.dropDir.resolve("02.ttl").toFile(),
+                "@prefix t: <http://test.org/> . t:A t:name \"second\" .");
+    }
+
+    /**
+     * Remove all created folders and files after the tests are done.
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (Files.exists(this.testFileFolder)) {
+            FileUtils.deleteDirectory(this.testFileFolder.toFile());
+        }
+    }
+
+    @Test
+    public void testWatchMerge() throws Exception {
+        final LktWatchMergerJena watchMerger = new LktWatchMergerJena(this.mainFile.toString(), this.dropDir,
+                this.outputFile.toString(), new LktMergeSettings(), 200);
+        final Thread watchThread = new Thread(watchMerger::run);
+        watchThread.start();
+
+        try {
+            // Files existing at the start are merged in the order of their names.
+            this.awaitFile(this.dropDir.resolve(LktWatchMergerJena.PROCESSED_DIR).resolve("02.ttl"));
+            this.assertOutput("second", "first");
+
+            // Arriving files are merged.
+            this.drop("03.ttl", "@prefix t: <http://test.org/> . t:B t:name \"third\" .");
+            this.awaitFile(this.dropDir.resolve(LktWatchMergerJena.PROCESSED_DIR).resolve("03.ttl"));
+            this.assertOutput("second", "third");
+
+            // Invalid files are moved aside.
+            this.drop("04.ttl", "I am not an RDF file.");
+            this.awaitFile(this.dropDir.resolve(LktWatchMergerJena.FAILED_DIR).resolve("04.ttl"));
+        } finally {
+            watchMerger.stop();
+            watchThread.join(TIMEOUT_MILLIS);
+        }
+        assertThat(watchThread.isAlive()).isFalse();
+    }
+
+    @Test
+    public void testRedeliveredFileMergedAgain() throws Exception {
+        final LktWatchMergerJena watchMerger = new LktWatchMergerJena(this.mainFile.toString(), this.dropDir,
+                this.outputFile.toString(), new LktMergeSettings(), 4000);
+        final Thread watchThread = new Thread(watchMerger::run);
+        watchThread.start();
+
+        final Path processed = this.dropDir.resolve(LktWatchMergerJena.PROCESSED_DIR).resolve("02.ttl");
+        final String redelivered = "@prefix t: <http://test.org/> . t:A t:name \"redelivered\" .";
+        try {
+            // 02.ttl is delivered again under the same name after it has been merged, but before it is saved.
+            Thread.sleep(2000);
+            assertThat(processed.toFile()).doesNotExist();
+            this.drop("02.ttl", redelivered);
+
+            this.awaitFile(processed);
+            this.assertOutput("redelivered", "first");
+            assertThat(FileUtils.readFileToString(processed.toFile())).isEqualTo(redelivered);
+        } finally {
+            watchMerger.stop();
+            watchThread.join(TIMEOUT_MILLIS);
+        }
+        assertThat(watchThread.isAlive()).isFalse();
+    }
+
+    /**
+     * Write a file to the test folder and move it into the drop directory.
+     * @param fileName Name of the dropped file.
+     * @param content Content of the dropped file.
+     * @throws Exception
+     */
+    private void drop(final String fileName, final String content) throws Exception {
+        final Path tmp = this.testFileFolder.resolve(fileName);
+        FileUtils.write(tmp.toFile(), content);
+        Files.move(tmp, this.dropDir.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Wait until a file exists.
+     * @param file Expected file.
+     * @throws Exception
+     */
+    private void awaitFile(final Path file) throws Exception {
+        final long end = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!Files.exists(file) && System.currentTimeMillis() < end) {
+            Thread.sleep(50);
+        }
+        assertThat(file.toFile()).exists();
+    }
+
+    /**
+     * Check the names of the Resources A and B of the output file.
+     * @param nameA Expected name of Resource A.
+     * @param nameB Expected name of Resource B.
+     */
+    private void assertOutput(final String nameA, final String nameB) {
+        final Model out = RdfFileServiceJena.openModelFromFile(this.outputFile.toString());
+        assertThat(out.size()).isEqualTo(2);
+        assertThat(out.getResource("http://test.org/A").getProperty(out.createProperty("http://test.org/name"))
+                .getString()).isEqualTo(nameA);
+        assertThat(out.getResource("http://test.org/B").getProperty(out.createProperty("http://test.org/name"))
+                .getString()).isEqualTo(nameB);
+    }
+
+}
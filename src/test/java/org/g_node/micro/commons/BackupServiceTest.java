@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.commons;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.Future;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link BackupService} class.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class BackupServiceTest {
+
+    private final String tmpRoot = System.getProperty("java.io.tmpdir");
+    private final String testFolderName = this.getClass().getSimpleName();
+    private final Path testFileFolder = Paths.get(tmpRoot, testFolderName);
+    private final Path mainPath = this.testFileFolder.resolve("main.ttl");
+    private final String mainContent = "<http://test.org/A> <http://test.org/name> \"A\" .\n";
+
+    /**
+     * Create the main test file and two outdated backups of it.
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        FileUtils.write(this.mainPath.toFile(), this.mainContent, "UTF-8");
+        FileUtils.write(this.testFileFolder.resolve("201601010000_backup_main.ttl").toFile(), "old", "UTF-8");
+        FileUtils.write(this.testFileFolder.resolve("201601020000_backup_main.ttl").toFile(), "older", "UTF-8");
+        FileUtils.write(this.testFileFolder.resolve("201601020000_backup_other.ttl").toFile(), "other", "UTF-8");
+    }
+
+    /**
+     * Remove all created folders and files after the tests are done.
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (Files.exists(this.testFileFolder)) {
+            FileUtils.deleteDirectory(this.testFileFolder.toFile());
+        }
+    }
+
+    /**
+     * Test that linked backups keep the replaced content, are skipped for unchanged files and that backups
+     * exceeding the maximum age are deleted, once the file has been replaced.
+     * @throws Exception
+     */
+    @Test
+    public void testLinkBackup() throws Exception {
+        final BackupService service = new BackupService(BackupService.LINK, 0, 30);
+
+        assertThat(service.backup(this.mainPath.toString())).isTrue();
+        assertThat(BackupService.listBackups(this.mainPath)).hasSize(3);
+        service.pruneBackups(this.mainPath.toString());
+        final List<Path> backups = BackupService.listBackups(this.mainPath);
+        assertThat(backups).hasSize(1);
+        assertThat(Files.isSameFile(backups.get(0), this.mainPath)).isTrue();
+        assertThat(Files.exists(this.testFileFolder.resolve("201601020000_backup_other.ttl"))).isTrue();
+
+        // The file has not been replaced since its latest backup.
+        assertThat(service.backup(this.mainPath.toString())).isTrue();
+
+        final Path tmpPath = FileService.createSiblingTempFile(this.mainPath);
+        FileUtils.write(tmpPath.toFile(), "replaced", "UTF-8");
+        FileService.replaceAtomically(tmpPath, this.mainPath, false);
+        assertThat(FileUtils.readFileToString(backups.get(0).toFile(), "UTF-8")).isEqualTo(this.mainContent);
+    }
+
+    /**
+     * Test that a copy started in the background contains the content of the file at the start of the backup,
+     * that identical copies are linked and that only the maximum number of backups is kept.
+     * @throws Exception
+     */
+    @Test
+    public void testCopyBackup() throws Exception {
+        final Path identical = this.testFileFolder.resolve("201601030000_backup_main.ttl");
+        FileUtils.write(identical.toFile(), this.mainContent, "UTF-8");
+        FileUtils.write(this.testFileFolder.resolve(".201601030000_backup_main.ttl.sha256").toFile(),
+                DigestUtils.sha256Hex(this.mainContent), "UTF-8");
+
+        final BackupService service = new BackupService(BackupService.COPY, 2, 0);
+        final Future<Boolean> backup = service.backupAsync(this.mainPath.toString());
+        final Path tmpPath = FileService.createSiblingTempFile(this.mainPath);
+        FileUtils.write(tmpPath.toFile(), "replaced", "UTF-8");
+        FileService.replaceAtomically(tmpPath, this.mainPath, false);
+        assertThat(BackupService.await(this.mainPath.toString(), backup)).isTrue();
+        service.pruneBackups(this.mainPath.toString());
+
+        final List<Path> backups = BackupService.listBackups(this.mainPath);
+        assertThat(backups).hasSize(2);
+        assertThat(backups.get(0)).isEqualTo(identical);
+        assertThat(Files.isSameFile(backups.get(1), identical)).isTrue();
+        assertThat(FileUtils.readFileToString(backups.get(1).toFile(), "UTF-8")).isEqualTo(this.mainContent);
+        assertThat(Files.exists(this.testFileFolder.resolve("201601010000_backup_main.ttl"))).isFalse();
+    }
+
+    /**
+     * Test that compressed backups can be read, that an identical backup of the same minute is reused and that
+     * a changed file is backed up next to an existing backup of the same minute.
+     * @throws Exception
+     */
+    @Test
+    public void testGzipBackup() throws Exception {
+        final BackupService service = new BackupService(BackupService.GZIP);
+
+        assertThat(service.backup(this.mainPath.toString())).isTrue();
+        List<Path> backups = BackupService.listBackups(this.mainPath);
+        assertThat(backups).hasSize(3);
+        final Path compressed = backups.get(2);
+        assertThat(compressed.getFileName().toString()).endsWith("_backup_main.ttl.gz");
+        try (InputStream in = CompressionService.openInputStream(compressed)) {
+            assertThat(IOUtils.toString(in, "UTF-8")).isEqualTo(this.mainContent);
+        }
+
+        assertThat(service.backup(this.mainPath.toString())).isTrue();
+        assertThat(BackupService.listBackups(this.mainPath)).hasSize(3);
+
+        FileUtils.write(this.mainPath.toFile(), "replaced", "UTF-8");
+        assertThat(service.backup(this.mainPath.toString())).isTrue();
+        backups = BackupService.listBackups(this.mainPath);
+        assertThat(backups).hasSize(4);
+        assertThat(backups.get(2)).isEqualTo(compressed);
+        assertThat(backups.get(3).getFileName().toString()).endsWith("-2_backup_main.ttl.gz");
+        try (InputStream in = CompressionService.openInputStream(backups.get(3))) {
+            assertThat(IOUtils.toString(in, "UTF-8")).isEqualTo("replaced");
+        }
+    }
+
+    /**
+     * Test that a file replaced twice within the same minute keeps a linked backup of both versions.
+     * @throws Exception
+     */
+    @Test
+    public void testLinkBackupSameMinute() throws Exception {
+        final BackupService service = new BackupService(BackupService.LINK);
+        final Path tmpPath = FileService.createSiblingTempFile(this.mainPath);
+
+        assertThat(service.backup(this.mainPath.toString())).isTrue();
+        FileUtils.write(tmpPath.toFile(), "second", "UTF-8");
+        FileService.replaceAtomically(tmpPath, this.mainPath, false);
+        assertThat(service.backup(this.mainPath.toString())).isTrue();
+        FileUtils.write(tmpPath.toFile(), "third", "UTF-8");
+        FileService.replaceAtomically(tmpPath, this.mainPath, false);
+
+        final List<Path> backups = BackupService.listBackups(this.mainPath);
+        assertThat(backups).hasSize(4);
+        assertThat(FileUtils.readFileToString(backups.get(2).toFile(), "UTF-8")).isEqualTo(this.mainContent);
+        assertThat(backups.get(3).getFileName().toString()).endsWith("-2_backup_main.ttl");
+        assertThat(FileUtils.readFileToString(backups.get(3).toFile(), "UTF-8")).isEqualTo("second");
+    }
+
+}
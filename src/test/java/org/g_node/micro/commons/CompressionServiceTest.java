@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.commons;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link CompressionService} class.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class CompressionServiceTest {
+
+    private final String tmpRoot = System.getProperty("java.io.tmpdir");
+    private final String testFolderName = this.getClass().getSimpleName();
+    private final Path testFileFolder = Paths.get(tmpRoot, testFolderName);
+
+    /**
+     * Create the temporary test folder.
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        Files.createDirectories(this.testFileFolder);
+    }
+
+    /**
+     * Remove all created folders and files after the tests are done.
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (Files.exists(this.testFileFolder)) {
+            FileUtils.deleteDirectory(this.testFileFolder.toFile());
+        }
+    }
+
+    /**
+     * Test compression types derived from file names.
+     * @throws Exception
+     */
+    @Test
+    public void testCompressionByName() throws Exception {
+        assertThat(CompressionService.getCompressionByName("data.ttl.gz")).isEqualTo(CompressionService.GZIP);
+        assertThat(CompressionService.getCompressionByName("data.ttl.GZ")).isEqualTo(CompressionService.GZIP);
+        assertThat(CompressionService.getCompressionByName("data.nt.bz2")).isEqualTo(CompressionService.NONE);
+        assertThat(CompressionService.getCompressionByName("data.ttl")).isEqualTo(CompressionService.NONE);
+
+        assertThat(CompressionService.stripCompressionExtension("data.ttl.gz")).isEqualTo("data.ttl");
+        assertThat(CompressionService.stripCompressionExtension("data.ttl")).isEqualTo("data.ttl");
+        assertThat(CompressionService.stripCompressionExtension("data.nt.bz2")).isEqualTo("data.nt.bz2");
+    }
+
+    /**
+     * Test that data written to a gzip file is compressed and read back unchanged, and that the magic bytes
+     * of a file take precedence over its file extension.
+     * @throws Exception
+     */
+    @Test
+    public void testGzipRoundTrip() throws Exception {
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            content.append("<http://test.org/s> <http://test.org/p> \"").append(i).append("\" .\n");
+        }
+        final byte[] data = content.toString().getBytes(StandardCharsets.UTF_8);
+
+        final Path gzFile = this.testFileFolder.resolve("test.nt.gz");
+        try (OutputStream out = CompressionService.openOutputStream(gzFile, CompressionService.GZIP)) {
+            out.write(data, 0, 10);
+            out.write(data[10]);
+            out.write(data, 11, data.length - 11);
+        }
+        assertThat(Files.size(gzFile)).isLessThan(data.length);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(gzFile))) {
+            assertThat(IOUtils.toByteArray(in)).isEqualTo(data);
+        }
+
+        // Compressed content is detected by its magic bytes, independent of the file extension.
+        final Path renamed = this.testFileFolder.resolve("test.nt");
+        Files.copy(gzFile, renamed);
+        assertThat(CompressionService.detectCompression(renamed)).isEqualTo(CompressionService.GZIP);
+        try (InputStream in = CompressionService.openInputStream(renamed)) {
+            assertThat(IOUtils.toByteArray(in)).isEqualTo(data);
+        }
+
+        final Path plain = this.testFileFolder.resolve("plain.nt.gz");
+        Files.write(plain, data);
+        assertThat(CompressionService.detectCompression(plain)).isEqualTo(CompressionService.NONE);
+        assertThat(CompressionService.detectCompression(this.testFileFolder.resolve("new.nt.gz")))
+                .isEqualTo(CompressionService.GZIP);
+    }
+
+    /**
+     * Test that unsupported compression types are rejected.
+     * @throws Exception
+     */
+    @Test
+    public void testUnsupportedCompression() throws Exception {
+        final Path bz2File = this.testFileFolder.resolve("test.nt.bz2");
+        Files.write(bz2File, "BZh91AY&SY".getBytes(StandardCharsets.US_ASCII));
+        assertThat(CompressionService.detectCompression(bz2File)).isEqualTo(CompressionService.NONE);
+
+        try {
+            CompressionService.openOutputStream(this.testFileFolder.resolve("out.nt.zst"), "ZST").close();
+            fail("Unsupported compression was written without error.");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).contains("ZST");
+        }
+    }
+
+}
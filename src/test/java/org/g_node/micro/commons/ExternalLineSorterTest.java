@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.commons;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.apache.commons.io.FileUtils;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link ExternalLineSorter} class.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class ExternalLineSorterTest {
+
+    private final String tmpRoot = System.getProperty("java.io.tmpdir");
+    private final String testFolderName = this.getClass().getSimpleName();
+    private final Path testFileFolder = Paths.get(tmpRoot, testFolderName);
+    private final Path runDir = this.testFileFolder.resolve("runs");
+
+    /**
+     * Create the directory of the run files.
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        Files.createDirectories(this.runDir);
+    }
+
+    /**
+     * Remove all created folders and files after the tests are done.
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (Files.exists(this.testFileFolder)) {
+            FileUtils.deleteDirectory(this.testFileFolder.toFile());
+        }
+    }
+
+    @Test
+    public void testSortTo() throws Exception {
+        final Random random = new Random(42);
+        final TreeSet<String> expected = new TreeSet<>();
+        final Path out = this.testFileFolder.resolve("sorted.txt");
+
+        // A small buffer results in more runs than are merged at once.
+        try (ExternalLineSorter sorter = new ExternalLineSorter(this.runDir, 2048)) {
+            for (int i = 0; i < 5000; i++) {
+                final String line = String.join("", "_:b", String.valueOf(random.nextInt(3000)), " line");
+                expected.add(line);
+                sorter.add(line);
+            }
+            assertThat(sorter.sortTo(out)).isEqualTo(expected.size());
+        }
+        assertThat(Files.readAllLines(out, StandardCharsets.UTF_8)).containsExactlyElementsOf(expected);
+        assertThat(this.runDir.toFile().list()).isEmpty();
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        final Path first = this.testFileFolder.resolve("first.txt");
+        final Path second = this.testFileFolder.resolve("second.txt");
+        final Path empty = this.testFileFolder.resolve("empty.txt");
+        final Path out = this.testFileFolder.resolve("merged.txt");
+        FileUtils.write(first.toFile(), "a\nc\ne\n");
+        FileUtils.write(second.toFile(), "b\nc\nd\n");
+        FileUtils.write(empty.toFile(), "");
+
+        final List<Path> sorted = new ArrayList<>();
+        sorted.add(first);
+        sorted.add(empty);
+        sorted.add(second);
+        assertThat(ExternalLineSorter.merge(sorted, out)).isEqualTo(5);
+        assertThat(Files.readAllLines(out, StandardCharsets.UTF_8)).containsExactly("a", "b", "c", "d", "e");
+    }
+
+}
@@ -167,4 +167,52 @@ public class FileServiceTest {
         assertThat(this.outStream.toString()).contains(errorMessage);
     }
 
+    /**
+     * Check that a hard linked backup keeps the old content, when the file is replaced atomically,
+     * that concurrent writers get different temporary files and that the temporary file is moved into place.
+     * @throws Exception
+     */
+    @Test
+    public void testReplaceAtomically() throws Exception {
+        final String timeStamp = "yyyyMMddHH";
+        final Path mainPath = this.testFileFolder.resolve(this.testFileName);
+        Files.createLink(FileService.getTimeStampBackupPath(mainPath, timeStamp), mainPath);
+
+        final Path tmpPath = FileService.createSiblingTempFile(mainPath);
+        assertThat(tmpPath.getParent()).isEqualTo(mainPath.toAbsolutePath().getParent());
+        assertThat(FileService.createSiblingTempFile(mainPath)).isNotEqualTo(tmpPath);
+        FileUtils.write(tmpPath.toFile(), "This is the replaced test file");
+        FileService.replaceAtomically(tmpPath, mainPath, true);
+
+        final String backupName = String.join("", AppUtils.getTimeStamp(timeStamp), "_backup_", this.testFileName);
+        assertThat(Files.exists(tmpPath)).isFalse();
+        assertThat(FileUtils.readFileToString(mainPath.toFile())).isEqualTo("This is the replaced test file");
+        assertThat(FileUtils.readFileToString(this.testFileFolder.resolve(backupName).toFile()))
+                .isEqualTo("This is a normal test file");
+    }
+
+    /**
+     * Check that directories and glob patterns are resolved to the contained files sorted by name
+     * and that plain file names are returned unchanged.
+     * @throws Exception
+     */
+    @Test
+    public void testResolveFiles() throws Exception {
+        final Path dir = this.testFileFolder.resolve("resolve");
+        FileUtils.write(dir.resolve("b.ttl").toFile(), "b");
+        FileUtils.write(dir.resolve("a.ttl").toFile(), "a");
+        FileUtils.write(dir.resolve("c.nt").toFile(), "c");
+        FileUtils.write(dir.resolve(".hidden.ttl").toFile(), "hidden");
+        Files.createDirectories(dir.resolve("sub"));
+
+        assertThat(FileService.resolveFiles(dir.toString())).containsExactly(
+                dir.resolve("a.ttl").toString(), dir.resolve("b.ttl").toString(), dir.resolve("c.nt").toString());
+        assertThat(FileService.resolveFiles(dir.resolve("*.ttl").toString())).containsExactly(
+                dir.resolve("a.ttl").toString(), dir.resolve("b.ttl").toString());
+        assertThat(FileService.resolveFiles(dir.resolve("*.rdf").toString())).isEmpty();
+
+        final String plainFile = dir.resolve("iDoNotExist.ttl").toString();
+        assertThat(FileService.resolveFiles(plainFile)).containsExactly(plainFile);
+    }
+
 }
@@ -0,0 +1,234 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.datatypes.xsd.XSDDatatype;
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.NodeFactory;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link CompactGraph} class. Results are compared with default Jena models
+ * containing the same data.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class CompactGraphTest {
+
+    /**
+     * Store types backed by a {@link CompactGraph}.
+     */
+    private static final String[] STORES = {RdfFileServiceJena.STORE_COMPACT, RdfFileServiceJena.STORE_OFFHEAP};
+
+    private final String tmpRoot = System.getProperty("java.io.tmpdir");
+    private final String testFolderName = this.getClass().getSimpleName();
+    private final Path testFileFolder = Paths.get(tmpRoot, testFolderName);
+    private final File mainFile = this.testFileFolder.resolve("main.ttl").toFile();
+    private final File removeFile = this.testFileFolder.resolve("remove.ttl").toFile();
+
+    /**
+     * Create the test files.
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        final String mainTTL = String.join("\n",
+                "@prefix res: <http://test.org/testResource/> .",
+                "@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .",
+                "res:RootID res:hasNode res:RemoveTestID , res:KeepTestID .",
+                "res:RemoveTestID a res:TestNode ; rdfs:label \"Remove\" ;",
+                "    res:hasAnonNode [ res:hasAnonProperty \"literal 1\" , \"literal 2\" ] .",
+                "res:KeepTestID a res:TestNode ; rdfs:label \"Keep\"@en ;",
+                "    res:hasAnonNode [ res:hasAnonProperty \"literal 3\" , \"literal 4\" ] .",
+                "");
+        FileUtils.write(this.mainFile, mainTTL, "UTF-8");
+
+        final String removeTTL = String.join("\n",
+                "@prefix res: <http://test.org/testResource/> .",
+                "res:RootID res:hasNode res:RemoveTestID .",
+                "res:RemoveTestID a res:TestNode .",
+                "");
+        FileUtils.write(this.removeFile, removeTTL, "UTF-8");
+    }
+
+    /**
+     * Remove all created folders and files after the tests are done.
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (Files.exists(this.testFileFolder)) {
+            FileUtils.deleteDirectory(this.testFileFolder.toFile());
+        }
+    }
+
+    /**
+     * Test that loading, finding, adding and deleting triples results in the same data as a default Jena model.
+     * @throws Exception
+     */
+    @Test
+    public void testFind() throws Exception {
+        final Model jenaModel = RdfFileServiceJena.loadRdfFile(this.mainFile.getAbsolutePath()).getModel();
+
+        for (final String store : CompactGraphTest.STORES) {
+            final RdfLoadResult result = RdfFileServiceJena.loadRdfFile(
+                    this.mainFile.getAbsolutePath(), false, store);
+            final Model compactModel = result.getModel();
+
+            assertThat(compactModel.getGraph()).isInstanceOf(CompactGraph.class);
+            assertThat(compactModel.size()).isEqualTo(12);
+            assertThat(compactModel.isIsomorphicWith(jenaModel)).isTrue();
+            assertThat(result.getPrefixes()).containsKeys("res", "rdfs");
+
+            final Node root = NodeFactory.createURI("http://test.org/testResource/RootID");
+            final Node hasNode = NodeFactory.createURI("http://test.org/testResource/hasNode");
+            final Node keep = NodeFactory.createURI("http://test.org/testResource/KeepTestID");
+            final Node unknown = NodeFactory.createURI("http://test.org/testResource/Unknown");
+
+            assertThat(compactModel.getGraph().find(root, Node.ANY, Node.ANY).toList()).hasSize(2);
+            assertThat(compactModel.getGraph().find(Node.ANY, Node.ANY, keep).toList()).hasSize(1);
+            assertThat(compactModel.getGraph().find(Node.ANY, hasNode, Node.ANY).toList()).hasSize(2);
+            assertThat(compactModel.getGraph().find(root, hasNode, keep).toList()).hasSize(1);
+            assertThat(compactModel.getGraph().find(unknown, Node.ANY, Node.ANY).toList()).isEmpty();
+
+            // Duplicate triples are only stored once, deleted triples are not found anymore.
+            compactModel.getGraph().add(Triple.create(root, hasNode, keep));
+            compactModel.getGraph().add(Triple.create(root, hasNode, unknown));
+            assertThat(compactModel.size()).isEqualTo(13);
+            compactModel.getGraph().delete(Triple.create(root, hasNode, keep));
+            assertThat(compactModel.getGraph().contains(root, hasNode, keep)).isFalse();
+            assertThat(compactModel.getGraph().find(Node.ANY, Node.ANY, keep).toList()).isEmpty();
+            assertThat(compactModel.size()).isEqualTo(12);
+
+            // Pretty printed Turtle written from the graph can be read again.
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            RDFDataMgr.write(out, compactModel, RDFFormat.TURTLE_PRETTY);
+            final Model readModel = ModelFactory.createDefaultModel();
+            RDFDataMgr.read(readModel, new ByteArrayInputStream(out.toByteArray()), Lang.TURTLE);
+            assertThat(readModel.isIsomorphicWith(compactModel)).isTrue();
+        }
+    }
+
+    /**
+     * Test that triples added in several rounds after reads and deletes are merged into the indexes
+     * as they would be stored by a default Jena graph.
+     * @throws Exception
+     */
+    @Test
+    public void testIncrementalIndex() throws Exception {
+        final Node[] terms = new Node[12];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = NodeFactory.createURI("http://test.org/testResource/" + i);
+        }
+
+        for (final CompactGraph graph : new CompactGraph[]{new CompactGraph(), CompactGraph.createOffHeap()}) {
+            final Graph expected = ModelFactory.createDefaultModel().getGraph();
+            final Random random = new Random(42);
+            for (int round = 0; round < 20; round++) {
+                final int adds = 1 + random.nextInt(40);
+                final int deletes = random.nextInt(5);
+                for (int i = 0; i < adds; i++) {
+                    final Triple t = Triple.create(terms[random.nextInt(terms.length)],
+                            terms[random.nextInt(4)], terms[random.nextInt(terms.length)]);
+                    graph.add(t);
+                    expected.add(t);
+                }
+                for (int i = 0; i < deletes; i++) {
+                    final Triple t = Triple.create(terms[random.nextInt(terms.length)],
+                            terms[random.nextInt(4)], terms[random.nextInt(terms.length)]);
+                    graph.delete(t);
+                    expected.delete(t);
+                }
+
+                assertThat(graph.size()).isEqualTo(expected.size());
+                for (final Node n : terms) {
+                    assertThat(graph.find(n, Node.ANY, Node.ANY).toSet())
+                            .isEqualTo(expected.find(n, Node.ANY, Node.ANY).toSet());
+                    assertThat(graph.find(Node.ANY, Node.ANY, n).toSet())
+                            .isEqualTo(expected.find(Node.ANY, Node.ANY, n).toSet());
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that removing replaced subjects on term IDs results in the same data as removing
+     * them from a default Jena model.
+     * @throws Exception
+     */
+    @Test
+    public void testRemoveSubjects() throws Exception {
+        final Model removeModel = RdfFileServiceJena.openModelFromFile(this.removeFile.getAbsolutePath());
+
+        for (final String store : CompactGraphTest.STORES) {
+            for (final boolean removeAnonNodes : new boolean[]{true, false}) {
+                final Model jenaModel = RdfUtilsJena.removePropertiesFromModel(removeModel,
+                        RdfFileServiceJena.loadRdfFile(this.mainFile.getAbsolutePath()).getModel(), removeAnonNodes);
+                final Model compactModel = RdfUtilsJena.removePropertiesFromModel(removeModel,
+                        RdfFileServiceJena.loadRdfFile(this.mainFile.getAbsolutePath(), false, store).getModel(),
+                        removeAnonNodes);
+
+                assertThat(compactModel.size()).isEqualTo(removeAnonNodes ? 5 : 7);
+                assertThat(compactModel.isIsomorphicWith(jenaModel)).isTrue();
+            }
+        }
+    }
+
+    /**
+     * Test that all kinds of RDF terms are stored and read again by the off-heap dictionary.
+     * @throws Exception
+     */
+    @Test
+    public void testOffHeapDictionary() throws Exception {
+        final Node[] nodes = {
+            NodeFactory.createURI("http://test.org/testResource/RootID"),
+            NodeFactory.createAnon(),
+            NodeFactory.createLiteral("plain"),
+            NodeFactory.createLiteral("Keep", "en", false),
+            NodeFactory.createLiteral("42", XSDDatatype.XSDinteger),
+            NodeFactory.createLiteral("\u00fcnic\u00f6de \"quoted\"\n")
+        };
+
+        final OffHeapNodeDictionary dictionary = new OffHeapNodeDictionary();
+        for (int i = 0; i < 5000; i++) {
+            assertThat(dictionary.intern(NodeFactory.createURI("http://test.org/testResource/" + i))).isEqualTo(i);
+        }
+        for (final Node n : nodes) {
+            final int id = dictionary.intern(n);
+            assertThat(dictionary.intern(n)).isEqualTo(id);
+            assertThat(dictionary.lookup(n)).isEqualTo(id);
+            assertThat(dictionary.get(id)).isEqualTo(n);
+            assertThat(dictionary.isBlank(id)).isEqualTo(n.isBlank());
+        }
+        assertThat(dictionary.size()).isEqualTo(5000 + nodes.length);
+        assertThat(dictionary.lookup(NodeFactory.createURI("http://test.org/testResource/Unknown")))
+                .isEqualTo(NodeDictionary.NOT_FOUND);
+    }
+
+}
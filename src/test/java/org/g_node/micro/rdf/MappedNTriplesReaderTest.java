@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.sparql.core.DatasetGraph;
+import com.hp.hpl.jena.sparql.core.DatasetGraphFactory;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+import org.apache.commons.io.FileUtils;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RiotParseException;
+import org.apache.jena.riot.system.StreamRDFLib;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link MappedNTriplesReader} class. The results of the reader are compared
+ * with the results of the Jena N-Triples and N-Quads parsers.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class MappedNTriplesReaderTest {
+
+    private final String tmpRoot = System.getProperty("java.io.tmpdir");
+    private final String testFolderName = this.getClass().getSimpleName();
+    private final Path testFileFolder = Paths.get(tmpRoot, testFolderName);
+
+    private final String testNT = String.join("\n",
+            "# comment line",
+            "<http://test.org/A> <http://test.org/name> \"plain\" .",
+            "<http://test.org/A> <http://test.org/label> \"Beschriftung\"@de .",
+            "<http://test.org/A> <http://test.org/count> \"3\"^^<http://www.w3.org/2001/XMLSchema#int> .",
+            "<http://test.org/A> <http://test.org/text> \"tab\\t quote\\\" \\u00e4 ü\" .",
+            "",
+            "<http://test.org/A> <http://test.org/anon> _:b1 .",
+            "_:b1 <http://test.org/nested> _:b2.",
+            "_:b2 <http://test.org/value> \"nested\" . # trailing comment",
+            "<http://test.org/B>\t<http://test.org/ref>\t<http://test.org/A\\u00e4> .\r",
+            "");
+
+    /**
+     * Remove all created folders and files after the tests are done.
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (Files.exists(this.testFileFolder)) {
+            FileUtils.deleteDirectory(this.testFileFolder.toFile());
+        }
+    }
+
+    /**
+     * Test that the mapped reader produces the same graph as the Jena N-Triples parser.
+     * @throws Exception
+     */
+    @Test
+    public void testReadNTriples() throws Exception {
+        final File testFile = this.testFileFolder.resolve("test.nt").toFile();
+        FileUtils.write(testFile, this.testNT, "UTF-8");
+
+        final Model jenaModel = RDFDataMgr.loadModel(testFile.getAbsolutePath(), Lang.NTRIPLES);
+
+        final Model mappedModel = ModelFactory.createDefaultModel();
+        MappedNTriplesReader.read(testFile.toPath(), StreamRDFLib.graph(mappedModel.getGraph()));
+
+        assertThat(mappedModel.size()).isEqualTo(8);
+        assertThat(mappedModel.isIsomorphicWith(jenaModel)).isTrue();
+
+        // Mapping the file in several small regions results in the same graph.
+        final Model splitModel = ModelFactory.createDefaultModel();
+        MappedNTriplesReader.read(testFile.toPath(), StreamRDFLib.graph(splitModel.getGraph()),
+                UUID.randomUUID(), 100);
+        assertThat(splitModel.isIsomorphicWith(jenaModel)).isTrue();
+
+        // Models loaded via the file service use the mapped reader for N-Triples files.
+        assertThat(RdfFileServiceJena.openModelFromFile(testFile.getAbsolutePath())
+                .isIsomorphicWith(jenaModel)).isTrue();
+    }
+
+    /**
+     * Test that quads of named graphs are sent as quads and quads of the default graph as triples.
+     * @throws Exception
+     */
+    @Test
+    public void testReadNQuads() throws Exception {
+        final String testNQ = String.join("\n",
+                "<http://test.org/A> <http://test.org/name> \"default\" .",
+                "<http://test.org/A> <http://test.org/name> \"named\" <http://test.org/G> .",
+                "_:b1 <http://test.org/name> \"blank\" _:g1 .",
+                "");
+        final File testFile = this.testFileFolder.resolve("test.nq").toFile();
+        FileUtils.write(testFile, testNQ, "UTF-8");
+
+        final DatasetGraph dsg = DatasetGraphFactory.createMem();
+        MappedNTriplesReader.read(testFile.toPath(), StreamRDFLib.dataset(dsg));
+
+        assertThat(dsg.getDefaultGraph().size()).isEqualTo(1);
+        assertThat(dsg.size()).isEqualTo(2);
+    }
+
+    /**
+     * Test that invalid lines result in a parse exception containing the position of the error.
+     * @throws Exception
+     */
+    @Test
+    public void testReadInvalid() throws Exception {
+        final String invalidNT = String.join("\n",
+                "<http://test.org/A> <http://test.org/name> \"valid\" .",
+                "<http://test.org/A> <http://test.org/name> \"missing end\"",
+                "");
+        final File testFile = this.testFileFolder.resolve("invalid.nt").toFile();
+        FileUtils.write(testFile, invalidNT, "UTF-8");
+
+        try {
+            MappedNTriplesReader.read(testFile.toPath(), StreamRDFLib.sinkNull());
+            fail("Invalid N-Triples file was parsed without error.");
+        } catch (RiotParseException e) {
+            assertThat(e.getLine()).isEqualTo(2);
+        }
+
+        final RdfLoadResult result = RdfFileServiceJena.loadRdfFile(testFile.getAbsolutePath());
+        assertThat(result.isValid()).isFalse();
+        assertThat(result.getLine()).isEqualTo(2);
+    }
+
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import org.apache.commons.io.FileUtils;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RiotParseException;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link ParallelNTriplesParser} class. Small chunk sizes are used to split
+ * the test files into many chunks.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class ParallelNTriplesParserTest {
+
+    private final String tmpRoot = System.getProperty("java.io.tmpdir");
+    private final String testFolderName = this.getClass().getSimpleName();
+    private final Path testFileFolder = Paths.get(tmpRoot, testFolderName);
+
+    private File testFile;
+
+    /**
+     * Create a test file, where blank nodes are referenced from lines far apart from each other.
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        final StringBuilder testNT = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            testNT.append(String.join("", "<http://test.org/s", String.valueOf(i), "> <http://test.org/anon> _:b",
+                    String.valueOf(i), " .\n"));
+        }
+        for (int i = 0; i < 200; i++) {
+            testNT.append(String.join("", "_:b", String.valueOf(i), " <http://test.org/value> \"v",
+                    String.valueOf(i), "\" .\n"));
+        }
+        this.testFile = this.testFileFolder.resolve("test.nt").toFile();
+        FileUtils.write(this.testFile, testNT.toString(), "UTF-8");
+    }
+
+    /**
+     * Remove all created folders and files after the tests are done.
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (Files.exists(this.testFileFolder)) {
+            FileUtils.deleteDirectory(this.testFileFolder.toFile());
+        }
+    }
+
+    /**
+     * Test that parsing a file in many chunks produces the same graph as the Jena N-Triples parser
+     * and that blank nodes are consistent across chunks.
+     * @throws Exception
+     */
+    @Test
+    public void testParseGraph() throws Exception {
+        final Model jenaModel = RDFDataMgr.loadModel(this.testFile.getAbsolutePath(), Lang.NTRIPLES);
+
+        final Model parallelModel = ModelFactory.createDefaultModel();
+        final StreamRDF[] dest = {StreamRDFLib.graph(parallelModel.getGraph())};
+        ParallelNTriplesParser.parse(this.testFile.toPath(), dest, UUID.randomUUID(), new ForkJoinPool(4), 256);
+
+        assertThat(parallelModel.size()).isEqualTo(400);
+        assertThat(parallelModel.isIsomorphicWith(jenaModel)).isTrue();
+
+        final Model defaultModel = ModelFactory.createDefaultModel();
+        ParallelNTriplesParser.parse(this.testFile.toPath(), defaultModel.getGraph());
+        assertThat(defaultModel.isIsomorphicWith(jenaModel)).isTrue();
+    }
+
+    /**
+     * Test that parsed triples are sent to the shard of their subject.
+     * @throws Exception
+     */
+    @Test
+    public void testParseShards() throws Exception {
+        final Model[] shardModels = new Model[3];
+        final StreamRDF[] shards = new StreamRDF[shardModels.length];
+        for (int i = 0; i < shardModels.length; i++) {
+            shardModels[i] = ModelFactory.createDefaultModel();
+            shards[i] = StreamRDFLib.graph(shardModels[i].getGraph());
+        }
+        ParallelNTriplesParser.parse(this.testFile.toPath(), shards, UUID.randomUUID(), new ForkJoinPool(4), 256);
+
+        final Model unionModel = ModelFactory.createDefaultModel();
+        for (int i = 0; i < shardModels.length; i++) {
+            for (final Triple t : shardModels[i].getGraph().find(null, null, null).toList()) {
+                assertThat(ParallelNTriplesParser.shardOf(t.getSubject(), shardModels.length)).isEqualTo(i);
+            }
+            unionModel.add(shardModels[i]);
+        }
+        assertThat(unionModel.isIsomorphicWith(
+                RDFDataMgr.loadModel(this.testFile.getAbsolutePath(), Lang.NTRIPLES))).isTrue();
+    }
+
+    /**
+     * Test that the parse error of a chunk reports the line of the error within the whole file.
+     * @throws Exception
+     */
+    @Test
+    public void testParseInvalid() throws Exception {
+        final String content = FileUtils.readFileToString(this.testFile, "UTF-8");
+        FileUtils.write(this.testFile, String.join("", content, "<http://test.org/s> <http://test.org/p> \"x\"\n"),
+                "UTF-8");
+
+        try {
+            final StreamRDF[] dest = {StreamRDFLib.sinkNull()};
+            ParallelNTriplesParser.parse(this.testFile.toPath(), dest, UUID.randomUUID(), new ForkJoinPool(4), 256);
+            fail("Invalid N-Triples file was parsed without error.");
+        } catch (RiotParseException e) {
+            assertThat(e.getLine()).isEqualTo(401);
+        }
+    }
+
+}
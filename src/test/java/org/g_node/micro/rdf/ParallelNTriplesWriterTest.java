@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.apache.commons.io.FileUtils;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link ParallelNTriplesWriter} class.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class ParallelNTriplesWriterTest {
+
+    private final String tmpRoot = System.getProperty("java.io.tmpdir");
+    private final String testFolderName = this.getClass().getSimpleName();
+    private final Path testFileFolder = Paths.get(tmpRoot, testFolderName);
+    private final File testFile = this.testFileFolder.resolve("test.ttl").toFile();
+    private final Path outFile = this.testFileFolder.resolve("out.nt");
+
+    /**
+     * Create a Turtle test file containing Blank Nodes and all kinds of literals.
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        final StringBuilder testTTL = new StringBuilder(String.join("\n",
+                "@prefix foaf: <http://xmlns.com/foaf/0.1/> .",
+                "@prefix xsd: <http://www.w3.org/2001/XMLSchema#> .",
+                "<http://test.org/A> foaf:name \"plain\" , \"with \\\"quotes\\\"\\nand \\u00fc\" ;",
+                "    foaf:nick \"Spitzname\"@de ;",
+                "    foaf:age \"42\"^^xsd:int ;",
+                "    foaf:knows [ foaf:name \"anon\" ; foaf:knows [ foaf:name \"nested\" ] ] .",
+                ""));
+        for (int i = 0; i < 100; i++) {
+            testTTL.append("<http://test.org/P").append(i).append("> foaf:knows _:b").append(i % 7)
+                    .append(" ; foaf:name \"person ").append(i).append("\" .\n");
+        }
+        FileUtils.write(this.testFile, testTTL.toString(), "UTF-8");
+    }
+
+    /**
+     * Remove all created folders and files after the tests are done.
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (Files.exists(this.testFileFolder)) {
+            FileUtils.deleteDirectory(this.testFileFolder.toFile());
+        }
+    }
+
+    /**
+     * Test that a graph written in many small chunks is read back as the same graph.
+     * @throws Exception
+     */
+    @Test
+    public void testWriteChunks() throws Exception {
+        final Model model = RdfFileServiceJena.openModelFromFile(this.testFile.getAbsolutePath());
+        Files.write(this.outFile, "outdated content\n".getBytes(StandardCharsets.UTF_8));
+
+        ParallelNTriplesWriter.write(this.outFile, model.getGraph(), 4, 3);
+
+        assertThat(Files.readAllLines(this.outFile, StandardCharsets.UTF_8)).hasSize((int) model.size());
+        final Model written = RdfFileServiceJena.openModelFromFile(this.outFile.toString());
+        assertThat(written.isIsomorphicWith(model)).isTrue();
+    }
+
+    /**
+     * Test that N-Triples output of the file service is written by the parallel writer.
+     * @throws Exception
+     */
+    @Test
+    public void testSaveModelToFile() throws Exception {
+        final Model model = RdfFileServiceJena.openModelFromFile(this.testFile.getAbsolutePath());
+
+        assertThat(RdfFileServiceJena.saveModelToFile(this.outFile.toString(), model, "NTRIPLES")).isTrue();
+
+        final Model written = RdfFileServiceJena.openModelFromFile(this.outFile.toString());
+        assertThat(written.isIsomorphicWith(model)).isTrue();
+    }
+
+}
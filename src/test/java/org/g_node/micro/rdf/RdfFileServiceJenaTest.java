@@ -23,6 +23,9 @@ import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import org.apache.commons.io.FileUtils;
 import org.apache.log4j.ConsoleAppender;
 import org.apache.log4j.Level;
@@ -114,6 +117,14 @@ public class RdfFileServiceJenaTest {
         final String unsupportedFormat = "iDoNotExist";
         RdfFileServiceJena.saveModelToFile(outFilePath, model, unsupportedFormat);
         assertThat(this.outStream.toString()).contains(String.join("", unsupportedFormat, "' is not supported."));
+
+        // A failing writer neither replaces the output file nor leaves its temporary file behind.
+        final Path xmlPath = this.testFileFolder.resolve("testRdf.rdf");
+        FileUtils.write(xmlPath.toFile(), "previous");
+        model.add(model.createResource("http://test.org/A"), model.createProperty("http://test.org/1"), "invalid");
+        assertThat(RdfFileServiceJena.saveModelToFile(xmlPath.toString(), model, "RDF/XML")).isFalse();
+        assertThat(FileUtils.readFileToString(xmlPath.toFile())).isEqualTo("previous");
+        assertThat(this.testFileFolder.toFile().list((dir, name) -> name.endsWith(".tmp"))).isEmpty();
     }
 
     /**
@@ -233,4 +244,63 @@ public class RdfFileServiceJenaTest {
         assertThat(isValidRdfValid).isTrue();
     }
 
+    /**
+     * Test that loading an RDF file returns either the parsed model or the parse error including its position.
+     * @throws Exception
+     */
+    @Test
+    public void testLoadRdfFile() throws Exception {
+        final RdfLoadResult nonExisting = RdfFileServiceJena.loadRdfFile("iDoNotExistAtAll");
+        assertThat(nonExisting.isValid()).isFalse();
+        assertThat(nonExisting.getModel()).isNull();
+        assertThat(nonExisting.getErrorMessage()).contains("Not found: iDoNotExistAtAll");
+        assertThat(nonExisting.getLine()).isEqualTo(RdfLoadResult.UNKNOWN_POSITION);
+
+        final File invalidRdfFile = this.testFileFolder.resolve("invalid.ttl").toFile();
+        FileUtils.write(invalidRdfFile, "@prefix foaf: <http://xmlns.com/foaf/0.1/> .\n\nI am invalid!");
+
+        final RdfLoadResult invalid = RdfFileServiceJena.loadRdfFile(invalidRdfFile.getAbsolutePath());
+        assertThat(invalid.isValid()).isFalse();
+        assertThat(invalid.getFileName()).isEqualTo(invalidRdfFile.getAbsolutePath());
+        assertThat(invalid.getLine()).isEqualTo(3);
+        assertThat(this.outStream.toString()).contains("Failed to load file");
+
+        final String miniTTL = "@prefix foaf:  <http://xmlns.com/foaf/0.1/> . _:a foaf:name \"TestName\" .\n";
+        final File validRdfFile = this.testFileFolder.resolve("valid.ttl").toFile();
+        FileUtils.write(validRdfFile, miniTTL);
+
+        final RdfLoadResult valid = RdfFileServiceJena.loadRdfFile(validRdfFile.getAbsolutePath());
+        assertThat(valid.isValid()).isTrue();
+        assertThat(valid.getErrorMessage()).isNull();
+        assertThat(valid.getModel().size()).isEqualTo(1);
+        assertThat(valid.getModel().getNsPrefixURI("foaf")).isEqualTo("http://xmlns.com/foaf/0.1/");
+    }
+
+    /**
+     * Test that several RDF files are loaded concurrently and that the results are returned in order,
+     * independent of failures of individual files.
+     * @throws Exception
+     */
+    @Test
+    public void testLoadRdfFiles() throws Exception {
+        final String miniTTL = "@prefix foaf:  <http://xmlns.com/foaf/0.1/> . _:a foaf:name \"TestName\" .\n";
+        final File validRdfFile = this.testFileFolder.resolve("valid.ttl").toFile();
+        FileUtils.write(validRdfFile, miniTTL);
+
+        final File invalidRdfFile = this.testFileFolder.resolve("invalid.ttl").toFile();
+        FileUtils.write(invalidRdfFile, "I am an invalid RDF file!");
+
+        final List<RdfLoadResult> results = RdfFileServiceJena.loadRdfFiles(
+                Arrays.asList(validRdfFile.getAbsolutePath(), invalidRdfFile.getAbsolutePath()));
+
+        assertThat(results.size()).isEqualTo(2);
+        assertThat(results.get(0).isValid()).isTrue();
+        assertThat(results.get(0).getPrefixes()).containsEntry("foaf", "http://xmlns.com/foaf/0.1/");
+        assertThat(results.get(1).isValid()).isFalse();
+        assertThat(results.get(1).getFileName()).isEqualTo(invalidRdfFile.getAbsolutePath());
+        assertThat(results.get(1).getPrefixes()).isEmpty();
+
+        assertThat(RdfFileServiceJena.loadRdfFiles(Collections.<String>emptyList())).isEmpty();
+    }
+
 }
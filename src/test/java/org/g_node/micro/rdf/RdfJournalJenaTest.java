@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.io.FileUtils;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link RdfJournalJena} class.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class RdfJournalJenaTest {
+
+    private final String tmpRoot = System.getProperty("java.io.tmpdir");
+    private final String testFolderName = this.getClass().getSimpleName();
+    private final Path testFileFolder = Paths.get(tmpRoot, testFolderName);
+    private final File testMainFile = this.testFileFolder.resolve("main.ttl").toFile();
+    private final File testMergeFile = this.testFileFolder.resolve("merge.ttl").toFile();
+
+    /**
+     * Create a main and a merge Turtle test file.
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        final String mainTTL = String.join("\n",
+                "@prefix t: <http://test.org/> .",
+                "t:A t:name \"old\" ; t:has [ t:name \"old anon\" ] .",
+                "t:B t:name \"keep\" .",
+                "");
+        FileUtils.write(this.testMainFile, mainTTL, "UTF-8");
+
+        final String mergeTTL = String.join("\n",
+                "@prefix t: <http://test.org/> .",
+                "@prefix xsd: <http://www.w3.org/2001/XMLSchema#> .",
+                "t:A t:name \"neu ü\"@de ; t:age \"42\"^^xsd:int ; t:has [ t:name \"new anon\" ] .",
+                "");
+        FileUtils.write(this.testMergeFile, mergeTTL, "UTF-8");
+    }
+
+    /**
+     * Remove all created folders and files after the tests are done.
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (Files.exists(this.testFileFolder)) {
+            FileUtils.deleteDirectory(this.testFileFolder.toFile());
+        }
+    }
+
+    /**
+     * Test that replaying an appended record results in the same model as an in memory merge.
+     * @throws Exception
+     */
+    @Test
+    public void testAppendAndReplay() throws Exception {
+        final String mainFile = this.testMainFile.getAbsolutePath();
+        final Model mergeModel = RdfFileServiceJena.openModelFromFile(this.testMergeFile.getAbsolutePath());
+
+        final Model expected = RdfFileServiceJena.openModelFromFile(mainFile);
+        RdfUtilsJena.removePropertiesFromModel(expected, mergeModel, true);
+        expected.add(mergeModel);
+
+        assertThat(RdfJournalJena.hasJournal(mainFile)).isFalse();
+        assertThat(RdfJournalJena.replayJournal(mainFile, RdfFileServiceJena.openModelFromFile(mainFile)))
+                .isEqualTo(0);
+
+        assertThat(RdfJournalJena.appendRecord(
+                mainFile, RdfUtilsJena.getReplacedSubjects(mergeModel), mergeModel.getGraph())).isTrue();
+        assertThat(RdfJournalJena.hasJournal(mainFile)).isTrue();
+
+        final Model replayed = RdfFileServiceJena.openModelFromFile(mainFile);
+        assertThat(RdfJournalJena.replayJournal(mainFile, replayed)).isEqualTo(1);
+        assertThat(replayed.isIsomorphicWith(expected)).isTrue();
+
+        assertThat(RdfJournalJena.deleteJournal(mainFile)).isTrue();
+        assertThat(RdfJournalJena.hasJournal(mainFile)).isFalse();
+    }
+
+    /**
+     * Test that records appended concurrently are not interleaved.
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentAppend() throws Exception {
+        final String mainFile = this.testMainFile.getAbsolutePath();
+        final Model mergeModel = RdfFileServiceJena.openModelFromFile(this.testMergeFile.getAbsolutePath());
+        final int appends = 16;
+
+        final ExecutorService pool = Executors.newFixedThreadPool(4);
+        final List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < appends; i++) {
+            results.add(pool.submit(() -> RdfJournalJena.appendRecord(
+                    mainFile, RdfUtilsJena.getReplacedSubjects(mergeModel), mergeModel.getGraph())));
+        }
+        for (final Future<Boolean> result : results) {
+            assertThat(result.get()).isTrue();
+        }
+        pool.shutdown();
+
+        assertThat(RdfJournalJena.replayJournal(mainFile, RdfFileServiceJena.openModelFromFile(mainFile)))
+                .isEqualTo(appends);
+    }
+
+    /**
+     * Test that an incomplete last record is ignored and removed by the next append and that an invalid
+     * journal is rejected.
+     * @throws Exception
+     */
+    @Test
+    public void testIncompleteAndInvalidRecord() throws Exception {
+        final String mainFile = this.testMainFile.getAbsolutePath();
+        final Model mergeModel = RdfFileServiceJena.openModelFromFile(this.testMergeFile.getAbsolutePath());
+        RdfJournalJena.appendRecord(mainFile, RdfUtilsJena.getReplacedSubjects(mergeModel), mergeModel.getGraph());
+
+        final Path journal = RdfJournalJena.getJournalPath(mainFile);
+        Files.write(journal, "TX .\nR <http://test.org/B> .\nA <http://test.org/B> <http://te".getBytes(
+                StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        final Model replayed = RdfFileServiceJena.openModelFromFile(mainFile);
+        assertThat(RdfJournalJena.replayJournal(mainFile, replayed)).isEqualTo(1);
+        assertThat(replayed.listSubjectsWithProperty(
+                replayed.createProperty("http://test.org/name"), "keep").hasNext()).isTrue();
+
+        // A complete record following an incomplete record is rejected.
+        final byte[] interrupted = Files.readAllBytes(journal);
+        final String record = "TX .\nR <http://test.org/B> .\nTC .\n";
+        Files.write(journal, record.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        assertThat(RdfJournalJena.replayJournal(mainFile, RdfFileServiceJena.openModelFromFile(mainFile)))
+                .isEqualTo(-1);
+
+        // The incomplete record is removed before the next record is appended.
+        Files.write(journal, interrupted);
+        assertThat(RdfJournalJena.appendRecord(
+                mainFile, RdfUtilsJena.getReplacedSubjects(mergeModel), mergeModel.getGraph())).isTrue();
+        assertThat(RdfJournalJena.replayJournal(mainFile, RdfFileServiceJena.openModelFromFile(mainFile)))
+                .isEqualTo(2);
+        assertThat(new String(Files.readAllBytes(journal), StandardCharsets.UTF_8)).doesNotContain("<http://te\n");
+
+        Files.write(journal, "X <http://test.org/B> .\n".getBytes(StandardCharsets.UTF_8));
+        assertThat(RdfJournalJena.replayJournal(mainFile, RdfFileServiceJena.openModelFromFile(mainFile)))
+                .isEqualTo(-1);
+    }
+
+}
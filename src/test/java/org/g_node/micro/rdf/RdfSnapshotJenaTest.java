@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import org.apache.commons.io.FileUtils;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link RdfSnapshotJena} class.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class RdfSnapshotJenaTest {
+
+    private final String tmpRoot = System.getProperty("java.io.tmpdir");
+    private final String testFolderName = this.getClass().getSimpleName();
+    private final Path testFileFolder = Paths.get(tmpRoot, testFolderName);
+    private final File testFile = this.testFileFolder.resolve("test.ttl").toFile();
+
+    /**
+     * Create a Turtle test file containing all kinds of RDF terms.
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        final String testTTL = String.join("\n",
+                "@prefix foaf: <http://xmlns.com/foaf/0.1/> .",
+                "@prefix xsd: <http://www.w3.org/2001/XMLSchema#> .",
+                "<http://test.org/A> foaf:name \"plain\" ;",
+                "    foaf:nick \"Spitzname\"@de ;",
+                "    foaf:age \"42\"^^xsd:int ;",
+                "    foaf:knows [ foaf:name \"anon ü\" ; foaf:knows [ foaf:name \"nested\" ] ] .",
+                "");
+        FileUtils.write(this.testFile, testTTL, "UTF-8");
+    }
+
+    /**
+     * Remove all created folders and files after the tests are done.
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (Files.exists(this.testFileFolder)) {
+            FileUtils.deleteDirectory(this.testFileFolder.toFile());
+        }
+    }
+
+    /**
+     * Test that a saved snapshot results in the same model as parsing the source file.
+     * @throws Exception
+     */
+    @Test
+    public void testWriteAndReadSnapshot() throws Exception {
+        final String source = this.testFile.getAbsolutePath();
+        final Model model = RdfFileServiceJena.openModelFromFile(source);
+
+        assertThat(RdfSnapshotJena.readSnapshot(source)).isNull();
+        assertThat(RdfSnapshotJena.writeSnapshot(source, model)).isTrue();
+        assertThat(Files.exists(RdfSnapshotJena.getSnapshotPath(source))).isTrue();
+
+        final Model snapshotModel = RdfSnapshotJena.readSnapshot(source);
+        assertThat(snapshotModel).isNotNull();
+        assertThat(snapshotModel.size()).isEqualTo(model.size());
+        assertThat(snapshotModel.isIsomorphicWith(model)).isTrue();
+        assertThat(snapshotModel.getNsPrefixMap()).isEqualTo(model.getNsPrefixMap());
+
+        final RdfLoadResult result = RdfFileServiceJena.loadRdfFile(source, true);
+        assertThat(result.isValid()).isTrue();
+        assertThat(result.getModel().isIsomorphicWith(model)).isTrue();
+    }
+
+    /**
+     * Test that a snapshot is ignored, if its source file has changed.
+     * @throws Exception
+     */
+    @Test
+    public void testOutdatedSnapshot() throws Exception {
+        final String source = this.testFile.getAbsolutePath();
+        RdfSnapshotJena.writeSnapshot(source, RdfFileServiceJena.openModelFromFile(source));
+
+        final FileTime modified = Files.getLastModifiedTime(this.testFile.toPath());
+        Files.setLastModifiedTime(this.testFile.toPath(), FileTime.fromMillis(modified.toMillis() + 2000));
+        assertThat(RdfSnapshotJena.readSnapshot(source)).isNull();
+
+        // Same size and modification time, but different content.
+        final String content = FileUtils.readFileToString(this.testFile, "UTF-8");
+        FileUtils.write(this.testFile, content.replace("plain", "PLAIN"), "UTF-8");
+        Files.setLastModifiedTime(this.testFile.toPath(), modified);
+        assertThat(RdfSnapshotJena.readSnapshot(source)).isNull();
+
+        final RdfLoadResult result = RdfFileServiceJena.loadRdfFile(source, true);
+        assertThat(result.isValid()).isTrue();
+        assertThat(result.getModel().contains(null, null, "PLAIN")).isTrue();
+    }
+
+    /**
+     * Test that a corrupt snapshot is ignored.
+     * @throws Exception
+     */
+    @Test
+    public void testCorruptSnapshot() throws Exception {
+        final String source = this.testFile.getAbsolutePath();
+        FileUtils.write(RdfSnapshotJena.getSnapshotPath(source).toFile(), "RDFSNAP", "UTF-8");
+
+        assertThat(RdfSnapshotJena.readSnapshot(source)).isNull();
+        assertThat(RdfFileServiceJena.loadRdfFile(source, true).isValid()).isTrue();
+    }
+
+}
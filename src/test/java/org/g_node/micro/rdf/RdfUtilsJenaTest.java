@@ -15,6 +15,7 @@ import com.hp.hpl.jena.rdf.model.Model;
 import com.hp.hpl.jena.rdf.model.ModelFactory;
 import com.hp.hpl.jena.rdf.model.Property;
 import com.hp.hpl.jena.rdf.model.Resource;
+import com.hp.hpl.jena.rdf.model.ResourceFactory;
 import com.hp.hpl.jena.vocabulary.RDFS;
 import java.io.File;
 import java.nio.file.Files;
@@ -173,16 +174,101 @@ public class RdfUtilsJenaTest {
         FileUtils.write(remFile, removeRdfFileContent);
         Model removeModel = RdfFileServiceJena.openModelFromFile(remFile.getAbsolutePath());
 
-        // Test removes all properties of an identical URI node including linked anonymous node properties.
+        // Test removes all properties of identical URI nodes including linked anonymous node properties.
+        // The top level node RootID is never used as an object, but is replaced as well.
         mainMain = RdfUtilsJena.removePropertiesFromModel(removeModel, mainMain, true);
 
-        assertThat(mainMain.size()).isEqualTo(8);
+        assertThat(mainMain.size()).isEqualTo(6);
 
         // Test remove all properties of an identical URI node but keeping linked anonymous node properties.
         mainMain = RdfFileServiceJena.openModelFromFile(mainFile.getAbsolutePath());
         mainMain = RdfUtilsJena.removePropertiesFromModel(removeModel, mainMain, false);
 
-        assertThat(mainMain.size()).isEqualTo(10);
+        assertThat(mainMain.size()).isEqualTo(8);
+    }
+
+    /**
+     * Method tests that the parallel replacement of subjects results in the same model as the
+     * sequential replacement, independent of the number of threads and the store type.
+     * @throws Exception
+     */
+    @Test
+    public void testRemovePropertiesFromModelParallel() throws Exception {
+        final String ns = "http://test.org/testResource/";
+        final Property p = ResourceFactory.createProperty(ns, "hasValue");
+        final Property anon = ResourceFactory.createProperty(ns, "hasAnonNode");
+
+        final Model removeModel = ModelFactory.createDefaultModel();
+        for (int i = 0; i < 1000; i += 3) {
+            removeModel.createResource(String.join("", ns, String.valueOf(i))).addProperty(p, "new");
+        }
+
+        for (final String store : RdfFileServiceJena.STORE_TYPES) {
+            Model expected = null;
+            for (final int threads : new int[]{1, 2, 5}) {
+                final Model main = RdfFileServiceJena.createModel(store);
+                for (int i = 0; i < 1000; i++) {
+                    final Resource r = main.createResource(String.join("", ns, String.valueOf(i)));
+                    r.addProperty(p, "old");
+                    r.addProperty(anon, main.createResource().addProperty(p, String.valueOf(i)));
+                }
+
+                final Model result = RdfUtilsJena.removePropertiesFromModel(removeModel, main, true, threads);
+                assertThat(result.size()).isEqualTo(666 * 3);
+                if (expected == null) {
+                    expected = result;
+                } else {
+                    assertThat(result.isIsomorphicWith(expected)).isTrue();
+                }
+            }
+        }
+    }
+
+    /**
+     * Method tests that the properties of nested and cyclic anonymous nodes of a replaced node are removed
+     * completely, while anonymous nodes of other nodes are kept.
+     * @throws Exception
+     */
+    @Test
+    public void testRemoveNestedAnonNodes() throws Exception {
+        final String mainRdfFileContent = String.join("\n",
+                "@prefix res: <http://test.org/testResource/> .",
+                "res:RemoveTestID res:hasAnonNode [ res:hasAnonNode [ res:hasAnonNode [ res:value \"deep\" ] ] ] .",
+                "res:RemoveTestID res:hasAnonNode _:a .",
+                "_:a res:next _:b .",
+                "_:b res:next _:a .",
+                "_:b res:value \"cycle\" .",
+                "res:KeepTestID res:hasAnonNode [ res:hasAnonNode [ res:value \"keep\" ] ] .",
+                "");
+        final String removeRdfFileContent = String.join("\n",
+                "@prefix res: <http://test.org/testResource/> .",
+                "res:RemoveTestID res:value \"new\" .",
+                "");
+
+        final File mainFile = this.testFileFolder.resolve("main.ttl").toFile();
+        FileUtils.write(mainFile, mainRdfFileContent);
+        final File remFile = this.testFileFolder.resolve("remove.ttl").toFile();
+        FileUtils.write(remFile, removeRdfFileContent);
+        final Model removeModel = RdfFileServiceJena.openModelFromFile(remFile.getAbsolutePath());
+
+        for (final String store : RdfFileServiceJena.STORE_TYPES) {
+            for (final int threads : new int[]{1, 3}) {
+                final Model main = RdfFileServiceJena.loadRdfFile(mainFile.getAbsolutePath(), false, store)
+                        .getModel();
+                assertThat(main.size()).isEqualTo(11);
+
+                RdfUtilsJena.removePropertiesFromModel(removeModel, main, true, threads);
+                assertThat(main.size()).isEqualTo(3);
+                assertThat(main.listSubjectsWithProperty(
+                        ResourceFactory.createProperty("http://test.org/testResource/", "value")).toList())
+                        .hasSize(1);
+            }
+        }
+
+        final Model main = RdfFileServiceJena.openModelFromFile(mainFile.getAbsolutePath());
+        RdfUtilsJena.removeAnonProperties(
+                main.getResource("http://test.org/testResource/RemoveTestID").listProperties());
+        assertThat(main.size()).isEqualTo(5);
     }
 
 }
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.NodeFactory;
+import com.hp.hpl.jena.graph.Triple;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link StreamBlankNodeCollectorJena} class.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class StreamBlankNodeCollectorJenaTest {
+
+    private final Node subject = NodeFactory.createURI("http://test.org/A");
+    private final Node has = NodeFactory.createURI("http://test.org/has");
+    private final Node name = NodeFactory.createURI("http://test.org/name");
+
+    /**
+     * Tests that a nested blank node chain listed innermost first is collected by repeated passes,
+     * while references between blank nodes that are not reachable from a replaced subject are never kept.
+     * @throws Exception
+     */
+    @Test
+    public void testNestedChainInReverseOrder() throws Exception {
+        final Node first = NodeFactory.createAnon();
+        final Node second = NodeFactory.createAnon();
+        final Node third = NodeFactory.createAnon();
+        final Node unrelated = NodeFactory.createAnon();
+        final Node unrelatedChild = NodeFactory.createAnon();
+
+        final List<Triple> triples = Arrays.asList(
+                Triple.create(unrelated, this.has, unrelatedChild),
+                Triple.create(third, this.name, NodeFactory.createLiteral("deep")),
+                Triple.create(second, this.has, third),
+                Triple.create(first, this.has, second),
+                Triple.create(this.subject, this.has, first),
+                Triple.create(NodeFactory.createURI("http://test.org/B"), this.has, unrelated));
+
+        final StreamBlankNodeCollectorJena collector =
+                new StreamBlankNodeCollectorJena(Collections.singleton(this.subject));
+
+        collector.startPass();
+        triples.forEach(collector::triple);
+        assertThat(collector.hasGrown()).isTrue();
+        assertThat(collector.getBlankNodeClosure()).containsOnly(first);
+
+        do {
+            collector.startPass();
+            triples.forEach(collector::triple);
+        } while (collector.hasGrown());
+
+        assertThat(collector.getBlankNodeClosure()).containsOnly(first, second, third);
+        assertThat(collector.getPasses()).isEqualTo(4);
+    }
+
+    /**
+     * Tests that a chain listed outermost first and cyclic references are collected by a single pass.
+     * @throws Exception
+     */
+    @Test
+    public void testChainInOrderAndCycle() throws Exception {
+        final Node first = NodeFactory.createAnon();
+        final Node second = NodeFactory.createAnon();
+
+        final List<Triple> triples = Arrays.asList(
+                Triple.create(this.subject, this.has, first),
+                Triple.create(first, this.has, second),
+                Triple.create(second, this.has, first));
+
+        final StreamBlankNodeCollectorJena collector =
+                new StreamBlankNodeCollectorJena(Collections.singleton(this.subject));
+        collector.startPass();
+        triples.forEach(collector::triple);
+        assertThat(collector.getBlankNodeClosure()).containsOnly(first, second);
+
+        collector.startPass();
+        triples.forEach(collector::triple);
+        assertThat(collector.hasGrown()).isFalse();
+        assertThat(collector.getPasses()).isEqualTo(2);
+    }
+
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2016, German Neuroinformatics Node (G-Node)
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted under the terms of the BSD License. See
+ * LICENSE file in the root of the Project.
+ */
+
+package org.g_node.micro.rdf;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.apache.commons.io.FileUtils;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link TurtleStreamWriterJena} class.
+ *
+ * @author Michael Sonntag (sonntag@bio.lmu.de)
+ */
+public class TurtleStreamWriterJenaTest {
+
+    private final String tmpRoot = System.getProperty("java.io.tmpdir");
+    private final String testFolderName = this.getClass().getSimpleName();
+    private final Path testFileFolder = Paths.get(tmpRoot, testFolderName);
+    private final File testFile = this.testFileFolder.resolve("test.ttl").toFile();
+    private final File outFile = this.testFileFolder.resolve("out.ttl").toFile();
+
+    /**
+     * Create a Turtle test file containing nested, shared and cyclic Blank Nodes and all kinds of literals.
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        final StringBuilder chain = new StringBuilder("<http://test.org/Deep> foaf:knows ");
+        for (int i = 0; i < 40; i++) {
+            chain.append("[ foaf:name \"level ").append(i).append("\" ; foaf:knows ");
+        }
+        chain.append("<http://test.org/A>");
+        for (int i = 0; i < 40; i++) {
+            chain.append(" ]");
+        }
+        chain.append(" .");
+
+        final String testTTL = String.join("\n",
+                "@prefix foaf: <http://xmlns.com/foaf/0.1/> .",
+                "@prefix xsd: <http://www.w3.org/2001/XMLSchema#> .",
+                "@prefix t: <http://test.org/> .",
+                "t:A a foaf:Person ;",
+                "    foaf:name \"plain\" , \"with \\\"quotes\\\" and\\nline\\tbreaks \\\\\" ;",
+                "    foaf:nick \"Spitzname\"@de ;",
+                "    foaf:age \"42\"^^xsd:int ;",
+                "    <https://github.com/G-Node/neuro-ontology/hasValue> \"1.5\"^^xsd:double ;",
+                "    <http://test.org/odd#local.name> \"odd\" ;",
+                "    foaf:knows [ foaf:name \"anon ü\" ; foaf:knows [ foaf:name \"nested\" ] ] , [] .",
+                "t:B foaf:knows _:shared .",
+                "t:C foaf:knows _:shared .",
+                "_:shared foaf:name \"shared\" .",
+                "_:cycleA foaf:knows _:cycleB .",
+                "_:cycleB foaf:knows _:cycleA .",
+                chain.toString(),
+                "");
+        FileUtils.write(this.testFile, testTTL, "UTF-8");
+    }
+
+    /**
+     * Remove all created folders and files after the tests are done.
+     * @throws Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (Files.exists(this.testFileFolder)) {
+            FileUtils.deleteDirectory(this.testFileFolder.toFile());
+        }
+    }
+
+    /**
+     * Test that a graph written by the streaming Turtle writer is read back as the same graph.
+     * @throws Exception
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        final Model model = RdfFileServiceJena.openModelFromFile(this.testFile.getAbsolutePath());
+        final String out = this.outFile.getAbsolutePath();
+
+        assertThat(RdfFileServiceJena.saveModelToFile(out, model, "TTL-STREAM")).isTrue();
+
+        final Model written = RdfFileServiceJena.openModelFromFile(out);
+        assertThat(written.size()).isEqualTo(model.size());
+        assertThat(written.isIsomorphicWith(model)).isTrue();
+    }
+
+    /**
+     * Test that IRIs are abbreviated by the prefixes of the graph and the namespaces of {@link RdfConstants}
+     * and that Blank Nodes referenced once are written inline.
+     * @throws Exception
+     */
+    @Test
+    public void testCompactOutput() throws Exception {
+        final Model model = RdfFileServiceJena.openModelFromFile(this.testFile.getAbsolutePath());
+        final String out = this.outFile.getAbsolutePath();
+        RdfFileServiceJena.saveModelToFile(out, model, "TTL-STREAM");
+
+        final String content = FileUtils.readFileToString(this.outFile, "UTF-8");
+        assertThat(content).contains("@prefix gn: <https://github.com/G-Node/neuro-ontology/> .");
+        assertThat(content).doesNotContain("@prefix dc:");
+        assertThat(content).contains("t:A a foaf:Person");
+        assertThat(content).contains("gn:hasValue \"1.5\"^^xsd:double");
+        assertThat(content).contains("<http://test.org/odd#local.name>");
+        assertThat(content).contains("\"Spitzname\"@de");
+        assertThat(content).contains("[ foaf:name \"nested\"");
+        assertThat(content).doesNotContain("http://xmlns.com/foaf/0.1/name");
+    }
+
+}
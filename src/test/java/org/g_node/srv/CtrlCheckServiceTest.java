@@ -159,4 +159,12 @@ public class CtrlCheckServiceTest {
         ));
     }
 
+    @Test
+    public void testIsPositiveIntCliArgValue() throws Exception {
+        assertThat(CtrlCheckService.isPositiveIntCliArgValue("4", "")).isTrue();
+
+        assertThat(CtrlCheckService.isPositiveIntCliArgValue("0", "")).isFalse();
+        assertThat(CtrlCheckService.isPositiveIntCliArgValue("four", "")).isFalse();
+    }
+
 }